@@ -0,0 +1,244 @@
+package text.editor.bench;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import text.editor.model.PieceTableDocument;
+
+
+/**
+ * Makes the text and the files the benchmarks work on. Everything is made
+ * from a fixed seed, so every run of a benchmark sees the same data.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class BenchmarkData {
+
+
+    /** The seed of all the random text. */
+    private static final long SEED = 20261017L;
+
+
+    /** The words the text is made of, with a few that need escaping in RTF. */
+    private static final String[] WORDS = {
+        "the", "editor", "piece", "table", "document", "style", "a", "of",
+        "caf\u00e9", "na\u00efve", "{brace}", "back\\slash", "lorem", "ipsum",
+        "dolor", "sit", "amet", "consectetur", "adipiscing", "elit"
+    };
+
+
+    /** The longest a line of text gets, in characters. */
+    private static final int LINE_LENGTH = 80;
+
+
+    /**
+     * Private constructor so the BenchmarkData class cannot be instantiated.
+     */
+    private BenchmarkData() {}
+
+
+    /**
+     * Returns the amount of bytes a size parameter stands for.
+     *
+     * @param size      1KB, 1MB, 100MB or 1GB, or any number with KB, MB or
+     *                  GB after it.
+     * @return          The amount of bytes.
+     */
+    public static long parseSize(String size) {
+
+        String unit = size.substring(size.length() - 2).toUpperCase();
+        long count  = Long.parseLong(size.substring(0, size.length() - 2));
+
+        switch(unit) {
+            case "KB":
+                return count * 1024;
+            case "MB":
+                return count * 1024 * 1024;
+            case "GB":
+                return count * 1024 * 1024 * 1024;
+            default:
+                throw new IllegalArgumentException("Unknown size: "+size);
+        }
+
+    }
+
+
+    /**
+     * Returns text of about a given length, made of lines of words.
+     *
+     * @param length    The amount of characters.
+     * @return          The text.
+     */
+    public static String text(int length) {
+
+        StringBuilder text  = new StringBuilder(length + LINE_LENGTH);
+        Random random       = new Random(SEED);
+        int lineStart       = 0;
+
+        while(text.length() < length) {
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+            if(text.length() - lineStart >= LINE_LENGTH) {
+                text.append('\n');
+                lineStart = text.length();
+            } else {
+                text.append(' ');
+            }
+        }
+
+        text.setLength(length);
+        return text.toString();
+    }
+
+
+    /**
+     * Returns a document holding text of a given length, one paragraph for
+     * each line.
+     *
+     * @param length    The amount of characters.
+     * @return          The document.
+     */
+    public static PieceTableDocument document(int length) {
+        return new PieceTableDocument(text(length));
+    }
+
+
+    /**
+     * Writes a plain text file of about a given size in UTF-8. The text is
+     * written a line at a time, so a file of a gigabyte does not have to fit
+     * into the heap.
+     *
+     * @param file      The file.
+     * @param size      The amount of bytes.
+     * @throws IOException if the file can not be written.
+     */
+    public static void writeText(File file, long size) throws IOException {
+
+        Random random = new Random(SEED);
+
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                                new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+            for(long written = 0; written < size; ) {
+                written += writeLine(out, random);
+            }
+        }
+
+    }
+
+
+    /**
+     * Writes an RTF file of about a given size, with a bold or italic word
+     * now and then, the way the editor writes them.
+     *
+     * @param file      The file.
+     * @param size      The amount of bytes.
+     * @throws IOException if the file can not be written.
+     */
+    public static void writeRtf(File file, long size) throws IOException {
+
+        Random random = new Random(SEED);
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+
+            StringBuilder line = new StringBuilder(LINE_LENGTH * 2);
+            long written = ascii(out, "{\\rtf1\\ansi\\ansicpg1252\\deff0\\uc1\n"
+                                    + "{\\fonttbl{\\f0\\fnil Dialog;}{\\f1\\fnil Serif;}}\n"
+                                    + "\\plain ");
+
+            while(written < size) {
+
+                line.setLength(0);
+                while(line.length() < LINE_LENGTH) {
+                    String word = WORDS[random.nextInt(WORDS.length)];
+                    int style   = random.nextInt(16);
+                    if(style == 0) {
+                        line.append("\\plain\\b ");
+                    } else if(style == 1) {
+                        line.append("\\plain\\f1\\fs28\\i ");
+                    }
+                    escape(line, word);
+                    if(style <= 1) {
+                        line.append("\\plain ");
+                    }
+                    line.append(' ');
+                }
+                line.append("\\par\n");
+
+                written += ascii(out, line);
+            }
+
+            ascii(out, "}\n");
+        }
+
+    }
+
+
+    /**
+     * Writes a line of words.
+     *
+     * @param out       Where to write it.
+     * @param random    Picks the words.
+     * @return          About the amount of bytes written.
+     * @throws IOException if writing fails.
+     */
+    private static int writeLine(Writer out, Random random) throws IOException {
+
+        int length = 0;
+
+        while(length < LINE_LENGTH) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            out.write(word);
+            out.write(' ');
+            length += word.length() + 1;
+        }
+        out.write('\n');
+
+        return length + 1;
+    }
+
+
+    /**
+     * Escapes a word for RTF.
+     *
+     * @param line      Where to put it.
+     * @param word      The word.
+     */
+    private static void escape(StringBuilder line, String word) {
+        for(int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if(c == '\\' || c == '{' || c == '}') {
+                line.append('\\').append(c);
+            } else if(c >= 0x80) {
+                line.append("\\'").append(Integer.toHexString(c));
+            } else {
+                line.append(c);
+            }
+        }
+    }
+
+
+    /**
+     * Writes ASCII text.
+     *
+     * @param out       Where to write it.
+     * @param text      The text.
+     * @return          The amount of bytes written.
+     * @throws IOException if writing fails.
+     */
+    private static int ascii(OutputStream out, CharSequence text) throws IOException {
+        for(int i = 0; i < text.length(); i++) {
+            out.write(text.charAt(i));
+        }
+        return text.length();
+    }
+
+}
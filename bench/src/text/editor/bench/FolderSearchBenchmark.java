@@ -0,0 +1,143 @@
+package text.editor.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import text.editor.io.FolderSearch;
+import text.editor.search.ParallelSearch;
+import text.editor.search.TextFinder;
+
+
+/**
+ * Finding "editor" in every file under a folder, the way Find in Files does.
+ * The files are spread over folders of 100 files each, and are all of the
+ * same size, so the time of the small files shows what walking the tree and
+ * opening the files costs, and that of the large ones what mapping and
+ * scanning them costs.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class FolderSearchBenchmark {
+
+
+    /** The amount of files. */
+    @Param({"1000", "10000"})
+    public int files;
+
+
+    /** The size of every file. */
+    @Param({"4KB", "1MB"})
+    public String size;
+
+
+    /** The folder that is searched. */
+    private Path root;
+
+
+    /** What is searched for. */
+    private TextFinder finder;
+
+
+    /**
+     * Writes the files. The text of every file is the same.
+     *
+     * @throws IOException if the files can not be written.
+     */
+    @Setup(Level.Trial)
+    public void createFiles() throws IOException {
+
+        root    = Files.createTempDirectory("bench-folder-");
+        finder  = TextFinder.of("editor", true, false);
+
+        File first = null;
+        for(int i = 0; i < files; i++) {
+            Path folder = root.resolve("folder" + (i / 100));
+            Files.createDirectories(folder);
+            File file = folder.resolve("file" + i + ".txt").toFile();
+            if(first == null) {
+                BenchmarkData.writeText(file, BenchmarkData.parseSize(size));
+                first = file;
+            } else {
+                Files.copy(first.toPath(), file.toPath());
+            }
+        }
+    }
+
+
+    /**
+     * Deletes the files and the folders.
+     *
+     * @throws IOException if the files can not be deleted.
+     */
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for(Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+
+    /**
+     * Searches every file and waits until the search is done.
+     *
+     * @return          The amount of matches.
+     * @throws InterruptedException if the thread is interrupted while it
+     *                              waits.
+     */
+    @Benchmark
+    public int search() throws InterruptedException {
+
+        AtomicInteger count = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+
+        new FolderSearch(root.toFile(), finder, Collections.<String>emptyList(), Long.MAX_VALUE, 100,
+                         new FolderSearch.Listener() {
+
+            @Override
+            public void found(File file, String name, ParallelSearch.Result result) {
+                count.addAndGet(result.getCount());
+            }
+
+            @Override
+            public void done() {
+                done.countDown();
+            }
+
+        }).start();
+
+        done.await();
+        return count.get();
+    }
+
+}
@@ -0,0 +1,97 @@
+package text.editor.bench;
+
+import java.util.concurrent.TimeUnit;
+import javax.swing.text.BadLocationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import text.editor.model.PieceTableDocument;
+
+
+/**
+ * Typing a single character at the start, in the middle and at the end of a
+ * document. The document is made again for every iteration, so the piece
+ * table grows by about as many pieces as a long session of typing leaves.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class InsertBenchmark {
+
+
+    /** The length of the document, in characters. */
+    @Param({"1KB", "1MB", "100MB"})
+    public String size;
+
+
+    /** Where the characters are typed. */
+    @Param({"start", "middle", "end"})
+    public String position;
+
+
+    /** The document typed into. */
+    private PieceTableDocument doc;
+
+
+    /** The text the document is made of, kept so it is only made once. */
+    private String text;
+
+
+    /** Whether to type at the end of the document. */
+    private boolean atEnd;
+
+
+    /** Where to type, unless at the end. */
+    private int offset;
+
+
+    /**
+     * Makes the text once for all the iterations.
+     */
+    @Setup(Level.Trial)
+    public void createText() {
+        text = BenchmarkData.text((int)BenchmarkData.parseSize(size));
+    }
+
+
+    /**
+     * Makes a new document out of the text.
+     */
+    @Setup(Level.Iteration)
+    public void createDocument() {
+        doc     = new PieceTableDocument(text);
+        atEnd   = position.equals("end");
+        offset  = position.equals("start") ? 0 : text.length() / 2;
+    }
+
+
+    /**
+     * Types a character.
+     *
+     * @return          The document.
+     * @throws BadLocationException if the offset is not in the document.
+     */
+    @Benchmark
+    public PieceTableDocument insert() throws BadLocationException {
+        doc.insertString(atEnd ? doc.getLength() : offset, "x", null);
+        return doc;
+    }
+
+}
@@ -0,0 +1,181 @@
+package text.editor.bench;
+
+import java.util.concurrent.TimeUnit;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import text.editor.model.PieceTableDocument;
+import text.editor.recovery.EditJournal;
+import text.editor.recovery.RecoveryManager;
+
+
+/**
+ * What the DocumentManager of a MainTextPane adds to every keystroke. The
+ * DocumentManager itself needs the main window, so the listeners here do
+ * the same work without it: "counter" keeps the character and modification
+ * counts, "journal" also records the edit in an EditJournal the way the
+ * DocumentManager does. "none" is the document on its own.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ListenerBenchmark {
+
+
+    /** The listener on the document. */
+    @Param({"none", "counter", "journal"})
+    public String listener;
+
+
+    /** The document typed into. */
+    private PieceTableDocument doc;
+
+
+    /** The journal of the "journal" listener. */
+    private EditJournal journal;
+
+
+    /** The text the document is made of. */
+    private String text;
+
+
+    /**
+     * Makes the text once for all the iterations.
+     */
+    @Setup(Level.Trial)
+    public void createText() {
+        text = BenchmarkData.text(1024 * 1024);
+        if(listener.equals("journal")) {
+            journal = RecoveryManager.createJournal();
+        }
+    }
+
+
+    /**
+     * Makes a new document with the listener, so every iteration types into
+     * a document of the same size.
+     */
+    @Setup(Level.Iteration)
+    public void createDocument() {
+
+        doc = new PieceTableDocument(text);
+
+        if(!listener.equals("none")) {
+            doc.addDocumentListener(new Manager(journal));
+        }
+
+        // The first edit writes a checkpoint, which is not what is measured.
+        if(journal != null) {
+            journal.checkpoint(doc);
+        }
+    }
+
+
+    /**
+     * Deletes the journal.
+     */
+    @TearDown(Level.Trial)
+    public void deleteJournal() {
+        if(journal != null) {
+            journal.close();
+            RecoveryManager.cleanExit();
+        }
+    }
+
+
+    /**
+     * Types a character in the middle of the document.
+     *
+     * @return          The document.
+     * @throws BadLocationException if the offset is not in the document.
+     */
+    @Benchmark
+    public PieceTableDocument insert() throws BadLocationException {
+        doc.insertString(doc.getLength() / 2, "x", null);
+        return doc;
+    }
+
+
+    /**
+     * Does what the DocumentManager does on every edit, apart from updating
+     * the labels of the main window.
+     */
+    private static class Manager implements DocumentListener {
+
+
+        /** The journal, or null. */
+        private final EditJournal journal;
+
+
+        /** The amount of characters in the document. */
+        private int amountOfCharacters;
+
+
+        /** The amount of edits made to the document. */
+        private long modificationCount;
+
+
+        /**
+         * Constructor for a Manager.
+         *
+         * @param journal   The journal, or null to only count.
+         */
+        Manager(EditJournal journal) {
+            this.journal = journal;
+        }
+
+
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            amountOfCharacters += e.getLength();
+            modificationCount++;
+            if(journal != null) {
+                try {
+                    journal.insert(e.getDocument(), e.getOffset(),
+                                   e.getDocument().getText(e.getOffset(), e.getLength()));
+                } catch (BadLocationException err) {
+                    throw new IllegalStateException(err);
+                }
+            }
+        }
+
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            amountOfCharacters -= e.getLength();
+            modificationCount++;
+            if(journal != null) {
+                journal.remove(e.getDocument(), e.getOffset(), e.getLength());
+            }
+        }
+
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            // Style changes are not counted.
+        }
+
+    }
+
+}
@@ -0,0 +1,135 @@
+package text.editor.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import javax.swing.text.BadLocationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import text.editor.graphics.actions.FileType;
+import text.editor.io.DocumentIO;
+import text.editor.io.TextEncoding;
+import text.editor.model.DocumentSnapshot;
+import text.editor.model.PieceTableDocument;
+
+
+/**
+ * Loading and saving plain text and RTF files of 1 KB up to 1 GB, through
+ * DocumentIO, which is what ReadWriteUtilities and the loaders run on.
+ *
+ * A 1 GB file needs a heap of several gigabytes, see bench.jvmargs in
+ * build.xml. Leave it out with -p size=1KB,1MB,100MB.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class LoadSaveBenchmark {
+
+
+    /** The size of the file. */
+    @Param({"1KB", "1MB", "100MB", "1GB"})
+    public String size;
+
+
+    /** The format of the file. */
+    @Param({"txt", "rtf"})
+    public String format;
+
+
+    /** The file that is loaded. */
+    private File source;
+
+
+    /** The file that is saved over. */
+    private File target;
+
+
+    /** The format of the files. */
+    private FileType type;
+
+
+    /** The document that is saved, the contents of source. */
+    private PieceTableDocument doc;
+
+
+    /**
+     * Writes the file that is loaded and loads it once for the saves.
+     *
+     * @throws IOException if the files can not be written.
+     */
+    @Setup(Level.Trial)
+    public void createFiles() throws IOException {
+
+        type    = format.equals("rtf") ? FileType.RTF : FileType.TXT_OTHER;
+        source  = File.createTempFile("bench-load-", "."+format);
+        target  = File.createTempFile("bench-save-", "."+format);
+
+        if(type == FileType.RTF) {
+            BenchmarkData.writeRtf(source, BenchmarkData.parseSize(size));
+        } else {
+            BenchmarkData.writeText(source, BenchmarkData.parseSize(size));
+        }
+
+        doc = DocumentIO.read(source, type, null, null);
+    }
+
+
+    /**
+     * Deletes the files.
+     *
+     * @throws IOException if the files can not be deleted.
+     */
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        doc = null;
+        Files.deleteIfExists(source.toPath());
+        Files.deleteIfExists(target.toPath());
+    }
+
+
+    /**
+     * Loads the file into a new document.
+     *
+     * @return          The document.
+     * @throws IOException if the file can not be read.
+     */
+    @Benchmark
+    public PieceTableDocument load() throws IOException {
+        return DocumentIO.read(source, type, TextEncoding.DEFAULT, null);
+    }
+
+
+    /**
+     * Takes a snapshot of the document and saves it, the way a save from
+     * the editor does, without forcing it to the disk.
+     *
+     * @throws IOException if the file can not be written.
+     * @throws BadLocationException if the document can not be read.
+     */
+    @Benchmark
+    public void save() throws IOException, BadLocationException {
+        DocumentSnapshot snapshot = DocumentSnapshot.of(doc, type != FileType.TXT_OTHER);
+        DocumentIO.write(snapshot, target, type, TextEncoding.DEFAULT, false);
+    }
+
+}
@@ -0,0 +1,117 @@
+package text.editor.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import text.editor.model.TextSnapshot;
+import text.editor.search.ParallelSearch;
+import text.editor.search.TextFinder;
+
+
+/**
+ * Finding "editor" in a number of open documents at once, the way Find in
+ * Open Tabs does, on a ForkJoinPool with one thread or with a thread for
+ * every core. Compared with each other, the two show how well the search
+ * scales with the cores of the machine.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ParallelSearchBenchmark {
+
+
+    /** The amount of open documents. */
+    @Param({"1", "16", "64"})
+    public int tabs;
+
+
+    /** The length of every document. */
+    @Param({"1MB", "16MB"})
+    public String size;
+
+
+    /** The amount of threads, 0 for one for every core. */
+    @Param({"1", "0"})
+    public int threads;
+
+
+    /** The snapshots of the documents. */
+    private final List<TextSnapshot> snapshots = new ArrayList<>();
+
+
+    /** The threads that search. */
+    private ForkJoinPool pool;
+
+
+    /** What is searched for. */
+    private TextFinder finder;
+
+
+    /**
+     * Makes the documents, which share their text, and the pool.
+     */
+    @Setup
+    public void createDocuments() {
+
+        TextSnapshot snapshot = BenchmarkData.document((int)BenchmarkData.parseSize(size)).getSnapshot();
+        for(int i = 0; i < tabs; i++) {
+            snapshots.add(snapshot);
+        }
+
+        pool    = new ForkJoinPool((threads == 0) ? Runtime.getRuntime().availableProcessors() : threads);
+        finder  = TextFinder.of("editor", true, false);
+    }
+
+
+    /**
+     * Shuts the pool down.
+     */
+    @TearDown
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+
+    /**
+     * Searches every document, each as a task of its own.
+     *
+     * @return          The amount of matches.
+     */
+    @Benchmark
+    public int search() {
+
+        List<ForkJoinTask<ParallelSearch.Result>> tasks = new ArrayList<>();
+        for(TextSnapshot snapshot : snapshots) {
+            tasks.add(pool.submit(new ParallelSearch(finder, snapshot, 1000, () -> false)));
+        }
+
+        int count = 0;
+        for(ForkJoinTask<ParallelSearch.Result> task : tasks) {
+            count += task.join().getCount();
+        }
+        return count;
+    }
+
+}
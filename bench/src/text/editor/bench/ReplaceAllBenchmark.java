@@ -0,0 +1,110 @@
+package text.editor.bench;
+
+import java.util.concurrent.TimeUnit;
+import javax.swing.text.BadLocationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import text.editor.model.PieceTableDocument;
+import text.editor.model.Replacements;
+import text.editor.search.TextFinder;
+
+
+/**
+ * Replacing every "editor" in a document with "EDITOR", either as a single
+ * edit with PieceTableDocument.replace, or the way a replace-all of remove
+ * and insertString calls would do it, with an event and an edit for every
+ * match. The matches are found on the snapshot of the document in both, so
+ * only the changes to the document are compared.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ReplaceAllBenchmark {
+
+
+    /** The length of the document, in characters. */
+    @Param({"1MB", "100MB"})
+    public String size;
+
+
+    /** How the matches are replaced. */
+    @Param({"single", "perMatch"})
+    public String method;
+
+
+    /** The document the matches are replaced in. */
+    private PieceTableDocument doc;
+
+
+    /** The text the document is made of, kept so it is only made once. */
+    private String text;
+
+
+    /** The matches of the document and their replacements. */
+    private Replacements replacements;
+
+
+    /**
+     * Makes the text once for all the iterations.
+     */
+    @Setup(Level.Trial)
+    public void createText() {
+        text = BenchmarkData.text((int)BenchmarkData.parseSize(size));
+    }
+
+
+    /**
+     * Makes a new document out of the text and finds its matches.
+     *
+     * @throws InterruptedException if the thread was interrupted.
+     */
+    @Setup(Level.Iteration)
+    public void createDocument() throws InterruptedException {
+        doc             = new PieceTableDocument(text);
+        replacements    = TextFinder.of("editor", true, false).replaceAll(doc.getSnapshot(), "EDITOR");
+    }
+
+
+    /**
+     * Replaces every match.
+     *
+     * @return          The document.
+     * @throws BadLocationException if a match is not in the document.
+     */
+    @Benchmark
+    public PieceTableDocument replaceAll() throws BadLocationException {
+
+        if(method.equals("single")) {
+            doc.replace(replacements, doc.getSnapshot().getVersion());
+            return doc;
+        }
+
+        // From the last match back, so the offsets of the others stay the same.
+        for(int i = replacements.size() - 1; i >= 0; i--) {
+            int start = replacements.getStart(i);
+            doc.remove(start, replacements.getEnd(i) - start);
+            doc.insertString(start, "EDITOR", null);
+        }
+
+        return doc;
+    }
+
+}
@@ -0,0 +1,102 @@
+package text.editor.bench;
+
+import java.util.concurrent.TimeUnit;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import text.editor.model.PieceTableDocument;
+
+
+/**
+ * Setting character attributes over a big selection, the way the bold and
+ * font buttons of the toolbar do through JTextPane.setCharacterAttributes.
+ * Every call switches bold on or off, so each one really changes the runs.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class StylingBenchmark {
+
+
+    /** The length of the document, in characters. */
+    @Param({"1MB", "10MB"})
+    public String size;
+
+
+    /** How much of the document is selected, in percent. */
+    @Param({"10", "100"})
+    public int selection;
+
+
+    /** The document that is styled. */
+    private PieceTableDocument doc;
+
+
+    /** Bold on. */
+    private final SimpleAttributeSet bold   = new SimpleAttributeSet();
+
+
+    /** Bold off. */
+    private final SimpleAttributeSet plain  = new SimpleAttributeSet();
+
+
+    /** Whether the next call switches bold on. */
+    private boolean nextBold;
+
+
+    /** Where the selection starts. */
+    private int start;
+
+
+    /** The length of the selection. */
+    private int length;
+
+
+    /**
+     * Makes the document and the attributes.
+     */
+    @Setup(Level.Trial)
+    public void createDocument() {
+
+        doc     = BenchmarkData.document((int)BenchmarkData.parseSize(size));
+        length  = (int)((long)doc.getLength() * selection / 100);
+        start   = (doc.getLength() - length) / 2;
+
+        StyleConstants.setBold(bold, true);
+        StyleConstants.setBold(plain, false);
+        nextBold = true;
+    }
+
+
+    /**
+     * Switches bold on or off over the selection.
+     *
+     * @return          The document.
+     */
+    @Benchmark
+    public PieceTableDocument setCharacterAttributes() {
+        doc.setCharacterAttributes(start, length, nextBold ? bold : plain, false);
+        nextBold = !nextBold;
+        return doc;
+    }
+
+}
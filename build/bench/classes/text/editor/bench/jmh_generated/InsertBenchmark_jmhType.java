@@ -0,0 +1,4 @@
+package text.editor.bench.jmh_generated;
+public class InsertBenchmark_jmhType extends InsertBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package text.editor.bench.jmh_generated;
+public class ListenerBenchmark_jmhType extends ListenerBenchmark_jmhType_B3 {
+}
+
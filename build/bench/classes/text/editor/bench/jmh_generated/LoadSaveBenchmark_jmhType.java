@@ -0,0 +1,4 @@
+package text.editor.bench.jmh_generated;
+public class LoadSaveBenchmark_jmhType extends LoadSaveBenchmark_jmhType_B3 {
+}
+
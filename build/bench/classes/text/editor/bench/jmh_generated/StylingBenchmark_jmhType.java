@@ -0,0 +1,4 @@
+package text.editor.bench.jmh_generated;
+public class StylingBenchmark_jmhType extends StylingBenchmark_jmhType_B3 {
+}
+
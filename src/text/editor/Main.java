@@ -1,7 +1,10 @@
 package text.editor;
 
 import java.io.File;
+import javax.swing.SwingUtilities;
 import text.editor.graphics.MainWindow;
+import text.editor.io.BatchConverter;
+import text.editor.recovery.RecoveryManager;
 
 
 /**
@@ -9,7 +12,7 @@ import text.editor.graphics.MainWindow;
  * then display the GUI of the application.
  *
  * Created On:  February 28, 2016
- * Edited On:   March 05, 2016
+ * Edited On:   October 17, 2026
  *
  * @author Jackie Chan
  */
@@ -18,12 +21,20 @@ public class Main {
 
     /**
      * The main method will perform checks on the environment the program is
-     * running in and then display the GUI.
+     * running in and then display the GUI. With --convert as the first
+     * argument the files are converted without a GUI instead, see
+     * BatchConverter.
      *
-     * @param args      The command line arguments are not used.
+     * @param args      The command line arguments.
      */
     public static void main(String[] args) {
 
+        // Batch conversion never opens a window.
+        if(args.length > 0 && args[0].equals("--convert")) {
+            System.setProperty("java.awt.headless", "true");
+            System.exit(BatchConverter.run(args));
+        }
+
         /*
             Check if the error reporting directory exists. If it doesn't make it.
         */
@@ -31,8 +42,14 @@ public class Main {
             new File("ErrorReportingDirectory").mkdir();
         }
 
+        // Create the recovery directory and claim it for this session.
+        RecoveryManager.start();
+
         // Show the GUI.
         new MainWindow().createAndShowGUI();
+
+        // Offer to restore the documents of an editor that crashed.
+        SwingUtilities.invokeLater(RecoveryManager::offerRecovery);
     }
 
 }
@@ -1,16 +1,24 @@
 package text.editor.graphics;
 
 import java.awt.BorderLayout;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
 import javax.swing.text.Document;
 import text.editor.errorreporting.ErrorReport;
+import text.editor.graphics.editor.FindBar;
 import text.editor.graphics.editor.MainEditingToolBar;
 import text.editor.graphics.editor.MainTabHolder;
 import text.editor.graphics.editor.MainTextPane;
+import text.editor.graphics.editor.MemoryAccounting;
 import text.editor.graphics.editor.StatusBar;
+import text.editor.graphics.editor.TabHibernator;
+import text.editor.io.AutoSaver;
+import text.editor.model.DocumentStatistics;
+import text.editor.recovery.RecoveryManager;
 
 
 /**
@@ -19,7 +27,7 @@ import text.editor.graphics.editor.StatusBar;
  * , and another JToolBar (the status bar).
  *
  * Created on:  February 28, 2016
- * Edited on:   March 05, 2016
+ * Edited on:   October 17, 2026
  *
  * @author Jackie Chan
  */
@@ -45,6 +53,10 @@ public class MainWindow extends JFrame {
     private static StatusBar            statusBar;
 
 
+    /** The bar to find text in the selected document, above the status bar. */
+    private static FindBar              findBar;
+
+
     /**
      * Default constructor for the MainWindow. The MainWindow will contain a
      * JTextPane (for editing .rtf documents), JToolBar (includes functions for
@@ -77,18 +89,36 @@ public class MainWindow extends JFrame {
         tabHolder       = new MainTabHolder();
         editingToolBar  = new MainEditingToolBar();
         statusBar       = new StatusBar();
+        findBar         = new FindBar();
+
+        JPanel bottom   = new JPanel(new BorderLayout());
+        bottom.add(findBar, BorderLayout.PAGE_START);
+        bottom.add(statusBar, BorderLayout.PAGE_END);
 
         panel.add(tabHolder, BorderLayout.CENTER);
         panel.add(editingToolBar, BorderLayout.PAGE_START);
-        panel.add(statusBar, BorderLayout.PAGE_END);
+        panel.add(bottom, BorderLayout.PAGE_END);
 
         this.setContentPane(panel);
         this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        // The edit journals are only needed if the editor does not exit.
+        this.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                RecoveryManager.cleanExit();
+            }
+        });
+
         this.pack();
         this.setVisible(true);
 
         setFocusToDocument();
 
+        AutoSaver.start();
+        TabHibernator.start();
+        MemoryAccounting.start();
+
     }
 
 
@@ -134,12 +164,12 @@ public class MainWindow extends JFrame {
 
 
     /**
-     * Updates the character count that appears on the status bar.
+     * Updates the statistics that appear on the status bar.
      *
-     * @param value     the value to set the character count to.
+     * @param counts    the statistics of the active document.
      */
-    public static void updateCharacterCount(int value) {
-        StatusBar.updateCharacterCount(value);
+    public static void updateStatistics(DocumentStatistics.Counts counts) {
+        StatusBar.updateStatistics(counts);
     }
 
 
@@ -0,0 +1,183 @@
+package text.editor.graphics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+
+
+/**
+ * Collects the updates of the status bar and the toolbar and applies them on
+ * the Event Dispatch Thread at most once per frame.
+ *
+ * An update is posted under a key, like "status" or "characters". Only the
+ * newest update of each key is kept until the next frame, so a paste of ten
+ * megabytes or a replace of every match in a document costs one refresh of
+ * each label, not one for every change of the document.
+ *
+ * Updates that are due later, like putting the status message back after a
+ * few seconds, are timed by one shared scheduler thread instead of a thread
+ * of their own.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class UiUpdateBus {
+
+
+    /** The least time between two frames, about 60 a second. */
+    private static final long FRAME_NANOS = 16L * 1000 * 1000;
+
+
+    /** Times the frames and the updates that are due later. */
+    private static final ScheduledThreadPoolExecutor SCHEDULER;
+
+    static {
+        SCHEDULER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "UI Scheduler");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
+
+
+    /** The newest update of each key, in the order they were first posted. Guarded by itself. */
+    private static final Map<String, Runnable> PENDING = new LinkedHashMap<>();
+
+
+    /** The updates that are due later, by key. Guarded by PENDING. */
+    private static final Map<String, ScheduledFuture<?>> DELAYED = new HashMap<>();
+
+
+    /** Whether a frame has been scheduled. Guarded by PENDING. */
+    private static boolean frameScheduled;
+
+
+    /** When the last frame was applied. Guarded by PENDING. */
+    private static long lastFrame = System.nanoTime() - FRAME_NANOS;
+
+
+    /** Applies the pending updates on the Event Dispatch Thread. */
+    private static final Runnable FRAME = new Runnable() {
+        @Override
+        public void run() {
+            applyPending();
+        }
+    };
+
+
+    /** Hands a frame to the Event Dispatch Thread. */
+    private static final Runnable SCHEDULE_FRAME = new Runnable() {
+        @Override
+        public void run() {
+            SwingUtilities.invokeLater(FRAME);
+        }
+    };
+
+
+    /**
+     * Private constructor so the UiUpdateBus class cannot be instantiated.
+     */
+    private UiUpdateBus() {}
+
+
+    /**
+     * Posts an update to be applied on the Event Dispatch Thread with the next
+     * frame. An update that is still pending under the same key is replaced.
+     * Can be called from any thread.
+     *
+     * @param key       What the update changes.
+     * @param update    The update.
+     */
+    public static void post(String key, Runnable update) {
+
+        synchronized(PENDING) {
+
+            PENDING.put(key, update);
+
+            if(frameScheduled) {
+                return;
+            }
+            frameScheduled = true;
+
+            long wait = lastFrame + FRAME_NANOS - System.nanoTime();
+            if(wait <= 0) {
+                SwingUtilities.invokeLater(FRAME);
+            } else {
+                SCHEDULER.schedule(SCHEDULE_FRAME, wait, TimeUnit.NANOSECONDS);
+            }
+        }
+
+    }
+
+
+    /**
+     * Posts an update after a delay. An update that is still waiting under
+     * the same key is cancelled, so only the newest one happens.
+     *
+     * @param key       What the update changes.
+     * @param delay     The delay in milliseconds.
+     * @param update    The update.
+     */
+    public static void postLater(final String key, long delay, final Runnable update) {
+
+        synchronized(PENDING) {
+
+            ScheduledFuture<?> previous = DELAYED.get(key);
+            if(previous != null) {
+                previous.cancel(false);
+            }
+
+            final ScheduledFuture<?>[] self = new ScheduledFuture<?>[1];
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    synchronized(PENDING) {
+                        if(DELAYED.get(key) == self[0]) {
+                            DELAYED.remove(key);
+                        }
+                    }
+                    post(key, update);
+                }
+            };
+
+            self[0] = SCHEDULER.schedule(task, delay, TimeUnit.MILLISECONDS);
+            DELAYED.put(key, self[0]);
+        }
+
+    }
+
+
+    /**
+     * Applies the updates posted since the last frame, the oldest key first.
+     */
+    private static void applyPending() {
+
+        List<Runnable> updates;
+
+        synchronized(PENDING) {
+            updates         = new ArrayList<>(PENDING.values());
+            PENDING.clear();
+            frameScheduled  = false;
+            lastFrame       = System.nanoTime();
+        }
+
+        for(Runnable update : updates) {
+            update.run();
+        }
+
+    }
+
+}
@@ -1,18 +1,34 @@
 package text.editor.graphics.actions;
 
 import java.awt.event.ActionEvent;
+import java.awt.Toolkit;
+import java.awt.Window;
 import java.awt.event.ActionListener;
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import javax.swing.AbstractAction;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import text.editor.errorreporting.ErrorReport;
 import text.editor.graphics.MainWindow;
+import text.editor.graphics.editor.FindBar;
+import text.editor.graphics.editor.FindInFilesDialog;
+import text.editor.graphics.editor.FindInTabsDialog;
+import text.editor.graphics.editor.MainTabHolder;
+import text.editor.graphics.editor.MainTextPane;
+import text.editor.graphics.editor.MemoryDiagnosticsDialog;
+import text.editor.graphics.editor.StatusBar;
 import text.editor.io.ReadWriteUtilities;
+import text.editor.latency.KeystrokeLatency;
 
 /**
  * Contains classes for the Actions that multiple components of the GUI may need
  * to perform.
  *
  * Created on:  March 05, 2016
- * Edited on:   March 05, 2016
+ * Edited on:   October 17, 2026
  *
  * @author Jackie Chan
  */
@@ -28,7 +44,19 @@ public class Actions {
         @Override
         public void actionPerformed(ActionEvent e) {
 
-            String filePath = MainWindow.getTextPane().getFilePath();
+            MainTextPane textPane = MainWindow.getTextPane();
+
+            /*
+                A document that is still loading only holds part of its file,
+                so saving it would cut the file short.
+            */
+            if(textPane.isLoading()) {
+                Toolkit.getDefaultToolkit().beep();
+                StatusBar.updateStatusMessage("Wait for the file to load before saving...");
+                return;
+            }
+
+            String filePath = textPane.getFilePath();
 
             // The file is not saved on the disk, so save it.
             if(filePath == null) {
@@ -59,16 +87,8 @@ public class Actions {
          * @param s     The string with the file path.
          * @return      The file extension as an enumeration.
          */
-        private FileType getFileType(String s) {
-
-            String ext = s.substring(s.indexOf(".", s.lastIndexOf(File.separator)));
-
-            if(ext.equalsIgnoreCase(".rtf")) {
-                return FileType.RTF;
-            } else {
-                return FileType.TXT_OTHER;
-            }
-
+        public static FileType getFileType(String s) {
+            return FileType.of(s);
         }
 
     }
@@ -89,6 +109,36 @@ public class Actions {
     }
 
 
+    /**
+     * Imports an RTF or text file as a new document.
+     */
+    public static class ImportFileAction extends AbstractAction
+            implements ActionListener {
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            ReadWriteUtilities.importFile();
+            MainWindow.setFocusToDocument();
+        }
+
+    }
+
+
+    /**
+     * Exports the document as RTF or text.
+     */
+    public static class ExportFileAction extends AbstractAction
+            implements ActionListener {
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            ReadWriteUtilities.exportFile(MainWindow.getTextPane());
+            MainWindow.setFocusToDocument();
+        }
+
+    }
+
+
     /**
      * Creates a new file.
      */
@@ -102,6 +152,131 @@ public class Actions {
 
     }
 
+
+    /**
+     * Asks for a line number and moves the caret of the active document to
+     * the start of that line.
+     */
+    public static class GoToLineAction extends AbstractAction
+            implements ActionListener {
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+
+            MainTextPane textPane   = MainWindow.getTextPane();
+            int lines               = textPane.getLineCount();
+
+            String input = JOptionPane.showInputDialog(textPane,
+                                                        "Line number (1 - "+lines+"):",
+                                                        "Go to Line",
+                                                        JOptionPane.QUESTION_MESSAGE);
+            if(input == null) {
+                return;
+            }
+
+            try {
+                textPane.goToLine(Integer.parseInt(input.trim().replace(",", "")));
+            } catch (NumberFormatException err) {
+                Toolkit.getDefaultToolkit().beep();
+            }
+
+        }
+
+    }
+
+
+    /**
+     * Opens the find bar to find text in the selected document.
+     */
+    public static class FindAction extends AbstractAction
+            implements ActionListener {
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            FindBar.open();
+        }
+
+    }
+
+
+    /**
+     * Shows the dialog to find text in every open tab.
+     */
+    public static class FindInTabsAction extends AbstractAction
+            implements ActionListener {
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            FindInTabsDialog.open(SwingUtilities.getWindowAncestor(MainWindow.getTextPane()));
+        }
+
+    }
+
+
+    /**
+     * Shows the dialog to find text in every file under a folder.
+     */
+    public static class FindInFilesAction extends AbstractAction
+            implements ActionListener {
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            FindInFilesDialog.open(SwingUtilities.getWindowAncestor(MainWindow.getTextPane()));
+        }
+
+    }
+
+
+    /**
+     * Writes the keystroke latencies of every document to a file in the error
+     * reporting directory.
+     */
+    public static class DumpLatencyAction extends AbstractAction
+            implements ActionListener {
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+
+            MainTabHolder tabs                  = MainWindow.getTabbedPane();
+            List<String> names                  = new ArrayList<>();
+            List<KeystrokeLatency> latencies    = new ArrayList<>();
+
+            for(int i = 0; i < tabs.getTabCount(); i++) {
+                names.add(tabs.getTitleAt(i));
+                latencies.add(tabs.getTextPane(i).getLatency());
+            }
+
+            try {
+                File file = KeystrokeLatency.writeReport(names, latencies);
+                StatusBar.updateStatusMessage("Latency written to "+file.getPath()+"...");
+            } catch (IOException err) {
+                new ErrorReport().createErrorReport(err);
+                JOptionPane.showMessageDialog(null,
+                                                "An error occured while writing the latencies.",
+                                                "Error",
+                                                JOptionPane.ERROR_MESSAGE);
+            }
+
+        }
+
+    }
+
+
+    /**
+     * Shows how much of the heap the document of every tab takes.
+     */
+    public static class MemoryDiagnosticsAction extends AbstractAction
+            implements ActionListener {
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            Window owner = SwingUtilities.getWindowAncestor(MainWindow.getTextPane());
+            new MemoryDiagnosticsDialog(owner).setVisible(true);
+        }
+
+    }
+
+
     public static class CloseFileAction extends AbstractAction
             implements ActionListener {
 
@@ -1,14 +1,45 @@
 package text.editor.graphics.actions;
 
+import java.io.File;
+
 
 /**
  * An enumeration for File Types.
  *
  * Created on:  March 05, 2016
- * Edited on:   March 05, 2016
+ * Edited on:   October 17, 2026
  *
  * @author Jackie Chan
  */
 public enum FileType {
-    RTF, TXT_OTHER;
+    RTF, TLR, TXT_OTHER;
+
+
+    /**
+     * Returns the file type of a path from its extension.
+     *
+     * @param path  The path to the file.
+     * @return      The file type, TXT_OTHER if the extension is unknown.
+     */
+    public static FileType of(String path) {
+
+        int dot = path.indexOf(".", path.lastIndexOf(File.separator));
+
+        // A file without an extension is plain text.
+        if(dot == -1) {
+            return TXT_OTHER;
+        }
+
+        String ext = path.substring(dot);
+
+        if(ext.equalsIgnoreCase(".rtf")) {
+            return RTF;
+        } else if(ext.equalsIgnoreCase(".tlr")) {
+            return TLR;
+        } else {
+            return TXT_OTHER;
+        }
+
+    }
+
 }
@@ -0,0 +1,280 @@
+package text.editor.graphics.editor;
+
+import java.awt.Color;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.util.regex.PatternSyntaxException;
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JLabel;
+import javax.swing.JTextField;
+import javax.swing.JToolBar;
+import javax.swing.KeyStroke;
+import javax.swing.UIManager;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import text.editor.graphics.MainWindow;
+import text.editor.search.TextFinder;
+
+
+/**
+ * The bar to find text in the selected document, shown above the status bar
+ * with Ctrl+F.
+ *
+ * Every keystroke in the field starts a new search of the selected document
+ * and cancels the one before it. The first match after the caret is selected
+ * as soon as it is found, the others are highlighted while they come in, and
+ * the status bar counts them. Enter goes to the next match, Shift+Enter to the
+ * one before, and Escape closes the bar and takes the highlights away.
+ *
+ * Replace all changes every match in one edit, with what is in the replace
+ * field. For a regular expression, $1 in it stands for the first group.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class FindBar extends JToolBar {
+
+
+    /** The find bar of the window. */
+    private static FindBar findBar;
+
+
+    /** The field the user types what to find in. */
+    private static JTextField field;
+
+
+    /** The field the user types what to replace the matches with in. */
+    private static JTextField replaceField;
+
+
+    /** Whether upper and lower case letters are different. */
+    private static JCheckBox matchCase;
+
+
+    /** Whether the field holds a regular expression. */
+    private static JCheckBox regex;
+
+
+    /** Searches the selected document. */
+    private static final IncrementalSearch SEARCH = new IncrementalSearch();
+
+
+    /** Default constructor for the FindBar. It is hidden until it is opened. */
+    public FindBar() {createContent();}
+
+
+    /**
+     * Creates the components of the find bar and adds them.
+     */
+    private void createContent() {
+
+        findBar     = this;
+        field           = new JTextField(30);
+        replaceField    = new JTextField(20);
+        matchCase       = new JCheckBox("Match case");
+        regex           = new JCheckBox("Regex");
+
+        JButton previous    = new JButton("Previous");
+        JButton next        = new JButton("Next");
+        JButton replaceAll  = new JButton("Replace all");
+        JButton close       = new JButton("Close");
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                search();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                search();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+
+        });
+
+        matchCase.addActionListener(e -> search());
+        regex.addActionListener(e -> search());
+        previous.addActionListener(e -> SEARCH.previous());
+        next.addActionListener(e -> SEARCH.next());
+        replaceAll.addActionListener(e -> replaceAll());
+        close.addActionListener(e -> close());
+
+        field.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "find_next");
+        field.getActionMap().put("find_next", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                SEARCH.next();
+            }
+        });
+
+        field.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, InputEvent.SHIFT_DOWN_MASK),
+                                "find_previous");
+        field.getActionMap().put("find_previous", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                SEARCH.previous();
+            }
+        });
+
+        field.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "close_find");
+        field.getActionMap().put("close_find", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                close();
+            }
+        });
+
+        replaceField.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "close_find");
+        replaceField.getActionMap().put("close_find", field.getActionMap().get("close_find"));
+
+        this.setFloatable(false);
+        this.add(new JLabel("Find: "));
+        this.add(field);
+        this.addSeparator();
+        this.add(matchCase);
+        this.add(regex);
+        this.addSeparator();
+        this.add(previous);
+        this.add(next);
+        this.addSeparator();
+        this.add(new JLabel("Replace: "));
+        this.add(replaceField);
+        this.add(replaceAll);
+        this.addSeparator();
+        this.add(close);
+        this.setVisible(false);
+    }
+
+
+    /**
+     * Shows the find bar and puts the focus in its field. Text that is
+     * selected on a single line of the document is searched for.
+     */
+    public static void open() {
+
+        String selected = MainWindow.getTextPane().getSelectedText();
+        boolean visible = findBar.isVisible();
+
+        findBar.setVisible(true);
+        findBar.revalidate();
+
+        if(selected != null && !selected.isEmpty() && selected.indexOf('\n') == -1) {
+            field.setText(selected);
+        } else if(!visible) {
+            search();
+        }
+
+        field.selectAll();
+        field.requestFocusInWindow();
+    }
+
+
+    /**
+     * Hides the find bar, takes the highlights away and puts the focus back
+     * in the document.
+     */
+    public static void close() {
+        SEARCH.stop();
+        StatusBar.updateFindCount("");
+        findBar.setVisible(false);
+        findBar.revalidate();
+        MainWindow.setFocusToDocument();
+    }
+
+
+    /**
+     * Searches another document once its tab is selected, if the find bar is
+     * open.
+     *
+     * @param textPane  The text pane of the selected tab.
+     */
+    static void tabSelected(MainTextPane textPane) {
+        if(findBar != null && findBar.isVisible()) {
+            search(textPane);
+        }
+    }
+
+
+    /**
+     * Searches the selected document for what is in the field.
+     */
+    private static void search() {
+        search(MainWindow.getTextPane());
+    }
+
+
+    /**
+     * Searches a document for what is in the field, cancelling the search
+     * that is running. A regular expression that is not valid is shown in
+     * red instead.
+     *
+     * @param textPane  The text pane of the document.
+     */
+    private static void search(MainTextPane textPane) {
+
+        if(field.getText().isEmpty()) {
+            field.setForeground(UIManager.getColor("TextField.foreground"));
+            SEARCH.stop();
+            StatusBar.updateFindCount("");
+            return;
+        }
+
+        TextFinder finder = createFinder();
+        if(finder != null) {
+            SEARCH.search(textPane, finder, true);
+        }
+    }
+
+
+    /**
+     * Replaces every match in the selected document with what is in the
+     * replace field, as a single edit.
+     */
+    private static void replaceAll() {
+
+        if(field.getText().isEmpty()) {
+            Toolkit.getDefaultToolkit().beep();
+            return;
+        }
+
+        TextFinder finder = createFinder();
+        if(finder != null) {
+            SEARCH.replaceAll(MainWindow.getTextPane(), finder, replaceField.getText());
+        }
+    }
+
+
+    /**
+     * Creates a finder for what is in the field. A regular expression that is
+     * not valid is shown in red instead, and the search that is running is
+     * cancelled.
+     *
+     * @return          The finder, or null if the regular expression is not
+     *                  valid.
+     */
+    private static TextFinder createFinder() {
+
+        field.setForeground(UIManager.getColor("TextField.foreground"));
+
+        try {
+            return TextFinder.of(field.getText(), matchCase.isSelected(), regex.isSelected());
+        } catch (PatternSyntaxException err) {
+            SEARCH.stop();
+            field.setForeground(Color.RED);
+            StatusBar.updateFindCount("Find: invalid regex");
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,530 @@
+package text.editor.graphics.editor;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.FlowLayout;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.Insets;
+import java.awt.Toolkit;
+import java.awt.Window;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.PatternSyntaxException;
+import javax.swing.AbstractAction;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JSpinner;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.UIManager;
+import text.editor.graphics.MainWindow;
+import text.editor.io.FolderSearch;
+import text.editor.io.ReadWriteUtilities;
+import text.editor.search.ParallelSearch;
+import text.editor.search.SearchHit;
+import text.editor.search.TextFinder;
+
+
+/**
+ * Finds text in every file under a folder, and lists the matches grouped by
+ * file.
+ *
+ * The folder is searched in parallel by a FolderSearch. The files it finds
+ * matches in are queued up and added to the list on the Event Dispatch Thread
+ * in batches, so a search that finds thousands of files does not flood it
+ * with a task for every file. Double clicking a match opens its file the way
+ * File > Open does, or selects its tab if it is open already, and goes to the
+ * line of the match.
+ *
+ * The names of the files to search can be narrowed down with glob patterns,
+ * like *.java, *.xml, and files bigger than the size limit are skipped, as
+ * are binary files.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class FindInFilesDialog extends JDialog {
+
+
+    /** The most matches of a file that are shown. */
+    private static final int MAX_HITS_PER_FILE = 100;
+
+
+    /** Once this many matches are shown, the other files are only counted. */
+    private static final int MAX_SHOWN_HITS = 50000;
+
+
+    /** The amount of milliseconds between updates of the progress. */
+    private static final int PROGRESS_DELAY = 200;
+
+
+    /** The dialog of the window, or null. */
+    private static FindInFilesDialog dialog;
+
+
+    /** The field the user types what to find in. */
+    private final JTextField field = new JTextField(30);
+
+
+    /** The field with the folder to search. */
+    private final JTextField folder = new JTextField(30);
+
+
+    /** The field with the patterns of the names of the files to search. */
+    private final JTextField names = new JTextField(30);
+
+
+    /** The size limit of the files, in megabytes. */
+    private final JSpinner maxSize = new JSpinner(new SpinnerNumberModel(16, 1, 2047, 1));
+
+
+    /** Whether upper and lower case letters are different. */
+    private final JCheckBox matchCase = new JCheckBox("Match case");
+
+
+    /** Whether the field holds a regular expression. */
+    private final JCheckBox regex = new JCheckBox("Regex");
+
+
+    /** Shows how far the search is. */
+    private final JLabel status = new JLabel(" ");
+
+
+    /** The matches, grouped by file. */
+    private final SearchResultsPanel<File> results = new SearchResultsPanel<>(this::open);
+
+
+    /** Shows the progress while a search runs. */
+    private final Timer progress = new Timer(PROGRESS_DELAY, e -> showProgress());
+
+
+    /** Takes what the search that is running finds, or null. */
+    private Collector collector;
+
+
+    /** When the search started, in nanoseconds. */
+    private long startTime;
+
+
+    /** The amount of files with matches found so far. */
+    private int files;
+
+
+    /** The amount of matches found so far. */
+    private long matches;
+
+
+    /** The amount of matches that are shown. */
+    private int shown;
+
+
+    /**
+     * Constructor for a FindInFilesDialog.
+     *
+     * @param owner     The window the dialog belongs to.
+     */
+    private FindInFilesDialog(Window owner) {
+
+        super(owner, "Find in Folder", ModalityType.MODELESS);
+
+        JButton browse = new JButton("Browse...");
+        browse.addActionListener(e -> browse());
+
+        JButton find = new JButton("Find");
+        find.addActionListener(e -> find());
+        field.addActionListener(e -> find());
+        folder.addActionListener(e -> find());
+        names.addActionListener(e -> find());
+
+        JButton stop = new JButton("Stop");
+        stop.addActionListener(e -> stop());
+
+        JButton close = new JButton("Close");
+        close.addActionListener(e -> dispose());
+
+        names.setToolTipText("Patterns of the names of the files to search, like *.java, *.xml. "
+                             + "Empty for every file.");
+        folder.setText(System.getProperty("user.dir"));
+
+        JPanel options = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        options.add(matchCase);
+        options.add(regex);
+        options.add(new JLabel("  Skip files over (MB): "));
+        options.add(maxSize);
+        options.add(new JLabel("  "));
+        options.add(find);
+        options.add(stop);
+
+        JPanel query = new JPanel(new GridBagLayout());
+        query.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        addRow(query, 0, "Find: ", field, null);
+        addRow(query, 1, "Folder: ", folder, browse);
+        addRow(query, 2, "File names: ", names, null);
+        addRow(query, 3, "", options, null);
+
+        status.setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 5));
+
+        JPanel bottom = new JPanel(new BorderLayout());
+        bottom.add(status, BorderLayout.CENTER);
+        bottom.add(close, BorderLayout.LINE_END);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(query, BorderLayout.PAGE_START);
+        panel.add(results, BorderLayout.CENTER);
+        panel.add(bottom, BorderLayout.PAGE_END);
+
+        panel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+             .put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "close");
+        panel.getActionMap().put("close", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                dispose();
+            }
+        });
+
+        this.setContentPane(panel);
+        this.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        this.setSize(800, 560);
+        this.setLocationRelativeTo(owner);
+    }
+
+
+    /**
+     * Adds a row of a label, a component and another component to a panel.
+     *
+     * @param panel     The panel, with a GridBagLayout.
+     * @param row       The row.
+     * @param label     The text of the label.
+     * @param component The component, which takes up the width.
+     * @param extra     The component after it, or null.
+     */
+    private static void addRow(JPanel panel, int row, String label, JComponent component,
+                               JComponent extra) {
+
+        GridBagConstraints c    = new GridBagConstraints();
+        c.gridy                 = row;
+        c.insets                = new Insets(2, 2, 2, 2);
+        c.anchor                = GridBagConstraints.LINE_START;
+
+        c.gridx = 0;
+        panel.add(new JLabel(label), c);
+
+        c.gridx     = 1;
+        c.weightx   = 1;
+        c.fill      = GridBagConstraints.HORIZONTAL;
+        panel.add(component, c);
+
+        if(extra != null) {
+            c.gridx     = 2;
+            c.weightx   = 0;
+            c.fill      = GridBagConstraints.NONE;
+            panel.add(extra, c);
+        }
+
+    }
+
+
+    /**
+     * Shows the dialog of the window, and puts the focus in its field. Text
+     * that is selected on a single line of the document is searched for.
+     *
+     * @param owner     The window the dialog belongs to.
+     */
+    public static void open(Window owner) {
+
+        if(dialog == null || dialog.getOwner() != owner) {
+            dialog = new FindInFilesDialog(owner);
+        }
+
+        String selected = MainWindow.getTextPane().getSelectedText();
+        if(selected != null && !selected.isEmpty() && selected.indexOf('\n') == -1) {
+            dialog.field.setText(selected);
+        }
+
+        dialog.setVisible(true);
+        dialog.field.selectAll();
+        dialog.field.requestFocusInWindow();
+    }
+
+
+    /*
+        A search that is running is cancelled when the dialog is closed.
+    */
+    @Override
+    public void dispose() {
+        stop();
+        super.dispose();
+    }
+
+
+    /**
+     * Lets the user pick the folder to search.
+     */
+    private void browse() {
+
+        JFileChooser fc = new JFileChooser(folder.getText());
+        fc.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+
+        if(fc.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            folder.setText(fc.getSelectedFile().getAbsolutePath());
+        }
+    }
+
+
+    /**
+     * Cancels the search that is running and searches the folder for what is
+     * in the field.
+     */
+    private void find() {
+
+        stop();
+        results.clear();
+        field.setForeground(UIManager.getColor("TextField.foreground"));
+
+        File root = new File(folder.getText().trim());
+        if(field.getText().isEmpty() || !root.isDirectory()) {
+            Toolkit.getDefaultToolkit().beep();
+            status.setText(field.getText().isEmpty() ? " " : "Not a folder: "+root);
+            return;
+        }
+
+        TextFinder finder;
+        try {
+            finder = TextFinder.of(field.getText(), matchCase.isSelected(), regex.isSelected());
+        } catch (PatternSyntaxException err) {
+            field.setForeground(Color.RED);
+            status.setText("Invalid regex");
+            return;
+        }
+
+        List<String> patterns = new ArrayList<>();
+        for(String pattern : names.getText().split("[,;]")) {
+            if(!pattern.trim().isEmpty()) {
+                patterns.add(pattern.trim());
+            }
+        }
+
+        collector       = new Collector();
+        long limit      = ((Number)maxSize.getValue()).longValue() * 1024 * 1024;
+
+        try {
+            collector.search = new FolderSearch(root, finder, patterns, limit, MAX_HITS_PER_FILE,
+                                                collector);
+        } catch (IllegalArgumentException err) {
+            collector = null;
+            status.setText("Invalid file name pattern");
+            return;
+        }
+
+        startTime   = System.nanoTime();
+        files       = 0;
+        matches     = 0;
+        shown       = 0;
+
+        showProgress();
+        progress.start();
+        collector.search.start();
+    }
+
+
+    /**
+     * Cancels the search that is running.
+     */
+    private void stop() {
+
+        progress.stop();
+
+        if(collector != null) {
+            collector.search.cancel();
+            collector = null;
+            status.setText(status.getText().replace("Searching", "Stopped"));
+        }
+
+    }
+
+
+    /**
+     * Adds the files with matches that were found since the last time to
+     * the list.
+     *
+     * @param from      What found them.
+     */
+    private void flush(Collector from) {
+
+        from.scheduled.set(false);
+        if(from != collector) {
+            return;
+        }
+
+        Found found;
+        while((found = from.queue.poll()) != null) {
+
+            List<SearchHit> hits = found.result.getHits();
+            if(shown >= MAX_SHOWN_HITS) {
+                hits = new ArrayList<>();
+            } else if(shown + hits.size() > MAX_SHOWN_HITS) {
+                hits = hits.subList(0, MAX_SHOWN_HITS - shown);
+            }
+
+            files++;
+            matches += found.result.getCount();
+            shown   += hits.size();
+            results.addGroup(found.file, found.name, found.file.getPath(), files,
+                             found.result.getCount(), hits);
+        }
+
+    }
+
+
+    /**
+     * Shows that the search is done, how much it found, and how long it took.
+     *
+     * @param from      The search.
+     */
+    private void done(Collector from) {
+
+        if(from != collector) {
+            return;
+        }
+
+        flush(from);
+        progress.stop();
+        collector = null;
+
+        FolderSearch search = from.search;
+        String text = String.format("%,d %s in %,d of %,d files (%,.1f MB), %,.2f s",
+                                    matches, (matches == 1) ? "match" : "matches", files,
+                                    search.getSearchedFiles(), search.getSearchedBytes() / 1048576.0,
+                                    (System.nanoTime() - startTime) / 1e9);
+        if(shown < matches) {
+            text += String.format(", first %,d shown", shown);
+        }
+        if(search.getSkippedFiles() > 0) {
+            text += String.format(", %,d binary or too big", search.getSkippedFiles());
+        }
+        if(search.getFailedFiles() > 0) {
+            text += String.format(", %,d could not be read", search.getFailedFiles());
+        }
+        status.setText(text);
+    }
+
+
+    /**
+     * Shows how many files were searched so far, and how many matches were
+     * found.
+     */
+    private void showProgress() {
+        if(collector != null) {
+            status.setText(String.format("Searching... %,d files, %,d %s so far",
+                                         collector.search.getSearchedFiles(), matches,
+                                         (matches == 1) ? "match" : "matches"));
+        }
+    }
+
+
+    /**
+     * Opens the file of a match at the line of the match.
+     *
+     * @param file      The file.
+     * @param hit       The match.
+     */
+    private void open(File file, SearchHit hit) {
+
+        if(!file.isFile()) {
+            Toolkit.getDefaultToolkit().beep();
+            status.setText(file.getName()+" is gone");
+            return;
+        }
+
+        ReadWriteUtilities.openFileAtLine(file.getAbsolutePath(), hit.getLine() + 1);
+    }
+
+
+    /**
+     * A file with matches, waiting to be added to the list.
+     */
+    private static class Found {
+
+
+        /** The file. */
+        private final File file;
+
+
+        /** The path of the file from the folder that is searched. */
+        private final String name;
+
+
+        /** The matches. */
+        private final ParallelSearch.Result result;
+
+
+        /**
+         * Constructor for a Found.
+         *
+         * @param file      The file.
+         * @param name      The path of the file from the folder.
+         * @param result    The matches.
+         */
+        Found(File file, String name, ParallelSearch.Result result) {
+            this.file   = file;
+            this.name   = name;
+            this.result = result;
+        }
+
+    }
+
+
+    /**
+     * Takes what a search finds on the threads of its pool, and hands it to
+     * the Event Dispatch Thread, with at most one task waiting there at a
+     * time.
+     */
+    private class Collector implements FolderSearch.Listener {
+
+
+        /** The search. */
+        private FolderSearch search;
+
+
+        /** The files with matches that are not in the list yet. */
+        private final ConcurrentLinkedQueue<Found> queue = new ConcurrentLinkedQueue<>();
+
+
+        /** Whether a task to add them is waiting on the Event Dispatch Thread. */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+
+        @Override
+        public void found(File file, String name, ParallelSearch.Result result) {
+            queue.add(new Found(file, name, result));
+            if(scheduled.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(() -> flush(this));
+            }
+        }
+
+
+        @Override
+        public void done() {
+            SwingUtilities.invokeLater(() -> FindInFilesDialog.this.done(this));
+        }
+
+    }
+
+}
@@ -0,0 +1,339 @@
+package text.editor.graphics.editor;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.FlowLayout;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.Window;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.util.regex.PatternSyntaxException;
+import javax.swing.AbstractAction;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComponent;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import javax.swing.UIManager;
+import javax.swing.text.BadLocationException;
+import text.editor.graphics.MainWindow;
+import text.editor.model.TextSnapshot;
+import text.editor.search.ParallelSearch;
+import text.editor.search.SearchHit;
+import text.editor.search.TextFinder;
+
+
+/**
+ * Finds text in every open tab, and lists the matches grouped by tab.
+ *
+ * The tabs are searched in parallel by a TabSearch, and the matches of a tab
+ * show up as soon as it is done. Double clicking a match selects its tab and
+ * the match. If the document was edited since, and the match is not where it
+ * was anymore, the caret goes to its line instead.
+ *
+ * There is one dialog for the window, which is shown again with Ctrl+Shift+F
+ * with the matches of the last search.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class FindInTabsDialog extends JDialog {
+
+
+    /** The dialog of the window, or null. */
+    private static FindInTabsDialog dialog;
+
+
+    /** The field the user types what to find in. */
+    private final JTextField field = new JTextField(30);
+
+
+    /** Whether upper and lower case letters are different. */
+    private final JCheckBox matchCase = new JCheckBox("Match case");
+
+
+    /** Whether the field holds a regular expression. */
+    private final JCheckBox regex = new JCheckBox("Regex");
+
+
+    /** Shows how far the search is. */
+    private final JLabel status = new JLabel(" ");
+
+
+    /** The matches, grouped by tab. */
+    private final SearchResultsPanel<TabSearch.Tab> results = new SearchResultsPanel<>(this::open);
+
+
+    /** The search that is running, or null. */
+    private TabSearch search;
+
+
+    /** When the search started, in nanoseconds. */
+    private long startTime;
+
+
+    /** The amount of matches found so far. */
+    private int matches;
+
+
+    /**
+     * Constructor for a FindInTabsDialog.
+     *
+     * @param owner     The window the dialog belongs to.
+     */
+    private FindInTabsDialog(Window owner) {
+
+        super(owner, "Find in Open Tabs", ModalityType.MODELESS);
+
+        JButton find = new JButton("Find");
+        find.addActionListener(e -> find());
+        field.addActionListener(e -> find());
+
+        JButton close = new JButton("Close");
+        close.addActionListener(e -> dispose());
+
+        JPanel query = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        query.add(new JLabel("Find: "));
+        query.add(field);
+        query.add(matchCase);
+        query.add(regex);
+        query.add(find);
+
+        status.setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 5));
+
+        JPanel bottom = new JPanel(new BorderLayout());
+        bottom.add(status, BorderLayout.CENTER);
+        bottom.add(close, BorderLayout.LINE_END);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(query, BorderLayout.PAGE_START);
+        panel.add(results, BorderLayout.CENTER);
+        panel.add(bottom, BorderLayout.PAGE_END);
+
+        panel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+             .put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "close");
+        panel.getActionMap().put("close", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                dispose();
+            }
+        });
+
+        this.setContentPane(panel);
+        this.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        this.setSize(720, 480);
+        this.setLocationRelativeTo(owner);
+    }
+
+
+    /**
+     * Shows the dialog of the window, and puts the focus in its field. Text
+     * that is selected on a single line of the document is searched for.
+     *
+     * @param owner     The window the dialog belongs to.
+     */
+    public static void open(Window owner) {
+
+        if(dialog == null || dialog.getOwner() != owner) {
+            dialog = new FindInTabsDialog(owner);
+        }
+
+        String selected = MainWindow.getTextPane().getSelectedText();
+        if(selected != null && !selected.isEmpty() && selected.indexOf('\n') == -1) {
+            dialog.field.setText(selected);
+        }
+
+        dialog.setVisible(true);
+        dialog.field.selectAll();
+        dialog.field.requestFocusInWindow();
+    }
+
+
+    /*
+        A search that is running is cancelled when the dialog is closed.
+    */
+    @Override
+    public void dispose() {
+        stop();
+        super.dispose();
+    }
+
+
+    /**
+     * Cancels the search that is running and searches every tab for what is
+     * in the field.
+     */
+    private void find() {
+
+        stop();
+        results.clear();
+        field.setForeground(UIManager.getColor("TextField.foreground"));
+
+        if(field.getText().isEmpty()) {
+            Toolkit.getDefaultToolkit().beep();
+            status.setText(" ");
+            return;
+        }
+
+        TextFinder finder;
+        try {
+            finder = TextFinder.of(field.getText(), matchCase.isSelected(), regex.isSelected());
+        } catch (PatternSyntaxException err) {
+            field.setForeground(Color.RED);
+            status.setText("Invalid regex");
+            return;
+        }
+
+        search      = new TabSearch(MainWindow.getTabbedPane(), finder, new TabSearch.Listener() {
+
+            @Override
+            public void found(TabSearch.Tab tab, ParallelSearch.Result result) {
+                FindInTabsDialog.this.found(tab, result);
+            }
+
+            @Override
+            public void done(int failed) {
+                FindInTabsDialog.this.done(failed);
+            }
+
+        });
+        startTime   = System.nanoTime();
+        matches     = 0;
+
+        showProgress();
+        search.start();
+    }
+
+
+    /**
+     * Cancels the search that is running.
+     */
+    private void stop() {
+        if(search != null) {
+            search.cancel();
+            search = null;
+        }
+    }
+
+
+    /**
+     * Adds the matches of a tab in the place of the tab.
+     *
+     * @param tab       The tab.
+     * @param result    Its matches.
+     */
+    private void found(TabSearch.Tab tab, ParallelSearch.Result result) {
+
+        matches += result.getCount();
+        results.addGroup(tab, tab.getTitle(), null, tab.getIndex(), result.getCount(), result.getHits());
+        showProgress();
+    }
+
+
+    /**
+     * Shows how many matches were found in how many tabs, and how long it
+     * took, once every tab has been searched.
+     *
+     * @param failed    The amount of hibernated tabs that could not be read.
+     */
+    private void done(int failed) {
+
+        int tabs = search.getTabCount();
+        search = null;
+
+        String text = String.format("%,d %s in %,d of %,d %s, %,.2f s",
+                                    matches, (matches == 1) ? "match" : "matches",
+                                    results.getGroupCount(), tabs, (tabs == 1) ? "tab" : "tabs",
+                                    (System.nanoTime() - startTime) / 1e9);
+        if(failed > 0) {
+            text += String.format(", %,d hibernated %s could not be read",
+                                  failed, (failed == 1) ? "tab" : "tabs");
+        }
+        status.setText(text);
+    }
+
+
+    /**
+     * Shows how many matches were found so far.
+     */
+    private void showProgress() {
+        status.setText(String.format("Searching %,d tabs... %,d %s so far",
+                                     search.getTabCount(), matches,
+                                     (matches == 1) ? "match" : "matches"));
+    }
+
+
+    /**
+     * Selects the tab of a match, which wakes it up if it is hibernated, and
+     * selects the match, or goes to its line if the text there changed.
+     *
+     * @param tab       The tab the match was found in.
+     * @param hit       The match.
+     */
+    private void open(TabSearch.Tab tab, SearchHit hit) {
+
+        MainTabHolder tabs      = MainWindow.getTabbedPane();
+        MainTextPane textPane   = tab.getTextPane();
+        int index               = tabs.indexOfTextPane(textPane);
+
+        if(index == -1) {
+            Toolkit.getDefaultToolkit().beep();
+            status.setText(tab.getTitle()+" was closed");
+            return;
+        }
+
+        tabs.setSelectedIndex(index);
+        if(textPane.isHibernated()) {
+            return;
+        }
+
+        if(isStillThere(textPane.getSnapshot(), hit)) {
+            textPane.select(hit.getStart(), hit.getEnd());
+            textPane.requestFocus();
+            // A tab that just woke up is only laid out later.
+            SwingUtilities.invokeLater(() -> {
+                try {
+                    Rectangle r = textPane.modelToView(textPane.getSelectionStart());
+                    if(r != null) {
+                        textPane.scrollRectToVisible(r);
+                    }
+                } catch (BadLocationException err) {
+                    // The document was edited in the meantime.
+                }
+            });
+        } else {
+            textPane.goToLine(hit.getLine() + 1);
+            textPane.requestFocus();
+            StatusBar.updateStatusMessage("The document changed since it was searched...");
+        }
+
+    }
+
+
+    /**
+     * Returns true if the text of a match is still where it was found.
+     *
+     * @param text      The text of the document now.
+     * @param hit       The match.
+     * @return          Whether the part of the match that is shown is still
+     *                  at its offset.
+     */
+    private static boolean isStillThere(TextSnapshot text, SearchHit hit) {
+
+        String match = hit.getPreview().substring(hit.getPreviewStart(), hit.getPreviewEnd());
+        if(hit.getEnd() > text.length() || hit.getStart() + match.length() > text.length()) {
+            return false;
+        }
+
+        return text.subSequence(hit.getStart(), hit.getStart() + match.length()).toString().equals(match);
+    }
+
+}
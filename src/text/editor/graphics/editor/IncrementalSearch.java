@@ -0,0 +1,699 @@
+package text.editor.graphics.editor;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.Toolkit;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import javax.swing.JOptionPane;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Document;
+import javax.swing.text.Highlighter;
+import javax.swing.text.JTextComponent;
+import text.editor.errorreporting.ErrorReport;
+import text.editor.model.PieceTableDocument;
+import text.editor.model.Replacements;
+import text.editor.model.TextSnapshot;
+import text.editor.search.MatchList;
+import text.editor.search.TextFinder;
+
+
+/**
+ * Searches the document of a text pane in the background and highlights the
+ * matches.
+ *
+ * A search reads the snapshot the document published last, so the user can
+ * keep typing while it runs. It first looks at the part of the document that
+ * is shown, so its matches are highlighted right away, and then goes through
+ * the whole document a few million characters at a time. Every batch of
+ * matches is handed to the Event Dispatch Thread as soon as it is found, and
+ * the count on the status bar goes up while the search runs. Starting another
+ * search cancels the one that is running.
+ *
+ * Replacing every match is done the same way: the matches and what to
+ * replace them with are found on a snapshot in the background, and the
+ * document is then changed in a single edit.
+ *
+ * Only the matches that are shown are highlighted, and they are highlighted
+ * again whenever the text pane scrolls, so a log with millions of matches
+ * does not get millions of highlights. An edit to the document starts the
+ * search again once the user stops typing for a moment.
+ *
+ * Everything but the search itself happens on the Event Dispatch Thread.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+class IncrementalSearch {
+
+
+    /** The amount of characters searched before the matches are handed over. */
+    private static final int BATCH_SIZE = 4 * 1024 * 1024;
+
+
+    /** The most matches highlighted at once. */
+    private static final int MAX_HIGHLIGHTS = 1000;
+
+
+    /** The amount of milliseconds without edits before searching again. */
+    private static final int RESTART_DELAY = 300;
+
+
+    /** Paints the matches. */
+    private static final Highlighter.HighlightPainter MATCH_PAINTER =
+            new MatchPainter(new Color(255, 235, 130));
+
+
+    /** Paints the match that is selected. */
+    private static final Highlighter.HighlightPainter CURRENT_PAINTER =
+            new MatchPainter(new Color(255, 165, 60));
+
+
+    /** The thread that searches, one search at a time. */
+    private static final ExecutorService SEARCHER =
+            Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "Find");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
+
+    /** The text pane that is searched, or null. */
+    private MainTextPane textPane;
+
+
+    /** The document of the text pane that is searched, or null. */
+    private Document document;
+
+
+    /** What is searched for, or null. */
+    private TextFinder finder;
+
+
+    /** The search that is running, or null. */
+    private Future<?> task;
+
+
+    /** Tells the batches of a search that was cancelled apart from the current ones. */
+    private int generation;
+
+
+    /** The matches found so far, in order. */
+    private MatchList matches = new MatchList();
+
+
+    /** The offset up to which every match has been found. */
+    private int searched;
+
+
+    /** Whether the whole document has been searched. */
+    private boolean done;
+
+
+    /** The matches in the part of the document that was shown when the search started. */
+    private MatchList shownMatches;
+
+
+    /** The range of the document those matches were looked for in. */
+    private int shownFrom, shownTo;
+
+
+    /** The offset to select the first match at or after, or -1. */
+    private int anchor = -1;
+
+
+    /** The start of the match that is selected, -1 if there is none. */
+    private int currentStart = -1;
+
+
+    /** The highlights of the matches that are shown. */
+    private final List<Object> highlights = new ArrayList<>();
+
+
+    /** The highlight of the match that is selected, or null. */
+    private Object currentHighlight;
+
+
+    /** Highlights the matches that come into view. */
+    private final ChangeListener scrolled = e -> highlightShown();
+
+
+    /** Searches again once the document has not been edited for a moment. */
+    private final Timer restart = new Timer(RESTART_DELAY, e -> restart());
+
+
+    /** Starts the timer when the document is edited. */
+    private final DocumentListener edited = new DocumentListener() {
+
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            restart.restart();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            restart.restart();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            if(e instanceof PieceTableDocument.ReplaceEvent) {
+                restart.restart();
+            }
+        }
+
+    };
+
+
+    /** Searches the new document when the text pane is given another one. */
+    private final PropertyChangeListener documentChanged = e -> restart();
+
+
+    /**
+     * Constructor for an IncrementalSearch.
+     */
+    IncrementalSearch() {
+        restart.setRepeats(false);
+    }
+
+
+    /**
+     * Cancels the search that is running and starts searching a text pane.
+     *
+     * @param textPane  The text pane.
+     * @param finder    What to search for.
+     * @param select    Whether to select the first match at or after the
+     *                  caret once it is found.
+     */
+    void search(MainTextPane textPane, TextFinder finder, boolean select) {
+
+        stop();
+
+        this.textPane   = textPane;
+        this.finder     = finder;
+        this.document   = textPane.getDocument();
+
+        document.addDocumentListener(edited);
+        textPane.addPropertyChangeListener("document", documentChanged);
+        if(textPane.getParent() instanceof JViewport) {
+            ((JViewport)textPane.getParent()).addChangeListener(scrolled);
+        }
+
+        TextSnapshot snapshot   = textPane.getSnapshot();
+        int length              = snapshot.length();
+        int[] shown             = getShownRange();
+        int current             = ++generation;
+        anchor                  = select ? textPane.getSelectionStart() : -1;
+
+        showCount();
+
+        task = SEARCHER.submit(() -> {
+
+            try {
+
+                MatchList inView = new MatchList();
+                finder.find(snapshot, shown[0], shown[1], inView);
+                SwingUtilities.invokeLater(() -> foundShown(current, inView, shown[0], shown[1]));
+
+                int from = 0;
+                do {
+                    int to          = Math.min(length, from + BATCH_SIZE);
+                    MatchList batch = new MatchList();
+                    finder.find(snapshot, from, to, batch);
+                    SwingUtilities.invokeLater(() -> found(current, batch, to, to == length));
+                    from            = to;
+                } while(from < length);
+
+            } catch (InterruptedException err) {
+                // Another search took over.
+            }
+        });
+
+    }
+
+
+    /**
+     * Cancels the search that is running and takes its highlights away.
+     */
+    void stop() {
+
+        generation++;
+        restart.stop();
+
+        if(task != null) {
+            task.cancel(true);
+            task = null;
+        }
+
+        if(textPane != null) {
+            document.removeDocumentListener(edited);
+            textPane.removePropertyChangeListener("document", documentChanged);
+            if(textPane.getParent() instanceof JViewport) {
+                ((JViewport)textPane.getParent()).removeChangeListener(scrolled);
+            }
+            removeHighlights();
+            if(currentHighlight != null) {
+                textPane.getHighlighter().removeHighlight(currentHighlight);
+            }
+        }
+
+        textPane            = null;
+        document            = null;
+        finder              = null;
+        matches             = new MatchList();
+        shownMatches        = null;
+        searched            = 0;
+        done                = false;
+        anchor              = -1;
+        currentStart        = -1;
+        currentHighlight    = null;
+    }
+
+
+    /**
+     * Replaces every match in the document of a text pane as a single edit.
+     * The matches and what they are replaced with are found on a snapshot in
+     * the background, the way a search is, and the document is changed in one
+     * go on the Event Dispatch Thread. If it was edited in the meantime it is
+     * searched again. Afterwards, what is left of the matches is searched for.
+     *
+     * @param textPane      The text pane.
+     * @param finder        What to replace.
+     * @param replacement   What to replace it with.
+     */
+    void replaceAll(MainTextPane textPane, TextFinder finder, String replacement) {
+
+        stop();
+
+        if(!textPane.isEditable() || !(textPane.getDocument() instanceof PieceTableDocument)) {
+            Toolkit.getDefaultToolkit().beep();
+            return;
+        }
+
+        PieceTableDocument doc  = (PieceTableDocument)textPane.getDocument();
+        TextSnapshot snapshot   = doc.getSnapshot();
+        int current             = ++generation;
+
+        StatusBar.updateFindCount("Replacing...");
+
+        task = SEARCHER.submit(() -> {
+
+            try {
+                Replacements replacements = finder.replaceAll(snapshot, replacement);
+                SwingUtilities.invokeLater(() -> replaced(current, textPane, doc, finder, replacement,
+                                                          snapshot.getVersion(), replacements));
+            } catch (InterruptedException err) {
+                // Another search took over.
+            } catch (IllegalArgumentException | IndexOutOfBoundsException err) {
+                // The replacement refers to a group the regular expression does not have.
+                SwingUtilities.invokeLater(() -> {
+                    if(current == generation) {
+                        task = null;
+                        StatusBar.updateFindCount("Replace: invalid replacement");
+                    }
+                });
+            }
+        });
+
+    }
+
+
+    /**
+     * Replaces the matches that were found in the background, unless the
+     * replace was cancelled.
+     *
+     * @param current       The generation of the replace.
+     * @param textPane      The text pane.
+     * @param doc           The document the matches were found in.
+     * @param finder        What was replaced.
+     * @param replacement   What it was replaced with.
+     * @param version       The version of the text the matches were found in.
+     * @param replacements  The matches and their replacements.
+     */
+    private void replaced(int current, MainTextPane textPane, PieceTableDocument doc,
+                          TextFinder finder, String replacement, long version,
+                          Replacements replacements) {
+
+        if(current != generation) {
+            return;
+        }
+
+        task = null;
+
+        if(textPane.getDocument() != doc || !textPane.isEditable()) {
+            StatusBar.updateFindCount("");
+            return;
+        }
+
+        try {
+            if(!doc.replace(replacements, version)) {
+                replaceAll(textPane, finder, replacement);
+                return;
+            }
+        } catch (BadLocationException err) {
+            new ErrorReport().createErrorReport(err);
+            JOptionPane.showMessageDialog(null, "Could not replace the matches.",
+                                          "Error", JOptionPane.ERROR_MESSAGE);
+            StatusBar.updateFindCount("");
+            return;
+        }
+
+        int count = replacements.size();
+        StatusBar.updateStatusMessage(String.format("Replaced %,d %s",
+                                                    count, (count == 1) ? "match" : "matches"));
+        search(textPane, finder, false);
+    }
+
+
+    /**
+     * Searches the text pane again, after an edit or when it got another
+     * document. The match that was selected is selected again if it is still
+     * there.
+     */
+    private void restart() {
+
+        if(textPane == null) {
+            return;
+        }
+
+        MainTextPane pane   = textPane;
+        TextFinder what     = finder;
+        boolean select      = currentStart != -1;
+        search(pane, what, select);
+    }
+
+
+    /**
+     * Selects the next match after the one that is selected, or after the
+     * caret, going back to the first match after the last one.
+     */
+    void next() {
+
+        if(textPane == null) {
+            return;
+        }
+
+        int from    = (currentStart != -1) ? currentStart + 1 : textPane.getSelectionStart();
+        int index   = matches.indexAtOrAfter(from);
+
+        if(index < matches.size()) {
+            select(matches.getStart(index), matches.getEnd(index));
+        } else if(done && matches.size() > 0) {
+            select(matches.getStart(0), matches.getEnd(0));
+        } else {
+            Toolkit.getDefaultToolkit().beep();
+        }
+
+    }
+
+
+    /**
+     * Selects the match before the one that is selected, or before the caret,
+     * going to the last match before the first one.
+     */
+    void previous() {
+
+        if(textPane == null) {
+            return;
+        }
+
+        int from    = (currentStart != -1) ? currentStart : textPane.getSelectionStart();
+        int index   = matches.indexAtOrAfter(from) - 1;
+
+        if(index >= 0) {
+            select(matches.getStart(index), matches.getEnd(index));
+        } else if(done && matches.size() > 0) {
+            select(matches.getStart(matches.size() - 1), matches.getEnd(matches.size() - 1));
+        } else {
+            Toolkit.getDefaultToolkit().beep();
+        }
+
+    }
+
+
+    /**
+     * Takes the matches in the part of the document that was shown when the
+     * search started, and highlights them.
+     *
+     * @param current   The generation of the search.
+     * @param found     The matches.
+     * @param from      The start of the part that was searched.
+     * @param to        The end of the part that was searched.
+     */
+    private void foundShown(int current, MatchList found, int from, int to) {
+
+        if(current != generation) {
+            return;
+        }
+
+        shownMatches    = found;
+        shownFrom       = from;
+        shownTo         = to;
+
+        // The first match after a caret that is in view is the first one after it anywhere.
+        if(anchor >= from && anchor < to) {
+            int index = found.indexAtOrAfter(anchor);
+            if(index < found.size()) {
+                select(found.getStart(index), found.getEnd(index));
+            }
+        }
+
+        highlightShown();
+        showCount();
+    }
+
+
+    /**
+     * Adds a batch of matches to the ones found so far.
+     *
+     * @param current   The generation of the search.
+     * @param batch     The matches.
+     * @param to        The offset up to which every match has now been found.
+     * @param last      Whether this is the last batch.
+     */
+    private void found(int current, MatchList batch, int to, boolean last) {
+
+        if(current != generation) {
+            return;
+        }
+
+        // A match at the end of the last batch may overlap the first of this one.
+        int first   = 0;
+        int size    = matches.size();
+        if(size > 0) {
+            int end = matches.getEnd(size - 1);
+            while(first < batch.size() && batch.getStart(first) < end) {
+                first++;
+            }
+        }
+        for(int i = first; i < batch.size(); i++) {
+            matches.add(batch.getStart(i), batch.getEnd(i));
+        }
+
+        searched    = to;
+        done        = last;
+
+        if(anchor != -1) {
+            int index = matches.indexAtOrAfter(anchor);
+            if(index < matches.size()) {
+                select(matches.getStart(index), matches.getEnd(index));
+            } else if(done && matches.size() > 0) {
+                select(matches.getStart(0), matches.getEnd(0));
+            }
+        }
+
+        highlightShown();
+        showCount();
+    }
+
+
+    /**
+     * Selects a match and scrolls it into view.
+     *
+     * @param start     The start of the match.
+     * @param end       The end of the match.
+     */
+    private void select(int start, int end) {
+
+        anchor          = -1;
+        currentStart    = start;
+
+        textPane.select(start, end);
+
+        Highlighter highlighter = textPane.getHighlighter();
+        try {
+            if(currentHighlight != null) {
+                highlighter.changeHighlight(currentHighlight, start, end);
+            } else {
+                currentHighlight = highlighter.addHighlight(start, end, CURRENT_PAINTER);
+            }
+            Rectangle r = textPane.modelToView(start);
+            if(r != null) {
+                textPane.scrollRectToVisible(r);
+            }
+        } catch (BadLocationException err) {
+            // The document was edited since the search, it is searched again.
+        }
+
+        highlightShown();
+        showCount();
+    }
+
+
+    /**
+     * Highlights the matches that are shown, and takes the highlights of the
+     * other matches away.
+     */
+    private void highlightShown() {
+
+        if(textPane == null) {
+            return;
+        }
+
+        removeHighlights();
+
+        int[] shown     = getShownRange();
+        MatchList list  = matches;
+        if(!done && searched < shown[1] && shownMatches != null
+                && shownFrom <= shown[0] && shownTo >= shown[1]) {
+            list = shownMatches;
+        }
+
+        Highlighter highlighter = textPane.getHighlighter();
+        int length              = textPane.getDocument().getLength();
+        int index               = Math.max(0, list.indexAtOrAfter(shown[0]) - 1);
+
+        for(; index < list.size() && list.getStart(index) < shown[1]
+                && highlights.size() < MAX_HIGHLIGHTS; index++) {
+
+            int start   = list.getStart(index);
+            int end     = list.getEnd(index);
+            if(end <= shown[0] || end > length || start == currentStart) {
+                continue;
+            }
+
+            try {
+                highlights.add(highlighter.addHighlight(start, end, MATCH_PAINTER));
+            } catch (BadLocationException err) {
+                new ErrorReport().createErrorReport(err);
+                return;
+            }
+        }
+
+    }
+
+
+    /**
+     * Takes the highlights of the matches away, but not the one of the match
+     * that is selected.
+     */
+    private void removeHighlights() {
+        Highlighter highlighter = textPane.getHighlighter();
+        for(Object highlight : highlights) {
+            highlighter.removeHighlight(highlight);
+        }
+        highlights.clear();
+    }
+
+
+    /**
+     * Returns the part of the document that is shown, from the start of the
+     * first line in view to the end of the last one.
+     *
+     * @return          The start and the end of the part.
+     */
+    private int[] getShownRange() {
+
+        int length = textPane.getDocument().getLength();
+        if(!(textPane.getParent() instanceof JViewport)) {
+            return new int[] {0, length};
+        }
+
+        Rectangle view  = ((JViewport)textPane.getParent()).getViewRect();
+        int start       = textPane.viewToModel(new Point(0, view.y));
+        int end         = textPane.viewToModel(new Point(textPane.getWidth(), view.y + view.height));
+
+        start   = Math.max(0, Math.min(start, length));
+        end     = Math.max(start, Math.min(end + 1, length));
+        return new int[] {start, end};
+    }
+
+
+    /**
+     * Puts the amount of matches on the status bar, and which of them is
+     * selected.
+     */
+    private void showCount() {
+
+        if(textPane == null) {
+            StatusBar.updateFindCount("");
+            return;
+        }
+
+        int count       = matches.size();
+        String suffix   = done ? "" : " (searching...)";
+
+        if(done && count == 0) {
+            StatusBar.updateFindCount("Find: no matches");
+        } else if(currentStart != -1 && currentStart < searched) {
+            int index = matches.indexAtOrAfter(currentStart);
+            StatusBar.updateFindCount(String.format("Find: %,d of %,d%s", index + 1, count, suffix));
+        } else {
+            StatusBar.updateFindCount(String.format("Find: %,d %s%s",
+                                                    count, (count == 1) ? "match" : "matches",
+                                                    suffix));
+        }
+
+    }
+
+
+    /**
+     * Paints a highlight in one go, for all of its range, instead of leaving
+     * it to the views. The views of long lines do not paint layered
+     * highlights.
+     */
+    private static class MatchPainter implements Highlighter.HighlightPainter {
+
+
+        /** Paints the range. */
+        private final DefaultHighlighter.DefaultHighlightPainter painter;
+
+
+        /**
+         * Constructor for a MatchPainter.
+         *
+         * @param color     The color of the highlight.
+         */
+        MatchPainter(Color color) {
+            painter = new DefaultHighlighter.DefaultHighlightPainter(color);
+        }
+
+
+        @Override
+        public void paint(Graphics g, int p0, int p1, Shape bounds, JTextComponent c) {
+            painter.paint(g, p0, p1, bounds, c);
+        }
+
+    }
+
+}
@@ -11,6 +11,7 @@ import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JOptionPane;
+import javax.swing.JToggleButton;
 import javax.swing.JToolBar;
 import javax.swing.text.MutableAttributeSet;
 import javax.swing.text.SimpleAttributeSet;
@@ -24,7 +25,7 @@ import text.editor.graphics.actions.Actions;
  * Contains components to style text, and to create, open and save files.
  *
  * Created on:  March 01, 2016
- * Edited on:   March 05, 2016
+ * Edited on:   October 17, 2026
  *
  * @author Jackie Chan
  */
@@ -33,9 +34,14 @@ public class MainEditingToolBar extends JToolBar {
 
     /** Buttons for the tool bar. */
     private static JButton newFileButton, openFileButton, saveFileButton,
+                           importFileButton, exportFileButton,
                            boldButton, italicButton, underlineButton;
 
 
+    /** Switches wrapping of long lines in the selected document on or off. */
+    private static JToggleButton wrapButton;
+
+
     /**
      * Combo box that allows the user to select their font size from a list or
      * type their own font.
@@ -67,14 +73,16 @@ public class MainEditingToolBar extends JToolBar {
      * also assist in styling text.
      */
     private void createToolBar() {
-        newFileButton   = new JButton("New");
-        openFileButton  = new JButton("Open");
-        saveFileButton  = new JButton("Save");
+        newFileButton    = new JButton("New");
+        openFileButton   = new JButton("Open");
+        saveFileButton   = new JButton("Save");
+        importFileButton = new JButton("Import");
+        exportFileButton = new JButton("Export");
 
         // These buttons will contain images.
-        boldButton      = new JButton(new ImageIcon("res/bold_action_32x32_white_icon.png"));
-        italicButton    = new JButton(new ImageIcon("res/italic_action_32x32_white_icon.png"));
-        underlineButton = new JButton(new ImageIcon("res/underline_action_32x32_white_icon.png"));
+        boldButton       = new JButton(new ImageIcon("res/bold_action_32x32_white_icon.png"));
+        italicButton     = new JButton(new ImageIcon("res/italic_action_32x32_white_icon.png"));
+        underlineButton  = new JButton(new ImageIcon("res/underline_action_32x32_white_icon.png"));
 
         boldButton.addActionListener(new StyledEditorKit.BoldAction());
         italicButton.addActionListener(new StyledEditorKit.ItalicAction());
@@ -83,10 +91,14 @@ public class MainEditingToolBar extends JToolBar {
         saveFileButton.addActionListener(new Actions.SaveFileAction());
         openFileButton.addActionListener(new Actions.OpenFileAction());
         newFileButton.addActionListener(new Actions.NewFileAction());
+        importFileButton.addActionListener(new Actions.ImportFileAction());
+        exportFileButton.addActionListener(new Actions.ExportFileAction());
 
         this.add(newFileButton);
         this.add(openFileButton);
         this.add(saveFileButton);
+        this.add(importFileButton);
+        this.add(exportFileButton);
 
         this.addSeparator();
 
@@ -102,6 +114,38 @@ public class MainEditingToolBar extends JToolBar {
         this.add(italicButton);
         this.add(underlineButton);
 
+        this.addSeparator();
+
+        createWrapButton();
+
+    }
+
+
+    /**
+     * Creates the button that switches wrapping of long lines on or off for
+     * the selected document. Lines are wrapped until it is switched off.
+     */
+    private void createWrapButton() {
+
+        wrapButton = new JToggleButton("Wrap", true);
+        wrapButton.setToolTipText("Wrap long lines at the width of the window");
+
+        wrapButton.addActionListener(new AbstractAction() {
+
+            /*
+                Only the selected document changes, the others keep their own
+                setting. Then reset focus to the document.
+            */
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                MainWindow.getTextPane().setLineWrap(wrapButton.isSelected());
+                MainWindow.setFocusToDocument();
+            }
+
+        });
+
+        this.add(wrapButton);
+
     }
 
 
@@ -228,6 +272,18 @@ public class MainEditingToolBar extends JToolBar {
     }
 
 
+    /**
+     * Shows whether the selected document wraps its lines on the wrap button.
+     *
+     * @param lineWrap  Whether lines are wrapped.
+     */
+    public static void setLineWrap(boolean lineWrap) {
+        if(wrapButton != null) {
+            wrapButton.setSelected(lineWrap);
+        }
+    }
+
+
     /**
      * Sets the font name displayed in the font names combo box to the name in
      * the parameter.
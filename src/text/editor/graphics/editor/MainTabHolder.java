@@ -15,13 +15,15 @@ import javax.swing.JLabel;
 import javax.swing.JTabbedPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 
 
 /**
  * Holds each document in a new tab.
  *
  * Created on:  March 03, 2016
- * Edited on:   March 05, 2016
+ * Edited on:   October 17, 2026
  *
  * @author Jackie Chan
  */
@@ -32,10 +34,30 @@ public class MainTabHolder extends JTabbedPane {
 
 
     /**
-     * Creates a new document.
+     * Creates a new document. The status bar shows the latency of the
+     * selected document, and the tool bar whether it wraps its lines. A
+     * hibernated document is woken up when its tab is selected, and searched
+     * if the find bar is open.
      */
     private void createTabbedPane() {
+
         createNewDocument();
+
+        this.addChangeListener(new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                if(getSelectedIndex() != -1) {
+                    MainTextPane textPane = getTextPane(getSelectedIndex());
+                    TabHibernator.selected(textPane);
+                    StatusBar.updateLatency(textPane.getLatency().getSummary());
+                    textPane.showStatistics();
+                    textPane.showPosition();
+                    MainEditingToolBar.setLineWrap(textPane.isLineWrap());
+                    FindBar.tabSelected(textPane);
+                }
+            }
+        });
+
     }
 
 
@@ -46,7 +68,9 @@ public class MainTabHolder extends JTabbedPane {
      * one just created.
      */
     public void createNewDocument() {
-        this.addTab("New File "+(this.getTabCount()+1), new JScrollPane(new MainTextPane()));
+        JScrollPane scrollPane = new JScrollPane(new MainTextPane());
+        scrollPane.setPreferredSize(new Dimension(700,500));
+        this.addTab("New File "+(this.getTabCount()+1), scrollPane);
         this.setTabComponentAt(this.getTabCount()-1, new CustomTab(this));
         this.setSelectedIndex(this.getTabCount()-1);
     }
@@ -63,6 +87,38 @@ public class MainTabHolder extends JTabbedPane {
     }
 
 
+    /**
+     * Returns the index of the tab that holds a MainTextPane.
+     *
+     * @param textPane  The MainTextPane.
+     * @return          The index of the tab, or -1 if it is not in a tab.
+     */
+    public int indexOfTextPane(MainTextPane textPane) {
+        for(int i = 0; i < this.getTabCount(); i++) {
+            if(getTextPane(i) == textPane) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Sets the tool tip of a tab, on the tab and on the component that shows
+     * its title and close button.
+     *
+     * @param index     The index of the tab.
+     * @param text      The tool tip, or null for none.
+     */
+    void setTabToolTip(int index, String text) {
+        this.setToolTipTextAt(index, text);
+        Component tab = this.getTabComponentAt(index);
+        if(tab instanceof CustomTab) {
+            ((CustomTab)tab).setToolTip(text);
+        }
+    }
+
+
     /**
      * A JPanel that contains a JLabel for the file name. It also contains a
      * 'x' button that allows the user to close the document.
@@ -74,6 +130,10 @@ public class MainTabHolder extends JTabbedPane {
         private final JTabbedPane pane;
 
 
+        /** The JLabel that shows the file name. */
+        private final JLabel label;
+
+
         /**
          * Default constructor for the CustomTab class. Will set the layout to a
          * FlowLayout. Will throw a null pointer exception if the pane is null.
@@ -95,7 +155,7 @@ public class MainTabHolder extends JTabbedPane {
 
             this.setOpaque(false);
 
-            JLabel label = new JLabel() {
+            label = new JLabel() {
 
                 @Override
                 public String getText() {
@@ -115,6 +175,17 @@ public class MainTabHolder extends JTabbedPane {
         }
 
 
+        /**
+         * Sets the tool tip shown over the file name.
+         *
+         * @param text      The tool tip, or null for none.
+         */
+        void setToolTip(String text) {
+            this.setToolTipText(text);
+            label.setToolTipText(text);
+        }
+
+
         /**
          * A JButton that will delete the tab it is associated with if clicked.
          */
@@ -143,7 +214,9 @@ public class MainTabHolder extends JTabbedPane {
 
 
             /*
-                Will remove the tab that this button is associated with.
+                Will remove the tab that this button is associated with. A file
+                that is still being loaded into the tab stops loading and its
+                edit journal is deleted.
             */
             @Override
             public void actionPerformed(ActionEvent e) {
@@ -151,6 +224,7 @@ public class MainTabHolder extends JTabbedPane {
                 // Will remove the tab of whom's close button was clicked.
                 int index = pane.indexOfTabComponent(CustomTab.this);
                 if(index != -1) {
+                    getTextPane(index).close();
                     pane.remove(index);
                 }
 
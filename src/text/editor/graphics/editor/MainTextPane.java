@@ -1,26 +1,51 @@
 package text.editor.graphics.editor;
 
-import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.InputEvent;
+import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
+import java.io.File;
+import java.io.IOException;
+import javax.swing.AbstractAction;
 import javax.swing.ActionMap;
 import javax.swing.InputMap;
 import javax.swing.JTextPane;
+import javax.swing.JViewport;
 import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.EditorKit;
+import javax.swing.text.Element;
 import javax.swing.text.MutableAttributeSet;
 import javax.swing.text.StyleConstants;
 import javax.swing.text.StyledEditorKit;
+import text.editor.errorreporting.ErrorReport;
 import text.editor.graphics.MainWindow;
+import text.editor.graphics.UiUpdateBus;
 import text.editor.graphics.actions.Actions;
+import text.editor.graphics.actions.FileType;
+import text.editor.graphics.view.VirtualEditorKit;
+import text.editor.io.CompressedDocument;
+import text.editor.io.TextEncoding;
+import text.editor.latency.KeystrokeLatency;
+import text.editor.model.DocumentStatistics;
+import text.editor.model.PieceTableDocument;
+import text.editor.model.TextSnapshot;
+import text.editor.recovery.EditJournal;
+import text.editor.recovery.RecoveryManager;
 
 
 /**
  * This is the main class for the main GUI of the application.
  *
  * Created on:  February 28, 2016
- * Edited on:   March 05, 2016
+ * Edited on:   October 17, 2026
  *
  * @author Jackie Chan
  */
@@ -31,20 +56,104 @@ public class MainTextPane extends JTextPane {
     private String filePath;
 
 
+    /** How this document's file is encoded when it is plain text. */
+    private TextEncoding encoding = TextEncoding.DEFAULT;
+
+
+    /** Records the edits to the document so it can be recovered after a crash. */
+    private EditJournal journal;
+
+
+    /** Keeps track of the font, font size, and statistics of the document. */
+    private DocumentManager documentManager;
+
+
+    /** Whether long lines are wrapped at the width of the window. */
+    private boolean lineWrap = true;
+
+
+    /** The document, compressed in memory while the tab is hibernated, or null. */
+    private CompressedDocument sleepingDocument;
+
+
+    /** The file the compressed document was moved to, or null. */
+    private File hibernationFile;
+
+
+    /** About how much heap the document took before it was hibernated. */
+    private long awakeSize;
+
+
+    /** Where the caret was when the tab was hibernated. */
+    private int hibernatedCaret;
+
+
+    /** The offset of the first line that was shown when the tab was hibernated. */
+    private int hibernatedTop;
+
+
+    /** When the tab was last selected, in nanoseconds. */
+    private long lastSelectedTime = System.nanoTime();
+
+
+    /** The task that is loading a file into this document, if any. */
+    private SwingWorker<?, ?> loadingTask;
+
+
+    /** The amount of edits made to the document so far. */
+    private long modificationCount;
+
+
+    /** The modification count of the text that was last saved or loaded. */
+    private long savedModificationCount;
+
+
+    /** How long the keystrokes of this document take to show up. */
+    private final KeystrokeLatency latency = new KeystrokeLatency();
+
+
+    /** When the latency was last shown on the status bar, in nanoseconds. */
+    private long latencyShownTime;
+
+
+    /** The least time between two updates of the latency on the status bar. */
+    private static final long LATENCY_REFRESH_NANOS = 250L * 1000 * 1000;
+
+
+    /** Shows the statistics once the document has been counted in the background. */
+    private final Runnable statisticsCounted = () -> SwingUtilities.invokeLater(this::showStatistics);
+
+
     /**
-     * Default constructor for the MainTextPane. Will add a DocumentListener,
-     * set the preferred size of the document, and register key bindings
-     * (keyboard shortcuts).
+     * Default constructor for the MainTextPane. Will create an empty piece
+     * table document, add a DocumentListener, and register key bindings
+     * (keyboard shortcuts). The size of the text pane follows the document,
+     * the size of the window comes from the scroll pane it is in.
      */
     public MainTextPane() {
 
-        this.getDocument().addDocumentListener(new DocumentManager());
-        this.setPreferredSize(new Dimension(700,500));
+        super(new PieceTableDocument());
+
+        journal         = RecoveryManager.createJournal();
+        documentManager = new DocumentManager();
+        this.getDocument().addDocumentListener(documentManager);
+        getStatistics().setListener(statisticsCounted);
+        this.addCaretListener(e -> showPosition());
 
         registerKeyBindings();
     }
 
 
+    /*
+        Called by the constructor of JTextPane, so only the paragraphs that
+        are shown are ever laid out.
+    */
+    @Override
+    protected EditorKit createDefaultEditorKit() {
+        return new VirtualEditorKit();
+    }
+
+
     /**
      * Sets the full path to this documents file.
      *
@@ -52,6 +161,7 @@ public class MainTextPane extends JTextPane {
      */
     public void setFilePath(String filePath) {
         this.filePath = filePath;
+        journal.pathChanged(filePath);
     }
 
 
@@ -65,6 +175,482 @@ public class MainTextPane extends JTextPane {
     }
 
 
+    /**
+     * Sets how this document's file is encoded, so it is saved the way it
+     * was opened.
+     *
+     * @param encoding      The encoding of the file.
+     */
+    public void setEncoding(TextEncoding encoding) {
+        this.encoding = encoding;
+    }
+
+
+    /**
+     * Returns how this document's file is encoded when it is plain text.
+     *
+     * @return              The encoding.
+     */
+    public TextEncoding getEncoding() {
+        return this.encoding;
+    }
+
+
+    /**
+     * Returns how long the keystrokes of this document take to show up.
+     *
+     * @return              The latency of this document's keystrokes.
+     */
+    public KeystrokeLatency getLatency() {
+        return latency;
+    }
+
+
+    /**
+     * Returns the amount of words, lines and paragraphs of the document.
+     *
+     * @return              The statistics of this document.
+     */
+    public DocumentStatistics getStatistics() {
+        return ((PieceTableDocument)getDocument()).getStatistics();
+    }
+
+
+    /**
+     * Returns the text of the document as it was after its last change. The
+     * snapshot can be read on any thread without locking the document.
+     *
+     * @return              The snapshot of this document's text.
+     */
+    public TextSnapshot getSnapshot() {
+        return ((PieceTableDocument)getDocument()).getSnapshot();
+    }
+
+
+    /**
+     * Puts the statistics of the document on the status bar, if this is the
+     * document that is selected. A document that is still being counted is
+     * shown as such, and again once it has been counted.
+     */
+    public void showStatistics() {
+        if(isSelected()) {
+            MainWindow.updateStatistics(getStatistics().getCounts());
+        }
+    }
+
+
+    /**
+     * Returns the amount of lines in the document. Swing keeps a paragraph
+     * for every line, so the lines are never counted.
+     *
+     * @return              The amount of lines, at least 1.
+     */
+    public int getLineCount() {
+        return getDocument().getDefaultRootElement().getElementCount();
+    }
+
+
+    /**
+     * Puts the line and column of the caret on the status bar, if this is the
+     * document that is selected.
+     */
+    public void showPosition() {
+        if(isSelected()) {
+            Element root    = getDocument().getDefaultRootElement();
+            int offset      = getCaretPosition();
+            int line        = root.getElementIndex(offset);
+            StatusBar.updatePosition(line + 1, offset - root.getElement(line).getStartOffset() + 1);
+        }
+    }
+
+
+    /**
+     * Moves the caret to the start of a line and scrolls it into view.
+     *
+     * @param line          The line, counting from 1. Lines past the end go
+     *                      to the last line.
+     */
+    public void goToLine(int line) {
+        Element root    = getDocument().getDefaultRootElement();
+        int index       = Math.max(0, Math.min(line, root.getElementCount()) - 1);
+        setCaretPosition(root.getElement(index).getStartOffset());
+        requestFocusInWindow();
+    }
+
+
+    /**
+     * Switches wrapping of long lines at the width of the window on or off.
+     * Without wrapping every line is shown on a single row and the window
+     * scrolls sideways. The document is not loaded again, only the lines
+     * that are shown are laid out again.
+     *
+     * @param lineWrap      Whether to wrap lines.
+     */
+    public void setLineWrap(boolean lineWrap) {
+        if(lineWrap != this.lineWrap) {
+            this.lineWrap = lineWrap;
+            putClientProperty(VirtualEditorKit.LINE_WRAP, lineWrap);
+            revalidate();
+            repaint();
+        }
+    }
+
+
+    /**
+     * Returns whether long lines are wrapped at the width of the window.
+     *
+     * @return              Whether lines are wrapped.
+     */
+    public boolean isLineWrap() {
+        return lineWrap;
+    }
+
+
+    /*
+        Without wrapping the text is as wide as its widest line, and only
+        stretched to the viewport when it is narrower than that.
+    */
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        if(lineWrap) {
+            return super.getScrollableTracksViewportWidth();
+        }
+        return getParent() instanceof JViewport
+                && getParent().getWidth() > getUI().getPreferredSize(this).width;
+    }
+
+
+    /**
+     * Returns true if this is the document of the tab that is selected.
+     *
+     * @return              Whether this document is selected.
+     */
+    private boolean isSelected() {
+        MainTabHolder tabs = MainWindow.getTabbedPane();
+        return tabs != null && tabs.getSelectedIndex() != -1
+                && tabs.getTextPane(tabs.getSelectedIndex()) == this;
+    }
+
+
+    /**
+     * Sets the task that is loading a file into this document.
+     *
+     * @param loadingTask   The task, or null once loading has finished.
+     */
+    public void setLoadingTask(SwingWorker<?, ?> loadingTask) {
+        this.loadingTask = loadingTask;
+    }
+
+
+    /**
+     * Returns true if a file is still being loaded into this document.
+     *
+     * @return              Whether a file is being loaded.
+     */
+    public boolean isLoading() {
+        return loadingTask != null;
+    }
+
+
+    /**
+     * Cancels loading a file into this document. The text shown so far
+     * stays in the document, which is no longer tied to the file.
+     */
+    public void cancelLoading() {
+        if(loadingTask != null) {
+            loadingTask.cancel(true);
+        }
+    }
+
+
+    /**
+     * Lets go of the document once the tab of this text pane is closed. A
+     * file that is still loading stops loading and the edit journal is
+     * deleted, and so is the file of a hibernated document.
+     */
+    public void close() {
+        cancelLoading();
+        journal.close();
+        if(hibernationFile != null) {
+            hibernationFile.delete();
+            hibernationFile = null;
+        }
+        sleepingDocument = null;
+    }
+
+
+    /**
+     * Lets go of the document once it has been compressed, and shows an
+     * empty one that can not be edited until the document is woken up. The
+     * caret and the first line shown are remembered.
+     *
+     * @param compressed    The compressed document.
+     * @param size          About how much heap the document takes.
+     */
+    void hibernate(CompressedDocument compressed, long size) {
+
+        hibernatedCaret = getCaretPosition();
+        hibernatedTop   = 0;
+        if(getParent() instanceof JViewport) {
+            hibernatedTop = Math.max(0, viewToModel(((JViewport)getParent()).getViewPosition()));
+        }
+
+        sleepingDocument    = compressed;
+        awakeSize           = size;
+        setEditable(false);
+        setDocument(new PieceTableDocument());
+    }
+
+
+    /**
+     * Lets go of the compressed document of a hibernated tab once it has been
+     * written to a file.
+     *
+     * @param file          The file that holds the compressed document.
+     */
+    void spill(File file) {
+        sleepingDocument    = null;
+        hibernationFile     = file;
+    }
+
+
+    /**
+     * Returns the compressed document of a hibernated tab that is still in
+     * memory.
+     *
+     * @return              The compressed document, or null if the tab is
+     *                      awake or its document is in a file.
+     */
+    CompressedDocument getSleepingDocument() {
+        return sleepingDocument;
+    }
+
+
+    /**
+     * Returns the file the compressed document of a hibernated tab was moved
+     * to.
+     *
+     * @return              The file, or null if the tab is awake or its
+     *                      document is in memory.
+     */
+    File getHibernationFile() {
+        return hibernationFile;
+    }
+
+
+    /**
+     * Inflates a hibernated document, from memory or from its file, and puts
+     * the caret and the first line shown back where they were. The file is
+     * deleted.
+     *
+     * @throws IOException if the document can not be read back; it stays
+     *                     hibernated.
+     */
+    void wake() throws IOException {
+
+        CompressedDocument compressed = (sleepingDocument != null)
+                                            ? sleepingDocument
+                                            : CompressedDocument.read(hibernationFile);
+        Document doc = compressed.inflate();
+
+        if(hibernationFile != null) {
+            hibernationFile.delete();
+        }
+        sleepingDocument    = null;
+        hibernationFile     = null;
+
+        setDocument(doc);
+        setEditable(true);
+        setCaretPosition(Math.min(hibernatedCaret, doc.getLength()));
+
+        // The lines are only laid out once the tab is shown.
+        int top = Math.min(hibernatedTop, doc.getLength());
+        SwingUtilities.invokeLater(() -> {
+            try {
+                Rectangle r = modelToView(top);
+                if(r != null && getParent() instanceof JViewport) {
+                    ((JViewport)getParent()).setViewPosition(new Point(0, r.y));
+                }
+            } catch (BadLocationException err) {
+                new ErrorReport().createErrorReport(err);
+            }
+        });
+    }
+
+
+    /**
+     * Returns true if the document has been compressed to save memory and
+     * will be inflated once the tab is selected.
+     *
+     * @return              Whether the document is hibernated.
+     */
+    public boolean isHibernated() {
+        return sleepingDocument != null || hibernationFile != null;
+    }
+
+
+    /**
+     * Returns true if the compressed document of a hibernated tab has been
+     * moved to a file.
+     *
+     * @return              Whether the document is in a file.
+     */
+    public boolean isSpilled() {
+        return hibernationFile != null;
+    }
+
+
+    /**
+     * Returns about how much heap hibernating the document saves.
+     *
+     * @return              The amount of bytes, 0 if the tab is awake.
+     */
+    public long getSavedMemory() {
+        if(!isHibernated()) {
+            return 0;
+        }
+        long kept = (sleepingDocument != null) ? sleepingDocument.getCompressedSize() : 0;
+        return Math.max(0, awakeSize - kept);
+    }
+
+
+    /**
+     * Sets when the tab was last selected.
+     *
+     * @param time          The time, from System.nanoTime().
+     */
+    void setLastSelectedTime(long time) {
+        lastSelectedTime = time;
+    }
+
+
+    /**
+     * Returns when the tab was last selected.
+     *
+     * @return              The time, from System.nanoTime().
+     */
+    long getLastSelectedTime() {
+        return lastSelectedTime;
+    }
+
+
+    /**
+     * Shows a document that was recovered from an edit journal. The document
+     * counts as modified, because none of it may be on the disk.
+     *
+     * @param doc           The recovered document.
+     * @param filePath      The file the document belonged to, may be null.
+     */
+    public void restoreDocument(Document doc, String filePath) {
+        setDocument(doc);
+        setFilePath(filePath);
+        modificationCount++;
+        journal.checkpoint(doc);
+    }
+
+
+    /**
+     * Returns the amount of edits made to the document so far. Take it at the
+     * same time as a snapshot of the document to know what a save contains.
+     *
+     * @return              The modification count.
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+
+    /**
+     * Records that the text up to a modification count is on the disk. Saves
+     * may finish out of order, so an older count never undoes a newer one.
+     * Once nothing is left unsaved the edit journal is not needed anymore,
+     * and the next one starts from the file if it is plain text. If the text
+     * was edited while it was being saved, the journal takes a new checkpoint.
+     *
+     * @param count         The modification count of the saved text.
+     */
+    public void markSaved(long count) {
+        savedModificationCount = Math.max(savedModificationCount, count);
+        boolean plainText = filePath != null && FileType.of(filePath) == FileType.TXT_OTHER;
+        journal.saved(getDocument(), plainText ? new File(filePath) : null, encoding, isModified());
+    }
+
+
+    /**
+     * Returns true if the document has edits that are not saved.
+     *
+     * @return              Whether the document is modified.
+     */
+    public boolean isModified() {
+        return modificationCount != savedModificationCount;
+    }
+
+
+    /**
+     * Replaces the document of this text pane. The DocumentManager is moved
+     * over to the new document and the statistics are updated to match it.
+     *
+     * @param doc           The new document.
+     */
+    @Override
+    public void setDocument(Document doc) {
+
+        /*
+            JTextPane sets a document before the constructor of this class has
+            run, so the DocumentManager may not exist yet.
+        */
+        if(documentManager != null) {
+            getDocument().removeDocumentListener(documentManager);
+            getStatistics().setListener(null);
+        }
+
+        super.setDocument(doc);
+
+        if(documentManager != null) {
+            doc.addDocumentListener(documentManager);
+            getStatistics().setListener(statisticsCounted);
+            showStatistics();
+            showPosition();
+        }
+
+    }
+
+
+    /*
+        Notes when a key comes in, before it is handled, to time how long it
+        takes to show up.
+    */
+    @Override
+    protected void processKeyEvent(KeyEvent e) {
+        if(e.getID() != KeyEvent.KEY_RELEASED) {
+            latency.keyReceived();
+        }
+        super.processKeyEvent(e);
+    }
+
+
+    /*
+        Records the latency of the keystroke this paint shows, and puts it on
+        the status bar a few times a second at most, so the status bar does
+        not add to the paints it is measuring.
+    */
+    @Override
+    protected void paintComponent(Graphics g) {
+
+        super.paintComponent(g);
+
+        if(latency.painted()) {
+            long now = System.nanoTime();
+            if(now - latencyShownTime >= LATENCY_REFRESH_NANOS
+                    && MainWindow.getTextPane() == this) {
+                latencyShownTime = now;
+                StatusBar.updateLatency(latency.getSummary());
+            }
+        }
+
+    }
+
+
     /**
      * Adds key bindings (keyboard shortcuts) to the MainTextPane.
      *
@@ -75,6 +661,20 @@ public class MainTextPane extends JTextPane {
      * CTRL+N   Creates a new document.
      * CTRL+S   Saves the current document.
      * CTRL+O   Opens a document.
+     *
+     * CTRL+G   Goes to a line.
+     *
+     * CTRL+F   Finds text in the document.
+     *
+     * CTRL+SHIFT+F Finds text in every open tab.
+     *
+     * CTRL+SHIFT+H Finds text in every file under a folder.
+     *
+     * ESCAPE   Cancels loading a document.
+     *
+     * CTRL+SHIFT+L Writes the keystroke latencies to a file.
+     *
+     * CTRL+SHIFT+M Shows how much memory every document takes.
      */
     private void registerKeyBindings() {
 
@@ -105,63 +705,135 @@ public class MainTextPane extends JTextPane {
                                         "new_file");
         am.put("new_file", new Actions.NewFileAction());
 
+        im.put(KeyStroke.getKeyStroke(KeyEvent.VK_G, InputEvent.CTRL_DOWN_MASK),
+                                        "go_to_line");
+        am.put("go_to_line", new Actions.GoToLineAction());
+
+        im.put(KeyStroke.getKeyStroke(KeyEvent.VK_F, InputEvent.CTRL_DOWN_MASK),
+                                        "find");
+        am.put("find", new Actions.FindAction());
+
+        im.put(KeyStroke.getKeyStroke(KeyEvent.VK_F,
+                                      InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK),
+                                        "find_in_tabs");
+        am.put("find_in_tabs", new Actions.FindInTabsAction());
+
+        im.put(KeyStroke.getKeyStroke(KeyEvent.VK_H,
+                                      InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK),
+                                        "find_in_files");
+        am.put("find_in_files", new Actions.FindInFilesAction());
+
+        im.put(KeyStroke.getKeyStroke(KeyEvent.VK_L, 
+                                      InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK),
+                                        "dump_latency");
+        am.put("dump_latency", new Actions.DumpLatencyAction());
+
+        im.put(KeyStroke.getKeyStroke(KeyEvent.VK_M,
+                                      InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK),
+                                        "memory_diagnostics");
+        am.put("memory_diagnostics", new Actions.MemoryDiagnosticsAction());
+
+        im.put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0),
+                                        "cancel_loading");
+        am.put("cancel_loading", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                cancelLoading();
+            }
+        });
+
     }
 
 
     /**
      * The DocumentManager class will keep track of the font, font size, and
-     * amount of characters in a document.
+     * statistics of a document.
      */
     class DocumentManager implements DocumentListener {
 
-        // The amount of characters in the document.
-        private int amountOfCharacters = 0;
-
         // Attributes for the text pane will be set to this.
         private MutableAttributeSet set;
 
+        // Brings the toolbar up to date once per frame, however many edits.
+        private final Runnable checkToolBar = this::check;
+
 
         /** Default constructor for the DocumentManager. */
         public DocumentManager() {}
 
 
         /*
-            Will increase the amount of characters in a document as the user
-            enters them. Then will check if any displayed settings need to be
+            Will show the statistics of the document as the user enters
+            characters. Then will check if any displayed settings need to be
             changed.
         */
         @Override
         public void insertUpdate(DocumentEvent e) {
 
-            amountOfCharacters += e.getLength();
-            MainWindow.updateCharacterCount(amountOfCharacters);
+            modificationCount++;
+            latency.documentUpdated();
+
+            try {
+                // The text of a file being loaded is already on the disk.
+                if(!isLoading()) {
+                    journal.insert(e.getDocument(), e.getOffset(),
+                                   e.getDocument().getText(e.getOffset(), e.getLength()));
+                }
+            } catch (BadLocationException err) {
+                new ErrorReport().createErrorReport(err);
+            }
+            showStatistics();
 
-            check();
+            UiUpdateBus.post("toolbar", checkToolBar);
         }
 
 
         /*
-            Will decrease the amount of characters in a document as the user
-            enters them. Then will check if any displayed settings need to be
+            Will show the statistics of the document as the user removes
+            characters. Then will check if any displayed settings need to be
             changed.
         */
         @Override
         public void removeUpdate(DocumentEvent e) {
 
-            amountOfCharacters -= e.getLength();
-            MainWindow.updateCharacterCount(amountOfCharacters);
+            modificationCount++;
+            latency.documentUpdated();
+
+            if(!isLoading()) {
+                journal.remove(e.getDocument(), e.getOffset(), e.getLength());
+            }
+            showStatistics();
 
-            check();
+            UiUpdateBus.post("toolbar", checkToolBar);
         }
 
 
         /*
-            This is not yet implemented (and probably wont be until a reason is
-            found to implement it).
+            A change of attributes leaves the text as it is. A replace changes
+            it in too many places to go through one at a time, so the journal
+            takes a checkpoint. The caret
+            does not follow a change, so it is kept inside of the text.
         */
         @Override
         public void changedUpdate(DocumentEvent e) {
-            System.err.println("changeUpdate(DocumentEvent e) not implemented...");
+
+            if(!(e instanceof PieceTableDocument.ReplaceEvent)) {
+                return;
+            }
+
+            modificationCount++;
+
+            int length = e.getDocument().getLength();
+            if(getCaret().getDot() > length || getCaret().getMark() > length) {
+                setCaretPosition(Math.min(getCaretPosition(), length));
+            }
+
+            if(!isLoading()) {
+                journal.checkpoint(e.getDocument());
+            }
+            showStatistics();
+
+            UiUpdateBus.post("toolbar", checkToolBar);
         }
 
 
@@ -0,0 +1,356 @@
+package text.editor.graphics.editor;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
+import text.editor.graphics.MainWindow;
+import text.editor.memory.HeapWatchdog;
+import text.editor.memory.MemoryFootprint;
+
+
+/**
+ * Keeps count of how much of the heap the document of every tab takes, and
+ * warns when the heap is about to run out.
+ *
+ * Every few seconds the documents that changed since they were last counted
+ * are counted again on a background thread, and the tool tip of their tab
+ * shows what their text, style tree and history of edits take. A hibernated
+ * tab shows what its compressed document takes instead.
+ *
+ * When the HeapWatchdog says the heap is running out, every tab but the
+ * selected one is put to sleep and the user is told to save their work,
+ * at most once a minute, before an OutOfMemoryError can lose it.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class MemoryAccounting {
+
+
+    /** The amount of milliseconds between two counts. */
+    private static final int REFRESH_INTERVAL = 10000;
+
+
+    /** The amount of milliseconds between two warnings that the heap runs out. */
+    private static final long WARNING_INTERVAL = 60000;
+
+
+    /** The amount of bytes in a megabyte. */
+    private static final double MB = 1024 * 1024;
+
+
+    /** The thread that counts the documents. */
+    private static final ExecutorService COUNTER =
+            Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "Memory Accounting");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                }
+            });
+
+
+    /**
+     * The last count of every text pane. Only used on the Event Dispatch
+     * Thread.
+     */
+    private static final Map<MainTextPane, Account> ACCOUNTS = new WeakHashMap<>();
+
+
+    /** Fires the counts on the Event Dispatch Thread. */
+    private static Timer timer;
+
+
+    /** When the user was last warned that the heap runs out, in milliseconds. */
+    private static long lastWarning;
+
+
+    /**
+     * Private constructor so the MemoryAccounting class cannot be instantiated.
+     */
+    private MemoryAccounting() {}
+
+
+    /**
+     * Starts counting the documents every few seconds and watching the heap.
+     * Must be called on the Event Dispatch Thread.
+     */
+    public static void start() {
+
+        if(timer != null) {
+            return;
+        }
+
+        timer = new Timer(REFRESH_INTERVAL, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                refresh(null);
+            }
+        });
+        timer.start();
+
+        HeapWatchdog.start(MemoryAccounting::lowOnMemory);
+
+        refresh(null);
+    }
+
+
+    /**
+     * Counts the documents that changed since they were last counted, and
+     * updates the tool tips of their tabs. Must be called on the Event
+     * Dispatch Thread.
+     *
+     * @param done      Run on the Event Dispatch Thread once every count is
+     *                  in, or null.
+     */
+    static void refresh(Runnable done) {
+
+        MainTabHolder tabs = MainWindow.getTabbedPane();
+        if(tabs == null) {
+            return;
+        }
+
+        for(int i = 0; i < tabs.getTabCount(); i++) {
+
+            MainTextPane textPane = tabs.getTextPane(i);
+            if(textPane.isHibernated()) {
+                Account account = ACCOUNTS.remove(textPane);
+                if(account != null) {
+                    account.watch(null);
+                }
+                tabs.setTabToolTip(i, describe(tabs.getTitleAt(i), textPane));
+                continue;
+            }
+
+            Account account = ACCOUNTS.get(textPane);
+            if(account == null) {
+                account = new Account();
+                ACCOUNTS.put(textPane, account);
+            }
+
+            account.watch(textPane.getDocument());
+            if(!textPane.isLoading() && !account.counting && account.changed) {
+                count(textPane, account);
+            } else if(account.footprint != null) {
+                tabs.setTabToolTip(i, describe(tabs.getTitleAt(i), textPane));
+            }
+        }
+
+        if(done != null) {
+            // The counter runs one task at a time, so this runs after every count.
+            COUNTER.execute(() -> SwingUtilities.invokeLater(done));
+        }
+
+    }
+
+
+    /**
+     * Counts a document on the background thread, and updates the tool tip of
+     * its tab once it is counted.
+     *
+     * @param textPane  The text pane of the tab.
+     * @param account   The account of the text pane.
+     */
+    private static void count(MainTextPane textPane, Account account) {
+
+        Document doc        = account.doc;
+        account.counting    = true;
+        account.changed     = false;
+
+        COUNTER.execute(() -> {
+
+            MemoryFootprint footprint = MemoryFootprint.of(doc);
+
+            SwingUtilities.invokeLater(() -> {
+
+                account.counting    = false;
+                if(account.doc != doc) {
+                    return;
+                }
+                account.footprint   = footprint;
+
+                MainTabHolder tabs  = MainWindow.getTabbedPane();
+                int index           = tabs.indexOfTextPane(textPane);
+                if(index != -1) {
+                    tabs.setTabToolTip(index, describe(tabs.getTitleAt(index), textPane));
+                }
+            });
+        });
+
+    }
+
+
+    /**
+     * Returns the last count of the document of a text pane.
+     *
+     * @param textPane  The text pane.
+     * @return          The footprint of its document, or null if it has not
+     *                  been counted yet or is hibernated.
+     */
+    static MemoryFootprint getFootprint(MainTextPane textPane) {
+        Account account = ACCOUNTS.get(textPane);
+        return (account != null && !textPane.isHibernated()) ? account.footprint : null;
+    }
+
+
+    /**
+     * Returns what the document of a tab takes, as the HTML of a tool tip.
+     *
+     * @param title     The title of the tab.
+     * @param textPane  The text pane of the tab.
+     * @return          The tool tip.
+     */
+    private static String describe(String title, MainTextPane textPane) {
+
+        StringBuilder tip = new StringBuilder("<html><b>");
+        tip.append(escape(textPane.getFilePath() != null ? textPane.getFilePath() : title))
+           .append("</b>");
+
+        if(textPane.isHibernated()) {
+            if(textPane.isSpilled()) {
+                tip.append("<br>Hibernated on disk");
+            } else {
+                tip.append(String.format("<br>Hibernated: %,.1f MB",
+                                         textPane.getSleepingDocument().getCompressedSize() / MB));
+            }
+            tip.append(String.format("<br>Saved: %,.1f MB", textPane.getSavedMemory() / MB));
+        } else {
+            MemoryFootprint footprint = getFootprint(textPane);
+            if(footprint != null) {
+                tip.append(String.format("<br>Text: %,.1f MB", footprint.getText() / MB))
+                   .append(String.format("<br>Styles: %,.1f MB", footprint.getStyles() / MB))
+                   .append(String.format("<br>Edits: %,.1f MB", footprint.getEdits() / MB))
+                   .append(String.format("<br>Total: %,.1f MB", footprint.getTotal() / MB));
+            }
+        }
+
+        return tip.append("</html>").toString();
+    }
+
+
+    /**
+     * Escapes the characters of a text that mean something in HTML.
+     *
+     * @param text      The text.
+     * @return          The escaped text.
+     */
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+
+    /**
+     * Puts every tab but the selected one to sleep and warns the user that
+     * the heap is running out. Called on a thread of the JVM.
+     *
+     * @param pool      The name of the pool that crossed its threshold.
+     * @param used      The amount of bytes used in the pool.
+     * @param max       The amount of bytes the pool may grow to.
+     */
+    private static void lowOnMemory(String pool, long used, long max) {
+
+        SwingUtilities.invokeLater(() -> {
+
+            TabHibernator.relieve();
+            StatusBar.updateStatusMessage(String.format("Low on memory: %,.0f of %,.0f MB used...",
+                                                        used / MB, max / MB));
+
+            long now = System.currentTimeMillis();
+            if(now - lastWarning < WARNING_INTERVAL) {
+                return;
+            }
+            lastWarning = now;
+
+            JOptionPane.showMessageDialog(null,
+                                            String.format("The editor is running out of memory (%s: %,.0f of %,.0f MB used).%n"
+                                                        + "Save your work and close the documents you do not need.",
+                                                          pool, used / MB, max / MB),
+                                            "Low on Memory",
+                                            JOptionPane.WARNING_MESSAGE);
+        });
+
+    }
+
+
+    /**
+     * The last count of the document of a text pane. Listens to the document
+     * so it is only counted again once it has changed.
+     */
+    private static class Account implements DocumentListener {
+
+
+        /** The document that is counted, or null. */
+        Document doc;
+
+
+        /** The footprint of the document, or null if it has not been counted. */
+        MemoryFootprint footprint;
+
+
+        /** Whether the document changed since it was last counted. */
+        boolean changed;
+
+
+        /** Whether the document is being counted. */
+        boolean counting;
+
+
+        /**
+         * Starts listening to the document the text pane has now, if it is
+         * another one than before.
+         *
+         * @param current   The document of the text pane, or null to stop
+         *                  listening.
+         */
+        void watch(Document current) {
+
+            if(current == doc) {
+                return;
+            }
+
+            if(doc != null) {
+                doc.removeDocumentListener(this);
+            }
+            doc         = current;
+            footprint   = null;
+            changed     = true;
+            if(doc != null) {
+                doc.addDocumentListener(this);
+            }
+        }
+
+
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            changed = true;
+        }
+
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            changed = true;
+        }
+
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            changed = true;
+        }
+
+    }
+
+}
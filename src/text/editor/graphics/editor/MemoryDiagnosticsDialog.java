@@ -0,0 +1,152 @@
+package text.editor.graphics.editor;
+
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.Window;
+import java.lang.management.MemoryUsage;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableModel;
+import text.editor.graphics.MainWindow;
+import text.editor.memory.HeapWatchdog;
+import text.editor.memory.MemoryFootprint;
+
+
+/**
+ * Shows how much of the heap the document of every tab takes, and how much of
+ * the heap is used in all.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class MemoryDiagnosticsDialog extends JDialog {
+
+
+    /** The names of the columns of the table. */
+    private static final String[] COLUMNS = {"Tab", "State", "Text (MB)", "Styles (MB)",
+                                             "Edits (MB)", "Total (MB)"};
+
+
+    /** The amount of bytes in a megabyte. */
+    private static final double MB = 1024 * 1024;
+
+
+    /** The rows of the table, one for each tab. */
+    private final DefaultTableModel model;
+
+
+    /** Shows how much of the heap is used. */
+    private final JLabel heap;
+
+
+    /**
+     * Constructor for a MemoryDiagnosticsDialog. The documents are counted
+     * again and the table is filled in once they are.
+     *
+     * @param owner     The window the dialog belongs to.
+     */
+    public MemoryDiagnosticsDialog(Window owner) {
+
+        super(owner, "Memory Diagnostics", ModalityType.MODELESS);
+
+        model = new DefaultTableModel(COLUMNS, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+
+        heap = new JLabel(" ");
+        heap.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+
+        JButton refresh = new JButton("Refresh");
+        refresh.addActionListener(e -> refresh());
+
+        JButton close = new JButton("Close");
+        close.addActionListener(e -> dispose());
+
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(refresh);
+        buttons.add(close);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(heap, BorderLayout.PAGE_START);
+        panel.add(new JScrollPane(new JTable(model)), BorderLayout.CENTER);
+        panel.add(buttons, BorderLayout.PAGE_END);
+
+        this.setContentPane(panel);
+        this.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        this.setSize(640, 320);
+        this.setLocationRelativeTo(owner);
+
+        refresh();
+    }
+
+
+    /**
+     * Counts the documents that changed and fills in the table once they are
+     * counted.
+     */
+    private void refresh() {
+        fill();
+        MemoryAccounting.refresh(this::fill);
+    }
+
+
+    /**
+     * Fills in the table with the last count of every tab.
+     */
+    private void fill() {
+
+        MemoryUsage usage = HeapWatchdog.getHeapUsage();
+        heap.setText(String.format("Heap: %,.1f MB used, %,.1f MB committed, %,.1f MB max",
+                                   usage.getUsed() / MB, usage.getCommitted() / MB,
+                                   usage.getMax() / MB));
+
+        model.setRowCount(0);
+
+        MainTabHolder tabs = MainWindow.getTabbedPane();
+        for(int i = 0; i < tabs.getTabCount(); i++) {
+
+            MainTextPane textPane       = tabs.getTextPane(i);
+            MemoryFootprint footprint   = MemoryAccounting.getFootprint(textPane);
+
+            if(textPane.isHibernated()) {
+                long kept = textPane.isSpilled() ? 0 : textPane.getSleepingDocument().getCompressedSize();
+                model.addRow(new Object[] {tabs.getTitleAt(i),
+                                           textPane.isSpilled() ? "On disk" : "Compressed",
+                                           "", "", "", megabytes(kept)});
+            } else if(footprint == null) {
+                model.addRow(new Object[] {tabs.getTitleAt(i),
+                                           textPane.isLoading() ? "Loading" : "Counting",
+                                           "", "", "", ""});
+            } else {
+                model.addRow(new Object[] {tabs.getTitleAt(i), "Awake",
+                                           megabytes(footprint.getText()),
+                                           megabytes(footprint.getStyles()),
+                                           megabytes(footprint.getEdits()),
+                                           megabytes(footprint.getTotal())});
+            }
+        }
+
+    }
+
+
+    /**
+     * Formats an amount of bytes in megabytes.
+     *
+     * @param bytes     The amount of bytes.
+     * @return          The megabytes, with one decimal.
+     */
+    private static String megabytes(long bytes) {
+        return String.format("%,.1f", bytes / MB);
+    }
+
+}
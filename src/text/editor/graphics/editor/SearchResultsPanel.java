@@ -0,0 +1,335 @@
+package text.editor.graphics.editor;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.BiConsumer;
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTree;
+import javax.swing.KeyStroke;
+import javax.swing.ToolTipManager;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeCellRenderer;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+import text.editor.search.SearchHit;
+
+
+/**
+ * Shows the matches of a search in a tree, grouped by where they were found,
+ * a tab or a file, with the line of every match and the match in bold.
+ *
+ * Groups are added one at a time while the search runs, each with all of its
+ * matches, in the place their order says they go. Double clicking a match, or
+ * pressing Enter on it, opens it.
+ *
+ * Must only be used on the Event Dispatch Thread.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ * @param <S>       What the matches were found in.
+ */
+class SearchResultsPanel<S> extends JPanel {
+
+
+    /** The most characters of white space at the start of a line shown. */
+    private static final int MAX_INDENT = 4;
+
+
+    /** The groups, which are the children of the root. */
+    private final DefaultMutableTreeNode root = new DefaultMutableTreeNode();
+
+
+    /** The model of the tree. */
+    private final DefaultTreeModel model = new DefaultTreeModel(root);
+
+
+    /** The tree that shows the groups and their matches. */
+    private final JTree tree = new JTree(model);
+
+
+    /** Opens a match. */
+    private final BiConsumer<S, SearchHit> opener;
+
+
+    /**
+     * Constructor for a SearchResultsPanel.
+     *
+     * @param opener    Opens a match, given what it was found in.
+     */
+    SearchResultsPanel(BiConsumer<S, SearchHit> opener) {
+
+        super(new BorderLayout());
+
+        this.opener = opener;
+
+        tree.setRootVisible(false);
+        tree.setShowsRootHandles(true);
+        tree.setCellRenderer(new Renderer());
+        tree.setRowHeight(tree.getFontMetrics(tree.getFont()).getHeight() + 2);
+        tree.setLargeModel(true);
+        ToolTipManager.sharedInstance().registerComponent(tree);
+
+        tree.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if(e.getClickCount() == 2) {
+                    TreePath path = tree.getPathForLocation(e.getX(), e.getY());
+                    if(path != null) {
+                        open(path);
+                    }
+                }
+            }
+        });
+
+        tree.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0),
+                                                      "open_match");
+        tree.getActionMap().put("open_match", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if(tree.getSelectionPath() != null) {
+                    open(tree.getSelectionPath());
+                }
+            }
+        });
+
+        this.add(new JScrollPane(tree), BorderLayout.CENTER);
+    }
+
+
+    /**
+     * Takes every group away.
+     */
+    void clear() {
+        root.removeAllChildren();
+        model.reload();
+    }
+
+
+    /**
+     * Adds a group of matches, after the groups with the same or a lower
+     * order, and expands it.
+     *
+     * @param source    What the matches were found in.
+     * @param title     The title of the group.
+     * @param toolTip   The tool tip of the group, or null.
+     * @param order     Where the group goes among the others.
+     * @param count     The amount of matches, which may be more than are
+     *                  shown.
+     * @param hits      The matches that are shown.
+     */
+    void addGroup(S source, String title, String toolTip, int order, int count, List<SearchHit> hits) {
+
+        DefaultMutableTreeNode node = new DefaultMutableTreeNode(
+                new Group<>(source, title, toolTip, order, count, hits.size()));
+        for(SearchHit hit : hits) {
+            node.add(new DefaultMutableTreeNode(hit, false));
+        }
+
+        int low     = 0;
+        int high    = root.getChildCount();
+        while(low < high) {
+            int mid = (low + high) >>> 1;
+            if(getGroup((DefaultMutableTreeNode)root.getChildAt(mid)).order <= order) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        model.insertNodeInto(node, root, low);
+        tree.expandPath(new TreePath(node.getPath()));
+    }
+
+
+    /**
+     * Returns the amount of groups.
+     *
+     * @return          The amount of groups.
+     */
+    int getGroupCount() {
+        return root.getChildCount();
+    }
+
+
+    /**
+     * Opens the match at the end of a path, if it ends at a match.
+     *
+     * @param path      The path.
+     */
+    private void open(TreePath path) {
+
+        DefaultMutableTreeNode node = (DefaultMutableTreeNode)path.getLastPathComponent();
+        if(node.getUserObject() instanceof SearchHit) {
+            S source = getGroup((DefaultMutableTreeNode)node.getParent()).source;
+            opener.accept(source, (SearchHit)node.getUserObject());
+        }
+    }
+
+
+    /**
+     * Returns the group of a node of a group.
+     *
+     * @param node      The node.
+     * @return          The group.
+     */
+    @SuppressWarnings("unchecked")
+    private Group<S> getGroup(DefaultMutableTreeNode node) {
+        return (Group<S>)node.getUserObject();
+    }
+
+
+    /**
+     * Escapes the characters of a text that mean something in HTML.
+     *
+     * @param text      The text.
+     * @param out       Where to add the escaped text.
+     */
+    private static void escape(String text, StringBuilder out) {
+        for(int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch(c) {
+                case '<':   out.append("&lt;");     break;
+                case '>':   out.append("&gt;");     break;
+                case '&':   out.append("&amp;");    break;
+                case '\t':  out.append("&nbsp;&nbsp;&nbsp;&nbsp;"); break;
+                default:    out.append(c);
+            }
+        }
+    }
+
+
+    /**
+     * The matches found in one tab or file.
+     *
+     * @param <S>       What the matches were found in.
+     */
+    private static class Group<S> {
+
+
+        /** What the matches were found in. */
+        private final S source;
+
+
+        /** The title of the group. */
+        private final String title;
+
+
+        /** The tool tip of the group, or null. */
+        private final String toolTip;
+
+
+        /** Where the group goes among the others. */
+        private final int order;
+
+
+        /** The amount of matches. */
+        private final int count;
+
+
+        /** The amount of matches that are shown. */
+        private final int shown;
+
+
+        /**
+         * Constructor for a Group.
+         *
+         * @param source    What the matches were found in.
+         * @param title     The title of the group.
+         * @param toolTip   The tool tip of the group, or null.
+         * @param order     Where the group goes among the others.
+         * @param count     The amount of matches.
+         * @param shown     The amount of matches that are shown.
+         */
+        Group(S source, String title, String toolTip, int order, int count, int shown) {
+            this.source     = source;
+            this.title      = title;
+            this.toolTip    = toolTip;
+            this.order      = order;
+            this.count      = count;
+            this.shown      = shown;
+        }
+
+
+        /*
+            The title and the amount of matches, and how many of them are
+            shown if not all of them are.
+        */
+        @Override
+        public String toString() {
+            String matches = String.format("%,d %s", count, (count == 1) ? "match" : "matches");
+            if(shown < count) {
+                matches += String.format(", first %,d shown", shown);
+            }
+            return title+" ("+matches+")";
+        }
+
+    }
+
+
+    /**
+     * Shows a group with its title, and a match with its line number and the
+     * match in bold.
+     */
+    private class Renderer extends DefaultTreeCellRenderer {
+
+
+        @Override
+        public Component getTreeCellRendererComponent(JTree tree, Object value, boolean selected,
+                                                      boolean expanded, boolean leaf, int row,
+                                                      boolean hasFocus) {
+
+            super.getTreeCellRendererComponent(tree, value, selected, expanded, leaf, row, hasFocus);
+
+            Object object = ((DefaultMutableTreeNode)value).getUserObject();
+            setToolTipText(null);
+            setIcon(null);
+
+            if(object instanceof Group) {
+                setToolTipText(((Group<?>)object).toolTip);
+            } else if(object instanceof SearchHit) {
+                setText(format((SearchHit)object));
+            }
+
+            return this;
+        }
+
+
+        /**
+         * Formats a match as HTML, its line number and its line, with the
+         * white space at the start of the line cut down.
+         *
+         * @param hit       The match.
+         * @return          The HTML.
+         */
+        private String format(SearchHit hit) {
+
+            String line = hit.getPreview();
+            int indent  = 0;
+            while(indent < hit.getPreviewStart() && Character.isWhitespace(line.charAt(indent))) {
+                indent++;
+            }
+            int from = Math.max(0, indent - MAX_INDENT);
+
+            StringBuilder html = new StringBuilder("<html><font color=gray>");
+            html.append(String.format("%,d", hit.getLine() + 1)).append(":</font> ");
+            escape(line.substring(from, hit.getPreviewStart()), html);
+            html.append("<b>");
+            escape(line.substring(hit.getPreviewStart(), hit.getPreviewEnd()), html);
+            html.append("</b>");
+            escape(line.substring(hit.getPreviewEnd()), html);
+            return html.append("</html>").toString();
+        }
+
+    }
+
+}
@@ -1,27 +1,48 @@
 package text.editor.graphics.editor;
 
+import javax.swing.Box;
 import javax.swing.JLabel;
 import javax.swing.JToolBar;
+import text.editor.graphics.UiUpdateBus;
+import text.editor.model.DocumentStatistics;
 
 /**
- * The status bar for the main editing window.
+ * The status bar for the main editing window. The labels are not set right
+ * away but through the UiUpdateBus, so they change at most once per frame
+ * however many times they are updated, and from any thread.
  *
  * Created on:  March 03, 2016
- * Edited on:   March 05, 2016
+ * Edited on:   October 17, 2026
  *
  * @author Jackie Chan
  */
 public class StatusBar extends JToolBar {
 
 
-    /** The JLabel that will contain the character count. */
-    private static JLabel       characterCount;
+    /** The JLabel that will contain the statistics of the document. */
+    private static JLabel       statistics;
+
+
+    /** The JLabel that will display the line and column of the caret. */
+    private static JLabel       position;
 
 
     /** The JLabel that will display messages to the user. */
     private static JLabel       messageArea;
 
 
+    /** The JLabel that will display the keystroke latency of the document. */
+    private static JLabel       latency;
+
+
+    /** The JLabel that will display how much memory the hibernated tabs save. */
+    private static JLabel       memorySaved;
+
+
+    /** The JLabel that will display the matches of the find bar. */
+    private static JLabel       findCount;
+
+
     /** Default constructor for the StatusBar. */
     public StatusBar() {createContent();}
 
@@ -30,22 +51,58 @@ public class StatusBar extends JToolBar {
      * Creates the components of the status bar and adds them.
      */
     private void createContent() {
-        characterCount  = new JLabel("Character Count: 0");
+        statistics      = new JLabel("Characters: 0");
+        position        = new JLabel("Ln 1, Col 1");
         messageArea     = new JLabel("Status: Active");
+        latency         = new JLabel("Latency: -");
+        memorySaved     = new JLabel();
+        findCount       = new JLabel();
 
-        this.add(characterCount);
+        this.add(statistics);
+        this.addSeparator();
+        this.add(position);
         this.addSeparator();
         this.add(messageArea);
+        this.add(Box.createHorizontalGlue());
+        this.add(findCount);
+        this.addSeparator();
+        this.add(memorySaved);
+        this.addSeparator();
+        this.add(latency);
     }
 
 
     /**
-     * Sets the character count to the one specified.
+     * Sets the statistics of the document. The counts that are still being
+     * worked out are shown as such.
      *
-     * @param value     The value to set.
+     * @param counts    The counts to show.
      */
-    public static void updateCharacterCount(int value) {
-        characterCount.setText("Character Count: "+value);
+    public static void updateStatistics(DocumentStatistics.Counts counts) {
+
+        String text;
+        if(counts.isKnown()) {
+            text = String.format("Characters: %,d   Words: %,d   Lines: %,d   Paragraphs: %,d",
+                                 counts.getCharacters(), counts.getWords(),
+                                 counts.getLines(), counts.getParagraphs());
+        } else {
+            text = String.format("Characters: %,d   Words: counting...",
+                                 counts.getCharacters());
+        }
+
+        UiUpdateBus.post("statistics", () -> statistics.setText(text));
+    }
+
+
+    /**
+     * Sets the line and column of the caret.
+     *
+     * @param line      The line, counting from 1.
+     * @param column    The column, counting from 1.
+     */
+    public static void updatePosition(int line, int column) {
+        UiUpdateBus.post("position", () -> position.setText(String.format("Ln %,d, Col %,d",
+                                                                           line, column)));
     }
 
 
@@ -55,7 +112,58 @@ public class StatusBar extends JToolBar {
      * @param status    The status message to set.
      */
     public static void updateStatusMessage(String status) {
-        messageArea.setText("Status: "+status);
+        UiUpdateBus.post("status", () -> messageArea.setText("Status: "+status));
+    }
+
+
+    /**
+     * Sets the status message after a delay, unless it is set to something
+     * else later on with this method again.
+     *
+     * @param status    The status message to set.
+     * @param delay     The delay in milliseconds.
+     */
+    public static void updateStatusMessageLater(String status, long delay) {
+        UiUpdateBus.postLater("status", delay, () -> messageArea.setText("Status: "+status));
+    }
+
+
+    /**
+     * Sets the keystroke latency of the document.
+     *
+     * @param summary   The latency, like "p50 1.0 ms, p99 4.2 ms".
+     */
+    public static void updateLatency(String summary) {
+        UiUpdateBus.post("latency", () -> latency.setText("Latency: "+summary));
+    }
+
+
+    /**
+     * Sets the amount of matches of the find bar, like "Find: 3 of 1,204".
+     * Nothing is shown while the find bar is closed.
+     *
+     * @param text      The text to show, empty for none.
+     */
+    public static void updateFindCount(String text) {
+        UiUpdateBus.post("findCount", () -> findCount.setText(text));
+    }
+
+
+    /**
+     * Sets how much memory the hibernated tabs save. Nothing is shown while
+     * no tab is hibernated.
+     *
+     * @param tabs      The amount of hibernated tabs.
+     * @param bytes     The amount of memory they save.
+     */
+    public static void updateMemorySaved(int tabs, long bytes) {
+
+        String text = (tabs == 0) ? ""
+                    : String.format("Hibernated: %,d %s, %,.1f MB saved",
+                                    tabs, (tabs == 1) ? "tab" : "tabs",
+                                    bytes / (1024.0 * 1024.0));
+
+        UiUpdateBus.post("memorySaved", () -> memorySaved.setText(text));
     }
 
 }
@@ -0,0 +1,438 @@
+package text.editor.graphics.editor;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import text.editor.errorreporting.ErrorReport;
+import text.editor.graphics.MainWindow;
+import text.editor.io.CompressedDocument;
+import text.editor.memory.MemoryFootprint;
+import text.editor.model.DocumentSnapshot;
+
+
+/**
+ * Puts the documents of tabs that have not been looked at for a while to
+ * sleep when the open documents take more of the heap than they are allowed
+ * to.
+ *
+ * The budget is set in megabytes with the text.editor.hibernationBudget
+ * system property, and is a quarter of the heap if it is not set. Every few
+ * seconds, and whenever another tab is selected, the documents are added up,
+ * the ones that are awake by their estimated size and the sleeping ones by
+ * their compressed size. While they are over the budget:
+ *
+ *      1.  The tab that was selected longest ago is compressed on a
+ *          background thread, with its styles, into a CompressedDocument,
+ *          and its text pane is given an empty document instead. The tab
+ *          keeps its title, its file, its edit journal and whether it is
+ *          modified.
+ *      2.  Once every tab but the selected one sleeps, the compressed
+ *          documents that were selected longest ago are moved to files in
+ *          the temporary directory.
+ *
+ * Selecting a tab inflates its document and puts the caret and the first
+ * line shown back where they were. A tab that is edited, selected or closed
+ * while it is being compressed is left awake. Tabs that are loading a file
+ * are never put to sleep. The status bar shows how much memory the sleeping
+ * tabs save.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class TabHibernator {
+
+
+    /** The amount of heap the documents that are awake may take, in bytes. */
+    private static final long BUDGET = Long.getLong("text.editor.hibernationBudget",
+                                            Runtime.getRuntime().maxMemory() / (4 * 1024 * 1024))
+                                       * 1024 * 1024;
+
+
+    /** The amount of milliseconds between two checks of the budget. */
+    private static final int CHECK_INTERVAL = 5000;
+
+
+    /** The threads that compress the documents and write them to the disk. */
+    private static final ExecutorService WORKERS =
+            Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+                                         new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "Tab Hibernator");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                }
+            });
+
+
+    /**
+     * The tabs that are being compressed or written to the disk. Only used on
+     * the Event Dispatch Thread.
+     */
+    private static final List<MainTextPane> PENDING = new ArrayList<>();
+
+
+    /** The compressions that are running. Only used on the Event Dispatch Thread. */
+    private static final List<Hibernation> COMPRESSING = new ArrayList<>();
+
+
+    /** Fires the checks on the Event Dispatch Thread. */
+    private static Timer timer;
+
+
+    /**
+     * Private constructor so the TabHibernator class cannot be instantiated.
+     */
+    private TabHibernator() {}
+
+
+    /**
+     * Starts checking the budget every few seconds. Must be called on the
+     * Event Dispatch Thread.
+     */
+    public static void start() {
+
+        if(timer != null) {
+            return;
+        }
+
+        timer = new Timer(CHECK_INTERVAL, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                check();
+            }
+        });
+        timer.start();
+
+    }
+
+
+    /**
+     * Wakes the document of a tab that was selected, if it is asleep, and
+     * checks the budget once the tab is shown.
+     *
+     * @param textPane  The text pane of the selected tab.
+     */
+    static void selected(MainTextPane textPane) {
+
+        textPane.setLastSelectedTime(System.nanoTime());
+
+        for(Hibernation hibernation : COMPRESSING) {
+            if(hibernation.textPane == textPane) {
+                hibernation.cancel();
+            }
+        }
+
+        if(textPane.isHibernated()) {
+            try {
+                textPane.wake();
+                showSavedMemory();
+            } catch (IOException err) {
+                new ErrorReport().createErrorReport(err);
+                StatusBar.updateStatusMessage("Error restoring the document...");
+                JOptionPane.showMessageDialog(null,
+                                                "An error occured while restoring the document.",
+                                                "Error",
+                                                JOptionPane.ERROR_MESSAGE);
+            }
+        }
+
+        SwingUtilities.invokeLater(TabHibernator::check);
+    }
+
+
+    /**
+     * Puts the tabs that were selected longest ago to sleep until the
+     * documents fit in the budget. Must be called on the Event Dispatch
+     * Thread.
+     */
+    static void check() {
+        check(BUDGET);
+    }
+
+
+    /**
+     * Puts every tab but the selected one to sleep, because the heap is
+     * running out. Must be called on the Event Dispatch Thread.
+     */
+    static void relieve() {
+        check(0);
+    }
+
+
+    /**
+     * Puts the tabs that were selected longest ago to sleep until the
+     * documents fit in a budget.
+     *
+     * @param budget    The amount of heap the documents may take, in bytes.
+     */
+    private static void check(long budget) {
+
+        MainTabHolder tabs = MainWindow.getTabbedPane();
+        if(tabs == null) {
+            return;
+        }
+
+        long total = 0;
+        List<MainTextPane> awake        = new ArrayList<>();
+        List<MainTextPane> compressed   = new ArrayList<>();
+
+        for(int i = 0; i < tabs.getTabCount(); i++) {
+
+            MainTextPane textPane = tabs.getTextPane(i);
+            if(textPane.isSpilled() || PENDING.contains(textPane)) {
+                continue;
+            }
+
+            if(textPane.isHibernated()) {
+                total += textPane.getSleepingDocument().getCompressedSize();
+                compressed.add(textPane);
+            } else {
+                total += MemoryFootprint.estimate(textPane.getDocument());
+                if(i != tabs.getSelectedIndex() && !textPane.isLoading()) {
+                    awake.add(textPane);
+                }
+            }
+        }
+
+        awake.sort((a, b) -> Long.compare(a.getLastSelectedTime(), b.getLastSelectedTime()));
+        compressed.sort((a, b) -> Long.compare(a.getLastSelectedTime(), b.getLastSelectedTime()));
+
+        for(int i = 0; i < awake.size() && total > budget; i++) {
+            MainTextPane textPane = awake.get(i);
+            long size = MemoryFootprint.estimate(textPane.getDocument());
+            if(hibernate(textPane)) {
+                total -= size;
+            }
+        }
+
+        // Only what is still over the budget once everything is compressed goes to the disk.
+        if(awake.isEmpty()) {
+            for(int i = 0; i < compressed.size() && total > budget; i++) {
+                MainTextPane textPane = compressed.get(i);
+                total -= textPane.getSleepingDocument().getCompressedSize();
+                spill(textPane);
+            }
+        }
+
+    }
+
+
+    /**
+     * Shows on the status bar how much memory the sleeping tabs save.
+     */
+    private static void showSavedMemory() {
+
+        MainTabHolder tabs = MainWindow.getTabbedPane();
+        long saved = 0;
+        int count  = 0;
+
+        for(int i = 0; i < tabs.getTabCount(); i++) {
+            MainTextPane textPane = tabs.getTextPane(i);
+            if(textPane.isHibernated()) {
+                saved += textPane.getSavedMemory();
+                count++;
+            }
+        }
+
+        StatusBar.updateMemorySaved(count, saved);
+    }
+
+
+    /**
+     * Starts compressing the document of a tab.
+     *
+     * @param textPane  The text pane of the tab.
+     * @return          Whether compressing started.
+     */
+    private static boolean hibernate(MainTextPane textPane) {
+
+        DocumentSnapshot snapshot;
+        try {
+            snapshot = DocumentSnapshot.of(textPane.getDocument(), true);
+        } catch (BadLocationException err) {
+            new ErrorReport().createErrorReport(err);
+            return false;
+        }
+
+        Hibernation hibernation = new Hibernation(textPane);
+        PENDING.add(textPane);
+        COMPRESSING.add(hibernation);
+        textPane.getDocument().addDocumentListener(hibernation);
+
+        WORKERS.execute(() -> {
+
+            CompressedDocument compressed = null;
+            IOException error = null;
+
+            try {
+                compressed = CompressedDocument.of(snapshot);
+            } catch (IOException err) {
+                error = err;
+            }
+
+            CompressedDocument done = compressed;
+            IOException failure     = error;
+            SwingUtilities.invokeLater(() -> hibernation.compressed(done, failure));
+        });
+
+        return true;
+    }
+
+
+    /**
+     * Starts moving the compressed document of a hibernated tab to a file.
+     * The tab is given the file once it has been written, unless it was
+     * woken up in the meantime.
+     *
+     * @param textPane  The text pane of the tab.
+     */
+    private static void spill(MainTextPane textPane) {
+
+        CompressedDocument compressed = textPane.getSleepingDocument();
+        PENDING.add(textPane);
+
+        WORKERS.execute(() -> {
+
+            File file = null;
+            IOException error = null;
+
+            try {
+                file = File.createTempFile("tab", ".tlz");
+                file.deleteOnExit();
+                compressed.write(file);
+            } catch (IOException err) {
+                error = err;
+            }
+
+            File written        = file;
+            IOException failure = error;
+            SwingUtilities.invokeLater(() -> {
+
+                PENDING.remove(textPane);
+
+                MainTabHolder tabs = MainWindow.getTabbedPane();
+                boolean open = tabs != null && tabs.indexOfTextPane(textPane) != -1;
+
+                if(failure == null && open && textPane.getSleepingDocument() == compressed) {
+                    textPane.spill(written);
+                    showSavedMemory();
+                    return;
+                }
+
+                if(failure != null) {
+                    new ErrorReport().createErrorReport(failure);
+                }
+                if(written != null) {
+                    written.delete();
+                }
+            });
+        });
+
+    }
+
+
+    /**
+     * A tab whose document is being compressed. Any change to the document
+     * means the compressed copy is out of date, so the tab stays awake.
+     */
+    private static class Hibernation implements DocumentListener {
+
+
+        /** The text pane of the tab. */
+        final MainTextPane textPane;
+
+
+        /** The document that is being compressed. */
+        final Document doc;
+
+
+        /** Whether the tab has to stay awake. */
+        boolean cancelled;
+
+
+        /**
+         * Constructor for a Hibernation.
+         *
+         * @param textPane  The text pane of the tab.
+         */
+        Hibernation(MainTextPane textPane) {
+            this.textPane   = textPane;
+            this.doc        = textPane.getDocument();
+        }
+
+
+        /**
+         * Keeps the tab awake.
+         */
+        void cancel() {
+            cancelled = true;
+        }
+
+
+        /**
+         * Puts the tab to sleep once its document is compressed, unless it
+         * was changed, selected or closed in the meantime.
+         *
+         * @param compressed    The compressed document, null if it failed.
+         * @param err           Why the document could not be compressed, or
+         *                      null.
+         */
+        void compressed(CompressedDocument compressed, IOException err) {
+
+            PENDING.remove(textPane);
+            COMPRESSING.remove(this);
+            doc.removeDocumentListener(this);
+
+            MainTabHolder tabs = MainWindow.getTabbedPane();
+            boolean open = tabs != null && tabs.indexOfTextPane(textPane) != -1;
+
+            if(err != null) {
+                new ErrorReport().createErrorReport(err);
+            }
+            if(err != null || cancelled || !open || textPane.getDocument() != doc
+                    || textPane.isLoading()) {
+                return;
+            }
+
+            textPane.hibernate(compressed, MemoryFootprint.estimate(doc));
+            showSavedMemory();
+        }
+
+
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            cancelled = true;
+        }
+
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            cancelled = true;
+        }
+
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+            cancelled = true;
+        }
+
+    }
+
+}
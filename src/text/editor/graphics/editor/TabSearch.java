@@ -0,0 +1,360 @@
+package text.editor.graphics.editor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+import text.editor.errorreporting.ErrorReport;
+import text.editor.io.CompressedDocument;
+import text.editor.model.TextBuffer;
+import text.editor.search.ParallelSearch;
+import text.editor.search.TextFinder;
+
+
+/**
+ * Searches every open tab at once, on a ForkJoinPool with a thread for every
+ * core.
+ *
+ * The snapshots of the tabs are taken on the Event Dispatch Thread when the
+ * search starts, and every tab is searched on the pool as a task of its own,
+ * with its text cut into chunks that are searched in parallel as well. The
+ * results of a tab are handed to the Event Dispatch Thread as soon as that tab
+ * is done, so they come in while the others are still searched.
+ *
+ * A hibernated tab is not woken up. Its compressed document, or the file it
+ * was moved to, is read into a copy that is searched and let go of again.
+ * The hibernated tabs are searched one after the other, so that at most one
+ * of them is inflated at a time and a search does not take back the memory
+ * hibernation saved.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+final class TabSearch {
+
+
+    /** The most matches of a tab that are shown. */
+    static final int MAX_HITS = 1000;
+
+
+    /** The threads that search, one for every core. */
+    private static final ForkJoinPool POOL = new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(),
+            pool -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName("Find in tabs "+t.getPoolIndex());
+                t.setDaemon(true);
+                return t;
+            },
+            null, false);
+
+
+    /** The tabs to search, in the order they are in. */
+    private final List<Tab> tabs = new ArrayList<>();
+
+
+    /** What is searched for. */
+    private final TextFinder finder;
+
+
+    /** Is told about what the search finds. */
+    private final Listener listener;
+
+
+    /** The amount of tasks that are not done yet. */
+    private final AtomicInteger pending = new AtomicInteger();
+
+
+    /** The amount of tabs that could not be read. */
+    private final AtomicInteger failed = new AtomicInteger();
+
+
+    /** Whether the search was cancelled. */
+    private volatile boolean cancelled;
+
+
+    /**
+     * Constructor for a TabSearch. The snapshots of the tabs are taken right
+     * away, so it must be called on the Event Dispatch Thread.
+     *
+     * @param holder    The tabs.
+     * @param finder    What to search for.
+     * @param listener  Is told about what the search finds.
+     */
+    TabSearch(MainTabHolder holder, TextFinder finder, Listener listener) {
+
+        this.finder     = finder;
+        this.listener   = listener;
+
+        for(int i = 0; i < holder.getTabCount(); i++) {
+            tabs.add(new Tab(holder.getTextPane(i), holder.getTitleAt(i), i));
+        }
+
+    }
+
+
+    /**
+     * Starts searching. The awake tabs are each searched as a task of their
+     * own, and the hibernated ones as one task, one after the other.
+     */
+    void start() {
+
+        List<Tab> sleeping = new ArrayList<>();
+        List<RecursiveAction> tasks = new ArrayList<>();
+
+        for(Tab tab : tabs) {
+            if(tab.snapshot != null) {
+                tasks.add(new TabTask(tab));
+            } else {
+                sleeping.add(tab);
+            }
+        }
+
+        if(!sleeping.isEmpty()) {
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    for(Tab tab : sleeping) {
+                        new TabTask(tab).search();
+                    }
+                    finished();
+                }
+            });
+        }
+
+        if(tasks.isEmpty()) {
+            SwingUtilities.invokeLater(() -> done());
+            return;
+        }
+
+        pending.set(tasks.size());
+        for(RecursiveAction task : tasks) {
+            POOL.execute(task);
+        }
+
+    }
+
+
+    /**
+     * Cancels the search. The chunks that are being searched finish, but
+     * nothing more is searched and the listener is not told about anything
+     * else.
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+
+    /**
+     * Returns the amount of tabs that are searched.
+     *
+     * @return          The amount of tabs.
+     */
+    int getTabCount() {
+        return tabs.size();
+    }
+
+
+    /**
+     * Counts a task as done, and tells the listener when the last one is.
+     */
+    private void finished() {
+        if(pending.decrementAndGet() == 0) {
+            SwingUtilities.invokeLater(() -> done());
+        }
+    }
+
+
+    /**
+     * Tells the listener the search is done, unless it was cancelled.
+     */
+    private void done() {
+        if(!cancelled) {
+            listener.done(failed.get());
+        }
+    }
+
+
+    /**
+     * Is told about what a TabSearch finds, on the Event Dispatch Thread.
+     */
+    interface Listener {
+
+
+        /**
+         * Called once a tab has been searched.
+         *
+         * @param tab       The tab.
+         * @param result    Its matches.
+         */
+        void found(Tab tab, ParallelSearch.Result result);
+
+
+        /**
+         * Called once every tab has been searched.
+         *
+         * @param failed    The amount of hibernated tabs that could not be
+         *                  read.
+         */
+        void done(int failed);
+
+    }
+
+
+    /**
+     * A tab that is searched, and what of it is searched.
+     */
+    static final class Tab {
+
+
+        /** The text pane of the tab. */
+        private final MainTextPane textPane;
+
+
+        /** The title of the tab. */
+        private final String title;
+
+
+        /** The index of the tab when the search started. */
+        private final int index;
+
+
+        /** The text of an awake tab, or null. */
+        private final TextBuffer snapshot;
+
+
+        /** The compressed document of a hibernated tab, or null. */
+        private final CompressedDocument compressed;
+
+
+        /** The file of a hibernated tab that was moved to the disk, or null. */
+        private final File file;
+
+
+        /**
+         * Constructor for a Tab.
+         *
+         * @param textPane  The text pane of the tab.
+         * @param title     The title of the tab.
+         * @param index     The index of the tab.
+         */
+        Tab(MainTextPane textPane, String title, int index) {
+            this.textPane   = textPane;
+            this.title      = title;
+            this.index      = index;
+            this.snapshot   = textPane.isHibernated() ? null : textPane.getSnapshot();
+            this.compressed = textPane.getSleepingDocument();
+            this.file       = textPane.getHibernationFile();
+        }
+
+
+        /**
+         * Returns the text pane of the tab.
+         *
+         * @return          The text pane.
+         */
+        MainTextPane getTextPane() {
+            return textPane;
+        }
+
+
+        /**
+         * Returns the title the tab had when the search started.
+         *
+         * @return          The title.
+         */
+        String getTitle() {
+            return title;
+        }
+
+
+        /**
+         * Returns the index the tab had when the search started.
+         *
+         * @return          The index.
+         */
+        int getIndex() {
+            return index;
+        }
+
+    }
+
+
+    /**
+     * Searches one tab.
+     */
+    private final class TabTask extends RecursiveAction {
+
+
+        /** The tab. */
+        private final Tab tab;
+
+
+        /**
+         * Constructor for a TabTask.
+         *
+         * @param tab       The tab.
+         */
+        TabTask(Tab tab) {
+            this.tab = tab;
+        }
+
+
+        /*
+            Counts itself as done afterwards.
+        */
+        @Override
+        protected void compute() {
+            search();
+            finished();
+        }
+
+
+        /**
+         * Searches the tab and hands its matches to the Event Dispatch
+         * Thread. A hibernated tab is inflated first. A tab whose file is
+         * gone, because it woke up in the meantime, is counted as not read
+         * without an error report.
+         */
+        void search() {
+
+            if(cancelled) {
+                return;
+            }
+
+            TextBuffer text = tab.snapshot;
+            if(text == null) {
+                try {
+                    CompressedDocument doc = (tab.compressed != null) ? tab.compressed
+                                                                      : CompressedDocument.read(tab.file);
+                    text = doc.inflate().getSnapshot();
+                } catch (IOException err) {
+                    if(tab.file == null || tab.file.exists()) {
+                        new ErrorReport().createErrorReport(err);
+                    }
+                    failed.incrementAndGet();
+                    return;
+                }
+            }
+
+            ParallelSearch.Result result = new ParallelSearch(finder, text, MAX_HITS, () -> cancelled).invoke();
+
+            if(!cancelled && result.getCount() > 0) {
+                SwingUtilities.invokeLater(() -> {
+                    if(!cancelled) {
+                        listener.found(tab, result);
+                    }
+                });
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,283 @@
+package text.editor.graphics.view;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.Position;
+import javax.swing.text.TabExpander;
+import javax.swing.text.TabableView;
+import javax.swing.text.View;
+import javax.swing.text.ViewFactory;
+
+
+/**
+ * A piece of a long line, shown as a single row without wrapping.
+ *
+ * The row is made of fragments of the views Swing would give the runs of the
+ * line, cut to the range of the chunk, so styles, the selection and the caret
+ * look the way they do everywhere else. Only the characters of the chunk are
+ * ever measured or painted.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+class ChunkView extends View implements TabExpander {
+
+
+    /** The amount of spaces a tab stop is wide. */
+    private static final int TAB_SIZE = 8;
+
+
+    /** The first offset of the chunk. */
+    private final int start;
+
+
+    /** The offset after the last character of the chunk. */
+    private final int end;
+
+
+    /** The fragments of the runs, in order. */
+    private View[] fragments = new View[0];
+
+
+    /** Where each fragment starts, from the start of the chunk. */
+    private float[] xs = new float[0];
+
+
+    /** The width of the row. */
+    private float width;
+
+
+    /** The height of the row. */
+    private float height;
+
+
+    /** How far the baseline is from the top of the row. */
+    private float ascent;
+
+
+    /** The width of a tab stop. */
+    private int tabWidth = 1;
+
+
+    /** Whether the fragments are being lined up, which makes them report changes. */
+    private boolean laying;
+
+
+    /**
+     * Constructor for a ChunkView.
+     *
+     * @param paragraph     The paragraph the chunk is a piece of.
+     * @param start         The first offset of the chunk.
+     * @param end           The offset after the last character of the chunk.
+     */
+    ChunkView(Element paragraph, int start, int end) {
+        super(paragraph);
+        this.start  = start;
+        this.end    = end;
+    }
+
+
+    /*
+        The fragments are created once the chunk is in the view tree, which
+        has the factory to create them with.
+    */
+    @Override
+    public void setParent(View parent) {
+
+        super.setParent(parent);
+
+        if(parent == null) {
+            for(View fragment : fragments) {
+                fragment.setParent(null);
+            }
+            fragments = new View[0];
+            return;
+        }
+
+        ViewFactory factory = getViewFactory();
+        Element paragraph   = getElement();
+        int first           = paragraph.getElementIndex(start);
+        int last            = paragraph.getElementIndex(Math.max(start, end - 1));
+
+        fragments = new View[last - first + 1];
+        for(int i = first; i <= last; i++) {
+            Element run = paragraph.getElement(i);
+            View view   = factory.create(run);
+            view.setParent(this);
+            View fragment = view.createFragment(Math.max(start, run.getStartOffset()),
+                                                Math.min(end, run.getEndOffset()));
+            fragment.setParent(this);
+            fragments[i - first] = fragment;
+        }
+
+        if(getContainer() != null) {
+            tabWidth = Math.max(1, TAB_SIZE * getContainer().getFontMetrics(
+                                   getContainer().getFont()).charWidth(' '));
+        }
+
+        layout();
+    }
+
+
+    /**
+     * Lines up the fragments on a common baseline, one after the other.
+     */
+    private void layout() {
+
+        xs          = new float[fragments.length];
+        float x     = 0;
+        float above = 0;
+        float below = 0;
+
+        laying = true;
+        try {
+            for(int i = 0; i < fragments.length; i++) {
+
+                View fragment = fragments[i];
+                xs[i] = x;
+                x += (fragment instanceof TabableView)
+                        ? ((TabableView)fragment).getTabbedSpan(x, this)
+                        : fragment.getPreferredSpan(X_AXIS);
+
+                float h     = fragment.getPreferredSpan(Y_AXIS);
+                float a     = h * fragment.getAlignment(Y_AXIS);
+                above       = Math.max(above, a);
+                below       = Math.max(below, h - a);
+            }
+        } finally {
+            laying = false;
+        }
+
+        width   = x;
+        height  = above + below;
+        ascent  = above;
+    }
+
+
+    @Override
+    public int getStartOffset() {
+        return start;
+    }
+
+
+    @Override
+    public int getEndOffset() {
+        return end;
+    }
+
+
+    @Override
+    public float getPreferredSpan(int axis) {
+        return (axis == X_AXIS) ? width : height;
+    }
+
+
+    /*
+        Tab stops are counted from the start of the chunk.
+    */
+    @Override
+    public float nextTabStop(float x, int tabOffset) {
+        return ((int)x / tabWidth + 1) * tabWidth;
+    }
+
+
+    @Override
+    public void preferenceChanged(View child, boolean width, boolean height) {
+        if(laying) {
+            return;
+        }
+        layout();
+        super.preferenceChanged(null, width, height);
+    }
+
+
+    /**
+     * Returns the allocation of a fragment.
+     *
+     * @param index     The fragment.
+     * @param a         The allocation of the chunk.
+     * @return          The allocation of the fragment.
+     */
+    private Rectangle getFragmentAllocation(int index, Rectangle a) {
+
+        View fragment   = fragments[index];
+        float right     = (index + 1 < fragments.length) ? xs[index + 1] : width;
+        float h         = fragment.getPreferredSpan(Y_AXIS);
+        float top       = ascent - h * fragment.getAlignment(Y_AXIS);
+
+        return new Rectangle(a.x + (int)xs[index], a.y + (int)top,
+                             (int)Math.ceil(right - xs[index]), (int)Math.ceil(h));
+    }
+
+
+    /**
+     * Returns the fragment that holds an offset.
+     *
+     * @param pos       The offset.
+     * @param b         The bias of the offset.
+     * @return          The index of the fragment.
+     */
+    private int getFragmentIndex(int pos, Position.Bias b) {
+
+        for(int i = 0; i < fragments.length; i++) {
+            int fragmentEnd = fragments[i].getEndOffset();
+            if(pos < fragmentEnd || (pos == fragmentEnd && b == Position.Bias.Backward)) {
+                return i;
+            }
+        }
+
+        return fragments.length - 1;
+    }
+
+
+    @Override
+    public void paint(Graphics g, Shape allocation) {
+
+        Rectangle a     = allocation.getBounds();
+        Rectangle clip  = g.getClipBounds();
+
+        for(int i = 0; i < fragments.length; i++) {
+            Rectangle r = getFragmentAllocation(i, a);
+            if(clip == null || r.intersects(clip) || r.width == 0) {
+                fragments[i].paint(g, r);
+            }
+        }
+
+    }
+
+
+    @Override
+    public Shape modelToView(int pos, Shape a, Position.Bias b) throws BadLocationException {
+
+        if(fragments.length == 0) {
+            Rectangle r = a.getBounds();
+            return new Rectangle(r.x, r.y, 0, r.height);
+        }
+
+        int index = getFragmentIndex(pos, b);
+        return fragments[index].modelToView(pos, getFragmentAllocation(index, a.getBounds()), b);
+    }
+
+
+    @Override
+    public int viewToModel(float x, float y, Shape a, Position.Bias[] biasReturn) {
+
+        Rectangle alloc = a.getBounds();
+
+        for(int i = 0; i < fragments.length; i++) {
+            Rectangle r = getFragmentAllocation(i, alloc);
+            if(x < r.x + r.width || i == fragments.length - 1) {
+                return fragments[i].viewToModel(Math.max(x, r.x), r.y, r, biasReturn);
+            }
+        }
+
+        biasReturn[0] = Position.Bias.Forward;
+        return start;
+    }
+
+}
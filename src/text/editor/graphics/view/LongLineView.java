@@ -0,0 +1,414 @@
+package text.editor.graphics.view;
+
+import java.awt.Container;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.Position;
+import javax.swing.text.StyledDocument;
+import javax.swing.text.View;
+import javax.swing.text.ViewFactory;
+
+
+/**
+ * The view of a paragraph that is too long to be laid out as a whole, like a
+ * minified JSON file or a log dumped on a single line.
+ *
+ * The line is split into chunks of a fixed amount of characters, and a
+ * ChunkView is only created for a chunk when it is painted or the caret is
+ * in it. Without wrapping the chunks sit next to each other on one row, and
+ * their widths are kept in a SpanIndex; until a chunk has been measured its
+ * width is guessed from the width of a character. With wrapping every chunk
+ * is a row of its own, of as many characters as fit in the width of the
+ * view, so the line is broken at a fixed amount of characters instead of
+ * between words.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+class LongLineView extends View {
+
+
+    /** The amount of characters from which a paragraph is a long line. */
+    static final int LONG_LINE = 16 * 1024;
+
+
+    /** The amount of characters of a chunk when lines are not wrapped. */
+    private static final int NO_WRAP_CHUNK = 1024;
+
+
+    /** The least amount of characters of a row when lines are wrapped. */
+    private static final int MIN_WRAP_CHUNK = 8;
+
+
+    /** The amount of chunk views that are kept with their layout. */
+    private static final int CACHE_SIZE = 256;
+
+
+    /** The views of the chunks that were used most recently, the oldest first. */
+    private final Map<Integer, ChunkView> chunks = new LinkedHashMap<Integer, ChunkView>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ChunkView> eldest) {
+            if(size() > CACHE_SIZE) {
+                eldest.getValue().setParent(null);
+                return true;
+            }
+            return false;
+        }
+    };
+
+
+    /** The widths of the chunks, or their heights when lines are wrapped. */
+    private final SpanIndex spans = new SpanIndex();
+
+
+    /** Whether the chunks are rows of a wrapped line. */
+    private boolean wrap;
+
+
+    /** The amount of characters of a chunk, 0 before the view has been laid out. */
+    private int chunkSize;
+
+
+    /** The height of the row when lines are not wrapped. */
+    private int rowHeight;
+
+
+    /** The height of a line of text. */
+    private int lineHeight = 16;
+
+
+    /** The width of an average character. */
+    private int charWidth = 7;
+
+
+    /** The width of a wide character, for the amount of characters that fit in a row. */
+    private int wideCharWidth = 12;
+
+
+    /**
+     * Constructor for a LongLineView.
+     *
+     * @param paragraph     The paragraph.
+     */
+    LongLineView(Element paragraph) {
+        super(paragraph);
+    }
+
+
+    /**
+     * Returns true if a paragraph is long enough to be shown in chunks.
+     *
+     * @param paragraph     The paragraph.
+     * @return              Whether it is a long line.
+     */
+    static boolean isLongLine(Element paragraph) {
+        return paragraph.getEndOffset() - paragraph.getStartOffset() > LONG_LINE;
+    }
+
+
+    @Override
+    public void setParent(View parent) {
+
+        super.setParent(parent);
+
+        if(parent == null) {
+            dropChunks(0);
+            return;
+        }
+
+        Container container = getContainer();
+        if(container != null && getDocument() instanceof StyledDocument) {
+            FontMetrics metrics = container.getFontMetrics(((StyledDocument)getDocument())
+                                        .getFont(getElement().getElement(0).getAttributes()));
+            lineHeight      = Math.max(1, metrics.getHeight());
+            charWidth       = Math.max(1, metrics.charWidth('n'));
+            wideCharWidth   = Math.max(charWidth, metrics.charWidth('W'));
+        }
+        rowHeight = lineHeight;
+
+    }
+
+
+    /*
+        A width that is not bounded means the line is not wrapped. Switching
+        between the two, or a width that fits a different amount of characters
+        in a row, cuts the line into new chunks.
+    */
+    @Override
+    public void setSize(float width, float height) {
+
+        boolean newWrap = width < Integer.MAX_VALUE / 2;
+        int newSize     = newWrap ? Math.max(MIN_WRAP_CHUNK, (int)width / wideCharWidth)
+                                  : NO_WRAP_CHUNK;
+
+        if(newWrap != wrap || newSize != chunkSize) {
+            wrap        = newWrap;
+            chunkSize   = newSize;
+            rowHeight   = lineHeight;
+            dropChunks(0);
+            spans.reset(new int[0]);
+            guessSpans(0);
+        }
+
+    }
+
+
+    /**
+     * Returns the amount of chunks of the line.
+     *
+     * @return          The amount of chunks, at least 1.
+     */
+    private int getChunkCount() {
+        int length = getEndOffset() - getStartOffset();
+        return Math.max(1, (length + chunkSize - 1) / chunkSize);
+    }
+
+
+    /**
+     * Guesses the spans of the chunks from a chunk to the end of the line.
+     *
+     * @param first     The first chunk to guess.
+     */
+    private void guessSpans(int first) {
+
+        int count       = getChunkCount();
+        int[] guesses   = new int[Math.max(0, count - first)];
+
+        for(int i = 0; i < guesses.length; i++) {
+            int chunk   = first + i;
+            int length  = Math.min(getEndOffset(), getStartOffset() + (chunk + 1) * chunkSize)
+                          - (getStartOffset() + chunk * chunkSize);
+            guesses[i]  = wrap ? lineHeight : length * charWidth;
+        }
+
+        spans.insert(first, guesses);
+    }
+
+
+    /**
+     * Lets go of the chunk views from a chunk to the end of the line.
+     *
+     * @param first     The first chunk to let go of.
+     */
+    private void dropChunks(int first) {
+        for(Iterator<Map.Entry<Integer, ChunkView>> it = chunks.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, ChunkView> entry = it.next();
+            if(entry.getKey() >= first) {
+                entry.getValue().setParent(null);
+                it.remove();
+            }
+        }
+    }
+
+
+    /**
+     * Returns the view of a chunk, and corrects the span of the chunk if it was
+     * guessed wrong.
+     *
+     * @param index     The chunk.
+     * @return          Its view.
+     */
+    private ChunkView getChunk(int index) {
+
+        ChunkView chunk = chunks.get(index);
+        if(chunk != null) {
+            return chunk;
+        }
+
+        int start   = getStartOffset() + index * chunkSize;
+        int end     = Math.min(getEndOffset(), start + chunkSize);
+
+        chunk = new ChunkView(getElement(), start, end);
+        chunk.setParent(this);
+        chunks.put(index, chunk);
+
+        int width   = (int)Math.ceil(chunk.getPreferredSpan(X_AXIS));
+        int height  = (int)Math.ceil(chunk.getPreferredSpan(Y_AXIS));
+        int span    = wrap ? height : width;
+        boolean changed = false;
+
+        if(spans.get(index) != span) {
+            spans.set(index, span);
+            changed = true;
+        }
+        if(!wrap && height > rowHeight) {
+            rowHeight = height;
+            changed = true;
+        }
+        if(changed) {
+            preferenceChanged(null, !wrap, true);
+        }
+
+        return chunk;
+    }
+
+
+    /**
+     * Returns the allocation of a chunk.
+     *
+     * @param index     The chunk.
+     * @param a         The allocation of the line.
+     * @return          The allocation of the chunk.
+     */
+    private Rectangle getChunkAllocation(int index, Rectangle a) {
+
+        int offset = (int)Math.min(Integer.MAX_VALUE / 2, spans.getOffset(index));
+
+        if(wrap) {
+            return new Rectangle(a.x, a.y + offset, a.width, spans.get(index));
+        }
+        return new Rectangle(a.x + offset, a.y, spans.get(index), rowHeight);
+    }
+
+
+    /**
+     * Returns the chunk that holds a position. A position at the start of a
+     * chunk with a backward bias belongs to the chunk before it.
+     *
+     * @param pos       The position.
+     * @param b         The bias of the position.
+     * @return          The index of the chunk.
+     */
+    private int getChunkIndex(int pos, Position.Bias b) {
+
+        int relative = Math.max(0, pos - getStartOffset());
+        if(b == Position.Bias.Backward && relative > 0 && relative % chunkSize == 0) {
+            relative--;
+        }
+
+        return Math.min(spans.size() - 1, relative / chunkSize);
+    }
+
+
+    @Override
+    public float getPreferredSpan(int axis) {
+
+        long span;
+        if(axis == X_AXIS) {
+            span = wrap ? 0 : spans.getTotal();
+        } else {
+            span = wrap ? spans.getTotal() : rowHeight;
+        }
+
+        return (float)Math.min(Integer.MAX_VALUE / 2, span);
+    }
+
+
+    @Override
+    public void paint(Graphics g, Shape allocation) {
+
+        Rectangle a     = allocation.getBounds();
+        Rectangle clip  = g.getClipBounds();
+        if(clip == null) {
+            clip = a;
+        }
+
+        int count = spans.size();
+
+        if(wrap) {
+
+            int index   = spans.getIndexAt(Math.max(0, clip.y - a.y));
+            long y      = a.y + spans.getOffset(index);
+
+            for(; index < count && y < (long)clip.y + clip.height; index++) {
+                ChunkView chunk = getChunk(index);
+                int height      = spans.get(index);
+                chunk.paint(g, new Rectangle(a.x, (int)y, a.width, height));
+                y += height;
+            }
+
+        } else {
+
+            int index   = spans.getIndexAt(Math.max(0, clip.x - a.x));
+            long x      = a.x + spans.getOffset(index);
+
+            for(; index < count && x < (long)clip.x + clip.width; index++) {
+                ChunkView chunk = getChunk(index);
+                int width       = spans.get(index);
+                chunk.paint(g, new Rectangle((int)x, a.y, width, rowHeight));
+                x += width;
+            }
+
+        }
+
+    }
+
+
+    @Override
+    public Shape modelToView(int pos, Shape a, Position.Bias b) throws BadLocationException {
+        int index = getChunkIndex(pos, b);
+        ChunkView chunk = getChunk(index);
+        return chunk.modelToView(pos, getChunkAllocation(index, a.getBounds()), b);
+    }
+
+
+    @Override
+    public int viewToModel(float x, float y, Shape a, Position.Bias[] biasReturn) {
+
+        Rectangle alloc = a.getBounds();
+        long point      = wrap ? (long)(y - alloc.y) : (long)(x - alloc.x);
+        int index       = spans.getIndexAt(Math.max(0, point));
+        ChunkView chunk = getChunk(index);
+
+        return chunk.viewToModel(x, y, getChunkAllocation(index, alloc), biasReturn);
+    }
+
+
+    @Override
+    public void insertUpdate(DocumentEvent e, Shape a, ViewFactory f) {
+        update(e);
+    }
+
+
+    @Override
+    public void removeUpdate(DocumentEvent e, Shape a, ViewFactory f) {
+        update(e);
+    }
+
+
+    @Override
+    public void changedUpdate(DocumentEvent e, Shape a, ViewFactory f) {
+        update(e);
+    }
+
+
+    /**
+     * Cuts the line into chunks again from the chunk a change starts in. The
+     * chunks before it keep their views and their measured spans. A change
+     * that replaces runs of the line starts where the first of them does,
+     * since the chunks that show part of such a run show the old one.
+     *
+     * @param e         The change.
+     */
+    private void update(DocumentEvent e) {
+
+        if(chunkSize == 0) {
+            return;
+        }
+
+        int offset                      = e.getOffset();
+        DocumentEvent.ElementChange ec  = e.getChange(getElement());
+        if(ec != null && ec.getIndex() < getElement().getElementCount()) {
+            offset = Math.min(offset, getElement().getElement(ec.getIndex()).getStartOffset());
+        }
+
+        int first = Math.min(spans.size(), Math.max(0, offset - getStartOffset()) / chunkSize);
+
+        dropChunks(first);
+        spans.remove(first, spans.size() - first);
+        guessSpans(first);
+
+        preferenceChanged(null, true, true);
+    }
+
+}
@@ -0,0 +1,74 @@
+package text.editor.graphics.view;
+
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.StyledEditorKit;
+import javax.swing.text.View;
+import javax.swing.text.ViewFactory;
+import text.editor.model.PieceTableDocument;
+
+
+/**
+ * A StyledEditorKit whose documents are piece tables and whose section view
+ * only lays out the paragraphs that are shown. Every other element gets the
+ * view the StyledEditorKit would give it, apart from long lines, which the
+ * section view shows in chunks.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class VirtualEditorKit extends StyledEditorKit {
+
+
+    /**
+     * The client property of a text component that turns wrapping of lines
+     * off when it is Boolean.FALSE.
+     */
+    public static final String LINE_WRAP = "VirtualEditorKit.lineWrap";
+
+
+    /** Creates the views of the elements. */
+    private static final ViewFactory FACTORY = new VirtualViewFactory();
+
+
+    /** Default constructor for a VirtualEditorKit. */
+    public VirtualEditorKit() {}
+
+
+    @Override
+    public ViewFactory getViewFactory() {
+        return FACTORY;
+    }
+
+
+    @Override
+    public Document createDefaultDocument() {
+        return new PieceTableDocument();
+    }
+
+
+    /**
+     * Creates a VirtualSectionView for a section, and the usual views for
+     * everything else.
+     */
+    private static class VirtualViewFactory implements ViewFactory {
+
+
+        /** The factory of the StyledEditorKit. */
+        private final ViewFactory styled = new StyledEditorKit().getViewFactory();
+
+
+        @Override
+        public View create(Element elem) {
+            if(AbstractDocument.SectionElementName.equals(elem.getName())) {
+                return new VirtualSectionView(elem);
+            }
+            return styled.create(elem);
+        }
+
+    }
+
+}
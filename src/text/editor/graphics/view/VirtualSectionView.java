@@ -0,0 +1,636 @@
+package text.editor.graphics.view;
+
+import java.awt.Container;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.JComponent;
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.Position;
+import javax.swing.text.StyledDocument;
+import javax.swing.text.View;
+import javax.swing.text.ViewFactory;
+
+
+/**
+ * The view of the section of a document, the element that holds all of the
+ * paragraphs, that only creates views for the paragraphs that are shown.
+ *
+ * The BoxView Swing uses for a section creates a view for every paragraph
+ * and lays all of them out before anything is painted, which takes seconds
+ * and hundreds of megabytes for a file with millions of lines. This view
+ * keeps the height of every paragraph in a HeightIndex instead. The height of
+ * a paragraph that has not been shown yet is guessed from its length and the
+ * width of a line of text, and replaced by the real one once its view has
+ * been laid out.
+ *
+ * Views are created for the paragraphs that are painted, plus a screen of
+ * paragraphs below them so scrolling down finds them ready, and for the
+ * positions the caret and the highlights ask about. The views of the
+ * paragraphs that were shown most recently are kept with their layout, so
+ * scrolling back and forth does not measure the same glyphs again. A
+ * paragraph that is a long line gets a LongLineView, which does the same
+ * with pieces of the line.
+ *
+ * Lines are wrapped at the width of the view unless the text component has
+ * the VirtualEditorKit.LINE_WRAP property set to false. The view is then as
+ * wide as the widest line it knows of, measured or guessed.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+class VirtualSectionView extends View {
+
+
+    /** The amount of paragraph views that are kept with their layout. */
+    private static final int CACHE_SIZE = 1000;
+
+
+    /** The width lines are wrapped at before the view has been given a size. */
+    private static final int NO_WIDTH = -1;
+
+
+    /** The views of the paragraphs that were shown most recently, the oldest first. */
+    private final Map<Element, Child> children = new LinkedHashMap<Element, Child>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Element, Child> eldest) {
+            if(size() > CACHE_SIZE) {
+                eldest.getValue().view.setParent(null);
+                return true;
+            }
+            return false;
+        }
+    };
+
+
+    /** The heights of the paragraphs, measured or guessed. */
+    private final SpanIndex heights = new SpanIndex();
+
+
+    /** The width the paragraphs are laid out in, NO_WIDTH if they are not wrapped. */
+    private int width = NO_WIDTH;
+
+
+    /** Whether lines are wrapped at the width of the view. */
+    private boolean wrap = true;
+
+
+    /** The width of the widest line, measured or guessed, when lines are not wrapped. */
+    private long widest;
+
+
+    /** The height of a line of text, for guessing the height of a paragraph. */
+    private int lineHeight = 16;
+
+
+    /** The width of a character, for guessing how many lines a paragraph wraps into. */
+    private int charWidth = 7;
+
+
+    /** Whether a paragraph view is being measured, so it does not report its own change. */
+    private boolean measuring;
+
+
+    /**
+     * Constructor for a VirtualSectionView.
+     *
+     * @param elem      The section element.
+     */
+    VirtualSectionView(Element elem) {
+        super(elem);
+    }
+
+
+    /*
+        The heights are guessed once the view knows the component it is in,
+        which has the fonts to guess them with.
+    */
+    @Override
+    public void setParent(View parent) {
+
+        super.setParent(parent);
+
+        if(parent == null) {
+            for(Child child : children.values()) {
+                child.view.setParent(null);
+            }
+            children.clear();
+            return;
+        }
+
+        Container container = getContainer();
+        if(container != null && getDocument() instanceof StyledDocument) {
+            Element first       = getElement().getElement(0);
+            Font font           = ((StyledDocument)getDocument()).getFont(
+                                        first.getElement(0).getAttributes());
+            FontMetrics metrics = container.getFontMetrics(font);
+            lineHeight          = Math.max(1, metrics.getHeight());
+            charWidth           = Math.max(1, metrics.charWidth('n'));
+        }
+
+        guessHeights();
+
+    }
+
+
+    /**
+     * Guesses the height of every paragraph again, and the widest line.
+     */
+    private void guessHeights() {
+
+        int count       = getElement().getElementCount();
+        int[] guesses   = new int[count];
+        widest          = 0;
+
+        for(int i = 0; i < count; i++) {
+            Element paragraph = getElement().getElement(i);
+            guesses[i]  = guessHeight(paragraph);
+            widest      = Math.max(widest, guessWidth(paragraph));
+        }
+        heights.reset(guesses);
+
+    }
+
+
+    /**
+     * Guesses the widest line again, from the lengths of the paragraphs and
+     * the widths of the views that are kept and laid out.
+     */
+    private void guessWidest() {
+
+        widest = 0;
+        for(int i = 0; i < getElement().getElementCount(); i++) {
+            widest = Math.max(widest, guessWidth(getElement().getElement(i)));
+        }
+
+        for(Child child : children.values()) {
+            if(child.width == width) {
+                widest = Math.max(widest, (long)Math.ceil(child.view.getPreferredSpan(X_AXIS)));
+            }
+        }
+
+    }
+
+
+    /**
+     * Guesses the width of a paragraph on a single line.
+     *
+     * @param paragraph     The paragraph.
+     * @return              The width.
+     */
+    private long guessWidth(Element paragraph) {
+        return (long)(paragraph.getEndOffset() - paragraph.getStartOffset()) * charWidth;
+    }
+
+
+    /**
+     * Returns whether the text component wants its lines wrapped.
+     *
+     * @return              The VirtualEditorKit.LINE_WRAP property, true if
+     *                      it is not set.
+     */
+    private boolean isLineWrap() {
+        Container container = getContainer();
+        return !(container instanceof JComponent)
+                || !Boolean.FALSE.equals(((JComponent)container)
+                                            .getClientProperty(VirtualEditorKit.LINE_WRAP));
+    }
+
+
+    /**
+     * Guesses the height of a paragraph that has not been laid out.
+     *
+     * @param paragraph     The paragraph.
+     * @return              The height.
+     */
+    private int guessHeight(Element paragraph) {
+
+        if(width <= 0) {
+            return lineHeight;
+        }
+
+        long length = paragraph.getEndOffset() - paragraph.getStartOffset();
+        long lines  = Math.max(1, (length * charWidth + width - 1) / width);
+
+        return (int)Math.min(Integer.MAX_VALUE / 2, lines * lineHeight);
+    }
+
+
+    /**
+     * Returns the view of a paragraph, laid out in the current width, and
+     * corrects the height of the paragraph if it was guessed wrong.
+     *
+     * @param index     The paragraph.
+     * @return          Its view.
+     */
+    private View getChild(int index) {
+
+        Element paragraph   = getElement().getElement(index);
+        Child child         = children.get(paragraph);
+
+        if(child == null) {
+            View view = LongLineView.isLongLine(paragraph) ? new LongLineView(paragraph)
+                                                           : getViewFactory().create(paragraph);
+            child = new Child(view);
+            child.view.setParent(this);
+            children.put(paragraph, child);
+        }
+
+        if(child.width != width) {
+
+            int layoutWidth = (width <= 0) ? Integer.MAX_VALUE : width;
+
+            measuring = true;
+            try {
+                child.view.setSize(layoutWidth, 0);
+                child.height = (int)Math.ceil(child.view.getPreferredSpan(Y_AXIS));
+                child.view.setSize(layoutWidth, child.height);
+            } finally {
+                measuring = false;
+            }
+            child.width = width;
+
+            boolean wider = false;
+            if(!wrap) {
+                long childWidth = (long)Math.ceil(child.view.getPreferredSpan(X_AXIS));
+                if(childWidth > widest) {
+                    widest  = childWidth;
+                    wider   = true;
+                }
+            }
+
+            if(heights.get(index) != child.height || wider) {
+                heights.set(index, child.height);
+                super.preferenceChanged(null, wider, true);
+            }
+        }
+
+        return child.view;
+    }
+
+
+    /**
+     * Returns the allocation of a paragraph.
+     *
+     * @param index     The paragraph.
+     * @param a         The allocation of this view.
+     * @return          The allocation of the paragraph.
+     */
+    private Rectangle getChildAllocation(int index, Rectangle a) {
+        long top = heights.getOffset(index);
+        return new Rectangle(a.x, (int)Math.min(Integer.MAX_VALUE, a.y + top),
+                             a.width, heights.get(index));
+    }
+
+
+    @Override
+    public float getPreferredSpan(int axis) {
+        if(axis == Y_AXIS) {
+            return (float)Math.min(Integer.MAX_VALUE, heights.getTotal());
+        }
+        return wrap ? Math.max(width, 0) : (float)Math.min(Integer.MAX_VALUE / 2, widest);
+    }
+
+
+    /*
+        Wrapped lines fit any width, so the view can be made as narrow as the
+        viewport it is in.
+    */
+    @Override
+    public float getMinimumSpan(int axis) {
+        return (axis == Y_AXIS || !wrap) ? getPreferredSpan(axis) : 0;
+    }
+
+
+    @Override
+    public float getMaximumSpan(int axis) {
+        return Integer.MAX_VALUE;
+    }
+
+
+    /*
+        A new width makes every view that is kept lay itself out again when
+        it is next asked for. The heights of the other paragraphs are
+        corrected as they are shown, unless wrapping was switched on or off,
+        or there was no width to guess them with before, so they are all
+        guessed again.
+    */
+    @Override
+    public void setSize(float width, float height) {
+
+        boolean newWrap = isLineWrap();
+        int newWidth    = (!newWrap || width >= Integer.MAX_VALUE / 2) ? NO_WIDTH : (int)width;
+
+        if(newWrap != wrap) {
+            this.wrap   = newWrap;
+            this.width  = newWidth;
+            guessHeights();
+            preferenceChanged(null, true, true);
+        } else if(newWidth != this.width) {
+            boolean first = this.width == NO_WIDTH;
+            this.width  = newWidth;
+            if(first) {
+                guessHeights();
+            }
+            preferenceChanged(null, true, true);
+        }
+
+    }
+
+
+    /*
+        A paragraph view whose size changed is measured again before it is
+        used, unless it is the one being measured.
+    */
+    @Override
+    public void preferenceChanged(View child, boolean width, boolean height) {
+
+        if(child != null) {
+            if(measuring) {
+                return;
+            }
+            Child entry = children.get(child.getElement());
+            if(entry != null && entry.view == child) {
+                entry.width = NO_WIDTH - 1;
+            }
+        }
+
+        super.preferenceChanged(null, width, height);
+    }
+
+
+    @Override
+    public void paint(Graphics g, Shape allocation) {
+
+        Rectangle a     = allocation.getBounds();
+        Rectangle clip  = g.getClipBounds();
+        if(clip == null) {
+            clip = a;
+        }
+
+        int count   = getElement().getElementCount();
+        int index   = heights.getIndexAt(Math.max(0, clip.y - a.y));
+        long y      = a.y + heights.getOffset(index);
+        long bottom = (long)clip.y + clip.height;
+        long margin = bottom + clip.height;
+
+        /*
+            Laying out a paragraph may correct its height, so the top of the
+            next one is worked out from the height it ends up with.
+        */
+        for(; index < count && y < margin; index++) {
+
+            View child = getChild(index);
+            int height = heights.get(index);
+
+            if(y < bottom && y + height > clip.y) {
+                child.paint(g, new Rectangle(a.x, (int)y, a.width, height));
+            }
+            y += height;
+        }
+
+    }
+
+
+    @Override
+    public Shape modelToView(int pos, Shape a, Position.Bias b) throws BadLocationException {
+
+        int index   = getParagraphIndex(pos, b);
+        View child  = getChild(index);
+
+        return child.modelToView(pos, getChildAllocation(index, a.getBounds()), b);
+    }
+
+
+    @Override
+    public Shape modelToView(int p0, Position.Bias b0, int p1, Position.Bias b1, Shape a)
+            throws BadLocationException {
+
+        int index0 = getParagraphIndex(p0, b0);
+        int index1 = getParagraphIndex(p1, b1);
+
+        if(index0 == index1) {
+            View child = getChild(index0);
+            return child.modelToView(p0, b0, p1, b1, getChildAllocation(index0, a.getBounds()));
+        }
+
+        Rectangle r0 = modelToView(p0, a, b0).getBounds();
+        Rectangle r1 = modelToView(p1, a, b1).getBounds();
+        Rectangle section = a.getBounds();
+
+        return new Rectangle(section.x, r0.y, section.width, r1.y + r1.height - r0.y);
+    }
+
+
+    @Override
+    public int viewToModel(float x, float y, Shape a, Position.Bias[] biasReturn) {
+
+        Rectangle alloc = a.getBounds();
+        int index       = heights.getIndexAt(Math.max(0, (long)(y - alloc.y)));
+
+        if(getElement().getElementCount() == 0) {
+            biasReturn[0] = Position.Bias.Forward;
+            return getStartOffset();
+        }
+
+        View child = getChild(index);
+        return child.viewToModel(x, y, getChildAllocation(index, alloc), biasReturn);
+    }
+
+
+    /**
+     * Returns the paragraph that holds a position. A position at the start of
+     * a paragraph with a backward bias belongs to the paragraph before it.
+     *
+     * @param pos       The position.
+     * @param b         The bias of the position.
+     * @return          The index of the paragraph.
+     */
+    private int getParagraphIndex(int pos, Position.Bias b) {
+
+        if(b == Position.Bias.Backward && pos > 0) {
+            pos--;
+        }
+
+        int index = getElement().getElementIndex(pos);
+        return Math.max(0, Math.min(index, getElement().getElementCount() - 1));
+    }
+
+
+    @Override
+    public void insertUpdate(DocumentEvent e, Shape a, ViewFactory f) {
+        update(e, a, f);
+    }
+
+
+    @Override
+    public void removeUpdate(DocumentEvent e, Shape a, ViewFactory f) {
+        update(e, a, f);
+    }
+
+
+    @Override
+    public void changedUpdate(DocumentEvent e, Shape a, ViewFactory f) {
+        update(e, a, f);
+    }
+
+
+    /**
+     * Brings the heights and the views that are kept up to date with a change
+     * of the document.
+     *
+     * Paragraphs that were added or removed are added to or removed from the
+     * heights. The views of paragraphs the change is in are told about it, the
+     * way a BoxView forwards it to its children. The component is repainted
+     * from the first paragraph that changed down, since the paragraphs below
+     * it may have moved.
+     *
+     * @param e         The change.
+     * @param a         The allocation of this view, or null if it has not
+     *                  been painted yet.
+     * @param f         The factory to create views with.
+     */
+    private void update(DocumentEvent e, Shape a, ViewFactory f) {
+
+        Element section                 = getElement();
+        DocumentEvent.ElementChange ec  = e.getChange(section);
+
+        if(ec != null) {
+
+            for(Element removed : ec.getChildrenRemoved()) {
+                Child child = children.remove(removed);
+                if(child != null) {
+                    child.view.setParent(null);
+                }
+            }
+
+            Element[] added = ec.getChildrenAdded();
+            int[] guesses   = new int[added.length];
+            for(int i = 0; i < added.length; i++) {
+                guesses[i]  = guessHeight(added[i]);
+                widest      = Math.max(widest, guessWidth(added[i]));
+            }
+
+            heights.remove(ec.getIndex(), ec.getChildrenRemoved().length);
+            heights.insert(ec.getIndex(), guesses);
+        }
+
+        /*
+            Style changes can cover the whole document, so the paragraphs
+            whose view is kept are checked instead of every paragraph the
+            change covers.
+        */
+        int start   = e.getOffset();
+        int end     = start + e.getLength();
+        List<Child> affected = new ArrayList<>();
+
+        for(Iterator<Child> it = children.values().iterator(); it.hasNext(); ) {
+            Child child = it.next();
+            Element paragraph = child.view.getElement();
+            if(paragraph.getStartOffset() <= end && paragraph.getEndOffset() >= start) {
+                if((child.view instanceof LongLineView) != LongLineView.isLongLine(paragraph)) {
+                    // The paragraph became a long line or stopped being one.
+                    child.view.setParent(null);
+                    it.remove();
+                } else {
+                    affected.add(child);
+                }
+            }
+        }
+
+        for(Child child : affected) {
+            measuring = true;
+            try {
+                if(e.getType() == DocumentEvent.EventType.INSERT) {
+                    child.view.insertUpdate(e, null, f);
+                } else if(e.getType() == DocumentEvent.EventType.REMOVE) {
+                    child.view.removeUpdate(e, null, f);
+                } else {
+                    child.view.changedUpdate(e, null, f);
+                }
+            } finally {
+                measuring = false;
+            }
+            child.width = NO_WIDTH - 1;
+        }
+
+        if(e.getType() == DocumentEvent.EventType.INSERT) {
+            widest = Math.max(widest, guessWidth(section.getElement(section.getElementIndex(start))));
+        } else if(!wrap && e.getType() == DocumentEvent.EventType.REMOVE
+                 && (long)e.getLength() * charWidth >= widest / 2) {
+            /*
+                The widest line may be gone, so the widest of the others is
+                looked for, which only a big removal is worth.
+            */
+            guessWidest();
+        }
+
+        if(e.getType() == DocumentEvent.EventType.CHANGE && e.getLength() > 0) {
+            /*
+                A style change may change the height of paragraphs whose view
+                is not kept, so their height is guessed again.
+            */
+            int first = section.getElementIndex(start);
+            int last  = section.getElementIndex(Math.max(start, end - 1));
+            for(int i = first; i <= last; i++) {
+                if(!children.containsKey(section.getElement(i))) {
+                    heights.set(i, guessHeight(section.getElement(i)));
+                }
+            }
+        }
+
+        super.preferenceChanged(null, true, true);
+
+        Container host = getContainer();
+        if(a != null && host != null) {
+            Rectangle alloc = a.getBounds();
+            int first       = section.getElementIndex(start);
+            long top        = alloc.y + heights.getOffset(first);
+            int y           = (int)Math.min(Integer.MAX_VALUE, top);
+            host.repaint(alloc.x, y, alloc.width, Math.max(0, alloc.y + alloc.height - y));
+        }
+
+    }
+
+
+    /**
+     * The view of a paragraph and the width it was laid out in.
+     */
+    private static final class Child {
+
+
+        /** The view of the paragraph. */
+        final View view;
+
+
+        /** The width it was laid out in, or something else if it has to be laid out again. */
+        int width = NO_WIDTH - 1;
+
+
+        /** The height it was laid out with. */
+        int height;
+
+
+        /**
+         * Constructor for a Child.
+         *
+         * @param view      The view of the paragraph.
+         */
+        Child(View view) {
+            this.view = view;
+        }
+
+    }
+
+}
@@ -0,0 +1,90 @@
+package text.editor.io;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import javax.swing.Timer;
+import text.editor.graphics.MainWindow;
+import text.editor.graphics.actions.Actions;
+import text.editor.graphics.editor.MainTabHolder;
+import text.editor.graphics.editor.MainTextPane;
+
+
+/**
+ * Saves the modified documents that already have a file every few seconds.
+ *
+ * Autosave is off unless the text.editor.autosaveInterval system property is
+ * set to the amount of seconds between saves. Autosaves go through the
+ * SaveService like any other save, so one that runs into a Ctrl+S of the same
+ * document is merged with it into a single write.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class AutoSaver {
+
+
+    /** The amount of seconds between autosaves, zero turns autosave off. */
+    private static final int INTERVAL =
+            Integer.getInteger("text.editor.autosaveInterval", 0);
+
+
+    /** Fires the autosaves on the Event Dispatch Thread. */
+    private static Timer timer;
+
+
+    /**
+     * Private constructor so the AutoSaver class cannot be instantiated.
+     */
+    private AutoSaver() {}
+
+
+    /**
+     * Starts autosaving if it is turned on. Must be called on the Event
+     * Dispatch Thread.
+     */
+    public static void start() {
+
+        if(INTERVAL <= 0 || timer != null) {
+            return;
+        }
+
+        timer = new Timer(INTERVAL * 1000, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                saveModifiedDocuments();
+            }
+        });
+        timer.start();
+
+    }
+
+
+    /**
+     * Saves every document that is modified, is not being loaded, and has a
+     * file that still exists. Documents that were never saved are left alone,
+     * because saving them means asking the user for a file, and so are
+     * hibernated ones until they are woken up.
+     */
+    static void saveModifiedDocuments() {
+
+        MainTabHolder tabHolder = MainWindow.getTabbedPane();
+
+        for(int i = 0; i < tabHolder.getTabCount(); i++) {
+
+            MainTextPane textPane   = tabHolder.getTextPane(i);
+            String filePath         = textPane.getFilePath();
+
+            if(filePath != null && textPane.isModified() && !textPane.isLoading()
+                    && !textPane.isHibernated() && new File(filePath).exists()) {
+                ReadWriteUtilities.autosave(textPane,
+                                            Actions.SaveFileAction.getFileType(filePath));
+            }
+
+        }
+
+    }
+
+}
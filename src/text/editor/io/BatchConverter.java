@@ -0,0 +1,446 @@
+package text.editor.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import javax.swing.text.BadLocationException;
+import text.editor.graphics.actions.FileType;
+import text.editor.model.DocumentSnapshot;
+import text.editor.model.PieceTableDocument;
+
+
+/**
+ * Converts files between RTF, .tlr and plain text from the command line,
+ * without opening a window:
+ *
+ *      --convert SOURCE TARGET --to txt|rtf|tlr [--encoding CHARSET] [--threads N]
+ *
+ * SOURCE is a file or a directory. A directory is walked recursively and every
+ * .rtf, .tlr and .txt file in it is converted into the same place under the
+ * TARGET directory, with the extension of the new format. Plain text is read
+ * in the encoding DocumentIO detects and written as UTF-8 unless another
+ * charset is given.
+ *
+ * The files are converted on one thread per core. The directory is walked as
+ * the files are converted, the queue of waiting files is short, and a file
+ * only starts once its document fits into the memory budget next to the ones
+ * being converted, so the amount of memory used does not depend on how many
+ * files there are or how big they are. At the end the throughput is printed.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class BatchConverter {
+
+
+    /** The exit code when every file was converted. */
+    public static final int EXIT_OK         = 0;
+
+
+    /** The exit code when some files could not be converted. */
+    public static final int EXIT_FAILED     = 1;
+
+
+    /** The exit code when the command line is wrong. */
+    public static final int EXIT_USAGE      = 2;
+
+
+    /** How the command line is used. */
+    private static final String USAGE =
+            "Usage: --convert SOURCE TARGET --to txt|rtf|tlr [--encoding CHARSET] [--threads N]";
+
+
+    /**
+     * About how many bytes of heap a document takes for every byte of its
+     * file: two bytes a character, the copy of a growing buffer and the
+     * elements of the paragraphs.
+     */
+    private static final int HEAP_PER_BYTE  = 8;
+
+
+    /** The files are converted as soon as they are found, or near enough. */
+    private static final int QUEUE_PER_THREAD = 2;
+
+
+    /** The format to convert to. */
+    private final FileType target;
+
+
+    /** The encoding of the plain text that is written. */
+    private final TextEncoding encoding;
+
+
+    /** The amount of files converted at the same time. */
+    private final int threads;
+
+
+    /** Where the progress and the statistics go. */
+    private final PrintStream out;
+
+
+    /** Where the errors go. */
+    private final PrintStream err;
+
+
+    /** The heap the documents being converted may take, in kilobytes. */
+    private final Semaphore memory;
+
+
+    /** The size of the memory budget, in kilobytes. */
+    private final int memoryBudget;
+
+
+    /** The amount of files converted. */
+    private final AtomicInteger converted   = new AtomicInteger();
+
+
+    /** The amount of files that could not be converted. */
+    private final AtomicInteger failed      = new AtomicInteger();
+
+
+    /** The amount of bytes read. */
+    private final AtomicLong bytesRead      = new AtomicLong();
+
+
+    /** The amount of bytes written. */
+    private final AtomicLong bytesWritten   = new AtomicLong();
+
+
+    /** The amount of characters converted. */
+    private final AtomicLong characters     = new AtomicLong();
+
+
+    /**
+     * Constructor for a BatchConverter.
+     *
+     * @param target    The format to convert to.
+     * @param encoding  The encoding of the plain text that is written.
+     * @param threads   The amount of files converted at the same time.
+     * @param out       Where the statistics go.
+     * @param err       Where the errors go.
+     */
+    public BatchConverter(FileType target, TextEncoding encoding, int threads,
+                          PrintStream out, PrintStream err) {
+        this.target         = target;
+        this.encoding       = encoding;
+        this.threads        = threads;
+        this.out            = out;
+        this.err            = err;
+        this.memoryBudget   = (int)Math.min(Integer.MAX_VALUE,
+                                            Runtime.getRuntime().maxMemory() / 2 / 1024);
+        this.memory         = new Semaphore(memoryBudget);
+    }
+
+
+    /**
+     * Runs a conversion from the command line.
+     *
+     * @param args      The command line, starting with --convert.
+     * @return          The exit code.
+     */
+    public static int run(String[] args) {
+
+        String source       = null;
+        String destination  = null;
+        FileType target     = null;
+        Charset charset     = TextEncoding.DEFAULT.getCharset();
+        int threads         = Runtime.getRuntime().availableProcessors();
+
+        try {
+
+            for(int i = 1; i < args.length; i++) {
+                switch(args[i]) {
+
+                    case "--to":
+                        target = parseFormat(args[++i]);
+                        break;
+
+                    case "--encoding":
+                        charset = Charset.forName(args[++i]);
+                        break;
+
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+
+                    default:
+                        if(source == null) {
+                            source = args[i];
+                        } else if(destination == null) {
+                            destination = args[i];
+                        } else {
+                            throw new IllegalArgumentException("Unexpected argument: "+args[i]);
+                        }
+                        break;
+                }
+            }
+
+            if(source == null || destination == null || target == null || threads < 1) {
+                throw new IllegalArgumentException("Missing arguments");
+            }
+
+        } catch (ArrayIndexOutOfBoundsException | IllegalCharsetNameException
+                | UnsupportedCharsetException err) {
+            System.err.println(USAGE);
+            return EXIT_USAGE;
+        } catch (IllegalArgumentException err) {
+            System.err.println(err.getMessage());
+            System.err.println(USAGE);
+            return EXIT_USAGE;
+        }
+
+        TextEncoding encoding = new TextEncoding(charset, false, TextEncoding.LineEnding.LF);
+
+        try {
+            return new BatchConverter(target, encoding, threads, System.out, System.err)
+                        .convert(new File(source), new File(destination));
+        } catch (IOException err) {
+            System.err.println("Error: "+err.getMessage());
+            return EXIT_FAILED;
+        }
+
+    }
+
+
+    /**
+     * Converts a file, or every file in a directory, and prints how it went.
+     *
+     * @param source        The file or directory to convert.
+     * @param destination   The file or directory to write to.
+     * @return              The exit code.
+     * @throws IOException if the source can not be walked.
+     */
+    public int convert(File source, File destination) throws IOException {
+
+        long start = System.nanoTime();
+
+        if(source.isFile()) {
+
+            File file = destination.isDirectory()
+                      ? new File(destination, targetName(source.getName()))
+                      : destination;
+            convertFile(source, file);
+
+        } else if(source.isDirectory()) {
+
+            convertDirectory(source.toPath(), destination.toPath());
+
+        } else {
+            throw new IOException("No such file or directory: "+source);
+        }
+
+        printStatistics(System.nanoTime() - start);
+
+        return failed.get() == 0 ? EXIT_OK : EXIT_FAILED;
+    }
+
+
+    /**
+     * Converts every known file under a directory on the pool. The walk is
+     * held back by the short queue, which runs a file on the walking thread
+     * when it is full.
+     *
+     * @param source        The directory to convert.
+     * @param destination   The directory to write to.
+     * @throws IOException if the directory can not be walked.
+     */
+    private void convertDirectory(final Path source, final Path destination) throws IOException {
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                threads, threads, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(threads * QUEUE_PER_THREAD),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "Converter "+count.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        try (Stream<Path> paths = Files.walk(source)) {
+
+            Iterator<Path> it = paths.iterator();
+
+            while(it.hasNext()) {
+
+                final Path path = it.next();
+                if(!Files.isRegularFile(path) || !isConvertible(path.getFileName().toString())) {
+                    continue;
+                }
+
+                Path relative   = source.relativize(path);
+                Path parent     = relative.getParent();
+                final File file = (parent == null ? destination : destination.resolve(parent))
+                                    .resolve(targetName(path.getFileName().toString())).toFile();
+
+                pool.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        convertFile(path.toFile(), file);
+                    }
+                });
+            }
+
+        } finally {
+
+            pool.shutdown();
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+            } catch (InterruptedException err) {
+                pool.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+
+        }
+
+    }
+
+
+    /**
+     * Converts one file, once its document fits into the memory budget.
+     * Errors are printed and counted, they do not stop the other files.
+     *
+     * @param source    The file to convert.
+     * @param target    The file to write.
+     */
+    private void convertFile(File source, File target) {
+
+        long cost   = source.length() * HEAP_PER_BYTE / 1024 + 1;
+        int permits = (int)Math.min(memoryBudget, cost);
+
+        try {
+            memory.acquire(permits);
+        } catch (InterruptedException err) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        try {
+
+            FileType format         = FileType.of(source.getPath());
+            PieceTableDocument doc  = DocumentIO.read(source, format, null, null);
+            DocumentSnapshot snapshot =
+                    DocumentSnapshot.of(doc, this.target != FileType.TXT_OTHER);
+
+            File parent = target.getAbsoluteFile().getParentFile();
+            if(parent != null) {
+                Files.createDirectories(parent.toPath());
+            }
+
+            DocumentIO.write(snapshot, target, this.target, encoding, false);
+
+            converted.incrementAndGet();
+            characters.addAndGet(snapshot.getText().length());
+            bytesRead.addAndGet(source.length());
+            bytesWritten.addAndGet(target.length());
+
+        } catch (IOException | BadLocationException | RuntimeException e) {
+            failed.incrementAndGet();
+            err.println("Failed: "+source+": "+e);
+        } finally {
+            memory.release(permits);
+        }
+
+    }
+
+
+    /**
+     * Prints how many files were converted and how fast.
+     *
+     * @param nanos     How long the conversion took.
+     */
+    private void printStatistics(long nanos) {
+
+        double seconds  = Math.max(nanos / 1e9, 1e-9);
+        double mbRead   = bytesRead.get() / (1024.0 * 1024.0);
+
+        out.println(String.format(Locale.ROOT,
+                "Converted %d %s, %d failed, in %.2f s on %d %s",
+                converted.get(), (converted.get() == 1) ? "file" : "files",
+                failed.get(), seconds, threads, (threads == 1) ? "thread" : "threads"));
+        out.println(String.format(Locale.ROOT,
+                "Read %.1f MB, wrote %.1f MB, %d characters",
+                mbRead, bytesWritten.get() / (1024.0 * 1024.0), characters.get()));
+        out.println(String.format(Locale.ROOT,
+                "Throughput: %.1f files/s, %.1f MB/s",
+                converted.get() / seconds, mbRead / seconds));
+    }
+
+
+    /**
+     * Returns the name of a converted file: the name with the extension of
+     * the target format.
+     *
+     * @param name      The name of the source file.
+     * @return          The name of the target file.
+     */
+    private String targetName(String name) {
+
+        int dot     = name.lastIndexOf('.');
+        String base = (dot > 0) ? name.substring(0, dot) : name;
+
+        switch(target) {
+            case RTF:
+                return base+".rtf";
+            case TLR:
+                return base+".tlr";
+            default:
+                return base+".txt";
+        }
+
+    }
+
+
+    /**
+     * Returns true if a file in a directory is one of the formats the
+     * converter reads. Other files in the directory are left alone.
+     *
+     * @param name      The name of the file.
+     * @return          Whether to convert it.
+     */
+    private static boolean isConvertible(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".rtf") || lower.endsWith(".tlr") || lower.endsWith(".txt");
+    }
+
+
+    /**
+     * Returns the format named on the command line.
+     *
+     * @param name      txt, rtf or tlr.
+     * @return          The format.
+     */
+    private static FileType parseFormat(String name) {
+        switch(name.toLowerCase(Locale.ROOT)) {
+            case "txt":
+                return FileType.TXT_OTHER;
+            case "rtf":
+                return FileType.RTF;
+            case "tlr":
+                return FileType.TLR;
+            default:
+                throw new IllegalArgumentException("Unknown format: "+name);
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+package text.editor.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import text.editor.model.DocumentSnapshot;
+import text.editor.model.PieceTableDocument;
+
+
+/**
+ * A document kept as a .tlr file compressed with a Deflater, in memory or on
+ * the disk, to be read back into a document when it is needed again.
+ *
+ * Compression uses the fastest level of the Deflater, which still shrinks
+ * the repetitive text of logs several times over. The snapshot is written
+ * straight into the Deflater, so the .tlr bytes are only held as a whole
+ * while the document is read back, in an array of their exact size.
+ *
+ * A compressed document can be written to a file as it is, an int with the
+ * length of the .tlr bytes followed by the compressed bytes, so a document
+ * that goes from memory to the disk is not compressed again.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public final class CompressedDocument {
+
+
+    /** The compressed .tlr bytes. */
+    private final byte[] bytes;
+
+
+    /** The amount of .tlr bytes before compression. */
+    private final int length;
+
+
+    /**
+     * Constructor for a CompressedDocument.
+     *
+     * @param bytes     The compressed .tlr bytes.
+     * @param length    The amount of .tlr bytes before compression.
+     */
+    private CompressedDocument(byte[] bytes, int length) {
+        this.bytes  = bytes;
+        this.length = length;
+    }
+
+
+    /**
+     * Compresses a snapshot of a document. Can be called from any thread.
+     *
+     * @param snapshot  The snapshot, with its style runs.
+     * @return          The compressed document.
+     * @throws IOException if the document is too big to be compressed into
+     *                     an array.
+     */
+    public static CompressedDocument of(DocumentSnapshot snapshot) throws IOException {
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        try {
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (OutputStream zip = new DeflaterOutputStream(out, deflater, 64 * 1024)) {
+                TlrFormat.write(snapshot, zip);
+            }
+
+            if(deflater.getBytesRead() > Integer.MAX_VALUE) {
+                throw new IOException("Document too big to compress: "+deflater.getBytesRead());
+            }
+
+            return new CompressedDocument(out.toByteArray(), (int)deflater.getBytesRead());
+
+        } finally {
+            deflater.end();
+        }
+
+    }
+
+
+    /**
+     * Reads a compressed document that was written to a file.
+     *
+     * @param file      The file.
+     * @return          The compressed document.
+     * @throws IOException if the file can not be read.
+     */
+    public static CompressedDocument read(File file) throws IOException {
+
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+
+            int length  = in.readInt();
+            long size   = file.length() - 4;
+            if(length < 0 || size < 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("Damaged compressed document: "+file);
+            }
+
+            byte[] bytes = new byte[(int)size];
+            in.readFully(bytes);
+
+            return new CompressedDocument(bytes, length);
+        }
+
+    }
+
+
+    /**
+     * Writes the compressed document to a file.
+     *
+     * @param file      The file.
+     * @throws IOException if the file can not be written.
+     */
+    public void write(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(length);
+            out.write(bytes);
+        }
+    }
+
+
+    /**
+     * Reads the compressed document back into a new document.
+     *
+     * @return          The document.
+     * @throws IOException if the bytes are damaged.
+     */
+    public PieceTableDocument inflate() throws IOException {
+
+        Inflater inflater   = new Inflater();
+        byte[] tlr          = new byte[length];
+
+        try {
+
+            inflater.setInput(bytes);
+            int read = 0;
+            while(read < length && !inflater.finished()) {
+                int count = inflater.inflate(tlr, read, length - read);
+                if(count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += count;
+            }
+
+            if(read != length) {
+                throw new IOException("Damaged compressed document");
+            }
+
+        } catch (DataFormatException err) {
+            throw new IOException("Damaged compressed document", err);
+        } finally {
+            inflater.end();
+        }
+
+        return TlrFormat.read(ByteBuffer.wrap(tlr), "compressed document");
+    }
+
+
+    /**
+     * Returns the amount of memory the compressed document takes.
+     *
+     * @return          The amount of compressed bytes.
+     */
+    public int getCompressedSize() {
+        return bytes.length;
+    }
+
+}
@@ -0,0 +1,369 @@
+package text.editor.io;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+import javax.swing.text.BadLocationException;
+import text.editor.graphics.actions.FileType;
+import text.editor.model.DocumentSnapshot;
+import text.editor.model.PieceTableDocument;
+
+
+/**
+ * Reads and writes documents in every format the editor knows, without any
+ * user interface. The loaders and the SaveService of the editor run on top
+ * of it, and so does the BatchConverter of the command line.
+ *
+ * Nothing in here shows a dialog or touches the main window, and nothing
+ * keeps any state, so any number of threads can read and write files at the
+ * same time.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class DocumentIO {
+
+
+    /** The amount of bytes of plain text read from a file at a time. */
+    private static final int READ_SIZE = 64 * 1024;
+
+
+    /**
+     * Receives plain text as it is decoded.
+     */
+    public interface TextSink {
+
+
+        /**
+         * Called for every block of decoded text. The characters are only
+         * valid until the method returns.
+         *
+         * @param text      The characters, with '\n' line breaks.
+         * @param length    The amount of characters in text.
+         * @param position  The amount of bytes of the file read so far.
+         * @return          Whether to keep reading.
+         */
+        boolean append(char[] text, int length, long position);
+
+    }
+
+
+    /**
+     * Private constructor so the DocumentIO class cannot be instantiated.
+     */
+    private DocumentIO() {}
+
+
+    /**
+     * Reads a file into a new document.
+     *
+     * @param file      The file.
+     * @param format    The format of the file.
+     * @param encoding  The encoding of plain text, or null to detect it.
+     * @param progress  Is told how far along the reading is in percent, may
+     *                  be null.
+     * @return          The document.
+     * @throws IOException if the file can not be read.
+     */
+    public static PieceTableDocument read(File file, FileType format, TextEncoding encoding,
+                                          final IntConsumer progress) throws IOException {
+
+        final long size = Math.max(1, file.length());
+
+        switch(format) {
+
+            case TLR:
+
+                return TlrFormat.read(file);
+
+            case RTF:
+
+                PieceTableDocument doc = new PieceTableDocument();
+                try (InputStream in = new FileInputStream(file)) {
+                    RtfReader.read(in, doc, new IntConsumer() {
+                        @Override
+                        public void accept(int bytes) {
+                            if(progress != null) {
+                                progress.accept((int)Math.min(100, bytes * 100L / size));
+                            }
+                        }
+                    });
+                } catch (BadLocationException err) {
+                    throw new IOException("Could not read "+file, err);
+                }
+                return doc;
+
+            default:
+
+                if(encoding == null) {
+                    encoding = TextEncoding.detect(file);
+                }
+
+                final StringBuilder text = createTextBuilder(size, encoding);
+                TextSink sink = new TextSink() {
+                    @Override
+                    public boolean append(char[] chars, int length, long position) {
+                        text.append(chars, 0, length);
+                        if(progress != null) {
+                            progress.accept((int)Math.min(100, position * 100 / size));
+                        }
+                        return !Thread.currentThread().isInterrupted();
+                    }
+                };
+
+                // Latin-1 is the last fallback and decodes any file.
+                while(true) {
+                    try {
+                        readText(file, encoding, sink);
+                        break;
+                    } catch (CharacterCodingException err) {
+                        text.setLength(0);
+                        encoding = encoding.fallback();
+                    }
+                }
+
+                if(Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Reading "+file+" was interrupted");
+                }
+
+                return new PieceTableDocument(text);
+        }
+
+    }
+
+
+    /**
+     * Creates a StringBuilder to decode a plain text file into. The decoder
+     * knows about how many characters the bytes make, so the text is hardly
+     * ever copied to grow.
+     *
+     * @param size      The size of the file in bytes.
+     * @param encoding  The encoding of the file.
+     * @return          The empty StringBuilder.
+     */
+    static StringBuilder createTextBuilder(long size, TextEncoding encoding) {
+        float charsPerByte = TextCodecs.decoder(encoding.getCharset()).averageCharsPerByte();
+        return new StringBuilder((int)Math.min(Integer.MAX_VALUE - 8,
+                                               (long)(size * charsPerByte) + 16));
+    }
+
+
+    /**
+     * Decodes a plain text file block by block. Line breaks are converted to
+     * '\n' the same way BufferedReader.readLine() sees them, including a
+     * "\r\n" that is split between two blocks.
+     *
+     * Bytes that are not valid in the encoding are not replaced, since they
+     * would be lost when the text is saved. The reading stops instead, and
+     * the file can be read again in the fallback of the encoding.
+     *
+     * @param file      The file.
+     * @param encoding  The encoding of the file.
+     * @param sink      Receives the text.
+     * @throws CharacterCodingException if the file is not valid in the
+     *                                  encoding.
+     * @throws IOException if the file can not be read.
+     */
+    public static void readText(File file, TextEncoding encoding, TextSink sink)
+            throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+
+            CharsetDecoder decoder  = TextCodecs.strictDecoder(encoding.getCharset());
+            ByteBuffer bytes        = ByteBuffer.allocateDirect(READ_SIZE);
+            CharBuffer chars        = TextCodecs.acquireBuffer();
+
+            try {
+
+                boolean skipLF  = false;
+                boolean end     = false;
+
+                channel.position(encoding.getBomLength());
+
+                while(!end) {
+
+                    end = channel.read(bytes) == -1;
+                    bytes.flip();
+
+                    chars.clear();
+                    CoderResult result = decoder.decode(bytes, chars, end);
+                    if(end && !result.isError()) {
+                        result = decoder.flush(chars);
+                    }
+                    if(result.isError()) {
+                        result.throwException();
+                    }
+                    bytes.compact();
+
+                    // The text only ever gets shorter, so it is fixed in place.
+                    char[] array    = chars.array();
+                    int limit       = chars.position();
+                    int length      = 0;
+
+                    for(int i = 0; i < limit; i++) {
+                        char c = array[i];
+                        if(c == '\r') {
+                            array[length++] = '\n';
+                            skipLF = true;
+                        } else if(c == '\n' && skipLF) {
+                            skipLF = false;
+                        } else {
+                            array[length++] = c;
+                            skipLF = false;
+                        }
+                    }
+
+                    if(!sink.append(array, length, channel.position())) {
+                        return;
+                    }
+
+                }
+
+            } finally {
+                TextCodecs.releaseBuffer(chars);
+            }
+
+        }
+
+    }
+
+
+    /**
+     * Writes a snapshot to a temporary file next to the target and renames it
+     * over the target. If anything goes wrong the target is left as it was.
+     *
+     * @param snapshot  The snapshot to write.
+     * @param file      The file to write to.
+     * @param format    The format to write the file in.
+     * @param encoding  The encoding of plain text.
+     * @param sync      Whether to force the file to the disk before it
+     *                  replaces the target, and the rename after.
+     * @throws IOException if the file can not be written.
+     * @throws BadLocationException if the snapshot can not be read.
+     */
+    public static void write(DocumentSnapshot snapshot, File file, FileType format,
+                             TextEncoding encoding, boolean sync)
+            throws IOException, BadLocationException {
+
+        Path target     = file.toPath().toAbsolutePath();
+        Path temp       = Files.createTempFile(target.getParent(),
+                                               "."+target.getFileName(), ".tmp");
+
+        try {
+
+            try (FileOutputStream fileOut = new FileOutputStream(temp.toFile())) {
+
+                encode(snapshot, format, encoding, fileOut);
+
+                /*
+                    The data has to be on the disk before the rename, otherwise
+                    a crash can leave an empty file where the old one was.
+                */
+                if(sync) {
+                    fileOut.getChannel().force(true);
+                }
+            }
+
+            // Keep the permissions of the file that is being replaced.
+            if(Files.exists(target)) {
+                try {
+                    Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+                } catch (UnsupportedOperationException err) {
+                    // Not a POSIX file system, the defaults will have to do.
+                }
+            }
+
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+                                         StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException err) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            if(sync) {
+                syncDirectory(target.getParent());
+            }
+
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+    }
+
+
+    /**
+     * Forces the entries of a directory to the disk, so a rename in it
+     * survives a crash. Not every platform can open a directory, in which
+     * case the rename is left to the file system.
+     *
+     * @param dir       The directory.
+     */
+    private static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException err) {
+            // Windows can not open directories, NTFS journals the rename anyway.
+        }
+    }
+
+
+    /**
+     * Encodes a snapshot in a format. Plain text is encoded straight into
+     * the channel of the file, the other formats go through a buffer.
+     *
+     * @param snapshot  The snapshot to write.
+     * @param format    The format to write.
+     * @param encoding  The encoding of plain text.
+     * @param fileOut   The file to write to.
+     * @throws IOException if writing fails.
+     * @throws BadLocationException if the snapshot can not be read.
+     */
+    private static void encode(DocumentSnapshot snapshot, FileType format,
+                               TextEncoding encoding, FileOutputStream fileOut)
+            throws IOException, BadLocationException {
+
+        OutputStream out = new BufferedOutputStream(fileOut);
+
+        switch(format) {
+
+            case RTF:
+
+                RtfWriter.write(snapshot, out);
+                break;
+
+            case TLR:
+
+                TlrFormat.write(snapshot, out);
+                break;
+
+            case TXT_OTHER:
+
+                TextCodecs.write(snapshot.getText(), encoding, fileOut.getChannel());
+                break;
+
+            default:
+                throw new IOException("Unknown file format: "+format);
+        }
+
+    }
+
+}
@@ -0,0 +1,55 @@
+package text.editor.io;
+
+
+/**
+ * How hard SaveService tries to make sure a saved file is really on the disk
+ * before it tells the user the file was saved. Forcing a file to the disk
+ * (fsync) can take tens of milliseconds on a network file system, so it is
+ * only done when it is worth it.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public enum Durability {
+
+
+    /** Never force files to the disk, leave it to the operating system. */
+    NONE,
+
+
+    /** Force files to the disk when the user saves, but not on autosave. */
+    EXPLICIT_SAVE,
+
+
+    /** Force every file written to the disk. */
+    ALWAYS;
+
+
+    /**
+     * Returns true if a write should be forced to the disk.
+     *
+     * @param explicit  Whether the user asked for the save.
+     * @return          Whether to force the write to the disk.
+     */
+    boolean shouldSync(boolean explicit) {
+        return this == ALWAYS || (this == EXPLICIT_SAVE && explicit);
+    }
+
+
+    /**
+     * Returns the durability set with the text.editor.durability system
+     * property, or EXPLICIT_SAVE if it is not set or not valid.
+     *
+     * @return          The configured durability.
+     */
+    static Durability fromSystemProperty() {
+        try {
+            return valueOf(System.getProperty("text.editor.durability", "EXPLICIT_SAVE"));
+        } catch (IllegalArgumentException err) {
+            return EXPLICIT_SAVE;
+        }
+    }
+
+}
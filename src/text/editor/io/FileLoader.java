@@ -0,0 +1,210 @@
+package text.editor.io;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.CharacterCodingException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import text.editor.errorreporting.ErrorReport;
+import text.editor.graphics.editor.MainTextPane;
+import text.editor.graphics.editor.StatusBar;
+import text.editor.model.PieceTableDocument;
+
+
+/**
+ * Loads a plain text file into a MainTextPane in the background.
+ *
+ * The file is decoded by DocumentIO on a worker thread into a StringBuilder,
+ * which becomes the original buffer of a new PieceTableDocument, and the
+ * paragraphs are built there as well. The document is swapped into the text
+ * pane once, so the text never goes through the add buffer and no insert
+ * events are fired for it. Until then the first screen of text is shown in
+ * the old document. The progress is shown on the status bar and the loading
+ * can be cancelled from the tab. A file that is not valid in its detected
+ * encoding is read again in the fallback of that encoding.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class FileLoader extends SwingWorker<PieceTableDocument, String> {
+
+
+    /** The amount of characters shown before the whole file is loaded. */
+    private static final int FIRST_CHUNK_SIZE   = 16 * 1024;
+
+
+    /** The file to load. */
+    private final File file;
+
+
+    /** The encoding the file was detected to have. */
+    private final TextEncoding detected;
+
+
+    /** The encoding the file was read with. */
+    private volatile TextEncoding encoding;
+
+
+    /** The text pane to load the file into. */
+    private final MainTextPane textPane;
+
+
+    /**
+     * Constructor for the FileLoader.
+     *
+     * @param file      The file to load.
+     * @param encoding  The encoding of the file.
+     * @param textPane  The text pane to load the file into.
+     */
+    public FileLoader(File file, TextEncoding encoding, MainTextPane textPane) {
+        this.file       = file;
+        this.detected   = encoding;
+        this.encoding   = encoding;
+        this.textPane   = textPane;
+    }
+
+
+    /**
+     * Starts loading the file. The text pane is read only until the file has
+     * been loaded.
+     */
+    public void start() {
+
+        textPane.setEditable(false);
+        textPane.setLoadingTask(this);
+        StatusBar.updateStatusMessage("Loading "+file.getName()+"...");
+
+        addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent e) {
+                if("progress".equals(e.getPropertyName()) && !isDone()) {
+                    StatusBar.updateStatusMessage("Loading "+file.getName()+"... "
+                                                  +e.getNewValue()+"%");
+                }
+            }
+        });
+
+        execute();
+    }
+
+
+    /*
+        Decodes the file with DocumentIO, publishes the first screen of it,
+        and builds the document on top of the rest. The document is not shown
+        yet, so it is safe to build it here. If the file is not valid in its
+        encoding it is decoded again in the fallback, and the document that
+        replaces the first screen shows the text as it was read in the end.
+    */
+    @Override
+    protected PieceTableDocument doInBackground() throws IOException {
+
+        final long size             = Math.max(1, file.length());
+        final StringBuilder text    = DocumentIO.createTextBuilder(size, encoding);
+
+        DocumentIO.TextSink sink = new DocumentIO.TextSink() {
+
+            /** Whether the first screen of text has been published. */
+            private boolean published;
+
+            @Override
+            public boolean append(char[] chars, int length, long position) {
+                text.append(chars, 0, length);
+                if(!published && text.length() >= FIRST_CHUNK_SIZE) {
+                    publish(text.substring(0, FIRST_CHUNK_SIZE));
+                    published = true;
+                }
+                setProgress((int)Math.min(100, position * 100 / size));
+                return !isCancelled();
+            }
+
+        };
+
+        // Latin-1 is the last fallback and decodes any file.
+        while(true) {
+            try {
+                DocumentIO.readText(file, encoding, sink);
+                break;
+            } catch (CharacterCodingException err) {
+                text.setLength(0);
+                encoding = encoding.fallback();
+            }
+        }
+
+        if(isCancelled()) {
+            return null;
+        }
+
+        return new PieceTableDocument(text);
+    }
+
+
+    /*
+        Shows the first screen of text in the old document, which is replaced
+        once the file has been loaded.
+    */
+    @Override
+    protected void process(List<String> chunks) {
+
+        if(isCancelled()) {
+            return;
+        }
+
+        try {
+            Document doc = textPane.getDocument();
+            doc.insertString(doc.getLength(), chunks.get(0), null);
+        } catch (BadLocationException err) {
+            new ErrorReport().createErrorReport(err);
+        }
+    }
+
+
+    /*
+        Shows the document in the text pane and reports how the loading went.
+        Only a file that was read to the end counts as saved, the part of it
+        that is shown otherwise is untied from the file so it can not be
+        saved over it.
+    */
+    @Override
+    protected void done() {
+
+        textPane.setEditable(true);
+        textPane.setLoadingTask(null);
+
+        try {
+            textPane.setDocument(get());
+            textPane.setEncoding(encoding);
+            // The text that was loaded is what is on the disk.
+            textPane.markSaved(textPane.getModificationCount());
+            if(encoding == detected) {
+                StatusBar.updateStatusMessage(file.getName()+" opened...");
+            } else {
+                StatusBar.updateStatusMessage(file.getName()+" is not valid "
+                                              +detected.getCharset().name()+", opened as "
+                                              +encoding.getCharset().name()+"...");
+            }
+        } catch (CancellationException err) {
+            ReadWriteUtilities.detachFromFile(textPane);
+            StatusBar.updateStatusMessage("Loading "+file.getName()+" cancelled...");
+        } catch (InterruptedException | ExecutionException err) {
+            ReadWriteUtilities.detachFromFile(textPane);
+            new ErrorReport().createErrorReport(err);
+            StatusBar.updateStatusMessage("Error opening "+file.getName()+"...");
+            JOptionPane.showMessageDialog(null,
+                                            "Error opening file.",
+                                            "Error",
+                                            JOptionPane.ERROR_MESSAGE);
+        }
+
+        ReadWriteUtilities.resetStatusMessage();
+    }
+
+}
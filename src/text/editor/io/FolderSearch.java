@@ -0,0 +1,618 @@
+package text.editor.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import text.editor.errorreporting.ErrorReport;
+import text.editor.model.TextBuffer;
+import text.editor.search.ParallelSearch;
+import text.editor.search.TextFinder;
+
+
+/**
+ * Finds text in every file under a directory, like grep -r, on a
+ * ForkJoinPool with a thread for every core.
+ *
+ * Every directory is listed by a task of its own, which forks a task for
+ * each of its subdirectories and searches its files in small batches, so
+ * the walk itself is spread over the threads and a tree of a hundred
+ * thousand files keeps every core busy from the start. Hidden directories,
+ * like .git, and symbolic links are not followed.
+ *
+ * Files above a size limit are skipped, and so are files that look binary:
+ * files with a zero byte in their first bytes, unless those bytes look like
+ * UTF-16. The charset of a file is detected from its first bytes the way it
+ * is when the file is opened. Files of a megabyte or more are memory mapped;
+ * smaller ones are read into a buffer the thread reuses, because mapping
+ * costs more than reading a small file, and every mapping stays until the
+ * garbage collector gets to it, which a hundred thousand small files could
+ * run out of. Small files are decoded into an array the thread reuses as
+ * well. The text is searched by a ParallelSearch, so big files are searched
+ * in chunks in parallel.
+ *
+ * The listener is told about every file with matches as soon as it has been
+ * searched, on the thread that searched it.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public final class FolderSearch {
+
+
+    /** Files of at least this many bytes are memory mapped. */
+    private static final long MAPPED_FILE_SIZE = 1024 * 1024;
+
+
+    /** The amount of bytes looked at to detect the charset and binary files. */
+    private static final int SAMPLE_SIZE = 8 * 1024;
+
+
+    /** The most files of a directory searched by one task. */
+    private static final int FILES_PER_TASK = 16;
+
+
+    /** The threads that search, one for every core. */
+    private static final ForkJoinPool POOL = new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(),
+            pool -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName("Find in folder "+t.getPoolIndex());
+                t.setDaemon(true);
+                return t;
+            },
+            null, false);
+
+
+    /** The buffer of each thread that small files are read into. */
+    private static final ThreadLocal<ByteBuffer[]> BYTES = ThreadLocal.withInitial(
+            () -> new ByteBuffer[] {ByteBuffer.allocate(64 * 1024)});
+
+
+    /** The array of each thread that files are decoded into. */
+    private static final ThreadLocal<char[][]> CHARS = ThreadLocal.withInitial(
+            () -> new char[][] {new char[64 * 1024]});
+
+
+    /** The directory that is searched. */
+    private final Path root;
+
+
+    /** What is searched for. */
+    private final TextFinder finder;
+
+
+    /** The names of the files to search, or null for every file. */
+    private final List<PathMatcher> names;
+
+
+    /** Files above this many bytes are skipped. */
+    private final long maxSize;
+
+
+    /** The most matches of a file that are kept. */
+    private final int maxHits;
+
+
+    /** Is told about what the search finds. */
+    private final Listener listener;
+
+
+    /** The amount of files that were searched. */
+    private final AtomicInteger searchedFiles = new AtomicInteger();
+
+
+    /** The amount of bytes in the files that were searched. */
+    private final AtomicLong searchedBytes = new AtomicLong();
+
+
+    /** The amount of files that were too big or binary. */
+    private final AtomicInteger skippedFiles = new AtomicInteger();
+
+
+    /** The amount of files and directories that could not be read. */
+    private final AtomicInteger failedFiles = new AtomicInteger();
+
+
+    /** Whether the search was cancelled. */
+    private volatile boolean cancelled;
+
+
+    /**
+     * Constructor for a FolderSearch.
+     *
+     * @param root      The directory to search.
+     * @param finder    What to search for.
+     * @param names     Glob patterns the names of the files to search must
+     *                  match one of, like *.java, or an empty list for every
+     *                  file.
+     * @param maxSize   Files above this many bytes are skipped.
+     * @param maxHits   The most matches of a file to keep.
+     * @param listener  Is told about what the search finds.
+     * @throws IllegalArgumentException if a pattern is not a valid glob.
+     */
+    public FolderSearch(File root, TextFinder finder, List<String> names, long maxSize,
+                        int maxHits, Listener listener) {
+
+        this.root       = root.toPath();
+        this.finder     = finder;
+        this.maxSize    = maxSize;
+        this.maxHits    = maxHits;
+        this.listener   = listener;
+
+        if(names.isEmpty()) {
+            this.names = null;
+        } else {
+            this.names = new ArrayList<>();
+            for(String name : names) {
+                this.names.add(FileSystems.getDefault().getPathMatcher("glob:"+name));
+            }
+        }
+
+    }
+
+
+    /**
+     * Starts searching on the pool, and tells the listener once every file
+     * has been searched.
+     */
+    public void start() {
+        POOL.execute(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                try {
+                    new DirectoryTask(root).invoke();
+                } catch (RuntimeException err) {
+                    new ErrorReport().createErrorReport(err);
+                } finally {
+                    listener.done();
+                }
+            }
+        });
+    }
+
+
+    /**
+     * Cancels the search. The files that are being searched finish, but no
+     * others are, and the listener is not told about anything else but that
+     * the search is done.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+
+    /**
+     * Returns the directory that is searched.
+     *
+     * @return          The directory.
+     */
+    public File getRoot() {
+        return root.toFile();
+    }
+
+
+    /**
+     * Returns the amount of files that were searched so far.
+     *
+     * @return          The amount of files.
+     */
+    public int getSearchedFiles() {
+        return searchedFiles.get();
+    }
+
+
+    /**
+     * Returns the amount of bytes in the files that were searched so far.
+     *
+     * @return          The amount of bytes.
+     */
+    public long getSearchedBytes() {
+        return searchedBytes.get();
+    }
+
+
+    /**
+     * Returns the amount of files that were skipped so far, because they were
+     * too big or binary.
+     *
+     * @return          The amount of files.
+     */
+    public int getSkippedFiles() {
+        return skippedFiles.get();
+    }
+
+
+    /**
+     * Returns the amount of files and directories that could not be read so
+     * far.
+     *
+     * @return          The amount of files and directories.
+     */
+    public int getFailedFiles() {
+        return failedFiles.get();
+    }
+
+
+    /**
+     * Searches a file, unless it is too big or binary, and tells the listener
+     * about its matches.
+     *
+     * @param file      The file.
+     * @param size      The size of the file in bytes.
+     */
+    private void searchFile(Path file, long size) {
+
+        if(size > maxSize) {
+            skippedFiles.incrementAndGet();
+            return;
+        }
+
+        TextBuffer text;
+        try {
+            text = read(file, size);
+        } catch (IOException err) {
+            failedFiles.incrementAndGet();
+            return;
+        }
+
+        if(text == null) {
+            skippedFiles.incrementAndGet();
+            return;
+        }
+
+        ParallelSearch.Result result = new ParallelSearch(finder, text, maxHits, () -> cancelled).invoke();
+
+        searchedFiles.incrementAndGet();
+        searchedBytes.addAndGet(size);
+
+        if(!cancelled && result.getCount() > 0) {
+            listener.found(file.toFile(), root.relativize(file).toString(), result);
+        }
+    }
+
+
+    /**
+     * Reads and decodes a file into the array of the thread.
+     *
+     * @param file      The file.
+     * @param size      The size of the file in bytes.
+     * @return          The text of the file, which for a small file is only
+     *                  good until the thread reads another one, or null if
+     *                  the file is binary.
+     * @throws IOException if the file can not be read.
+     */
+    private static TextBuffer read(Path file, long size) throws IOException {
+
+        ByteBuffer bytes;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            if(size >= MAPPED_FILE_SIZE) {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                ByteBuffer[] holder = BYTES.get();
+                if(holder[0].capacity() < size) {
+                    holder[0] = ByteBuffer.allocate((int)size);
+                }
+                bytes = holder[0];
+                bytes.clear();
+                bytes.limit((int)size);
+                while(bytes.hasRemaining() && channel.read(bytes) != -1) {
+                    // Keep reading.
+                }
+                bytes.flip();
+            }
+
+        }
+
+        ByteBuffer sample = bytes.duplicate();
+        sample.limit(Math.min(bytes.limit(), SAMPLE_SIZE));
+        Charset charset = TextEncoding.detectCharset(sample, bytes.limit() <= SAMPLE_SIZE);
+
+        if(isBinary(sample, charset)) {
+            return null;
+        }
+
+        bytes.position(TextEncoding.getBomLength(sample));
+
+        CharsetDecoder decoder  = TextCodecs.decoder(charset);
+        int capacity            = (int)Math.min(Integer.MAX_VALUE - 8,
+                                                (long)(bytes.remaining() * (double)decoder.maxCharsPerByte()) + 1);
+
+        /*
+            While a thread waits for the chunks of a big file it may search
+            other files, so only a small file, which is a single chunk, is
+            decoded into the array of the thread.
+        */
+        char[] array;
+        if(size < MAPPED_FILE_SIZE) {
+            char[][] holder = CHARS.get();
+            if(holder[0].length < capacity) {
+                holder[0] = new char[capacity];
+            }
+            array = holder[0];
+        } else {
+            array = new char[capacity];
+        }
+
+        CharBuffer chars = CharBuffer.wrap(array);
+        decoder.decode(bytes, chars, true);
+        decoder.flush(chars);
+
+        return new CharArrayText(array, chars.position());
+    }
+
+
+    /**
+     * Returns true if the first bytes of a file have a zero byte in them,
+     * and the file is not UTF-16, which has them all over.
+     *
+     * @param sample    The bytes.
+     * @param charset   The charset the file was detected to be in.
+     * @return          Whether the file is binary.
+     */
+    private static boolean isBinary(ByteBuffer sample, Charset charset) {
+
+        if(charset.equals(StandardCharsets.UTF_16LE) || charset.equals(StandardCharsets.UTF_16BE)) {
+            return false;
+        }
+
+        for(int i = 0; i < sample.limit(); i++) {
+            if(sample.get(i) == 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Is told about what a FolderSearch finds, on the threads of the pool.
+     */
+    public interface Listener {
+
+
+        /**
+         * Called once a file with matches has been searched.
+         *
+         * @param file      The file.
+         * @param name      The path of the file, from the directory that is
+         *                  searched.
+         * @param result    Its matches.
+         */
+        void found(File file, String name, ParallelSearch.Result result);
+
+
+        /**
+         * Called once every file has been searched, or the search was
+         * cancelled.
+         */
+        void done();
+
+    }
+
+
+    /**
+     * Lists a directory, searches its files in batches and its directories
+     * in tasks of their own.
+     */
+    private final class DirectoryTask extends RecursiveAction {
+
+
+        /** The directory. */
+        private final Path directory;
+
+
+        /**
+         * Constructor for a DirectoryTask.
+         *
+         * @param directory The directory.
+         */
+        DirectoryTask(Path directory) {
+            this.directory = directory;
+        }
+
+
+        /*
+            The attributes of an entry are read without following links, so
+            a link to a directory above can not make the walk go around in
+            circles.
+        */
+        @Override
+        protected void compute() {
+
+            if(cancelled) {
+                return;
+            }
+
+            List<RecursiveAction> tasks = new ArrayList<>();
+            List<Path> files            = new ArrayList<>();
+            List<Long> sizes            = new ArrayList<>();
+
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+
+                for(Path entry : entries) {
+
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(entry, BasicFileAttributes.class,
+                                                          LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException err) {
+                        failedFiles.incrementAndGet();
+                        continue;
+                    }
+
+                    if(attributes.isDirectory()) {
+                        if(!entry.getFileName().toString().startsWith(".")) {
+                            tasks.add(new DirectoryTask(entry));
+                        }
+                    } else if(attributes.isRegularFile() && matches(entry.getFileName())) {
+                        files.add(entry);
+                        sizes.add(attributes.size());
+                        if(files.size() == FILES_PER_TASK) {
+                            tasks.add(new FileTask(files, sizes));
+                            files = new ArrayList<>();
+                            sizes = new ArrayList<>();
+                        }
+                    }
+                }
+
+            } catch (IOException | SecurityException err) {
+                failedFiles.incrementAndGet();
+            }
+
+            if(!files.isEmpty()) {
+                tasks.add(new FileTask(files, sizes));
+            }
+
+            invokeAll(tasks);
+        }
+
+
+        /**
+         * Returns true if the name of a file matches one of the patterns.
+         *
+         * @param name      The name of the file.
+         * @return          Whether to search the file.
+         */
+        private boolean matches(Path name) {
+
+            if(names == null) {
+                return true;
+            }
+
+            for(PathMatcher matcher : names) {
+                if(matcher.matches(name)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+    }
+
+
+    /**
+     * Searches a batch of files, one after the other.
+     */
+    private final class FileTask extends RecursiveAction {
+
+
+        /** The files. */
+        private final List<Path> files;
+
+
+        /** The sizes of the files in bytes. */
+        private final List<Long> sizes;
+
+
+        /**
+         * Constructor for a FileTask.
+         *
+         * @param files     The files.
+         * @param sizes     Their sizes in bytes.
+         */
+        FileTask(List<Path> files, List<Long> sizes) {
+            this.files = files;
+            this.sizes = sizes;
+        }
+
+
+        @Override
+        protected void compute() {
+            for(int i = 0; i < files.size() && !cancelled; i++) {
+                searchFile(files.get(i), sizes.get(i));
+            }
+        }
+
+    }
+
+
+    /**
+     * The decoded text of a file, in an array that may be longer.
+     */
+    private static final class CharArrayText implements TextBuffer {
+
+
+        /** The characters. */
+        private final char[] chars;
+
+
+        /** The amount of characters. */
+        private final int length;
+
+
+        /**
+         * Constructor for a CharArrayText.
+         *
+         * @param chars     The characters.
+         * @param length    The amount of characters.
+         */
+        CharArrayText(char[] chars, int length) {
+            this.chars  = chars;
+            this.length = length;
+        }
+
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+
+        @Override
+        public char charAt(int index) {
+            if(index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index: "+index);
+            }
+            return chars[index];
+        }
+
+
+        @Override
+        public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+            if(srcBegin < 0 || srcEnd > length || srcBegin > srcEnd) {
+                throw new IndexOutOfBoundsException("begin "+srcBegin+", end "+srcEnd);
+            }
+            System.arraycopy(chars, srcBegin, dst, dstBegin, srcEnd - srcBegin);
+        }
+
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(chars, start, end - start);
+        }
+
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+
+    }
+
+}
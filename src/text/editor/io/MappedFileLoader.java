@@ -0,0 +1,153 @@
+package text.editor.io;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.nio.charset.CharacterCodingException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntConsumer;
+import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
+import text.editor.errorreporting.ErrorReport;
+import text.editor.graphics.editor.MainTextPane;
+import text.editor.graphics.editor.StatusBar;
+import text.editor.model.PieceTableDocument;
+
+
+/**
+ * Opens a very large plain text file by memory mapping it.
+ *
+ * The file is mapped and indexed in the background, and a piece table
+ * document is built on top of the mapped text. The text is never copied onto
+ * the heap; the first edit goes to the add buffer of the piece table, so the
+ * mapped file stays untouched. A file that is not valid in its detected
+ * encoding is indexed again in the fallback of that encoding.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class MappedFileLoader extends SwingWorker<PieceTableDocument, Void> {
+
+
+    /** The file to load. */
+    private final File file;
+
+
+    /** The encoding the file was detected to have. */
+    private final TextEncoding detected;
+
+
+    /** The encoding the file was read with. */
+    private volatile TextEncoding encoding;
+
+
+    /** The text pane to load the file into. */
+    private final MainTextPane textPane;
+
+
+    /**
+     * Constructor for the MappedFileLoader.
+     *
+     * @param file      The file to load.
+     * @param encoding  The encoding of the file, in a charset the text can
+     *                  be mapped in.
+     * @param textPane  The text pane to load the file into.
+     */
+    public MappedFileLoader(File file, TextEncoding encoding, MainTextPane textPane) {
+        this.file       = file;
+        this.detected   = encoding;
+        this.encoding   = encoding;
+        this.textPane   = textPane;
+    }
+
+
+    /**
+     * Starts loading the file. The text pane is read only until the file has
+     * been loaded.
+     */
+    public void start() {
+
+        textPane.setEditable(false);
+        textPane.setLoadingTask(this);
+        StatusBar.updateStatusMessage("Indexing "+file.getName()+"...");
+
+        addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent e) {
+                if("progress".equals(e.getPropertyName()) && !isDone()) {
+                    StatusBar.updateStatusMessage("Indexing "+file.getName()+"... "
+                                                  +e.getNewValue()+"%");
+                }
+            }
+        });
+
+        execute();
+    }
+
+
+    /*
+        Maps and indexes the file, then builds the document on top of it. The
+        document is not shown yet, so it is safe to build it here.
+    */
+    @Override
+    protected PieceTableDocument doInBackground() throws Exception {
+
+        IntConsumer progress = new IntConsumer() {
+            @Override
+            public void accept(int percent) {
+                setProgress(percent);
+            }
+        };
+
+        // The fallbacks are 8-bit charsets, which can always be mapped.
+        while(true) {
+            try {
+                MappedTextBuffer text = MappedTextBuffer.open(file, encoding.getCharset(), progress);
+                return new PieceTableDocument(text);
+            } catch (CharacterCodingException err) {
+                encoding = encoding.fallback();
+            }
+        }
+    }
+
+
+    /*
+        Shows the document in the text pane and reports how the loading went.
+    */
+    @Override
+    protected void done() {
+
+        textPane.setEditable(true);
+        textPane.setLoadingTask(null);
+
+        try {
+            textPane.setDocument(get());
+            textPane.setEncoding(encoding);
+            textPane.markSaved(textPane.getModificationCount());
+            if(encoding == detected) {
+                StatusBar.updateStatusMessage(file.getName()+" opened...");
+            } else {
+                StatusBar.updateStatusMessage(file.getName()+" is not valid "
+                                              +detected.getCharset().name()+", opened as "
+                                              +encoding.getCharset().name()+"...");
+            }
+        } catch (CancellationException err) {
+            ReadWriteUtilities.detachFromFile(textPane);
+            StatusBar.updateStatusMessage("Loading "+file.getName()+" cancelled...");
+        } catch (InterruptedException | ExecutionException err) {
+            ReadWriteUtilities.detachFromFile(textPane);
+            new ErrorReport().createErrorReport(err);
+            StatusBar.updateStatusMessage("Error opening "+file.getName()+"...");
+            JOptionPane.showMessageDialog(null,
+                                            "Error opening file.",
+                                            "Error",
+                                            JOptionPane.ERROR_MESSAGE);
+        }
+
+        ReadWriteUtilities.resetStatusMessage();
+    }
+
+}
@@ -0,0 +1,445 @@
+package text.editor.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import text.editor.model.TextBuffer;
+
+
+/**
+ * The text of a file that is memory mapped instead of read onto the heap.
+ *
+ * The file is split into pages of about 64 KB. When the buffer is opened every
+ * page is decoded once to find out how many characters it holds, but the
+ * decoded characters are thrown away again. After that a page is only decoded
+ * when somebody reads from it, and only the most recently read pages are kept,
+ * so the text itself never ends up on the heap. The document built on top of
+ * the buffer still keeps an element for every line, so the heap does grow
+ * with the amount of lines. Line breaks are converted to '\n' just like
+ * FileLoader does.
+ *
+ * Offsets into the text are ints, so files of MAX_FILE_SIZE bytes or more are
+ * refused before they are mapped.
+ *
+ * The buffer is read-only. Used as the original buffer of a piece table, edits
+ * go to the add buffer of the piece table and the file is never touched.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class MappedTextBuffer implements TextBuffer {
+
+
+    /** The nominal size in bytes of a page. */
+    private static final int PAGE_SIZE      = 64 * 1024;
+
+
+    /** The size in bytes of one mapped region of the file. */
+    private static final long REGION_SIZE   = 1L << 30;
+
+
+    /** The amount of decoded pages that are kept. */
+    private static final int CACHED_PAGES   = 64;
+
+
+    /**
+     * The size in bytes from which on a file can not be opened. A supported
+     * charset never decodes a byte into more than one character, so the
+     * offsets of the text always fit into an int.
+     */
+    public static final long MAX_FILE_SIZE = Integer.MAX_VALUE - 1L;
+
+
+    /** The charset the file is decoded with. */
+    private final Charset charset;
+
+
+    /** The mapped regions of the file. */
+    private final MappedByteBuffer[] regions;
+
+
+    /** The size of the file in bytes. */
+    private final long byteLength;
+
+
+    /** The offset in the file of the first byte of each page, plus the end. */
+    private long[] pageByteStart;
+
+
+    /** The offset of the first character of each page, plus the length. */
+    private int[] pageCharStart;
+
+
+    /** The decoded pages that were used most recently. */
+    private final Map<Integer, char[]> cache;
+
+
+    /** Decodes the pages once they have been indexed. */
+    private final CharsetDecoder decoder;
+
+
+    /** Holds the bytes of a page while it is decoded. */
+    private final byte[] staging;
+
+
+    /**
+     * Maps a file into memory. The buffer can not be used until it has been
+     * indexed.
+     *
+     * @param file      The file to map.
+     * @param charset   The charset of the file.
+     * @throws IOException if the file can not be mapped or is too big.
+     */
+    private MappedTextBuffer(File file, Charset charset) throws IOException {
+
+        this.charset = charset;
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+
+            byteLength  = channel.size();
+            if(byteLength >= MAX_FILE_SIZE) {
+                throw new IOException("The file is too big to be opened, it has "
+                                      + byteLength + " bytes and at most "
+                                      + (MAX_FILE_SIZE - 1) + " bytes are supported");
+            }
+            regions     = new MappedByteBuffer[(int)((byteLength + REGION_SIZE - 1) / REGION_SIZE)];
+
+            for(int i = 0; i < regions.length; i++) {
+                long start = i * REGION_SIZE;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                                         start, Math.min(REGION_SIZE, byteLength - start));
+            }
+
+        }
+
+        decoder = charset.newDecoder()
+                         .onMalformedInput(CodingErrorAction.REPLACE)
+                         .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        staging = new byte[PAGE_SIZE + 4];
+
+        cache = new LinkedHashMap<Integer, char[]>(CACHED_PAGES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, char[]> eldest) {
+                return size() > CACHED_PAGES;
+            }
+        };
+    }
+
+
+    /**
+     * Returns true if files in the charset can be mapped. Only charsets where
+     * a line break is a single byte that never appears inside of another
+     * character are supported, which are UTF-8 and the single byte charsets.
+     *
+     * @param charset   The charset.
+     * @return          Whether the charset is supported.
+     */
+    public static boolean supports(Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8)
+                || (charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1);
+    }
+
+
+    /**
+     * Maps a file into memory and indexes it. Indexing reads through the whole
+     * file once, so this should not be called on the Event Dispatch Thread.
+     * Interrupting the calling thread stops the indexing.
+     *
+     * @param file      The file to open.
+     * @param charset   The charset of the file, see supports.
+     * @param progress  Receives the progress in percent, may be null.
+     * @return          The buffer.
+     * @throws CharacterCodingException if the file is not valid in the
+     *                                  charset.
+     * @throws IOException if the file can not be read or is too big.
+     */
+    public static MappedTextBuffer open(File file, Charset charset, IntConsumer progress)
+            throws IOException {
+        MappedTextBuffer buffer = new MappedTextBuffer(file, charset);
+        buffer.index(progress);
+        return buffer;
+    }
+
+
+    /**
+     * Finds the page boundaries, and decodes every page once to count its
+     * characters. Bytes that are not valid in the charset are reported
+     * instead of replaced, so the pages decode the same way later on.
+     *
+     * @param progress  Receives the progress in percent, may be null.
+     * @throws CharacterCodingException if the file is not valid in the
+     *                                  charset.
+     * @throws IOException if the thread is interrupted.
+     */
+    private void index(IntConsumer progress) throws IOException {
+
+        int pages       = (int)((byteLength + PAGE_SIZE - 1) / PAGE_SIZE);
+        pageByteStart   = new long[pages + 1];
+        pageCharStart   = new int[pages + 1];
+
+        for(int p = 1; p < pages; p++) {
+            pageByteStart[p] = alignToCharacter((long)p * PAGE_SIZE);
+        }
+        pageByteStart[pages] = byteLength;
+
+        // A byte order mark is not part of the text.
+        if(charset.equals(StandardCharsets.UTF_8) && byteLength >= 3
+                && (byteAt(0) & 0xFF) == 0xEF && (byteAt(1) & 0xFF) == 0xBB
+                && (byteAt(2) & 0xFF) == 0xBF) {
+            pageByteStart[0] = 3;
+        }
+
+        CharsetDecoder strict   = TextCodecs.strictDecoder(charset);
+        CharBuffer out          = TextCodecs.acquireBuffer();
+        long chars              = 0;
+        int lastPercent         = -1;
+
+        for(int p = 0; p < pages; p++) {
+
+            if(Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Indexing was interrupted");
+            }
+
+            chars += decodePage(p, out, strict);
+            pageCharStart[p + 1] = (int)chars;
+
+            int percent = (int)((long)(p + 1) * 100 / pages);
+            if(progress != null && percent != lastPercent) {
+                progress.accept(percent);
+                lastPercent = percent;
+            }
+
+        }
+
+        TextCodecs.releaseBuffer(out);
+    }
+
+
+    /**
+     * Moves an offset back to the start of a character, so a page never
+     * begins in the middle of a multi byte character.
+     *
+     * @param offset    The offset in the file.
+     * @return          The offset of the start of the character.
+     */
+    private long alignToCharacter(long offset) {
+        if(!charset.equals(StandardCharsets.UTF_8)) {
+            return offset;
+        }
+        for(int i = 0; i < 3 && (byteAt(offset) & 0xC0) == 0x80; i++) {
+            offset--;
+        }
+        return offset;
+    }
+
+
+    /**
+     * Returns a byte of the file.
+     *
+     * @param offset    The offset in the file.
+     * @return          The byte.
+     */
+    private byte byteAt(long offset) {
+        return regions[(int)(offset / REGION_SIZE)].get((int)(offset % REGION_SIZE));
+    }
+
+
+    /**
+     * Decodes a page into a buffer and converts its line breaks.
+     *
+     * @param page      The page.
+     * @param out       The buffer to decode into, big enough for a page.
+     * @param decoder   The decoder of the charset.
+     * @return          The amount of characters in the page.
+     * @throws CharacterCodingException if the decoder reports bytes that are
+     *                                  not valid in the charset.
+     */
+    private int decodePage(int page, CharBuffer out, CharsetDecoder decoder)
+            throws CharacterCodingException {
+
+        long start  = pageByteStart[page];
+        int length  = (int)(pageByteStart[page + 1] - start);
+
+        // Copy the bytes out, the page may lie across two mapped regions.
+        for(int done = 0; done < length; ) {
+            long offset     = start + done;
+            ByteBuffer region = regions[(int)(offset / REGION_SIZE)].duplicate();
+            region.position((int)(offset % REGION_SIZE));
+            int n = Math.min(length - done, region.remaining());
+            region.get(staging, done, n);
+            done += n;
+        }
+
+        out.clear();
+        decoder.reset();
+        CoderResult result = decoder.decode(ByteBuffer.wrap(staging, 0, length), out, true);
+        if(!result.isError()) {
+            result = decoder.flush(out);
+        }
+        if(result.isError()) {
+            result.throwException();
+        }
+
+        /*
+            Turn "\r\n" and "\r" into "\n". A '\r' at the end of the page is
+            dropped if the next page starts with '\n'.
+        */
+        char[] array    = out.array();
+        int n           = out.position();
+        int kept        = 0;
+        for(int i = 0; i < n; i++) {
+            char c = array[i];
+            if(c == '\r') {
+                boolean nextIsLF = (i + 1 < n) ? array[i + 1] == '\n'
+                                               : pageByteStart[page + 1] < byteLength
+                                                    && byteAt(pageByteStart[page + 1]) == '\n';
+                if(nextIsLF) {
+                    continue;
+                }
+                c = '\n';
+            }
+            array[kept++] = c;
+        }
+
+        return kept;
+    }
+
+
+    /**
+     * Returns the characters of a page, decoding it if it is not cached.
+     *
+     * @param page      The page.
+     * @return          The characters of the page.
+     */
+    private synchronized char[] page(int page) {
+
+        char[] chars = cache.get(page);
+        if(chars == null) {
+            CharBuffer out = TextCodecs.acquireBuffer();
+            try {
+                int n = decodePage(page, out, decoder);
+                chars = Arrays.copyOf(out.array(), n);
+            } catch (CharacterCodingException err) {
+                // Can not happen, the decoder replaces what it can not decode.
+                throw new IllegalStateException(err);
+            } finally {
+                TextCodecs.releaseBuffer(out);
+            }
+            cache.put(page, chars);
+        }
+
+        return chars;
+    }
+
+
+    /**
+     * Returns the page that holds a character.
+     *
+     * @param index     The offset of the character.
+     * @return          The page.
+     */
+    private int pageOf(int index) {
+        int page = Arrays.binarySearch(pageCharStart, index);
+        if(page < 0) {
+            return -page - 2;
+        }
+        // Skip pages without any characters.
+        while(page + 1 < pageCharStart.length - 1 && pageCharStart[page + 1] == index) {
+            page++;
+        }
+        return page;
+    }
+
+
+    /**
+     * Returns the charset the file is decoded with.
+     *
+     * @return          The charset.
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+
+    @Override
+    public int length() {
+        return pageCharStart[pageCharStart.length - 1];
+    }
+
+
+    @Override
+    public char charAt(int index) {
+        if(index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("index: "+index);
+        }
+        int page = pageOf(index);
+        return page(page)[index - pageCharStart[page]];
+    }
+
+
+    @Override
+    public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+
+        while(srcBegin < srcEnd) {
+            int page        = pageOf(srcBegin);
+            char[] chars    = page(page);
+            int offset      = srcBegin - pageCharStart[page];
+            int n           = Math.min(srcEnd - srcBegin, chars.length - offset);
+            System.arraycopy(chars, offset, dst, dstBegin, n);
+            srcBegin        += n;
+            dstBegin        += n;
+        }
+
+    }
+
+
+    /*
+        The text stays in the mapped file, only the decoded pages and the
+        indexes are on the heap.
+    */
+    @Override
+    public synchronized long getHeapSize() {
+
+        long size = staging.length + 8L * pageByteStart.length
+                  + 4L * pageCharStart.length;
+
+        for(char[] chars : cache.values()) {
+            size += 2L * chars.length;
+        }
+
+        return size;
+    }
+
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        char[] chars = new char[end - start];
+        getChars(start, end, chars, 0);
+        return new String(chars);
+    }
+
+
+    @Override
+    public String toString() {
+        return subSequence(0, length()).toString();
+    }
+
+}
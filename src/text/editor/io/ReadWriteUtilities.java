@@ -1,38 +1,43 @@
 package text.editor.io;
 
-import java.io.BufferedOutputStream;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Document;
-import javax.swing.text.rtf.RTFEditorKit;
 import text.editor.errorreporting.ErrorReport;
 import text.editor.graphics.MainWindow;
+import text.editor.graphics.actions.Actions;
 import text.editor.graphics.actions.FileType;
 import text.editor.graphics.editor.MainTabHolder;
 import text.editor.graphics.editor.MainTextPane;
 import text.editor.graphics.editor.StatusBar;
+import text.editor.model.DocumentSnapshot;
 
 
 /**
  * Writes files to the file system.
  *
  * Created on:  March 02, 2016
- * Edited on:   March 05, 2016
+ * Edited on:   October 17, 2026
  * 
  * @author Jackie Chan
  */
 public class ReadWriteUtilities {
     
     
+    /**
+     * Plain text files of at least this many bytes are memory mapped when they
+     * are opened. Can be changed with the text.editor.mappedFileThreshold
+     * system property.
+     */
+    public static final long MAPPED_FILE_THRESHOLD = 
+            Long.getLong("text.editor.mappedFileThreshold", 64L * 1024 * 1024);
+    
+    
     /** 
      * Private constructor so the ReadWriteUtilities class cannot be 
      * instantiated. 
@@ -54,34 +59,12 @@ public class ReadWriteUtilities {
         if(returnVal == JFileChooser.APPROVE_OPTION) {
 
             String filePath = fc.getSelectedFile().getAbsolutePath();           
-            String fileName = filePath.substring(filePath.lastIndexOf(File.separator)+1);
+            FileType format = Actions.SaveFileAction.getFileType(filePath);
             
-            if(fileName.contains(".rtf")) {
+            if(format != FileType.TXT_OTHER) {
                 
-                /*
-                    If the file name contains .rtf, then use the RTFEditorKit to
-                    save the file to the disk.
-                */
-                RTFEditorKit kit = new RTFEditorKit();
-                BufferedOutputStream out;
-                
-                try {
-                    
-                    out = new BufferedOutputStream(new FileOutputStream(filePath));
-                    kit.write(out, doc, doc.getStartPosition().getOffset(), doc.getLength());
-                    out.close();
-                    
-                    MainWindow.getTextPane().setFilePath(filePath);
-                    
-                    showSaveConfirmation(fileName);
-                    
-                } catch (BadLocationException | IOException err) {
-                    new ErrorReport().createErrorReport(err);
-                    JOptionPane.showMessageDialog(fc, 
-                                                    "Error saving file...", 
-                                                    "Error", 
-                                                    JOptionPane.ERROR_MESSAGE);
-                }
+                // RTF and .tlr keep the styles of the document.
+                saveInBackground(MainWindow.getTextPane(), doc, filePath, format, true);
                 
             } else {
                 
@@ -101,32 +84,8 @@ public class ReadWriteUtilities {
                     then go ahead and save the file.
                 */
                 if(isUserOkay == JOptionPane.YES_OPTION) {
-                    
-                    try {
-                        
-                        String text = doc.getText(doc.getStartPosition().getOffset(), doc.getLength());
-                        System.out.println("File Content: "+text);
-                        
-                        try (PrintWriter pw = new PrintWriter(
-                                              new BufferedWriter(
-                                              new FileWriter(filePath, true)))) {
-                            
-                            pw.println(text);
-                            pw.close();
-                        }
-                        
-                        MainWindow.getTextPane().setFilePath(filePath);
-                        
-                        showSaveConfirmation(fileName);
-                        
-                    } catch (BadLocationException | IOException err) {
-                        new ErrorReport().createErrorReport(err);
-                        JOptionPane.showMessageDialog(fc, 
-                                                        "An error occured while saving the file.", 
-                                                        "Error", 
-                                                        JOptionPane.ERROR_MESSAGE);
-                    }
-                    
+                    saveInBackground(MainWindow.getTextPane(), doc, filePath, FileType.TXT_OTHER,
+                                     true);
                 }
                                 
             }
@@ -145,67 +104,201 @@ public class ReadWriteUtilities {
         
         int returnVal = fc.showOpenDialog(null);
         if(returnVal == JFileChooser.APPROVE_OPTION) {
+            openInNewTab(fc.getSelectedFile().getAbsolutePath(), true);
+        }
+        
+    }
+    
+    
+    /**
+     * Imports an RTF or text file into a new, untitled document. The document
+     * is not tied to the file, so saving it asks for a new file, which is how
+     * an RTF file is turned into a .tlr file.
+     */
+    public static void importFile() {
+        
+        final JFileChooser fc = new JFileChooser();
+        fc.setDialogTitle("Import");
+        fc.setFileFilter(new FileNameExtensionFilter("RTF and text files", "rtf", "txt"));
+        
+        int returnVal = fc.showOpenDialog(null);
+        if(returnVal == JFileChooser.APPROVE_OPTION) {
+            openInNewTab(fc.getSelectedFile().getAbsolutePath(), false);
+        }
+        
+    }
+    
+    
+    /**
+     * Exports a copy of a document as RTF or text. The document stays tied
+     * to its own file, if it has one. Text is written in the encoding of the
+     * document.
+     * 
+     * @param textPane  The text pane that holds the document to export.
+     */
+    public static void exportFile(MainTextPane textPane) {
+        
+        final JFileChooser fc = new JFileChooser();
+        fc.setDialogTitle("Export");
+        fc.setFileFilter(new FileNameExtensionFilter("RTF and text files", "rtf", "txt"));
+        
+        int returnVal = fc.showSaveDialog(null);
+        if(returnVal != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        
+        String filePath         = fc.getSelectedFile().getAbsolutePath();
+        final String fileName   = getFileName(filePath);
+        FileType format         = Actions.SaveFileAction.getFileType(filePath);
+        DocumentSnapshot snapshot;
+        
+        try {
+            snapshot = DocumentSnapshot.of(textPane.getDocument(), format != FileType.TXT_OTHER);
+        } catch (BadLocationException err) {
+            new ErrorReport().createErrorReport(err);
+            JOptionPane.showMessageDialog(null, 
+                                            "An error occured while exporting the file.", 
+                                            "Error", 
+                                            JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        StatusBar.updateStatusMessage("Exporting "+fileName+"...");
+        
+        SaveService.save(textPane.getDocument(), snapshot, new File(filePath), format, 
+                         textPane.getEncoding(), true, 
+                         new SaveService.SaveListener() {
             
-            String filePath = fc.getSelectedFile().getAbsolutePath();
-            String fileName = getFileName(filePath);
+            @Override
+            public void saved(File file) {
+                StatusBar.updateStatusMessage(fileName+" exported successfully...");
+                resetStatusMessage();
+            }
             
-            RTFEditorKit kit = new RTFEditorKit();
-
-            // Get some temporary variables for better and shorter references.
-            MainTabHolder tempTH    = MainWindow.getTabbedPane();
-            tempTH.createNewDocument();
-            Document tempDoc        = MainWindow.getTextPaneDocument();
-            MainTextPane tempTP     = MainWindow.getTextPane();
+            @Override
+            public void failed(File file, Exception err) {
+                new ErrorReport().createErrorReport(err);
+                StatusBar.updateStatusMessage("Error exporting "+fileName+"...");
+                JOptionPane.showMessageDialog(null, 
+                                                "An error occured while exporting the file.", 
+                                                "Error", 
+                                                JOptionPane.ERROR_MESSAGE);
+            }
             
-            if(fileName.contains(".rtf")) {
-                
-                try {
-
-                    tempTH.setSelectedIndex(tempTH.getTabCount()-1);
-
-                    // Read the text and put it in the document.
-                    kit.read(new FileReader(filePath), tempDoc, 0);
-
-                    // Set some titles and stuff.
-                    tempTH.setTitleAt(tempTH.getSelectedIndex(), fileName);
-                    tempTP.setFilePath(filePath);
-
-                } catch (IOException | BadLocationException err) {
-                    new ErrorReport().createErrorReport(err);
-                    JOptionPane.showMessageDialog(fc, 
-                                                    "Error opening file.", 
-                                                    "Error", 
-                                                    JOptionPane.ERROR_MESSAGE);
+        });
+        
+    }
+    
+    
+    /**
+     * Opens a file at a line. A file that is open in a tab already is shown
+     * in that tab, and any other file is opened in a new tab and goes to the
+     * line once it has been loaded.
+     * 
+     * @param filePath  The path to the file.
+     * @param line      The line, counting from 1.
+     */
+    public static void openFileAtLine(String filePath, int line) {
+        
+        MainTabHolder tabs = MainWindow.getTabbedPane();
+        for(int i = 0; i < tabs.getTabCount(); i++) {
+            if(filePath.equals(tabs.getTextPane(i).getFilePath())) {
+                tabs.setSelectedIndex(i);
+                tabs.getTextPane(i).goToLine(line);
+                return;
+            }
+        }
+        
+        SwingWorker<?, ?> loader = openInNewTab(filePath, true);
+        if(loader != null) {
+            MainTextPane textPane = MainWindow.getTextPane();
+            loader.addPropertyChangeListener(e -> {
+                if("state".equals(e.getPropertyName()) 
+                        && e.getNewValue() == SwingWorker.StateValue.DONE) {
+                    textPane.goToLine(line);
                 }
-                
-            } else {
-                
-                try {
-                    
-                    BufferedReader br = new BufferedReader(
-                                        new FileReader(filePath));
-                    
-                    String line;
-                    String data = "";
-                    
-                    while((line = br.readLine()) != null) 
-                        data += line+"\n";
-                    
-                    tempDoc.insertString(0, data, tempTP.getCharacterAttributes());
-                    
-                    tempTH.setTitleAt(tempTH.getSelectedIndex(), fileName);
-                    tempTP.setFilePath(filePath);
-                    
-                } catch (BadLocationException | IOException err) {
-                    new ErrorReport().createErrorReport(err);
-                    JOptionPane.showMessageDialog(fc, 
-                                                    "Error opening file.", 
+            });
+        }
+        
+    }
+    
+    
+    /**
+     * Opens a file in a new tab. Every format is loaded in the background,
+     * so the editor stays responsive while a big file is read.
+     * 
+     * @param filePath  The path to the file.
+     * @param keepPath  Whether the document is tied to the file, as opposed to
+     *                  an import, which starts out untitled.
+     * @return          The task that loads the file, or null if it could not
+     *                  be opened.
+     */
+    private static SwingWorker<?, ?> openInNewTab(String filePath, boolean keepPath) {
+        
+        String fileName = getFileName(filePath);
+        FileType format = Actions.SaveFileAction.getFileType(filePath);
+        File file       = new File(filePath);
+        
+        // Get some temporary variables for better and shorter references.
+        MainTabHolder tempTH    = MainWindow.getTabbedPane();
+        tempTH.createNewDocument();
+        MainTextPane tempTP     = MainWindow.getTextPane();
+        
+        if(keepPath) {
+            tempTH.setTitleAt(tempTH.getSelectedIndex(), fileName);
+            tempTP.setFilePath(filePath);
+        }
+        
+        if(format == FileType.RTF || format == FileType.TLR) {
+            
+            /*
+                Styled files are read into a document that is shown once the
+                whole file has been read.
+            */
+            StyledFileLoader loader = new StyledFileLoader(file, format, tempTP);
+            loader.start();
+            return loader;
+            
+        } else {
+            
+            /*
+                Only the first bytes are looked at to detect the encoding,
+                which is quick enough to do right here.
+            */
+            TextEncoding encoding;
+            try {
+                encoding = TextEncoding.detect(file);
+            } catch (IOException err) {
+                new ErrorReport().createErrorReport(err);
+                JOptionPane.showMessageDialog(null, 
+                                                "Error opening file.", 
+                                                "Error", 
+                                                JOptionPane.ERROR_MESSAGE);
+                return null;
+            }
+            tempTP.setEncoding(encoding);
+            
+            // Very big files are memory mapped instead of read onto the heap.
+            if(file.length() >= MAPPED_FILE_THRESHOLD
+                    && MappedTextBuffer.supports(encoding.getCharset())) {
+                if(file.length() >= MappedTextBuffer.MAX_FILE_SIZE) {
+                    detachFromFile(tempTP);
+                    JOptionPane.showMessageDialog(null, 
+                                                    fileName + " is too big to be opened, "
+                                                    + "only files smaller than 2 GB are supported.", 
                                                     "Error", 
-                                                    JOptionPane.ERROR_MESSAGE);                    
+                                                    JOptionPane.ERROR_MESSAGE);
+                    return null;
                 }
-                
+                MappedFileLoader loader = new MappedFileLoader(file, encoding, tempTP);
+                loader.start();
+                return loader;
             }
             
+            FileLoader loader = new FileLoader(file, encoding, tempTP);
+            loader.start();
+            return loader;
+            
         }
         
     }
@@ -222,62 +315,12 @@ public class ReadWriteUtilities {
                                      FileType format, 
                                      Document doc) {
         
-        System.out.println("File format: "+format);
-        
         switch(format) {
             
             case RTF:
-                
-                RTFEditorKit kit = new RTFEditorKit();
-                BufferedOutputStream out;
-                
-                try {
-                    
-                    out = new BufferedOutputStream(new FileOutputStream(filePath));
-                    kit.write(out, 
-                                doc, 
-                                doc.getStartPosition().getOffset(), 
-                                doc.getLength());
-                    out.close();
-                    
-                    showSaveConfirmation(getFileName(filePath));
-
-                } catch (BadLocationException | IOException err) {                    
-                    new ErrorReport().createErrorReport(err);
-                    JOptionPane.showMessageDialog(null, 
-                                                    "An error occured while saving the file.", 
-                                                    "Error", 
-                                                    JOptionPane.ERROR_MESSAGE);
-                }
-                
-                break;
-                
-                
+            case TLR:
             case TXT_OTHER:
-                
-                try {
-                    String text = doc.getText(doc.getStartPosition().getOffset(), doc.getLength());
-                    System.out.println("File Content: "+text);
-
-                    try (PrintWriter pw = new PrintWriter(
-                                          new BufferedWriter(
-                                          new FileWriter(filePath, true)))) {
-                        pw.println(text);
-                        pw.close();
-                    }
-
-                    MainWindow.getTextPane().setFilePath(filePath);
-
-                    showSaveConfirmation(getFileName(filePath));
-                    
-                } catch (BadLocationException | IOException err) {
-                    new ErrorReport().createErrorReport(err);
-                    JOptionPane.showMessageDialog(null, 
-                                                    "An error occured while saving the file.", 
-                                                    "Error", 
-                                                    JOptionPane.ERROR_MESSAGE);
-                }
-                
+                saveInBackground(MainWindow.getTextPane(), doc, filePath, format, true);
                 break;
                 
                 
@@ -292,38 +335,144 @@ public class ReadWriteUtilities {
     }    
     
     
+    /**
+     * Saves a modified document to its file without asking the user anything.
+     * An autosave is not forced to the disk unless the durability says so,
+     * and it is merged with a save the user asks for at the same time.
+     * 
+     * @param textPane  The text pane that holds the document, must have a
+     *                  file path.
+     * @param format    The format to save the file in.
+     */
+    public static void autosave(MainTextPane textPane, FileType format) {
+        saveInBackground(textPane, textPane.getDocument(), textPane.getFilePath(), 
+                         format, false);
+    }
+    
+    
+    /**
+     * Takes a snapshot of a document and writes it to a file in the background.
+     * The user can keep typing while the file is written. Once the file has
+     * been written the text pane is pointed at it and the user is told.
+     * 
+     * @param textPane  The text pane that holds the document.
+     * @param doc       The document to save.
+     * @param filePath  The path to the file on the disk.
+     * @param format    The format to save the file in.
+     * @param explicit  Whether the user asked for the save, as opposed to an
+     *                  autosave.
+     */
+    private static void saveInBackground(final MainTextPane textPane,
+                                         Document doc,
+                                         final String filePath,
+                                         FileType format,
+                                         final boolean explicit) {
+        
+        final String fileName = getFileName(filePath);
+        
+        // Only part of the file is in a document that is still loading.
+        if(textPane.isLoading()) {
+            StatusBar.updateStatusMessage("Not saving "+fileName+", it is still loading...");
+            return;
+        }
+        
+        final long modificationCount = textPane.getModificationCount();
+        DocumentSnapshot snapshot;
+        
+        try {
+            snapshot = DocumentSnapshot.of(doc, format != FileType.TXT_OTHER);
+        } catch (BadLocationException err) {
+            new ErrorReport().createErrorReport(err);
+            JOptionPane.showMessageDialog(null, 
+                                            "An error occured while saving the file.", 
+                                            "Error", 
+                                            JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        if(explicit) {
+            StatusBar.updateStatusMessage("Saving "+fileName+"...");
+        }
+        
+        SaveService.save(doc, snapshot, new File(filePath), format, 
+                         textPane.getEncoding(), explicit, 
+                         new SaveService.SaveListener() {
+            
+            @Override
+            public void saved(File file) {
+                textPane.setFilePath(filePath);
+                textPane.markSaved(modificationCount);
+                if(explicit) {
+                    showSaveConfirmation(textPane, fileName);
+                }
+            }
+            
+            @Override
+            public void failed(File file, Exception err) {
+                new ErrorReport().createErrorReport(err);
+                StatusBar.updateStatusMessage("Error saving "+fileName+"...");
+                JOptionPane.showMessageDialog(null, 
+                                                "An error occured while saving the file.", 
+                                                "Error", 
+                                                JOptionPane.ERROR_MESSAGE);
+            }
+            
+        });
+        
+    }
+    
+    
     /**
      * Shows confirmation that the file has been saved to the user. Will set the
      * title of the tab the file was in to the file name, display on the status
      * bar that the file was saved, and then reset the status bar message to
      * Active.
      * 
+     * @param textPane      The text pane that holds the saved document.
      * @param fileName      The name of the file saved.
      */
-    private static void showSaveConfirmation(String fileName) {
+    private static void showSaveConfirmation(MainTextPane textPane, String fileName) {
         MainTabHolder tempTH = MainWindow.getTabbedPane();
-        tempTH.setTitleAt(tempTH.getSelectedIndex(), fileName);
+        int index = tempTH.indexOfTextPane(textPane);
+        if(index != -1) {
+            tempTH.setTitleAt(index, fileName);
+        }
         StatusBar.updateStatusMessage(fileName+" saved successfully...");
         resetStatusMessage();
     }
     
     
     /**
-     * Creates a new thread that will wait for five seconds and then set the 
-     * status bar message back to "Status: Active".
+     * Sets the status bar message back to "Status: Active" in five seconds.
+     * The wait runs on the shared scheduler of the UiUpdateBus, and a newer
+     * call starts the five seconds over.
      */
-    private static void resetStatusMessage() {
-                        
-        new Thread(() -> {
-            
-            try {
-                Thread.sleep(5000);
-                StatusBar.updateStatusMessage("Active");
-            } catch (InterruptedException err) {
-                new ErrorReport().createErrorReport(err);
-            }
-            
-        }).start();
+    static void resetStatusMessage() {
+        StatusBar.updateStatusMessageLater("Active", 5000);
+    }
+    
+    
+    /**
+     * Unties a text pane from its file after loading the file was cancelled
+     * or failed. The text pane holds only part of the file, if anything, so
+     * it becomes a new file that is saved with Save As, and never over the
+     * file it came from.
+     * 
+     * @param textPane      The text pane the file was loaded into.
+     */
+    static void detachFromFile(MainTextPane textPane) {
+        
+        if(textPane.getFilePath() == null) {
+            return;
+        }
+        
+        textPane.setFilePath(null);
+        
+        MainTabHolder tempTH = MainWindow.getTabbedPane();
+        int index = tempTH.indexOfTextPane(textPane);
+        if(index != -1) {
+            tempTH.setTitleAt(index, "New File "+(index+1));
+        }
     }
     
     
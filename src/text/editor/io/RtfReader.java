@@ -0,0 +1,855 @@
+package text.editor.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import text.editor.model.DocumentSnapshot;
+import text.editor.model.PieceTableDocument;
+
+
+/**
+ * Reads RTF into a PieceTableDocument in a single pass.
+ *
+ * The bytes are tokenized straight out of a buffer, without a Reader in
+ * between. Text is collected into runs of equal character attributes, and
+ * the runs are appended to the document a batch at a time, so a big file
+ * costs one document event per batch instead of one per run.
+ *
+ * Only the character attributes the editor can produce are read: the font
+ * family, the font size, bold, italic and underline. Paragraph formatting,
+ * colors, pictures, tables and the like are skipped, their text is kept.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class RtfReader {
+
+
+    /** The amount of characters appended to the document at a time. */
+    private static final int BATCH_SIZE     = 64 * 1024;
+
+
+    /** The amount of bytes read from the stream at a time. */
+    private static final int BUFFER_SIZE    = 64 * 1024;
+
+
+    /** The longest control word that is read, longer ones are cut off. */
+    private static final int MAX_WORD       = 32;
+
+
+    /** The code page of \'hh escapes when the file does not name one. */
+    private static final int DEFAULT_CODE_PAGE = 1252;
+
+
+    /** The stream to read from. */
+    private final InputStream in;
+
+
+    /** The document to read into. */
+    private final PieceTableDocument doc;
+
+
+    /** Is told how many bytes have been read, may be null. */
+    private final IntConsumer progress;
+
+
+    /** The bytes read from the stream. */
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+
+    /** The position in buffer and the amount of bytes in it. */
+    private int position, limit;
+
+
+    /** The amount of bytes read before the current buffer. */
+    private long consumed;
+
+
+    /** The characters of the batch that has not been appended yet. */
+    private final char[] text = new char[BATCH_SIZE + 1];
+
+
+    /** The amount of characters in text. */
+    private int textLength;
+
+
+    /** The runs of the batch, with offsets into text. */
+    private final List<DocumentSnapshot.StyleRun> runs = new ArrayList<>();
+
+
+    /** Where the current run starts in text. */
+    private int runStart;
+
+
+    /** The attributes of the current run. */
+    private AttributeSet runAttributes;
+
+
+    /** The attribute sets handed out so far, by the state they belong to. */
+    private final Map<Long, AttributeSet> attributeCache = new HashMap<>();
+
+
+    /** The state of the group being read. */
+    private State state = new State();
+
+
+    /** The states of the groups around it. */
+    private final Deque<State> stack = new ArrayDeque<>();
+
+
+    /** The font names by font number. */
+    private final Map<Integer, String> fonts = new HashMap<>();
+
+
+    /** The code page tables of fonts that have their own charset. */
+    private final Map<Integer, char[]> fontCodePages = new HashMap<>();
+
+
+    /** The code page table of the document. */
+    private char[] codePage = codePage(DEFAULT_CODE_PAGE);
+
+
+    /** The font number being defined in the font table. */
+    private int tableFont = -1;
+
+
+    /** The name of the font being defined in the font table. */
+    private final StringBuilder tableFontName = new StringBuilder();
+
+
+    /** The amount of characters still to skip after a \\u keyword. */
+    private int skipCount;
+
+
+    /** The control word being read. */
+    private final char[] word = new char[MAX_WORD];
+
+
+    /**
+     * Constructor for an RtfReader.
+     *
+     * @param in        The stream to read from.
+     * @param doc       The document to read into.
+     * @param progress  Is told how many bytes have been read, may be null.
+     */
+    private RtfReader(InputStream in, PieceTableDocument doc, IntConsumer progress) {
+        this.in         = in;
+        this.doc        = doc;
+        this.progress   = progress;
+    }
+
+
+    /**
+     * Reads RTF from a stream and appends it to the end of a document. The
+     * document must not be shown or edited by anyone else while it is read.
+     *
+     * @param in        The stream, it is not closed.
+     * @param doc       The document.
+     * @param progress  Is told how many bytes have been read after every
+     *                  buffer, may be null.
+     * @throws IOException if the stream can not be read, or
+     *                     InterruptedIOException if the thread is interrupted.
+     * @throws BadLocationException if the document can not be changed.
+     */
+    public static void read(InputStream in, PieceTableDocument doc, IntConsumer progress)
+            throws IOException, BadLocationException {
+        new RtfReader(in, doc, progress).read();
+    }
+
+
+    /**
+     * Reads the whole stream.
+     *
+     * @throws IOException if the stream can not be read.
+     * @throws BadLocationException if the document can not be changed.
+     */
+    private void read() throws IOException, BadLocationException {
+
+        int c;
+        while((c = next()) != -1) {
+
+            switch(c) {
+
+                case '{':
+                    stack.push(state);
+                    state = state.copy();
+                    break;
+
+                case '}':
+                    if(state.destination == State.FONT_TABLE && tableFont != -1
+                            && stack.peek() != null
+                            && stack.peek().destination == State.FONT_TABLE) {
+                        // A font entry in braces that was not ended with ';'.
+                        endFont();
+                    }
+                    if(stack.isEmpty()) {
+                        break;
+                    }
+                    state       = stack.pop();
+                    skipCount   = 0;
+                    break;
+
+                case '\\':
+                    controlWord();
+                    break;
+
+                case '\r':
+                case '\n':
+                    // Line breaks in the file are not part of the text.
+                    break;
+
+                default:
+                    character(codePage()[c]);
+                    if(state.destination == State.TEXT && skipCount == 0) {
+                        readPlainText();
+                    }
+                    break;
+            }
+
+        }
+
+        endRun();
+        flushBatch();
+    }
+
+
+    /**
+     * Copies plain characters straight from the buffer, the fast path for
+     * the bulk of a file.
+     */
+    private void readPlainText() {
+
+        char[] table = codePage();
+
+        while(position < limit) {
+
+            int c = buffer[position] & 0xFF;
+            if(c == '\\' || c == '{' || c == '}' || c == '\r' || c == '\n') {
+                return;
+            }
+
+            if(textLength >= BATCH_SIZE) {
+                return;
+            }
+
+            text[textLength++] = table[c];
+            position++;
+        }
+
+    }
+
+
+    /**
+     * Reads a control word or control symbol after a backslash.
+     *
+     * @throws IOException if the stream can not be read.
+     * @throws BadLocationException if the document can not be changed.
+     */
+    private void controlWord() throws IOException, BadLocationException {
+
+        int c = next();
+
+        if(c == -1) {
+            return;
+        }
+
+        if(!isLetter(c)) {
+            controlSymbol(c);
+            return;
+        }
+
+        int length = 0;
+        while(c != -1 && isLetter(c)) {
+            if(length < MAX_WORD) {
+                word[length++] = (char)c;
+            }
+            c = next();
+        }
+
+        boolean hasParameter    = false;
+        boolean negative        = false;
+        int parameter           = 0;
+
+        if(c == '-') {
+            negative    = true;
+            c           = next();
+        }
+
+        while(c != -1 && c >= '0' && c <= '9') {
+            hasParameter    = true;
+            parameter       = parameter * 10 + (c - '0');
+            c               = next();
+        }
+
+        if(negative) {
+            parameter = -parameter;
+        }
+
+        // A space ends the control word and is not part of the text.
+        if(c != ' ' && c != -1) {
+            position--;
+        }
+
+        keyword(new String(word, 0, length), hasParameter, parameter);
+    }
+
+
+    /**
+     * Handles a control symbol, a backslash followed by something that is
+     * not a letter.
+     *
+     * @param c         The character after the backslash.
+     * @throws IOException if the stream can not be read.
+     * @throws BadLocationException if the document can not be changed.
+     */
+    private void controlSymbol(int c) throws IOException, BadLocationException {
+
+        switch(c) {
+
+            case '\'':
+                int hex = (hexDigit(next()) << 4) | hexDigit(next());
+                character(codePage()[hex & 0xFF]);
+                break;
+
+            case '\\':
+            case '{':
+            case '}':
+                character((char)c);
+                break;
+
+            case '~':
+                character(' ');
+                break;
+
+            case '_':
+                character('‑');
+                break;
+
+            case '*':
+                // An optional destination this reader does not know.
+                state.destination = State.SKIP;
+                break;
+
+            case '\r':
+            case '\n':
+                character('\n');
+                break;
+
+            default:
+                // Optional hyphens, formula characters and the like.
+                break;
+        }
+
+    }
+
+
+    /**
+     * Handles a control word.
+     *
+     * @param keyword       The control word.
+     * @param hasParameter  Whether it has a numeric parameter.
+     * @param parameter     The numeric parameter, 0 if there is none.
+     * @throws IOException if the stream can not be read.
+     * @throws BadLocationException if the document can not be changed.
+     */
+    private void keyword(String keyword, boolean hasParameter, int parameter)
+            throws IOException, BadLocationException {
+
+        switch(keyword) {
+
+            // Characters.
+            case "par":
+            case "line":
+            case "sect":
+                character('\n');
+                break;
+
+            case "tab":
+                character('\t');
+                break;
+
+            case "emdash":      character('—'); break;
+            case "endash":      character('–'); break;
+            case "bullet":      character('•'); break;
+            case "lquote":      character('‘'); break;
+            case "rquote":      character('’'); break;
+            case "ldblquote":   character('“'); break;
+            case "rdblquote":   character('”'); break;
+            case "emspace":
+            case "enspace":
+            case "qmspace":     character(' '); break;
+
+            case "u":
+                character((char)(parameter < 0 ? parameter + 65536 : parameter));
+                skipCount = state.unicodeSkip;
+                break;
+
+            case "uc":
+                state.unicodeSkip = Math.max(0, parameter);
+                break;
+
+            // Character attributes.
+            case "b":
+                state.bold = !hasParameter || parameter != 0;
+                break;
+
+            case "i":
+                state.italic = !hasParameter || parameter != 0;
+                break;
+
+            case "ul":
+            case "uld":
+            case "uldb":
+            case "uldash":
+            case "ulw":
+            case "ulwave":
+            case "ulth":
+                state.underline = !hasParameter || parameter != 0;
+                break;
+
+            case "ulnone":
+                state.underline = false;
+                break;
+
+            case "plain":
+                state.bold      = false;
+                state.italic    = false;
+                state.underline = false;
+                state.font      = -1;
+                state.fontSize  = -1;
+                break;
+
+            case "f":
+                if(state.destination == State.FONT_TABLE) {
+                    tableFont = parameter;
+                    tableFontName.setLength(0);
+                } else {
+                    state.font = parameter;
+                }
+                break;
+
+            case "fs":
+                state.fontSize = parameter;
+                break;
+
+            // Fonts and code pages.
+            case "fonttbl":
+                state.destination = State.FONT_TABLE;
+                break;
+
+            case "fcharset":
+                if(state.destination == State.FONT_TABLE && tableFont != -1) {
+                    char[] table = codePage(charsetCodePage(parameter));
+                    if(table != null) {
+                        fontCodePages.put(tableFont, table);
+                    }
+                }
+                break;
+
+            case "ansicpg":
+                char[] table = codePage(parameter);
+                if(table != null) {
+                    codePage = table;
+                }
+                break;
+
+            case "bin":
+                skipBytes(parameter);
+                break;
+
+            // Destinations whose text is not part of the document.
+            case "colortbl":
+            case "stylesheet":
+            case "info":
+            case "pict":
+            case "object":
+            case "header":
+            case "headerl":
+            case "headerr":
+            case "headerf":
+            case "footer":
+            case "footerl":
+            case "footerr":
+            case "footerf":
+            case "footnote":
+            case "fldinst":
+            case "listtable":
+            case "listoverridetable":
+            case "revtbl":
+            case "rsidtbl":
+            case "xmlnstbl":
+            case "generator":
+            case "themedata":
+            case "colorschememapping":
+            case "latentstyles":
+            case "datastore":
+                state.destination = State.SKIP;
+                break;
+
+            default:
+                // Everything else does not change the text or its attributes.
+                break;
+        }
+
+    }
+
+
+    /**
+     * Handles a character of the current destination.
+     *
+     * @param c         The character.
+     * @throws BadLocationException if the document can not be changed.
+     */
+    private void character(char c) throws BadLocationException {
+
+        if(skipCount > 0) {
+            skipCount--;
+            return;
+        }
+
+        switch(state.destination) {
+
+            case State.TEXT:
+
+                AttributeSet attributes = attributes();
+                if(attributes != runAttributes) {
+                    endRun();
+                    runAttributes = attributes;
+                }
+
+                text[textLength++] = c;
+                if(textLength >= BATCH_SIZE) {
+                    endRun();
+                    flushBatch();
+                }
+                break;
+
+            case State.FONT_TABLE:
+                if(c == ';') {
+                    endFont();
+                } else if(tableFont != -1) {
+                    tableFontName.append(c);
+                }
+                break;
+
+            default:
+                break;
+        }
+
+    }
+
+
+    /**
+     * Ends the current run of text at the end of the batch.
+     */
+    private void endRun() {
+        if(textLength > runStart) {
+            runs.add(new DocumentSnapshot.StyleRun(runStart, textLength, runAttributes));
+            runStart = textLength;
+        }
+    }
+
+
+    /**
+     * Appends the runs of the batch to the document and starts a new batch.
+     *
+     * @throws BadLocationException if the document can not be changed.
+     */
+    private void flushBatch() throws BadLocationException {
+
+        if(!runs.isEmpty()) {
+            doc.appendRuns(text, runs);
+            runs.clear();
+        }
+
+        // The document copies the text, so the array can be used again.
+        textLength  = 0;
+        runStart    = 0;
+    }
+
+
+    /**
+     * Remembers the name of the font that is being defined in the font table.
+     */
+    private void endFont() {
+        if(tableFont != -1) {
+            fonts.put(tableFont, tableFontName.toString().trim());
+            tableFont = -1;
+        }
+        tableFontName.setLength(0);
+    }
+
+
+    /**
+     * Returns the attributes for the current state, the same instance for
+     * the same state.
+     *
+     * @return          The attributes.
+     */
+    private AttributeSet attributes() {
+
+        long key = ((long)(state.font + 1) << 32)
+                 | ((long)(state.fontSize + 1) << 3)
+                 | (state.bold ? 1 : 0)
+                 | (state.italic ? 2 : 0)
+                 | (state.underline ? 4 : 0);
+
+        AttributeSet attributes = attributeCache.get(key);
+
+        if(attributes == null) {
+
+            SimpleAttributeSet set = new SimpleAttributeSet();
+
+            if(state.bold) {
+                StyleConstants.setBold(set, true);
+            }
+            if(state.italic) {
+                StyleConstants.setItalic(set, true);
+            }
+            if(state.underline) {
+                StyleConstants.setUnderline(set, true);
+            }
+            if(state.font != -1 && fonts.containsKey(state.font)) {
+                StyleConstants.setFontFamily(set, fonts.get(state.font));
+            }
+            if(state.fontSize > 0) {
+                StyleConstants.setFontSize(set, Math.max(1, state.fontSize / 2));
+            }
+
+            attributes = set.copyAttributes();
+            attributeCache.put(key, attributes);
+        }
+
+        return attributes;
+    }
+
+
+    /**
+     * Returns the code page table for \'hh escapes in the current font.
+     *
+     * @return          The table.
+     */
+    private char[] codePage() {
+        if(state.font != -1) {
+            char[] table = fontCodePages.get(state.font);
+            if(table != null) {
+                return table;
+            }
+        }
+        return codePage;
+    }
+
+
+    /**
+     * Returns the next byte of the stream, refilling the buffer as needed.
+     *
+     * @return          The byte, or -1 at the end of the stream.
+     * @throws IOException if the stream can not be read.
+     */
+    private int next() throws IOException {
+
+        if(position >= limit) {
+
+            if(Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Reading cancelled");
+            }
+
+            consumed    += limit;
+            limit       = in.read(buffer, 0, buffer.length);
+            position    = 0;
+
+            if(progress != null && limit > 0) {
+                progress.accept((int)Math.min(Integer.MAX_VALUE, consumed + limit));
+            }
+
+            if(limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+
+        return buffer[position++] & 0xFF;
+    }
+
+
+    /**
+     * Skips binary data that follows a \\bin keyword.
+     *
+     * @param count     The amount of bytes to skip.
+     * @throws IOException if the stream can not be read.
+     */
+    private void skipBytes(int count) throws IOException {
+        for(int i = 0; i < count && next() != -1; i++) {
+            // Skip.
+        }
+    }
+
+
+    /**
+     * Returns true for the characters that make up control words.
+     *
+     * @param c         The character.
+     * @return          Whether it is an ASCII letter.
+     */
+    private static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+
+    /**
+     * Returns the value of a hexadecimal digit.
+     *
+     * @param c         The digit.
+     * @return          The value, 0 if it is not a digit.
+     */
+    private static int hexDigit(int c) {
+        if(c >= '0' && c <= '9') {
+            return c - '0';
+        } else if(c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if(c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return 0;
+    }
+
+
+    /**
+     * Returns the Windows code page of an RTF font charset.
+     *
+     * @param charset   The value of \\fcharset.
+     * @return          The code page, or -1 for charsets that are not single
+     *                  byte or not known.
+     */
+    private static int charsetCodePage(int charset) {
+        switch(charset) {
+            case 0:     return 1252;
+            case 161:   return 1253;
+            case 162:   return 1254;
+            case 163:   return 1258;
+            case 177:   return 1255;
+            case 178:   return 1256;
+            case 186:   return 1257;
+            case 204:   return 1251;
+            case 222:   return 874;
+            case 238:   return 1250;
+            default:    return -1;
+        }
+    }
+
+
+    /**
+     * Builds a table that maps the bytes of a single byte code page to
+     * characters.
+     *
+     * @param codePage  The Windows code page.
+     * @return          The table, or null if the code page is not supported.
+     */
+    private static char[] codePage(int codePage) {
+
+        Charset charset;
+        try {
+            charset = Charset.forName(codePage == 874 ? "x-windows-874" : "windows-"+codePage);
+        } catch (IllegalArgumentException err) {
+            return null;
+        }
+
+        byte[] bytes = new byte[256];
+        for(int i = 0; i < 256; i++) {
+            bytes[i] = (byte)i;
+        }
+
+        CharsetDecoder decoder = charset.newDecoder()
+                                        .onMalformedInput(CodingErrorAction.REPLACE)
+                                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        char[] table = new char[256];
+        CharBuffer out = CharBuffer.wrap(table);
+        decoder.decode(ByteBuffer.wrap(bytes), out, true);
+
+        // A multi byte charset does not fill the table.
+        if(out.position() != 256) {
+            return null;
+        }
+
+        return table;
+    }
+
+
+    /**
+     * The state of a group: its character attributes and what its text is
+     * for. A group starts with a copy of the state of the group around it.
+     */
+    private static class State {
+
+
+        /** Text that goes into the document. */
+        static final int TEXT       = 0;
+
+
+        /** Text of the font table. */
+        static final int FONT_TABLE = 1;
+
+
+        /** Text that is skipped. */
+        static final int SKIP       = 2;
+
+
+        /** What the text of the group is for. */
+        int destination = TEXT;
+
+
+        /** Character attributes. */
+        boolean bold, italic, underline;
+
+
+        /** The font number, -1 if not set. */
+        int font = -1;
+
+
+        /** The font size in half points, -1 if not set. */
+        int fontSize = -1;
+
+
+        /** The amount of characters that stand in for a \\u character. */
+        int unicodeSkip = 1;
+
+
+        /**
+         * Returns a copy of this state for a nested group.
+         *
+         * @return          The copy.
+         */
+        State copy() {
+            State copy          = new State();
+            copy.destination    = destination;
+            copy.bold           = bold;
+            copy.italic         = italic;
+            copy.underline      = underline;
+            copy.font           = font;
+            copy.fontSize       = fontSize;
+            copy.unicodeSkip    = unicodeSkip;
+            return copy;
+        }
+
+    }
+
+}
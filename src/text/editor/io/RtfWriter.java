@@ -0,0 +1,298 @@
+package text.editor.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import text.editor.model.DocumentSnapshot;
+import text.editor.model.TextSnapshot;
+
+
+/**
+ * Writes a snapshot of a document as RTF.
+ *
+ * The style runs of the snapshot are the leaves of the element tree, so the
+ * writer only has to walk them once for the font table and once for the text.
+ * Every byte is put into one buffer that goes to the stream when it is full,
+ * and control words are only written where the attributes change.
+ *
+ * The character attributes written are the ones RtfReader reads: the font
+ * family, the font size, bold, italic and underline.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class RtfWriter {
+
+
+    /** The amount of bytes written to the stream at a time. */
+    private static final int BUFFER_SIZE    = 64 * 1024;
+
+
+    /** The amount of characters copied out of the snapshot at a time. */
+    private static final int COPY_SIZE      = 8 * 1024;
+
+
+    /** The digits of \'hh escapes. */
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+
+    /** The stream to write to. */
+    private final OutputStream out;
+
+
+    /** The bytes that have not been written to the stream yet. */
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+
+    /** The amount of bytes in buffer. */
+    private int count;
+
+
+    /** The font numbers of the font families, the default font is 0. */
+    private final Map<String, Integer> fonts = new LinkedHashMap<>();
+
+
+    /**
+     * Constructor for an RtfWriter.
+     *
+     * @param out       The stream to write to.
+     */
+    private RtfWriter(OutputStream out) {
+        this.out = out;
+    }
+
+
+    /**
+     * Writes a snapshot as RTF. The stream is flushed but not closed.
+     *
+     * @param snapshot  The snapshot, with its style runs.
+     * @param out       The stream.
+     * @throws IOException if writing fails.
+     */
+    public static void write(DocumentSnapshot snapshot, OutputStream out) throws IOException {
+        new RtfWriter(out).write(snapshot);
+    }
+
+
+    /**
+     * Writes the header, the font table and the text.
+     *
+     * @param snapshot  The snapshot.
+     * @throws IOException if writing fails.
+     */
+    private void write(DocumentSnapshot snapshot) throws IOException {
+
+        TextSnapshot text = snapshot.getText();
+        List<DocumentSnapshot.StyleRun> runs = snapshot.getStyleRuns();
+
+        if(runs == null) {
+            runs = new ArrayList<>();
+            runs.add(new DocumentSnapshot.StyleRun(0, text.length(), null));
+        }
+
+        fonts.put(StyleConstants.getFontFamily(SimpleAttributeSet.EMPTY), 0);
+        for(DocumentSnapshot.StyleRun run : runs) {
+            String family = fontFamily(run.getAttributes());
+            if(family != null && !fonts.containsKey(family)) {
+                fonts.put(family, fonts.size());
+            }
+        }
+
+        ascii("{\\rtf1\\ansi\\ansicpg1252\\deff0\\uc1\n{\\fonttbl");
+        for(Map.Entry<String, Integer> font : fonts.entrySet()) {
+            ascii("{\\f");
+            number(font.getValue());
+            ascii("\\fnil ");
+            for(int i = 0; i < font.getKey().length(); i++) {
+                character(font.getKey().charAt(i));
+            }
+            ascii(";}");
+        }
+        ascii("}\n");
+
+        char[] chars        = new char[COPY_SIZE];
+        AttributeSet last   = null;
+        boolean first       = true;
+
+        for(DocumentSnapshot.StyleRun run : runs) {
+
+            AttributeSet attributes = run.getAttributes();
+            if(first || !sameStyle(last, attributes)) {
+                attributes(attributes);
+                last    = attributes;
+                first   = false;
+            }
+
+            for(int start = run.getStart(); start < run.getEnd(); start += COPY_SIZE) {
+                int end = Math.min(run.getEnd(), start + COPY_SIZE);
+                text.getChars(start, end, chars, 0);
+                for(int i = 0; i < end - start; i++) {
+                    character(chars[i]);
+                }
+            }
+
+        }
+
+        ascii("}\n");
+
+        out.write(buffer, 0, count);
+        count = 0;
+        out.flush();
+    }
+
+
+    /**
+     * Writes the control words that switch to a set of character attributes.
+     *
+     * @param attributes    The attributes, may be null.
+     * @throws IOException if writing fails.
+     */
+    private void attributes(AttributeSet attributes) throws IOException {
+
+        ascii("\\plain");
+
+        if(attributes != null) {
+
+            String family = fontFamily(attributes);
+            if(family != null) {
+                ascii("\\f");
+                number(fonts.get(family));
+            }
+
+            Object size = attributes.getAttribute(StyleConstants.FontSize);
+            if(size instanceof Integer) {
+                ascii("\\fs");
+                number((Integer)size * 2);
+            }
+
+            if(StyleConstants.isBold(attributes)) {
+                ascii("\\b");
+            }
+            if(StyleConstants.isItalic(attributes)) {
+                ascii("\\i");
+            }
+            if(StyleConstants.isUnderline(attributes)) {
+                ascii("\\ul");
+            }
+
+        }
+
+        // Ends the last control word.
+        put(' ');
+    }
+
+
+    /**
+     * Writes a character of text, escaped as needed.
+     *
+     * @param c         The character.
+     * @throws IOException if writing fails.
+     */
+    private void character(char c) throws IOException {
+
+        if(c >= 0x20 && c < 0x80) {
+            if(c == '\\' || c == '{' || c == '}') {
+                put('\\');
+            }
+            put(c);
+        } else if(c == '\n') {
+            ascii("\\par\n");
+        } else if(c == '\t') {
+            ascii("\\tab ");
+        } else if(c < 0x20) {
+            // Other control characters have no place in RTF.
+        } else if(c >= 0xA0 && c <= 0xFF) {
+            // Code page 1252 and Latin-1 agree on these.
+            put('\\');
+            put('\'');
+            put(HEX[c >> 4]);
+            put(HEX[c & 0xF]);
+        } else {
+            ascii("\\u");
+            number((short)c);
+            put('?');
+        }
+
+    }
+
+
+    /**
+     * Returns the font family of a set of attributes.
+     *
+     * @param attributes    The attributes, may be null.
+     * @return              The family, or null if the attributes have none.
+     */
+    private static String fontFamily(AttributeSet attributes) {
+        if(attributes == null) {
+            return null;
+        }
+        Object family = attributes.getAttribute(StyleConstants.FontFamily);
+        return (family instanceof String) ? (String)family : null;
+    }
+
+
+    /**
+     * Returns true if two sets of attributes are written the same way.
+     *
+     * @param a         The first set, may be null.
+     * @param b         The second set, may be null.
+     * @return          Whether they have the same style.
+     */
+    private static boolean sameStyle(AttributeSet a, AttributeSet b) {
+        if(a == b) {
+            return true;
+        }
+        if(a == null || b == null) {
+            return false;
+        }
+        return a.isEqual(b);
+    }
+
+
+    /**
+     * Writes ASCII text as it is.
+     *
+     * @param s         The text.
+     * @throws IOException if writing fails.
+     */
+    private void ascii(String s) throws IOException {
+        for(int i = 0; i < s.length(); i++) {
+            put(s.charAt(i));
+        }
+    }
+
+
+    /**
+     * Writes a decimal number.
+     *
+     * @param n         The number.
+     * @throws IOException if writing fails.
+     */
+    private void number(int n) throws IOException {
+        ascii(Integer.toString(n));
+    }
+
+
+    /**
+     * Puts a byte into the buffer, writing the buffer when it is full.
+     *
+     * @param b         The byte.
+     * @throws IOException if writing fails.
+     */
+    private void put(int b) throws IOException {
+        if(count == BUFFER_SIZE) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+        buffer[count++] = (byte)b;
+    }
+
+}
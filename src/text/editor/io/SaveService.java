@@ -0,0 +1,279 @@
+package text.editor.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import text.editor.graphics.actions.FileType;
+import text.editor.model.DocumentSnapshot;
+
+
+/**
+ * Writes document snapshots to the file system on a background thread.
+ *
+ * A file is never written in place. The snapshot is written to a temporary
+ * file in the same directory, which is then renamed over the target file in
+ * one step. If the editor crashes halfway through a save the old file is
+ * still there, untouched.
+ *
+ * Saves of the same document to the same file that pile up while the writer
+ * is busy are coalesced into one write of the newest snapshot, so a burst of
+ * Ctrl+S presses and autosaves costs a single write and at most a single
+ * fsync. Saves of another document to that file are never folded in, so a
+ * listener is only told a file was saved when its own text was written, and
+ * the writes happen in the order they were asked for. Whether a write
+ * is forced to the disk depends on the Durability. The files are written by
+ * DocumentIO.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class SaveService {
+
+
+    /** The thread that writes the files, one save at a time. */
+    private static final ExecutorService WRITER =
+            Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "Save Writer");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
+
+    /**
+     * The last save of every file that has been requested but not started
+     * yet, by the file it writes to. Guarded by itself.
+     */
+    private static final Map<Path, PendingSave> PENDING = new HashMap<>();
+
+
+    /** How hard to try to get saved files onto the disk. */
+    private static volatile Durability durability = Durability.fromSystemProperty();
+
+
+    /**
+     * Private constructor so the SaveService class cannot be instantiated.
+     */
+    private SaveService() {}
+
+
+    /**
+     * Is told on the Event Dispatch Thread how a save went.
+     */
+    public interface SaveListener {
+
+
+        /**
+         * Called when the file has been written.
+         *
+         * @param file  The file that was written.
+         */
+        void saved(File file);
+
+
+        /**
+         * Called when the file could not be written. The target file is left
+         * as it was.
+         *
+         * @param file  The file that could not be written.
+         * @param err   The reason.
+         */
+        void failed(File file, Exception err);
+
+    }
+
+
+    /**
+     * Sets how hard to try to get saved files onto the disk.
+     *
+     * @param durability    The new durability.
+     */
+    public static void setDurability(Durability durability) {
+        SaveService.durability = durability;
+    }
+
+
+    /**
+     * Returns how hard saves try to get files onto the disk.
+     *
+     * @return              The durability.
+     */
+    public static Durability getDurability() {
+        return durability;
+    }
+
+
+    /**
+     * Writes a snapshot to a file in the background. If the last save of the
+     * same file that is still waiting for the writer is of the same document,
+     * the two are merged: the newest snapshot is written once and both
+     * listeners are told about it. Otherwise the save queues up behind it.
+     *
+     * @param source    The document the snapshot was taken of.
+     * @param snapshot  The snapshot to write.
+     * @param file      The file to write to.
+     * @param format    The format to write the file in.
+     * @param encoding  The encoding of plain text.
+     * @param explicit  Whether the user asked for the save, as opposed to an
+     *                  autosave.
+     * @param listener  Is told how the save went.
+     */
+    public static void save(Object source,
+                            DocumentSnapshot snapshot,
+                            File file,
+                            FileType format,
+                            TextEncoding encoding,
+                            boolean explicit,
+                            SaveListener listener) {
+
+        Path target = file.toPath().toAbsolutePath().normalize();
+
+        synchronized(PENDING) {
+
+            PendingSave pending = PENDING.get(target);
+
+            if(pending != null && pending.source == source) {
+                pending.snapshot    = snapshot;
+                pending.format      = format;
+                pending.encoding    = encoding;
+                pending.explicit    |= explicit;
+                pending.listeners.add(listener);
+                return;
+            }
+
+            pending = new PendingSave(source, file, target, snapshot, format, encoding,
+                                      explicit, listener);
+            PENDING.put(target, pending);
+            WRITER.execute(pending);
+        }
+
+    }
+
+
+    /**
+     * A save that is waiting for the writer. Until it starts, later saves of
+     * the same document to the same file are folded into it, as long as no
+     * save of another document to that file came in between.
+     */
+    private static class PendingSave implements Runnable {
+
+
+        /** The document the snapshots are taken of. */
+        private final Object source;
+
+
+        /** The file as the caller named it. */
+        private final File file;
+
+
+        /** The normalized path of the file, the key in PENDING. */
+        private final Path target;
+
+
+        /** The listeners of all the saves folded into this one. */
+        private final List<SaveListener> listeners = new ArrayList<>();
+
+
+        /** The newest snapshot to write. Guarded by PENDING. */
+        private DocumentSnapshot snapshot;
+
+
+        /** The format of the newest save. Guarded by PENDING. */
+        private FileType format;
+
+
+        /** The encoding of the newest save. Guarded by PENDING. */
+        private TextEncoding encoding;
+
+
+        /** Whether any of the saves was asked for by the user. Guarded by PENDING. */
+        private boolean explicit;
+
+
+        /**
+         * Constructor for a PendingSave.
+         *
+         * @param source    The document the snapshot was taken of.
+         * @param file      The file to write to.
+         * @param target    The normalized path of the file.
+         * @param snapshot  The snapshot to write.
+         * @param format    The format to write the file in.
+         * @param encoding  The encoding of plain text.
+         * @param explicit  Whether the user asked for the save.
+         * @param listener  Is told how the save went.
+         */
+        PendingSave(Object source, File file, Path target, DocumentSnapshot snapshot, FileType format,
+                    TextEncoding encoding, boolean explicit, SaveListener listener) {
+            this.source     = source;
+            this.file       = file;
+            this.target     = target;
+            this.snapshot   = snapshot;
+            this.format     = format;
+            this.encoding   = encoding;
+            this.explicit   = explicit;
+            listeners.add(listener);
+        }
+
+
+        /*
+            Takes this save out of the pending saves, unless another save of
+            the file has queued up behind it already, so saves requested from
+            now on are not folded into it, and writes the newest snapshot.
+        */
+        @Override
+        public void run() {
+
+            DocumentSnapshot latest;
+            FileType latestFormat;
+            TextEncoding latestEncoding;
+            boolean sync;
+            final List<SaveListener> waiting;
+
+            synchronized(PENDING) {
+                PENDING.remove(target, this);
+                latest          = snapshot;
+                latestFormat    = format;
+                latestEncoding  = encoding;
+                sync            = durability.shouldSync(explicit);
+                waiting         = new ArrayList<>(listeners);
+            }
+
+            Exception error = null;
+            try {
+                DocumentIO.write(latest, file, latestFormat, latestEncoding, sync);
+            } catch (IOException | BadLocationException | RuntimeException err) {
+                error = err;
+            }
+
+            final Exception failure = error;
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    for(SaveListener listener : waiting) {
+                        if(failure == null) {
+                            listener.saved(file);
+                        } else {
+                            listener.failed(file, failure);
+                        }
+                    }
+                }
+            });
+
+        }
+
+    }
+
+}
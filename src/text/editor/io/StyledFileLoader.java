@@ -0,0 +1,126 @@
+package text.editor.io;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntConsumer;
+import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
+import text.editor.errorreporting.ErrorReport;
+import text.editor.graphics.actions.FileType;
+import text.editor.graphics.editor.MainTextPane;
+import text.editor.graphics.editor.StatusBar;
+import text.editor.model.PieceTableDocument;
+
+
+/**
+ * Loads a styled file, RTF or .tlr, in the background.
+ *
+ * The file is read into a new document that is not shown yet, so the reader
+ * does not have to hand its batches to the Event Dispatch Thread. The
+ * document replaces the one of the text pane when it is complete.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class StyledFileLoader extends SwingWorker<PieceTableDocument, Void> {
+
+
+    /** The file to load. */
+    private final File file;
+
+
+    /** The format of the file. */
+    private final FileType format;
+
+
+    /** The text pane to load the file into. */
+    private final MainTextPane textPane;
+
+
+    /**
+     * Constructor for the StyledFileLoader.
+     *
+     * @param file      The file to load.
+     * @param format    The format of the file, RTF or TLR.
+     * @param textPane  The text pane to load the file into.
+     */
+    public StyledFileLoader(File file, FileType format, MainTextPane textPane) {
+        this.file       = file;
+        this.format     = format;
+        this.textPane   = textPane;
+    }
+
+
+    /**
+     * Starts loading the file. The text pane is read only until the file has
+     * been loaded.
+     */
+    public void start() {
+
+        textPane.setEditable(false);
+        textPane.setLoadingTask(this);
+        StatusBar.updateStatusMessage("Opening "+file.getName()+"...");
+
+        addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent e) {
+                if("progress".equals(e.getPropertyName()) && !isDone()) {
+                    StatusBar.updateStatusMessage("Opening "+file.getName()+"... "
+                                                  +e.getNewValue()+"%");
+                }
+            }
+        });
+
+        execute();
+    }
+
+
+    /*
+        Reads the file into a document that nobody else sees yet.
+    */
+    @Override
+    protected PieceTableDocument doInBackground() throws Exception {
+        return DocumentIO.read(file, format, null, new IntConsumer() {
+            @Override
+            public void accept(int percent) {
+                setProgress(percent);
+            }
+        });
+    }
+
+
+    /*
+        Shows the document in the text pane and reports how the loading went.
+    */
+    @Override
+    protected void done() {
+
+        textPane.setEditable(true);
+        textPane.setLoadingTask(null);
+
+        try {
+            textPane.setDocument(get());
+            textPane.markSaved(textPane.getModificationCount());
+            StatusBar.updateStatusMessage(file.getName()+" opened...");
+        } catch (CancellationException err) {
+            ReadWriteUtilities.detachFromFile(textPane);
+            StatusBar.updateStatusMessage("Loading "+file.getName()+" cancelled...");
+        } catch (InterruptedException | ExecutionException err) {
+            ReadWriteUtilities.detachFromFile(textPane);
+            new ErrorReport().createErrorReport(err);
+            StatusBar.updateStatusMessage("Error opening "+file.getName()+"...");
+            JOptionPane.showMessageDialog(null,
+                                            "Error opening file.",
+                                            "Error",
+                                            JOptionPane.ERROR_MESSAGE);
+        }
+
+        ReadWriteUtilities.resetStatusMessage();
+    }
+
+}
@@ -0,0 +1,283 @@
+package text.editor.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import text.editor.model.TextSnapshot;
+
+
+/**
+ * Decoders, encoders and buffers for plain text, shared so they are not
+ * created over and over for every file and every chunk.
+ *
+ * A decoder or encoder can only be used by one thread at a time, so every
+ * thread keeps its own for each charset. The loaders run on the SwingWorker
+ * threads and the saves on the writer thread, which live on between files.
+ * Character buffers are big and short lived, so a few of them are pooled.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class TextCodecs {
+
+
+    /** The capacity in characters of a pooled buffer. */
+    public static final int BUFFER_SIZE = 128 * 1024;
+
+
+    /** The most buffers the pool keeps. */
+    private static final int POOL_SIZE  = 4;
+
+
+    /** The amount of bytes written to a channel at a time. */
+    private static final int WRITE_SIZE = 64 * 1024;
+
+
+    /** The buffers that are not in use. */
+    private static final ConcurrentLinkedQueue<CharBuffer> POOL = new ConcurrentLinkedQueue<>();
+
+
+    /** The amount of buffers in the pool. */
+    private static final AtomicInteger POOLED = new AtomicInteger();
+
+
+    /** The decoders of each thread, by charset. */
+    private static final ThreadLocal<Map<Charset, CharsetDecoder>> DECODERS =
+            new ThreadLocal<Map<Charset, CharsetDecoder>>() {
+                @Override
+                protected Map<Charset, CharsetDecoder> initialValue() {
+                    return new HashMap<>();
+                }
+            };
+
+
+    /** The decoders of each thread that report what they can not decode, by charset. */
+    private static final ThreadLocal<Map<Charset, CharsetDecoder>> STRICT_DECODERS =
+            new ThreadLocal<Map<Charset, CharsetDecoder>>() {
+                @Override
+                protected Map<Charset, CharsetDecoder> initialValue() {
+                    return new HashMap<>();
+                }
+            };
+
+
+    /** The encoders of each thread, by charset. */
+    private static final ThreadLocal<Map<Charset, CharsetEncoder>> ENCODERS =
+            new ThreadLocal<Map<Charset, CharsetEncoder>>() {
+                @Override
+                protected Map<Charset, CharsetEncoder> initialValue() {
+                    return new HashMap<>();
+                }
+            };
+
+
+    /**
+     * Private constructor so the TextCodecs class cannot be instantiated.
+     */
+    private TextCodecs() {}
+
+
+    /**
+     * Returns the decoder of the calling thread for a charset, reset and
+     * replacing what it can not decode.
+     *
+     * @param charset   The charset.
+     * @return          The decoder.
+     */
+    public static CharsetDecoder decoder(Charset charset) {
+        CharsetDecoder decoder = DECODERS.get().get(charset);
+        if(decoder == null) {
+            decoder = charset.newDecoder()
+                             .onMalformedInput(CodingErrorAction.REPLACE)
+                             .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            DECODERS.get().put(charset, decoder);
+        }
+        return decoder.reset();
+    }
+
+
+    /**
+     * Returns the decoder of the calling thread for a charset, reset and
+     * reporting what it can not decode instead of replacing it. Used to read
+     * a file into a document, where a replaced byte would be lost on the next
+     * save.
+     *
+     * @param charset   The charset.
+     * @return          The decoder.
+     */
+    public static CharsetDecoder strictDecoder(Charset charset) {
+        CharsetDecoder decoder = STRICT_DECODERS.get().get(charset);
+        if(decoder == null) {
+            decoder = charset.newDecoder()
+                             .onMalformedInput(CodingErrorAction.REPORT)
+                             .onUnmappableCharacter(CodingErrorAction.REPORT);
+            STRICT_DECODERS.get().put(charset, decoder);
+        }
+        return decoder.reset();
+    }
+
+
+    /**
+     * Returns the encoder of the calling thread for a charset, reset and
+     * replacing what it can not encode.
+     *
+     * @param charset   The charset.
+     * @return          The encoder.
+     */
+    public static CharsetEncoder encoder(Charset charset) {
+        CharsetEncoder encoder = ENCODERS.get().get(charset);
+        if(encoder == null) {
+            encoder = charset.newEncoder()
+                             .onMalformedInput(CodingErrorAction.REPLACE)
+                             .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            ENCODERS.get().put(charset, encoder);
+        }
+        return encoder.reset();
+    }
+
+
+    /**
+     * Takes a cleared buffer of BUFFER_SIZE characters from the pool, or
+     * creates one if the pool is empty.
+     *
+     * @return          The buffer.
+     */
+    public static CharBuffer acquireBuffer() {
+        CharBuffer buffer = POOL.poll();
+        if(buffer == null) {
+            return CharBuffer.allocate(BUFFER_SIZE);
+        }
+        POOLED.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+
+    /**
+     * Gives a buffer back to the pool. The buffer must not be used anymore.
+     *
+     * @param buffer    The buffer from acquireBuffer.
+     */
+    public static void releaseBuffer(CharBuffer buffer) {
+        if(POOLED.incrementAndGet() <= POOL_SIZE) {
+            POOL.offer(buffer);
+        } else {
+            POOLED.decrementAndGet();
+        }
+    }
+
+
+    /**
+     * Encodes text and writes it to a channel, with a byte order mark and the
+     * line ending of the encoding.
+     *
+     * @param text      The text, with '\n' line breaks.
+     * @param encoding  The encoding.
+     * @param channel   The channel.
+     * @throws IOException if writing fails.
+     */
+    public static void write(TextSnapshot text, TextEncoding encoding, WritableByteChannel channel)
+            throws IOException {
+
+        CharsetEncoder encoder  = encoder(encoding.getCharset());
+        ByteBuffer bytes        = ByteBuffer.allocateDirect(WRITE_SIZE);
+        CharBuffer chars        = acquireBuffer();
+        char[] lineBreak        = encoding.getLineEnding().getSeparator().toCharArray();
+
+        try {
+
+            // Every separator can grow to two characters.
+            char[] chunk = new char[BUFFER_SIZE / 4];
+
+            chars.clear();
+            if(encoding.hasBom()) {
+                chars.put('\uFEFF');
+            }
+
+            for(int start = 0; start < text.length(); ) {
+
+                int count = Math.min(chunk.length, text.length() - start);
+                text.getChars(start, start + count, chunk, 0);
+                start += count;
+
+                for(int i = 0; i < count; i++) {
+                    char c = chunk[i];
+                    if(c == '\n') {
+                        chars.put(lineBreak);
+                    } else {
+                        chars.put(c);
+                    }
+                }
+
+                chars.flip();
+                encode(encoder, chars, bytes, false, channel);
+                // Keeps a surrogate that was split off at the end.
+                chars.compact();
+            }
+
+            chars.flip();
+            encode(encoder, chars, bytes, true, channel);
+
+            while(encoder.flush(bytes).isOverflow()) {
+                drain(bytes, channel);
+            }
+            drain(bytes, channel);
+
+        } finally {
+            releaseBuffer(chars);
+        }
+
+    }
+
+
+    /**
+     * Encodes characters, writing the bytes to the channel whenever the byte
+     * buffer is full.
+     *
+     * @param encoder   The encoder.
+     * @param chars     The characters.
+     * @param bytes     The byte buffer.
+     * @param end       Whether these are the last characters.
+     * @param channel   The channel.
+     * @throws IOException if writing fails.
+     */
+    private static void encode(CharsetEncoder encoder, CharBuffer chars, ByteBuffer bytes,
+                               boolean end, WritableByteChannel channel) throws IOException {
+        CoderResult result;
+        while((result = encoder.encode(chars, bytes, end)).isOverflow()) {
+            drain(bytes, channel);
+        }
+        if(result.isError()) {
+            throw new IOException("Could not encode the text: "+result);
+        }
+    }
+
+
+    /**
+     * Writes the bytes in a buffer to a channel and clears the buffer.
+     *
+     * @param bytes     The buffer, in write mode.
+     * @param channel   The channel.
+     * @throws IOException if writing fails.
+     */
+    private static void drain(ByteBuffer bytes, WritableByteChannel channel) throws IOException {
+        bytes.flip();
+        while(bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+}
@@ -0,0 +1,430 @@
+package text.editor.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * How a plain text file is encoded: its charset, whether it starts with a
+ * byte order mark, and how its lines end.
+ *
+ * Documents always use '\n' for line breaks. The line ending is remembered
+ * so a file is written back the way it was read.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public final class TextEncoding {
+
+
+    /** The encoding of new documents. */
+    public static final TextEncoding DEFAULT =
+            new TextEncoding(StandardCharsets.UTF_8, false, LineEnding.LF);
+
+
+    /** The amount of bytes looked at to detect the encoding of a file. */
+    private static final int SAMPLE_SIZE = 64 * 1024;
+
+
+    /** The charset of the text. */
+    private final Charset charset;
+
+
+    /** Whether the file starts with a byte order mark. */
+    private final boolean bom;
+
+
+    /** How the lines of the file end. */
+    private final LineEnding lineEnding;
+
+
+    /**
+     * The ways a line can end.
+     */
+    public enum LineEnding {
+
+        LF("\n"), CRLF("\r\n"), CR("\r");
+
+
+        /** The characters that end a line. */
+        private final String separator;
+
+
+        /**
+         * Constructor for a LineEnding.
+         *
+         * @param separator The characters that end a line.
+         */
+        LineEnding(String separator) {
+            this.separator = separator;
+        }
+
+
+        /**
+         * Returns the characters that end a line.
+         *
+         * @return      The separator.
+         */
+        public String getSeparator() {
+            return separator;
+        }
+
+    }
+
+
+    /**
+     * Constructor for a TextEncoding.
+     *
+     * @param charset       The charset of the text.
+     * @param bom           Whether the file starts with a byte order mark.
+     * @param lineEnding    How the lines of the file end.
+     */
+    public TextEncoding(Charset charset, boolean bom, LineEnding lineEnding) {
+        this.charset    = charset;
+        this.bom        = bom;
+        this.lineEnding = lineEnding;
+    }
+
+
+    /**
+     * Returns the charset of the text.
+     *
+     * @return          The charset.
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+
+    /**
+     * Returns true if the file starts with a byte order mark.
+     *
+     * @return          Whether there is a byte order mark.
+     */
+    public boolean hasBom() {
+        return bom;
+    }
+
+
+    /**
+     * Returns the length in bytes of the byte order mark.
+     *
+     * @return          The length, 0 if there is none.
+     */
+    public int getBomLength() {
+        if(!bom) {
+            return 0;
+        }
+        return charset.equals(StandardCharsets.UTF_8) ? 3 : 2;
+    }
+
+
+    /**
+     * Returns how the lines of the file end.
+     *
+     * @return          The line ending.
+     */
+    public LineEnding getLineEnding() {
+        return lineEnding;
+    }
+
+
+    /**
+     * Returns the encoding to read a file with when it turns out not to be
+     * valid in this one, past the bytes its encoding was detected from. That
+     * is Windows-1252 first, and Latin-1 for a file that is not valid in
+     * Windows-1252 either. Latin-1 maps every byte, so a file never fails to
+     * decode in it and is written back byte for byte. A byte order mark does
+     * not count as one anymore, it is kept as text.
+     *
+     * @return          The 8-bit encoding with the same line ending.
+     */
+    public TextEncoding fallback() {
+
+        Charset next = StandardCharsets.ISO_8859_1;
+        if(!charset.equals(next) && !charset.name().equals("windows-1252")
+                && Charset.isSupported("windows-1252")) {
+            next = Charset.forName("windows-1252");
+        }
+
+        return new TextEncoding(next, false, lineEnding);
+    }
+
+
+    @Override
+    public String toString() {
+        return charset.name()+(bom ? " BOM" : "")+" "+lineEnding;
+    }
+
+
+    /**
+     * Detects the encoding of a file from its first bytes. A byte order mark
+     * decides it. Without one, text where every other byte is zero is taken
+     * to be UTF-16, text that is valid UTF-8 is UTF-8, and anything else is
+     * Latin-1, or Windows-1252 if it uses the bytes that Windows-1252 puts
+     * quotes and dashes in and none of those it leaves undefined. The line
+     * ending is the one of the first line. A file that is not valid in the
+     * detected encoding further on is read in its fallback instead.
+     *
+     * @param file      The file.
+     * @return          The encoding.
+     * @throws IOException if the file can not be read.
+     */
+    public static TextEncoding detect(File file) throws IOException {
+
+        ByteBuffer sample;
+        boolean complete;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            sample = ByteBuffer.allocate((int)Math.min(SAMPLE_SIZE, channel.size()));
+            while(sample.hasRemaining() && channel.read(sample) != -1) {
+                // Keep reading.
+            }
+            complete = channel.size() <= SAMPLE_SIZE;
+        }
+
+        sample.flip();
+        return detect(sample, complete);
+    }
+
+
+    /**
+     * Detects the encoding of the first bytes of a file.
+     *
+     * @param sample    The bytes.
+     * @param complete  Whether the bytes are the whole file, as opposed to
+     *                  a sample that may end in the middle of a character.
+     * @return          The encoding.
+     */
+    static TextEncoding detect(ByteBuffer sample, boolean complete) {
+
+        Charset charset = detectCharset(sample, complete);
+        int bomLength   = getBomLength(sample);
+
+        sample.position(bomLength);
+        return new TextEncoding(charset, bomLength > 0, detectLineEnding(sample, charset));
+    }
+
+
+    /**
+     * Detects the charset of the first bytes of a file, for when only its
+     * text is needed and not how its lines end.
+     *
+     * @param sample    The bytes, from position 0.
+     * @param complete  Whether the bytes are the whole file, as opposed to
+     *                  a sample that may end in the middle of a character.
+     * @return          The charset.
+     */
+    static Charset detectCharset(ByteBuffer sample, boolean complete) {
+
+        int bomLength = getBomLength(sample);
+
+        if(bomLength == 3) {
+            return StandardCharsets.UTF_8;
+        } else if(bomLength == 2) {
+            return ((sample.get(0) & 0xFF) == 0xFF) ? StandardCharsets.UTF_16LE
+                                                    : StandardCharsets.UTF_16BE;
+        }
+
+        return guessCharset(sample, complete);
+    }
+
+
+    /**
+     * Returns the length of the byte order mark the bytes of a file start
+     * with, if they start with one.
+     *
+     * @param sample    The bytes, from position 0.
+     * @return          The amount of bytes, 3 for UTF-8, 2 for UTF-16 and 0
+     *                  without a byte order mark.
+     */
+    static int getBomLength(ByteBuffer sample) {
+
+        int n = sample.limit();
+
+        if(n >= 3 && (sample.get(0) & 0xFF) == 0xEF && (sample.get(1) & 0xFF) == 0xBB
+                  && (sample.get(2) & 0xFF) == 0xBF) {
+            return 3;
+        } else if(n >= 2 && (sample.get(0) & 0xFF) == 0xFF && (sample.get(1) & 0xFF) == 0xFE) {
+            return 2;
+        } else if(n >= 2 && (sample.get(0) & 0xFF) == 0xFE && (sample.get(1) & 0xFF) == 0xFF) {
+            return 2;
+        }
+
+        return 0;
+    }
+
+
+    /**
+     * Guesses the charset of bytes without a byte order mark.
+     *
+     * @param sample    The bytes.
+     * @param complete  Whether the bytes are the whole file.
+     * @return          The charset.
+     */
+    private static Charset guessCharset(ByteBuffer sample, boolean complete) {
+
+        int n           = sample.remaining();
+        int evenZeros   = 0;
+        int oddZeros    = 0;
+        boolean high    = false;
+        boolean cp1252  = false;
+        boolean latin1  = false;
+
+        for(int i = 0; i < n; i++) {
+            int b = sample.get(i) & 0xFF;
+            if(b == 0) {
+                if((i & 1) == 0) {
+                    evenZeros++;
+                } else {
+                    oddZeros++;
+                }
+            } else if(b >= 0x80) {
+                high = true;
+                if(b == 0x81 || b == 0x8D || b == 0x8F || b == 0x90 || b == 0x9D) {
+                    latin1 = true;
+                } else if(b < 0xA0) {
+                    cp1252 = true;
+                }
+            }
+        }
+
+        /*
+            Mostly Latin text in UTF-16 has a zero in every other byte, on
+            the odd bytes for little endian and the even ones for big endian.
+        */
+        int pairs = n / 2;
+        if(pairs > 0 && oddZeros > pairs * 3 / 10 && evenZeros < pairs / 20) {
+            return StandardCharsets.UTF_16LE;
+        }
+        if(pairs > 0 && evenZeros > pairs * 3 / 10 && oddZeros < pairs / 20) {
+            return StandardCharsets.UTF_16BE;
+        }
+
+        if(!high || isUtf8(sample, complete)) {
+            return StandardCharsets.UTF_8;
+        }
+
+        /*
+            windows-1252 leaves five bytes undefined. They would be decoded
+            to U+FFFD and lost on the next save, so only ISO-8859-1, which
+            maps every byte, can keep them.
+        */
+        if(cp1252 && !latin1 && Charset.isSupported("windows-1252")) {
+            return Charset.forName("windows-1252");
+        }
+
+        return StandardCharsets.ISO_8859_1;
+    }
+
+
+    /**
+     * Returns true if bytes are well formed UTF-8, as RFC 3629 defines it. The
+     * second byte of a sequence is limited for some lead bytes, so overlong
+     * forms, surrogates and code points past U+10FFFF are not accepted.
+     *
+     * @param sample    The bytes.
+     * @param complete  Whether the bytes are the whole file. If not, a
+     *                  character cut off at the end is fine.
+     * @return          Whether the bytes are UTF-8.
+     */
+    private static boolean isUtf8(ByteBuffer sample, boolean complete) {
+
+        int n = sample.remaining();
+
+        for(int i = 0; i < n; ) {
+
+            int b       = sample.get(i) & 0xFF;
+            int low     = 0x80;
+            int high    = 0xBF;
+            int continuation;
+
+            if(b < 0x80) {
+                i++;
+                continue;
+            } else if(b >= 0xC2 && b <= 0xDF) {
+                continuation = 1;
+            } else if(b >= 0xE0 && b <= 0xEF) {
+                continuation = 2;
+                if(b == 0xE0) {
+                    low = 0xA0;
+                } else if(b == 0xED) {
+                    high = 0x9F;
+                }
+            } else if(b >= 0xF0 && b <= 0xF4) {
+                continuation = 3;
+                if(b == 0xF0) {
+                    low = 0x90;
+                } else if(b == 0xF4) {
+                    high = 0x8F;
+                }
+            } else {
+                return false;
+            }
+
+            for(int k = 1; k <= continuation; k++) {
+                if(i + k >= n) {
+                    return !complete;
+                }
+                int c = sample.get(i + k) & 0xFF;
+                if(c < low || c > high) {
+                    return false;
+                }
+                low     = 0x80;
+                high    = 0xBF;
+            }
+
+            i += continuation + 1;
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Finds out how the first line of the text ends.
+     *
+     * @param sample    The bytes, positioned after the byte order mark.
+     * @param charset   The charset of the bytes.
+     * @return          The line ending, LF if there is no line break.
+     */
+    private static LineEnding detectLineEnding(ByteBuffer sample, Charset charset) {
+
+        CharsetDecoder decoder  = TextCodecs.decoder(charset);
+        CharBuffer chars        = TextCodecs.acquireBuffer();
+
+        try {
+
+            decoder.decode(sample, chars, false);
+            chars.flip();
+
+            for(int i = 0; i < chars.limit(); i++) {
+                char c = chars.get(i);
+                if(c == '\n') {
+                    return LineEnding.LF;
+                } else if(c == '\r') {
+                    if(i + 1 < chars.limit()) {
+                        return chars.get(i + 1) == '\n' ? LineEnding.CRLF : LineEnding.CR;
+                    }
+                    return LineEnding.CR;
+                }
+            }
+
+            return LineEnding.LF;
+
+        } finally {
+            TextCodecs.releaseBuffer(chars);
+        }
+
+    }
+
+}
@@ -0,0 +1,431 @@
+package text.editor.io;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import text.editor.model.DocumentSnapshot;
+import text.editor.model.PieceTableDocument;
+import text.editor.model.TextSnapshot;
+
+
+/**
+ * Reads and writes the native file format of the editor, .tlr.
+ *
+ * A file is laid out so that it can be read front to back in one go, with
+ * fixed size fields that could just as well be read from a mapping:
+ *
+ *      int         magic, "TLR" and a zero
+ *      int         version
+ *      int         the amount of styles
+ *      int         the amount of runs
+ *      styles      a flags byte for bold, italic, underline, font family and
+ *                  font size, then the family as a short length and UTF-8
+ *                  bytes and the size as a short, if the flags say so
+ *      runs        an int length and an int style index for each run
+ *      text        the text as UTF-8, up to the end of the file
+ *
+ * Equal attribute sets are written once to the style table, and neighbouring
+ * runs with the same style are merged, so the run table only grows where the
+ * style actually changes. The text is decoded straight from the buffer into
+ * one array, which becomes the original buffer of the piece table, and the
+ * paragraphs and runs of the document are built directly from the run table.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class TlrFormat {
+
+
+    /** The first four bytes of every file, "TLR" and a zero. */
+    static final int MAGIC      = 0x544C5200;
+
+
+    /** The version of the format. */
+    static final int VERSION    = 1;
+
+
+    /** Flags of a style. */
+    private static final int BOLD = 1, ITALIC = 2, UNDERLINE = 4, FAMILY = 8, SIZE = 16;
+
+
+    /** The amount of characters encoded at a time. */
+    private static final int COPY_SIZE = 8 * 1024;
+
+
+    /**
+     * Private constructor so the TlrFormat class cannot be instantiated.
+     */
+    private TlrFormat() {}
+
+
+    /**
+     * Writes a snapshot in the format. The stream is flushed but not closed.
+     *
+     * @param snapshot  The snapshot, with its style runs.
+     * @param out       The stream, should be buffered.
+     * @throws IOException if writing fails.
+     */
+    public static void write(DocumentSnapshot snapshot, OutputStream out) throws IOException {
+
+        TextSnapshot text = snapshot.getText();
+        List<DocumentSnapshot.StyleRun> styleRuns = snapshot.getStyleRuns();
+
+        if(styleRuns == null) {
+            styleRuns = new ArrayList<>();
+            styleRuns.add(new DocumentSnapshot.StyleRun(0, text.length(), null));
+        }
+
+        // Intern the styles and merge the runs that have the same style.
+        Map<Style, Integer> styleIndex  = new HashMap<>();
+        List<Style> styles              = new ArrayList<>();
+        List<int[]> runs                = new ArrayList<>();
+
+        for(DocumentSnapshot.StyleRun styleRun : styleRuns) {
+
+            Style style = new Style(styleRun.getAttributes());
+            Integer index = styleIndex.get(style);
+            if(index == null) {
+                index = styles.size();
+                styles.add(style);
+                styleIndex.put(style, index);
+            }
+
+            int length = styleRun.getEnd() - styleRun.getStart();
+            if(length == 0) {
+                continue;
+            }
+
+            int[] last = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+            if(last != null && last[1] == index) {
+                last[0] += length;
+            } else {
+                runs.add(new int[] {length, index});
+            }
+        }
+
+        DataOutputStream data = new DataOutputStream(out);
+
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(styles.size());
+        data.writeInt(runs.size());
+
+        for(Style style : styles) {
+            data.writeByte(style.flags);
+            if((style.flags & FAMILY) != 0) {
+                byte[] family = style.family.getBytes(StandardCharsets.UTF_8);
+                data.writeShort(family.length);
+                data.write(family);
+            }
+            if((style.flags & SIZE) != 0) {
+                data.writeShort(style.size);
+            }
+        }
+
+        for(int[] run : runs) {
+            data.writeInt(run[0]);
+            data.writeInt(run[1]);
+        }
+
+        data.flush();
+        writeText(text, out);
+        out.flush();
+    }
+
+
+    /**
+     * Reads a file in the format into a new document.
+     *
+     * @param file      The file.
+     * @return          The document, with one paragraph for each line.
+     * @throws IOException if the file can not be read or is not in the format.
+     */
+    public static PieceTableDocument read(File file) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+
+            if(channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File too big: "+file);
+            }
+
+            /*
+                The layout could be mapped, but a mapped file can not be
+                replaced on Windows until the mapping is garbage collected,
+                and saving replaces the file. One read is about as fast.
+            */
+            ByteBuffer in = ByteBuffer.allocate((int)channel.size());
+            while(in.hasRemaining() && channel.read(in) != -1) {
+                // Keep reading.
+            }
+            in.flip();
+
+            return read(in, file.toString());
+        }
+
+    }
+
+
+    /**
+     * Reads a document in the format from a buffer, which is used up.
+     *
+     * @param in        The bytes of the document.
+     * @param source    Where the bytes come from, for error messages.
+     * @return          The document, with one paragraph for each line.
+     * @throws IOException if the bytes are not in the format.
+     */
+    public static PieceTableDocument read(ByteBuffer in, String source) throws IOException {
+
+        try {
+
+            if(in.getInt() != MAGIC) {
+                throw new IOException("Not a .tlr file: "+source);
+            }
+            if(in.getInt() != VERSION) {
+                throw new IOException("Unsupported .tlr version: "+source);
+            }
+
+            int styleCount  = in.getInt();
+            int runCount    = in.getInt();
+
+            // Every style takes at least a byte and every run eight.
+            if(styleCount < 0 || runCount < 0 || styleCount > in.remaining()
+                    || runCount > (in.remaining() - styleCount) / 8) {
+                throw new IOException("Damaged .tlr file: "+source);
+            }
+
+            AttributeSet[] styles = new AttributeSet[styleCount];
+
+            for(int i = 0; i < styles.length; i++) {
+                styles[i] = readStyle(in);
+            }
+
+            List<DocumentSnapshot.StyleRun> runs = new ArrayList<>(runCount);
+            int length = 0;
+
+            for(int i = 0; i < runCount; i++) {
+                int runLength   = in.getInt();
+                int style       = in.getInt();
+                if(runLength < 0 || length + runLength < length) {
+                    throw new IOException("Damaged .tlr file: "+source);
+                }
+                runs.add(new DocumentSnapshot.StyleRun(length, length + runLength,
+                                                       styles[style]));
+                length += runLength;
+            }
+
+            char[] text = readText(in, length, source);
+            return new PieceTableDocument(CharBuffer.wrap(text), runs);
+
+        } catch (BufferUnderflowException | IndexOutOfBoundsException
+                | IllegalArgumentException err) {
+            throw new IOException("Damaged .tlr file: "+source, err);
+        }
+
+    }
+
+
+    /**
+     * Encodes the text as UTF-8, a chunk at a time. A lone surrogate, which
+     * UTF-8 can not hold, is written as a question mark.
+     *
+     * @param text      The text.
+     * @param out       The stream.
+     * @throws IOException if writing fails.
+     */
+    private static void writeText(TextSnapshot text, OutputStream out) throws IOException {
+
+        CharsetEncoder encoder  = StandardCharsets.UTF_8.newEncoder()
+                                        .onMalformedInput(CodingErrorAction.REPLACE)
+                                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        char[] chars            = new char[COPY_SIZE];
+        CharBuffer charBuffer   = CharBuffer.wrap(chars);
+        ByteBuffer bytes        = ByteBuffer.allocate(COPY_SIZE * 3);
+
+        charBuffer.limit(0);
+
+        for(int start = 0; start < text.length(); ) {
+
+            // Keep a surrogate that was split off at the end of the last chunk.
+            charBuffer.compact();
+            int count = Math.min(charBuffer.remaining(), text.length() - start);
+            text.getChars(start, start + count, chars, charBuffer.position());
+            charBuffer.position(charBuffer.position() + count);
+            charBuffer.flip();
+            start += count;
+
+            encoder.encode(charBuffer, bytes, start == text.length());
+            out.write(bytes.array(), 0, bytes.position());
+            bytes.clear();
+        }
+
+        encoder.encode(charBuffer, bytes, true);
+        encoder.flush(bytes);
+        out.write(bytes.array(), 0, bytes.position());
+    }
+
+
+    /**
+     * Decodes the UTF-8 text at the end of the file.
+     *
+     * @param in        The file, positioned at the text.
+     * @param length    The amount of characters the runs add up to.
+     * @param source    Where the bytes come from, for error messages.
+     * @return          The text.
+     * @throws IOException if the text does not match the runs.
+     */
+    private static char[] readText(ByteBuffer in, int length, String source) throws IOException {
+
+        CharsetDecoder decoder  = StandardCharsets.UTF_8.newDecoder()
+                                        .onMalformedInput(CodingErrorAction.REPLACE)
+                                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        char[] text             = new char[length];
+        CharBuffer out          = CharBuffer.wrap(text);
+
+        CoderResult result = decoder.decode(in, out, true);
+        if(result.isOverflow() || in.hasRemaining()) {
+            throw new IOException("Damaged .tlr file: "+source);
+        }
+        decoder.flush(out);
+
+        if(out.position() != length) {
+            throw new IOException("Damaged .tlr file: "+source);
+        }
+
+        return text;
+    }
+
+
+    /**
+     * Reads one entry of the style table.
+     *
+     * @param in        The file, positioned at the style.
+     * @return          The attributes of the style.
+     */
+    private static AttributeSet readStyle(ByteBuffer in) {
+
+        int flags = in.get();
+        SimpleAttributeSet attributes = new SimpleAttributeSet();
+
+        if((flags & BOLD) != 0) {
+            StyleConstants.setBold(attributes, true);
+        }
+        if((flags & ITALIC) != 0) {
+            StyleConstants.setItalic(attributes, true);
+        }
+        if((flags & UNDERLINE) != 0) {
+            StyleConstants.setUnderline(attributes, true);
+        }
+        if((flags & FAMILY) != 0) {
+            byte[] family = new byte[in.getShort() & 0xFFFF];
+            in.get(family);
+            StyleConstants.setFontFamily(attributes, new String(family, StandardCharsets.UTF_8));
+        }
+        if((flags & SIZE) != 0) {
+            StyleConstants.setFontSize(attributes, in.getShort());
+        }
+
+        return attributes;
+    }
+
+
+    /**
+     * The attributes of a run that the format keeps, comparable so that
+     * equal styles are written once.
+     */
+    private static class Style {
+
+
+        /** Which attributes the style has. */
+        final int flags;
+
+
+        /** The font family, or null. */
+        final String family;
+
+
+        /** The font size, or 0. */
+        final int size;
+
+
+        /**
+         * Constructor for a Style.
+         *
+         * @param attributes    The attributes of a run, may be null.
+         */
+        Style(AttributeSet attributes) {
+
+            int bits        = 0;
+            String name     = null;
+            int points      = 0;
+
+            if(attributes != null) {
+
+                if(StyleConstants.isBold(attributes)) {
+                    bits |= BOLD;
+                }
+                if(StyleConstants.isItalic(attributes)) {
+                    bits |= ITALIC;
+                }
+                if(StyleConstants.isUnderline(attributes)) {
+                    bits |= UNDERLINE;
+                }
+
+                Object family = attributes.getAttribute(StyleConstants.FontFamily);
+                if(family instanceof String) {
+                    bits |= FAMILY;
+                    name = (String)family;
+                }
+
+                Object size = attributes.getAttribute(StyleConstants.FontSize);
+                if(size instanceof Integer) {
+                    bits |= SIZE;
+                    points = Math.max(0, Math.min(Short.MAX_VALUE, (Integer)size));
+                }
+
+            }
+
+            this.flags  = bits;
+            this.family = name;
+            this.size   = points;
+        }
+
+
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Style)) {
+                return false;
+            }
+            Style other = (Style)o;
+            return flags == other.flags && size == other.size
+                && (family == null ? other.family == null : family.equals(other.family));
+        }
+
+
+        @Override
+        public int hashCode() {
+            return flags * 31 * 31 + size * 31 + (family == null ? 0 : family.hashCode());
+        }
+
+    }
+
+}
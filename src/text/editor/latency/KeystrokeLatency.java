@@ -0,0 +1,208 @@
+package text.editor.latency;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+
+/**
+ * Follows the keystrokes of one tab from the moment the text pane receives
+ * the KeyEvent, through the change of the document, to the end of the paint
+ * that shows it, and keeps a histogram of each stage.
+ *
+ * Only keystrokes that change the document are counted. A key that does not,
+ * like an arrow key, is dropped at the next paint. When keys come in faster
+ * than the text pane paints, the keys up to a paint are counted as one, timed
+ * from the first of them, because that is how long the user waited.
+ *
+ * Every method is called on the Event Dispatch Thread.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class KeystrokeLatency {
+
+
+    /** The directory the reports go to, next to the error reports. */
+    private static final File REPORT_DIRECTORY = new File("ErrorReportingDirectory");
+
+
+    /** From the KeyEvent to the end of the paint. */
+    private final LatencyHistogram total    = new LatencyHistogram();
+
+
+    /** From the KeyEvent to the change of the document. */
+    private final LatencyHistogram update   = new LatencyHistogram();
+
+
+    /** From the change of the document to the end of the paint. */
+    private final LatencyHistogram paint    = new LatencyHistogram();
+
+
+    /** When the key being followed was received, 0 if there is none. */
+    private long keyTime;
+
+
+    /** When the document changed because of the key, 0 if it has not. */
+    private long updateTime;
+
+
+    /** Default constructor for a KeystrokeLatency. */
+    public KeystrokeLatency() {}
+
+
+    /**
+     * Records that the text pane received a KeyEvent. The time of the first
+     * key that has not been painted yet is kept.
+     */
+    public void keyReceived() {
+        if(keyTime == 0) {
+            keyTime = System.nanoTime();
+        }
+    }
+
+
+    /**
+     * Records that the document changed. Changes that are not caused by a
+     * key, like a file being loaded, are ignored.
+     */
+    public void documentUpdated() {
+        if(keyTime != 0 && updateTime == 0) {
+            updateTime = System.nanoTime();
+        }
+    }
+
+
+    /**
+     * Records that the text pane finished painting. If the paint shows the
+     * change of a key, the latencies of the key are recorded.
+     *
+     * @return          Whether a keystroke was recorded.
+     */
+    public boolean painted() {
+
+        if(keyTime == 0) {
+            return false;
+        }
+
+        boolean recorded = false;
+
+        if(updateTime != 0) {
+            long now = System.nanoTime();
+            total.record((now - keyTime) / 1000);
+            update.record((updateTime - keyTime) / 1000);
+            paint.record((now - updateTime) / 1000);
+            recorded = true;
+        }
+
+        keyTime     = 0;
+        updateTime  = 0;
+
+        return recorded;
+    }
+
+
+    /**
+     * Returns the histogram from the KeyEvent to the end of the paint.
+     *
+     * @return          The histogram.
+     */
+    public LatencyHistogram getTotal() {
+        return total;
+    }
+
+
+    /**
+     * Returns the histogram from the KeyEvent to the change of the document.
+     *
+     * @return          The histogram.
+     */
+    public LatencyHistogram getUpdate() {
+        return update;
+    }
+
+
+    /**
+     * Returns the histogram from the change of the document to the end of
+     * the paint.
+     *
+     * @return          The histogram.
+     */
+    public LatencyHistogram getPaint() {
+        return paint;
+    }
+
+
+    /**
+     * Returns the median and the 99th percentile of the keystroke to paint
+     * latency, the way the status bar shows them.
+     *
+     * @return          The text, "-" if no keystroke has been recorded.
+     */
+    public String getSummary() {
+
+        if(total.getTotalCount() == 0) {
+            return "-";
+        }
+
+        return String.format("p50 %.1f ms, p99 %.1f ms",
+                             total.getValueAtPercentile(50) / 1000.0,
+                             total.getValueAtPercentile(99) / 1000.0);
+    }
+
+
+    /**
+     * Writes the histograms of some tabs to a new file in the error reporting
+     * directory, to attach to a bug report.
+     *
+     * @param names     The names of the tabs.
+     * @param latencies The latencies of the tabs, in the same order.
+     * @return          The file that was written.
+     * @throws IOException if the file can not be written.
+     */
+    public static File writeReport(List<String> names, List<KeystrokeLatency> latencies)
+            throws IOException {
+
+        if(!REPORT_DIRECTORY.exists()) {
+            REPORT_DIRECTORY.mkdir();
+        }
+
+        File file = new File(REPORT_DIRECTORY,
+                             "latency_"+new SimpleDateFormat("yyyy_MM_dd").format(new Date())
+                             +"_"+System.nanoTime()+".txt");
+
+        try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+
+            out.println("Keystroke latency, "+new Date());
+            out.println("java.version="+System.getProperty("java.version")
+                        +" os.name="+System.getProperty("os.name"));
+
+            for(int i = 0; i < latencies.size(); i++) {
+
+                KeystrokeLatency latency = latencies.get(i);
+
+                out.println();
+                out.println("=== "+names.get(i)+" ===");
+                out.println();
+                out.println("Keystroke to paint:");
+                latency.total.writeDistribution(out);
+                out.println();
+                out.println("Keystroke to document update:");
+                latency.update.writeDistribution(out);
+                out.println();
+                out.println("Document update to paint:");
+                latency.paint.writeDistribution(out);
+            }
+
+        }
+
+        return file;
+    }
+
+}
@@ -0,0 +1,238 @@
+package text.editor.latency;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+
+
+/**
+ * Counts latencies in microseconds, in buckets whose width grows with the
+ * value, the way an HdrHistogram does: every value below 64 microseconds has
+ * its own bucket, and above that every power of two is split into 32 buckets.
+ * Percentiles are accurate to about 3 percent, from a microsecond up to a
+ * minute, in a fixed array of a few hundred counts.
+ *
+ * Recording a value is a couple of shifts and an increment, so it can be done
+ * for every keystroke. A histogram is only used on the Event Dispatch Thread.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class LatencyHistogram {
+
+
+    /** The amount of bits of precision of a bucket. */
+    private static final int SUB_BUCKET_BITS    = 6;
+
+
+    /** The amount of values below which every value has its own bucket. */
+    private static final int SUB_BUCKET_COUNT   = 1 << SUB_BUCKET_BITS;
+
+
+    /** The amount of buckets every power of two above that is split into. */
+    private static final int HALF_COUNT         = SUB_BUCKET_COUNT / 2;
+
+
+    /** The highest value that is told apart, a minute. Higher values count as it. */
+    public static final long MAX_VALUE          = 60L * 1000 * 1000;
+
+
+    /** The amount of values in each bucket. */
+    private final long[] counts = new long[index(MAX_VALUE) + 1];
+
+
+    /** The amount of values recorded. */
+    private long totalCount;
+
+
+    /** The sum of the values recorded, for the mean. */
+    private long totalValue;
+
+
+    /** The lowest value recorded. */
+    private long min = Long.MAX_VALUE;
+
+
+    /** The highest value recorded. */
+    private long max;
+
+
+    /** Default constructor for an empty LatencyHistogram. */
+    public LatencyHistogram() {}
+
+
+    /**
+     * Records a latency.
+     *
+     * @param micros    The latency in microseconds.
+     */
+    public void record(long micros) {
+
+        long value = Math.max(0, Math.min(MAX_VALUE, micros));
+
+        counts[index(value)]++;
+        totalCount++;
+        totalValue += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+
+    /**
+     * Forgets every value recorded.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount  = 0;
+        totalValue  = 0;
+        min         = Long.MAX_VALUE;
+        max         = 0;
+    }
+
+
+    /**
+     * Returns the amount of values recorded.
+     *
+     * @return          The count.
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+
+    /**
+     * Returns the value that a percentage of the values are at or below. Like
+     * an HdrHistogram, the highest value of the bucket is returned, so a
+     * percentile is never better than the truth.
+     *
+     * @param percentile    The percentage, 0 to 100.
+     * @return              The value in microseconds, 0 if nothing has been
+     *                      recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+
+        if(totalCount == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long)Math.ceil(percentile / 100.0 * totalCount));
+        long seen   = 0;
+
+        for(int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if(seen >= target) {
+                return Math.min(max, highestValue(i));
+            }
+        }
+
+        return max;
+    }
+
+
+    /**
+     * Returns the mean of the values.
+     *
+     * @return          The mean in microseconds, 0 if nothing has been recorded.
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double)totalValue / totalCount;
+    }
+
+
+    /**
+     * Returns the lowest value recorded.
+     *
+     * @return          The value in microseconds, 0 if nothing has been recorded.
+     */
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+
+    /**
+     * Returns the highest value recorded.
+     *
+     * @return          The value in microseconds.
+     */
+    public long getMax() {
+        return max;
+    }
+
+
+    /**
+     * Writes a summary and the percentile distribution, in the layout of
+     * HdrHistogram's outputPercentileDistribution, in milliseconds.
+     *
+     * @param out       Where to write.
+     */
+    public void writeDistribution(PrintWriter out) {
+
+        out.println(String.format(Locale.ROOT,
+                "count=%d min=%.3f mean=%.3f p50=%.3f p90=%.3f p99=%.3f p99.9=%.3f max=%.3f (ms)",
+                totalCount, getMin() / 1000.0, getMean() / 1000.0,
+                getValueAtPercentile(50) / 1000.0, getValueAtPercentile(90) / 1000.0,
+                getValueAtPercentile(99) / 1000.0, getValueAtPercentile(99.9) / 1000.0,
+                max / 1000.0));
+
+        out.println(String.format(Locale.ROOT, "%12s %14s %10s %14s",
+                                  "Value", "Percentile", "TotalCount", "1/(1-Percentile)"));
+
+        long seen = 0;
+        for(int i = 0; i < counts.length; i++) {
+
+            if(counts[i] == 0) {
+                continue;
+            }
+
+            seen += counts[i];
+            double fraction = (double)seen / totalCount;
+
+            out.println(String.format(Locale.ROOT, "%12.3f %14.12f %10d %14.2f",
+                                      Math.min(max, highestValue(i)) / 1000.0, fraction, seen,
+                                      fraction < 1 ? 1 / (1 - fraction) : Double.POSITIVE_INFINITY));
+        }
+
+    }
+
+
+    /**
+     * Returns the bucket of a value.
+     *
+     * @param value     The value, at least 0.
+     * @return          The index of its bucket.
+     */
+    private static int index(long value) {
+
+        if(value < SUB_BUCKET_COUNT) {
+            return (int)value;
+        }
+
+        // The amount of low bits that fall below the precision of the bucket.
+        int shift   = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int sub     = (int)(value >>> shift);
+
+        return SUB_BUCKET_COUNT + (shift - 1) * HALF_COUNT + (sub - HALF_COUNT);
+    }
+
+
+    /**
+     * Returns the highest value that falls into a bucket.
+     *
+     * @param index     The index of the bucket.
+     * @return          The value.
+     */
+    private static long highestValue(int index) {
+
+        if(index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int shift   = (index - SUB_BUCKET_COUNT) / HALF_COUNT + 1;
+        long sub    = (index - SUB_BUCKET_COUNT) % HALF_COUNT + HALF_COUNT;
+
+        return ((sub + 1) << shift) - 1;
+    }
+
+}
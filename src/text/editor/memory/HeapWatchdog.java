@@ -0,0 +1,129 @@
+package text.editor.memory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+
+/**
+ * Warns when the heap is about to run out, while there is still room to save
+ * the documents, instead of finding an OutOfMemoryError in the error reports
+ * afterwards.
+ *
+ * A threshold is set on the heap pools that hold the long-lived objects,
+ * the ones that support a usage threshold, at a share of the size the pool
+ * may grow to. The share is set in percent with the text.editor.heapWarning
+ * system property, and is 85 if it is not set. The collection usage
+ * threshold is used where there is one, since it is measured right after a
+ * garbage collection and is not crossed by garbage that is about to be
+ * collected anyway. The young pools are left alone, they are full after
+ * every collection by design.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class HeapWatchdog {
+
+
+    /** The share of a pool that is used when the warning goes off, in percent. */
+    private static final int THRESHOLD_PERCENT =
+            Math.max(1, Math.min(99, Integer.getInteger("text.editor.heapWarning", 85)));
+
+
+    /** Whether the thresholds have been set. */
+    private static boolean started;
+
+
+    /**
+     * Private constructor so the HeapWatchdog class cannot be instantiated.
+     */
+    private HeapWatchdog() {}
+
+
+    /**
+     * Is told that the heap is running out.
+     */
+    public interface Listener {
+
+
+        /**
+         * Called on a thread of the JVM when a pool crosses its threshold.
+         *
+         * @param pool  The name of the pool.
+         * @param used  The amount of bytes used in the pool.
+         * @param max   The amount of bytes the pool may grow to.
+         */
+        void lowOnMemory(String pool, long used, long max);
+
+    }
+
+
+    /**
+     * Sets the thresholds and starts telling a listener when they are
+     * crossed. Only the first call has any effect.
+     *
+     * @param listener  The listener.
+     */
+    public static synchronized void start(Listener listener) {
+
+        if(started) {
+            return;
+        }
+        started = true;
+
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+
+            long max = pool.getUsage().getMax();
+            if(pool.getType() != MemoryType.HEAP || max <= 0 || !pool.isUsageThresholdSupported()) {
+                continue;
+            }
+
+            long threshold = max / 100 * THRESHOLD_PERCENT;
+            if(pool.isCollectionUsageThresholdSupported()) {
+                pool.setCollectionUsageThreshold(threshold);
+            } else {
+                pool.setUsageThreshold(threshold);
+            }
+        }
+
+        NotificationListener notifications = new NotificationListener() {
+            @Override
+            public void handleNotification(Notification notification, Object handback) {
+
+                String type = notification.getType();
+                if(!MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type)
+                        && !MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(type)) {
+                    return;
+                }
+
+                MemoryNotificationInfo info = MemoryNotificationInfo.from(
+                        (CompositeData)notification.getUserData());
+                MemoryUsage usage = info.getUsage();
+                listener.lowOnMemory(info.getPoolName(), usage.getUsed(), usage.getMax());
+            }
+        };
+
+        ((NotificationEmitter)ManagementFactory.getMemoryMXBean())
+                .addNotificationListener(notifications, null, null);
+
+    }
+
+
+    /**
+     * Returns how much of the heap is used right now.
+     *
+     * @return          The usage of the heap.
+     */
+    public static MemoryUsage getHeapUsage() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    }
+
+}
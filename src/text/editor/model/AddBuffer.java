@@ -0,0 +1,169 @@
+package text.editor.model;
+
+
+/**
+ * The append-only buffer of a piece table. Every character the user types or
+ * pastes is appended to the end of this buffer and is never moved or changed
+ * afterwards, so pieces can refer to it by offset for as long as they live.
+ *
+ * The characters are stored in fixed size chunks instead of one growing
+ * array. Appending never copies text that is already in the buffer, and a
+ * piece that refers to old text stays valid when the buffer grows.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+final class AddBuffer {
+
+
+    /** The number of bits used for the offset inside of a chunk. */
+    static final int CHUNK_BITS = 16;
+
+
+    /** The amount of characters that fit into a single chunk. */
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+
+    /** Mask to get the offset inside of a chunk from a buffer offset. */
+    static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+
+    /** The chunks that hold the characters. */
+    private char[][] chunks;
+
+
+    /** The amount of characters appended so far. */
+    private int length;
+
+
+    /** Default constructor for the AddBuffer. */
+    AddBuffer() {
+        chunks = new char[4][];
+    }
+
+
+    /**
+     * Returns the amount of characters appended to this buffer.
+     *
+     * @return          The length of the buffer.
+     */
+    int length() {
+        return length;
+    }
+
+
+    /**
+     * Returns the amount of bytes the chunks of the buffer take, including the
+     * part of the last chunk that is not used yet.
+     *
+     * @return          The amount of bytes.
+     */
+    long getHeapSize() {
+        long size = 16L * chunks.length;
+        for(char[] chunk : chunks) {
+            if(chunk != null) {
+                size += 2L * chunk.length;
+            }
+        }
+        return size;
+    }
+
+
+    /**
+     * Appends characters to the end of the buffer.
+     *
+     * @param s         The characters to append.
+     * @return          The offset the first character was stored at.
+     */
+    int append(CharSequence s) {
+
+        int start = length;
+        int count = s.length();
+        int done  = 0;
+
+        while(done < count) {
+
+            int chunk   = length >>> CHUNK_BITS;
+            int offset  = length & CHUNK_MASK;
+
+            if(chunk == chunks.length) {
+                char[][] grown = new char[chunks.length * 2][];
+                System.arraycopy(chunks, 0, grown, 0, chunks.length);
+                chunks = grown;
+            }
+
+            if(chunks[chunk] == null) {
+                chunks[chunk] = new char[CHUNK_SIZE];
+            }
+
+            int n = Math.min(count - done, CHUNK_SIZE - offset);
+            TextUtilities.getChars(s, done, done + n, chunks[chunk], offset);
+
+            done    += n;
+            length  += n;
+        }
+
+        return start;
+    }
+
+
+    /**
+     * Copies characters out of the buffer.
+     *
+     * @param start     The offset of the first character to copy.
+     * @param end       The offset after the last character to copy.
+     * @param dst       The array to copy the characters into.
+     * @param dstBegin  The index in dst to start copying to.
+     */
+    void getChars(int start, int end, char[] dst, int dstBegin) {
+        copy(chunks, start, end, dst, dstBegin);
+    }
+
+
+    /**
+     * Returns the chunk table of this buffer. The returned table can be read
+     * from as long as only offsets below the current length are used.
+     *
+     * @return          The chunk table.
+     */
+    char[][] chunks() {
+        return chunks;
+    }
+
+
+    /**
+     * Copies characters from a chunk table into an array.
+     *
+     * @param chunks    The chunk table.
+     * @param start     The offset of the first character to copy.
+     * @param end       The offset after the last character to copy.
+     * @param dst       The array to copy the characters into.
+     * @param dstBegin  The index in dst to start copying to.
+     */
+    static void copy(char[][] chunks, int start, int end, char[] dst, int dstBegin) {
+
+        while(start < end) {
+            int offset  = start & CHUNK_MASK;
+            int n       = Math.min(end - start, CHUNK_SIZE - offset);
+            System.arraycopy(chunks[start >>> CHUNK_BITS], offset, dst, dstBegin, n);
+            start       += n;
+            dstBegin    += n;
+        }
+
+    }
+
+
+    /**
+     * Returns a character from a chunk table.
+     *
+     * @param chunks    The chunk table.
+     * @param index     The offset of the character.
+     * @return          The character at the offset.
+     */
+    static char charAt(char[][] chunks, int index) {
+        return chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+}
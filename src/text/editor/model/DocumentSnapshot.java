@@ -0,0 +1,188 @@
+package text.editor.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+
+
+/**
+ * An immutable copy of a document: its text and the runs of character
+ * attributes on top of it. A snapshot can be written out on a background
+ * thread while the user keeps editing the document.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public final class DocumentSnapshot {
+
+
+    /** The text of the document. */
+    private final TextSnapshot text;
+
+
+    /** The runs of character attributes, or null if styles were not kept. */
+    private final List<StyleRun> styleRuns;
+
+
+    /**
+     * Constructor for a DocumentSnapshot.
+     *
+     * @param text      The text of the document.
+     * @param styleRuns The runs of character attributes, may be null.
+     */
+    public DocumentSnapshot(TextSnapshot text, List<StyleRun> styleRuns) {
+        this.text       = text;
+        this.styleRuns  = (styleRuns == null) ? null
+                                              : Collections.unmodifiableList(styleRuns);
+    }
+
+
+    /**
+     * Takes a snapshot of a document. The text is not copied, see
+     * TextSnapshot. The character attributes are only collected when they are
+     * needed, because that means visiting every run of text in the document
+     * under its read lock; the text of a PieceTableDocument on its own is the
+     * snapshot it published last, and can be taken on any thread without a
+     * lock. Otherwise this must be called on the Event Dispatch Thread or
+     * from a thread that is allowed to read the document.
+     *
+     * @param doc       The document.
+     * @param styles    Whether to keep the character attributes.
+     * @return          The snapshot.
+     * @throws BadLocationException if the document can not be read.
+     */
+    public static DocumentSnapshot of(Document doc, boolean styles)
+            throws BadLocationException {
+
+        if(!styles && doc instanceof PieceTableDocument) {
+            return new DocumentSnapshot(((PieceTableDocument)doc).getSnapshot(), null);
+        }
+
+        AbstractDocument lock = (doc instanceof AbstractDocument) ? (AbstractDocument)doc : null;
+
+        if(lock != null) {
+            lock.readLock();
+        }
+
+        try {
+
+            TextSnapshot text = TextSnapshot.of(doc);
+            List<StyleRun> runs = null;
+
+            if(styles) {
+
+                runs = new ArrayList<>();
+                Element root = doc.getDefaultRootElement();
+
+                for(int p = 0; p < root.getElementCount(); p++) {
+                    Element paragraph = root.getElement(p);
+                    for(int r = 0; r < paragraph.getElementCount(); r++) {
+                        Element run = paragraph.getElement(r);
+                        int end = Math.min(run.getEndOffset(), text.length());
+                        if(end > run.getStartOffset()) {
+                            runs.add(new StyleRun(run.getStartOffset(), end,
+                                                  run.getAttributes().copyAttributes()));
+                        }
+                    }
+                }
+
+            }
+
+            return new DocumentSnapshot(text, runs);
+
+        } finally {
+            if(lock != null) {
+                lock.readUnlock();
+            }
+        }
+
+    }
+
+
+    /**
+     * Returns the text of the document.
+     *
+     * @return          The text.
+     */
+    public TextSnapshot getText() {
+        return text;
+    }
+
+
+    /**
+     * Returns the runs of character attributes in document order.
+     *
+     * @return          The runs, or null if styles were not kept.
+     */
+    public List<StyleRun> getStyleRuns() {
+        return styleRuns;
+    }
+
+
+    /**
+     * A range of text that shares the same character attributes.
+     */
+    public static final class StyleRun {
+
+
+        /** The start and end of the run. */
+        private final int start, end;
+
+
+        /** The attributes of the run. */
+        private final AttributeSet attributes;
+
+
+        /**
+         * Constructor for a StyleRun.
+         *
+         * @param start         The start of the run.
+         * @param end           The end of the run.
+         * @param attributes    The attributes of the run, must not change.
+         */
+        public StyleRun(int start, int end, AttributeSet attributes) {
+            this.start      = start;
+            this.end        = end;
+            this.attributes = attributes;
+        }
+
+
+        /**
+         * Returns the start of the run.
+         *
+         * @return          The offset of the first character.
+         */
+        public int getStart() {
+            return start;
+        }
+
+
+        /**
+         * Returns the end of the run.
+         *
+         * @return          The offset after the last character.
+         */
+        public int getEnd() {
+            return end;
+        }
+
+
+        /**
+         * Returns the attributes of the run.
+         *
+         * @return          The attributes.
+         */
+        public AttributeSet getAttributes() {
+            return attributes;
+        }
+
+    }
+
+}
@@ -0,0 +1,606 @@
+package text.editor.model;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.swing.event.DocumentEvent;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Segment;
+
+
+/**
+ * Keeps the amount of words, lines and paragraphs of a PieceTableDocument up
+ * to date as it is edited.
+ *
+ * Every count is the amount of places in the text where something starts: a
+ * word starts at a character that is not white space after one that is, a
+ * paragraph at a character that is not a new line after one that is, and
+ * every new line starts a line. Whether a character starts something only
+ * depends on the character before it, so an edit changes the counts only
+ * inside the text it inserts or removes and at the character right after it.
+ * A keystroke costs a look at three characters, however big the document is.
+ *
+ * Edits that are too big to scan, and undone inserts whose text is already
+ * gone by the time the document says so, make the counts unknown. They are
+ * then counted again on a background thread from the snapshot the document
+ * published last, while the edits made in the meantime are added up on the
+ * side. The snapshot is taken without locking the document, so every edit
+ * comes with the version of the text it made, and only the edits that are
+ * newer than the snapshot are added to its counts.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class DocumentStatistics {
+
+
+    /** Stands for the character before the start or after the end of the text. */
+    private static final int NONE = -1;
+
+
+    /** The most characters an edit may have to be counted from its text. */
+    private static final int MAX_EDIT_SIZE = 1024 * 1024;
+
+
+    /** The amount of characters read at a time. */
+    private static final int SCAN_SIZE = 64 * 1024;
+
+
+    /** Counts documents again, one at a time, on a thread of its own. */
+    private static final ExecutorService COUNTER;
+
+    static {
+        COUNTER = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Document Statistics");
+                t.setDaemon(true);
+                t.setPriority(Thread.MIN_PRIORITY);
+                return t;
+            }
+        });
+    }
+
+
+    /** The document that is counted. */
+    private final PieceTableDocument doc;
+
+
+    /** The counts of the last snapshot that was counted. Guarded by this. */
+    private final Tally base        = new Tally();
+
+
+    /** What the edits since that snapshot added to it. Guarded by this. */
+    private final Tally edits       = new Tally();
+
+
+    /** The version of the text of that snapshot. Guarded by this. */
+    private long baseVersion;
+
+
+    /** Whether base plus edits are the counts of the document. Guarded by this. */
+    private boolean known;
+
+
+    /** Whether a snapshot is being counted. Guarded by this. */
+    private boolean counting;
+
+
+    /** Tells a count that is running whether it is still wanted. Guarded by this. */
+    private int generation;
+
+
+    /** Is told when a count in the background has finished. Guarded by this. */
+    private Runnable listener;
+
+
+    /** What the removal that is about to happen takes away, or null. Written under the write lock. */
+    private Tally removal;
+
+
+    /** The offset of that removal. */
+    private int removalOffset;
+
+
+    /** The length of that removal. */
+    private int removalLength;
+
+
+    /** Reads the text of the document. Only used under the write lock. */
+    private final Segment segment = new Segment();
+
+
+    /**
+     * Constructor for the statistics of a document.
+     *
+     * @param doc       The document.
+     * @param known     Whether the counts of the text the document starts with
+     *                  are all zero, which is the case when it is empty.
+     */
+    DocumentStatistics(PieceTableDocument doc, boolean known) {
+        this.doc    = doc;
+        this.known  = known;
+    }
+
+
+    /**
+     * Returns the counts of the document. If they are not known, counting
+     * them is started in the background, and the listener is told once they
+     * are. Should be called on the Event Dispatch Thread.
+     *
+     * @return          The counts.
+     */
+    public Counts getCounts() {
+
+        synchronized(this) {
+            if(known) {
+                return new Counts(doc.getLength(),
+                                  base.words + edits.words,
+                                  base.newLines + edits.newLines + 1,
+                                  base.paragraphs + edits.paragraphs,
+                                  true);
+            }
+        }
+
+        startCount();
+        return new Counts(doc.getLength(), 0, 0, 0, false);
+    }
+
+
+    /**
+     * Sets what is told when counting in the background has finished. It is
+     * run on the counting thread.
+     *
+     * @param listener  The listener, or null for none.
+     */
+    public synchronized void setListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+
+    /**
+     * Takes the snapshot the document published last and counts it in the
+     * background, unless that is already happening. The edits newer than the
+     * snapshot are added up on the side, to be added to its counts.
+     */
+    private void startCount() {
+
+        final TextSnapshot snapshot;
+        final int current;
+
+        synchronized(this) {
+            if(known || counting) {
+                return;
+            }
+            counting    = true;
+            current     = ++generation;
+            snapshot    = doc.getSnapshot();
+            baseVersion = snapshot.getVersion();
+            edits.clear();
+        }
+
+        COUNTER.execute(new Runnable() {
+            @Override
+            public void run() {
+                count(snapshot, current);
+            }
+        });
+
+    }
+
+
+    /**
+     * Counts a snapshot of the document and publishes the counts, unless an
+     * edit has made them useless in the meantime.
+     *
+     * @param snapshot      The text.
+     * @param current       The generation the count belongs to.
+     */
+    private void count(TextSnapshot snapshot, int current) {
+
+        Tally tally     = new Tally();
+        char[] buffer   = new char[SCAN_SIZE];
+        int previous    = NONE;
+        int length      = snapshot.length();
+
+        for(int offset = 0; offset < length; offset += SCAN_SIZE) {
+
+            synchronized(this) {
+                if(generation != current) {
+                    return;
+                }
+            }
+
+            int n = Math.min(SCAN_SIZE, length - offset);
+            snapshot.getChars(offset, offset + n, buffer, 0);
+            previous = tally.scan(buffer, 0, n, previous, 1);
+        }
+
+        Runnable toTell;
+
+        synchronized(this) {
+            if(generation != current) {
+                return;
+            }
+            base.set(tally);
+            known       = true;
+            counting    = false;
+            toTell      = listener;
+        }
+
+        if(toTell != null) {
+            toTell.run();
+        }
+
+    }
+
+
+    /**
+     * Forgets the counts, because an edit changed them by an amount that is
+     * not known. A count that is running is of no use anymore.
+     */
+    private synchronized void invalidate() {
+        known       = false;
+        counting    = false;
+        generation++;
+    }
+
+
+    /**
+     * Forgets the counts after a replace, which changed the text in too many
+     * places to go through. Called under the write lock.
+     */
+    void replaced() {
+        invalidate();
+    }
+
+
+    /**
+     * Adds what an edit changed to the counts, unless the snapshot that is
+     * counted already has the edit in it.
+     *
+     * @param tally     What the edit changed.
+     * @param version   The version of the text the edit made.
+     */
+    private synchronized void add(Tally tally, long version) {
+        if(version <= baseVersion) {
+            return;
+        }
+        edits.add(tally);
+    }
+
+
+    /**
+     * Adds the text of an insert to the counts. Called under the write lock,
+     * after the text has been inserted.
+     *
+     * @param offset    The offset of the insert.
+     * @param length    The length of the insert.
+     * @param version   The version of the text after the insert.
+     */
+    void inserted(int offset, int length, long version) {
+
+        if(length > MAX_EDIT_SIZE) {
+            invalidate();
+            return;
+        }
+
+        try {
+            add(change(offset, length, 1), version);
+        } catch (BadLocationException err) {
+            invalidate();
+        }
+
+    }
+
+
+    /**
+     * Works out what a removal takes away from the counts, while the text is
+     * still there. Called under the write lock, before the text is removed.
+     *
+     * @param offset    The offset of the removal.
+     * @param length    The length of the removal.
+     */
+    void removing(int offset, int length) {
+
+        removal = null;
+
+        if(length > MAX_EDIT_SIZE) {
+            return;
+        }
+
+        try {
+            removal         = change(offset, length, -1);
+            removalOffset   = offset;
+            removalLength   = length;
+        } catch (BadLocationException err) {
+            removal         = null;
+        }
+
+    }
+
+
+    /**
+     * Takes a removal off the counts once it has happened. A removal that
+     * was not announced by removing, like the undo of an insert, makes the
+     * counts unknown.
+     *
+     * @param e         The event of the removal.
+     * @param version   The version of the text after the removal.
+     */
+    void removed(DocumentEvent e, long version) {
+
+        if(removal != null
+                && removalOffset == e.getOffset()
+                && removalLength == e.getLength()) {
+            add(removal, version);
+        } else {
+            invalidate();
+        }
+
+        removal = null;
+    }
+
+
+    /**
+     * Counts what the text of an edit adds to the document: the starts inside
+     * the text, and the difference it makes to whether the character after it
+     * starts something.
+     *
+     * @param offset    The offset of the text.
+     * @param length    The length of the text.
+     * @param sign      1 for text that was inserted, -1 for text that is
+     *                  about to be removed.
+     * @return          The change.
+     * @throws BadLocationException if the text can not be read.
+     */
+    private Tally change(int offset, int length, int sign) throws BadLocationException {
+
+        Tally tally     = new Tally();
+        int before      = charAt(offset - 1);
+        int after       = charAt(offset + length);
+        int last        = before;
+
+        for(int i = offset; i < offset + length; i += segment.count) {
+            segment.setPartialReturn(true);
+            doc.getPieceTable().getChars(i, Math.min(SCAN_SIZE, offset + length - i), segment);
+            last = tally.scan(segment.array, segment.offset, segment.count, last, sign);
+        }
+
+        tally.add(last, after, sign);
+        tally.add(before, after, -sign);
+
+        return tally;
+    }
+
+
+    /**
+     * Returns a character of the document, without the implied new line at
+     * the end.
+     *
+     * @param offset    The offset of the character.
+     * @return          The character, or NONE outside of the text.
+     * @throws BadLocationException if the text can not be read.
+     */
+    private int charAt(int offset) throws BadLocationException {
+
+        if(offset < 0 || offset >= doc.getLength()) {
+            return NONE;
+        }
+
+        segment.setPartialReturn(false);
+        doc.getPieceTable().getChars(offset, 1, segment);
+        return segment.array[segment.offset];
+    }
+
+
+    /**
+     * Counts of a document at one moment.
+     */
+    public static final class Counts {
+
+
+        /** The amount of characters. */
+        private final int characters;
+
+
+        /** The amount of words. */
+        private final long words;
+
+
+        /** The amount of lines. */
+        private final long lines;
+
+
+        /** The amount of lines that are not empty. */
+        private final long paragraphs;
+
+
+        /** Whether the words, lines and paragraphs are known. */
+        private final boolean known;
+
+
+        /**
+         * Constructor for Counts.
+         *
+         * @param characters    The amount of characters.
+         * @param words         The amount of words.
+         * @param lines         The amount of lines.
+         * @param paragraphs    The amount of lines that are not empty.
+         * @param known         Whether the counts other than the characters
+         *                      are known.
+         */
+        Counts(int characters, long words, long lines, long paragraphs, boolean known) {
+            this.characters = characters;
+            this.words      = words;
+            this.lines      = lines;
+            this.paragraphs = paragraphs;
+            this.known      = known;
+        }
+
+
+        /**
+         * Returns the amount of characters, which is always known.
+         *
+         * @return          The amount of characters.
+         */
+        public int getCharacters() {
+            return characters;
+        }
+
+
+        /**
+         * Returns the amount of runs of characters that are not white space.
+         *
+         * @return          The amount of words.
+         */
+        public long getWords() {
+            return words;
+        }
+
+
+        /**
+         * Returns the amount of lines, one more than the new lines.
+         *
+         * @return          The amount of lines.
+         */
+        public long getLines() {
+            return lines;
+        }
+
+
+        /**
+         * Returns the amount of lines that are not empty.
+         *
+         * @return          The amount of paragraphs.
+         */
+        public long getParagraphs() {
+            return paragraphs;
+        }
+
+
+        /**
+         * Returns false while the document is still being counted, in which
+         * case only the characters are right.
+         *
+         * @return          Whether the counts are known.
+         */
+        public boolean isKnown() {
+            return known;
+        }
+
+    }
+
+
+    /**
+     * A running count of the starts of words, lines and paragraphs.
+     */
+    private static final class Tally {
+
+
+        /** The amount of words. */
+        long words;
+
+
+        /** The amount of new lines. */
+        long newLines;
+
+
+        /** The amount of paragraphs. */
+        long paragraphs;
+
+
+        /**
+         * Counts whether a character starts something.
+         *
+         * @param previous  The character before it, or NONE.
+         * @param c         The character, or NONE.
+         * @param sign      1 to add it, -1 to take it away.
+         */
+        void add(int previous, int c, int sign) {
+
+            if(c == NONE) {
+                return;
+            }
+
+            if(c == '\n') {
+                newLines += sign;
+            } else if(previous == NONE || previous == '\n') {
+                paragraphs += sign;
+            }
+
+            if(!isSpace(c) && (previous == NONE || isSpace(previous))) {
+                words += sign;
+            }
+
+        }
+
+
+        /**
+         * Counts the starts in a run of characters.
+         *
+         * @param text      The characters.
+         * @param offset    The first character.
+         * @param length    The amount of characters.
+         * @param previous  The character before the first one, or NONE.
+         * @param sign      1 to add them, -1 to take them away.
+         * @return          The last character, or previous if there are none.
+         */
+        int scan(char[] text, int offset, int length, int previous, int sign) {
+            for(int i = offset; i < offset + length; i++) {
+                add(previous, text[i], sign);
+                previous = text[i];
+            }
+            return previous;
+        }
+
+
+        /**
+         * Adds another tally to this one.
+         *
+         * @param other     The tally to add.
+         */
+        void add(Tally other) {
+            words       += other.words;
+            newLines    += other.newLines;
+            paragraphs  += other.paragraphs;
+        }
+
+
+        /**
+         * Makes this tally the same as another one.
+         *
+         * @param other     The tally to copy.
+         */
+        void set(Tally other) {
+            words       = other.words;
+            newLines    = other.newLines;
+            paragraphs  = other.paragraphs;
+        }
+
+
+        /**
+         * Sets every count to zero.
+         */
+        void clear() {
+            words       = 0;
+            newLines    = 0;
+            paragraphs  = 0;
+        }
+
+
+        /**
+         * Returns true for characters words are separated by.
+         *
+         * @param c     The character.
+         * @return      Whether it is white space.
+         */
+        private static boolean isSpace(int c) {
+            return Character.isWhitespace(c) || Character.isSpaceChar(c);
+        }
+
+    }
+
+}
@@ -0,0 +1,638 @@
+package text.editor.model;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.text.Position;
+
+
+/**
+ * Keeps track of the Positions handed out by a PieceTableContent.
+ *
+ * The marks use the same trick as the marks of javax.swing.text.GapContent.
+ * Every mark stores an index into a virtual gap buffer instead of its offset.
+ * Marks before the gap store their offset, marks after the gap store their
+ * offset plus the size of the gap. An edit moves the gap to the edit location
+ * and only the marks between the old and the new gap location are touched, so
+ * typing in one place costs nothing no matter how many paragraphs (and
+ * therefore marks) the document has. The gap never holds any characters, the
+ * characters themselves live in the pieces.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+final class MarkTable {
+
+
+    /** The initial size of the virtual gap. */
+    private static final long GAP_SIZE = 1L << 40;
+
+
+    /** The offset the virtual gap starts at. */
+    private long gapStart;
+
+
+    /** The index the virtual gap ends at. */
+    private long gapEnd;
+
+
+    /** The marks sorted by index. */
+    private MarkVector marks;
+
+
+    /** Where the last search of the marks ended up, a hint for the next one. */
+    private int lastSortIndex;
+
+
+    /** Used when searching for the place to start updating marks. */
+    private final Mark search;
+
+
+    /** The queue that collects Positions that are no longer referenced. */
+    private final ReferenceQueue<StickyPosition> queue;
+
+
+    /** The amount of marks whose Position has been garbage collected. */
+    private int unusedMarks;
+
+
+    /** Default constructor for the MarkTable. */
+    MarkTable() {
+        gapStart    = 0;
+        gapEnd      = GAP_SIZE;
+        marks       = new MarkVector(16);
+        search      = new Mark(0, null, null);
+        queue       = new ReferenceQueue<>();
+    }
+
+
+    /**
+     * Creates a Position that tracks the given offset as the content changes.
+     * An existing Position is handed out if there already is one at the same
+     * place.
+     *
+     * @param offset    The offset to track.
+     * @return          The Position.
+     */
+    Position createPosition(int offset) {
+
+        while(queue.poll() != null) {
+            unusedMarks++;
+        }
+
+        if(unusedMarks > Math.max(5, marks.size() / 10)) {
+            removeUnusedMarks();
+        }
+
+        long index = (offset < gapStart) ? offset : offset + (gapEnd - gapStart);
+        search.index = index;
+        int sortIndex = findSortIndex(search);
+
+        Mark mark;
+        StickyPosition position;
+        if(sortIndex < marks.size()
+                && (mark = marks.elementAt(sortIndex)).index == index
+                && (position = mark.get()) != null) {
+            return position;
+        }
+
+        position    = new StickyPosition();
+        mark        = new Mark(index, position, queue);
+        position.mark = mark;
+        marks.insertElementAt(mark, sortIndex);
+
+        return position;
+    }
+
+
+    /**
+     * Updates the marks for characters inserted at an offset. Marks at the
+     * offset move along with the text after it, except for marks at zero.
+     *
+     * @param where     The offset the characters were inserted at.
+     * @param length    The amount of characters inserted.
+     */
+    void insert(int where, int length) {
+
+        if(length == 0) {
+            return;
+        }
+
+        shiftGap(where);
+
+        if(length >= gapEnd - gapStart) {
+            shiftEnd(gapEnd + length + GAP_SIZE);
+        }
+
+        gapStart += length;
+    }
+
+
+    /**
+     * Updates the marks for characters removed at an offset. Marks inside of
+     * the removed range are collapsed onto the offset.
+     *
+     * @param where     The offset the characters were removed at.
+     * @param length    The amount of characters removed.
+     */
+    void remove(int where, int length) {
+
+        if(length == 0) {
+            return;
+        }
+
+        shiftGap(where);
+        shiftGapEndUp(gapEnd + length);
+    }
+
+
+    /**
+     * Returns the current offset of a mark.
+     *
+     * @param mark      The mark.
+     * @return          The offset of the mark.
+     */
+    private int offsetOf(Mark mark) {
+        long offset = (mark.index < gapStart) ? mark.index : mark.index - (gapEnd - gapStart);
+        return (int)Math.max(offset, 0);
+    }
+
+
+    /**
+     * Moves the start of the gap to a new offset without changing the size of
+     * the gap, and updates the marks the gap moved over.
+     *
+     * @param newGapStart   The new start of the gap.
+     */
+    private void shiftGap(long newGapStart) {
+
+        long dg         = newGapStart - gapStart;
+        long gapSize    = gapEnd - gapStart;
+        long newGapEnd  = gapEnd + dg;
+
+        if(dg > 0) {
+            // Move gap up, move marks down.
+            int n = marks.size();
+            for(int i = findMarkAdjustIndex(gapStart); i < n; i++) {
+                Mark mark = marks.elementAt(i);
+                if(mark.index >= newGapEnd) {
+                    break;
+                }
+                mark.index -= gapSize;
+            }
+        } else if(dg < 0) {
+            // Move gap down, move marks up.
+            int n = marks.size();
+            for(int i = findMarkAdjustIndex(newGapStart); i < n; i++) {
+                Mark mark = marks.elementAt(i);
+                if(mark.index >= gapEnd) {
+                    break;
+                }
+                mark.index += gapSize;
+            }
+        }
+
+        gapStart    = newGapStart;
+        gapEnd      = newGapEnd;
+
+        resetMarksAtZero();
+    }
+
+
+    /**
+     * Makes the gap bigger by moving its end, moving every mark after the gap
+     * along with it.
+     *
+     * @param newGapEnd     The new end of the gap.
+     */
+    private void shiftEnd(long newGapEnd) {
+
+        long dg = newGapEnd - gapEnd;
+        int n   = marks.size();
+        for(int i = findMarkAdjustIndex(gapEnd); i < n; i++) {
+            marks.elementAt(i).index += dg;
+        }
+
+        gapEnd = newGapEnd;
+    }
+
+
+    /**
+     * Moves the end of the gap upward. All marks from the old end of the gap
+     * up to the new one are squeezed to the end of the gap, because their
+     * location has been removed.
+     *
+     * @param newGapEnd     The new end of the gap.
+     */
+    private void shiftGapEndUp(long newGapEnd) {
+
+        int n = marks.size();
+        for(int i = findMarkAdjustIndex(gapEnd); i < n; i++) {
+            Mark mark = marks.elementAt(i);
+            if(mark.index >= newGapEnd) {
+                break;
+            }
+            mark.index = newGapEnd;
+        }
+
+        gapEnd = newGapEnd;
+
+        resetMarksAtZero();
+    }
+
+
+    /**
+     * Resets all marks that have an offset of zero to an index of zero, so
+     * they stay at the start of the document when text is inserted there.
+     */
+    private void resetMarksAtZero() {
+
+        if(gapStart != 0) {
+            return;
+        }
+
+        int n = marks.size();
+        for(int i = 0; i < n; i++) {
+            Mark mark = marks.elementAt(i);
+            if(mark.index > gapEnd) {
+                break;
+            }
+            mark.index = 0;
+        }
+
+    }
+
+
+    /**
+     * Returns the marks in a range of offsets along with their current
+     * offsets. Used by the undo support of the content to put the marks back
+     * where they were when a removal is undone.
+     *
+     * @param offset    The start of the range.
+     * @param length    The length of the range.
+     * @return          The marks in the range.
+     */
+    List<UndoPosition> getPositionsInRange(int offset, int length) {
+
+        int end = offset + length;
+        int startIndex, endIndex;
+
+        if(offset < gapStart) {
+            startIndex = (offset == 0) ? 0 : findMarkAdjustIndex(offset);
+            endIndex   = (end >= gapStart)
+                            ? findMarkAdjustIndex(end + (gapEnd - gapStart) + 1)
+                            : findMarkAdjustIndex(end + 1);
+        } else {
+            startIndex = findMarkAdjustIndex(offset + (gapEnd - gapStart));
+            endIndex   = findMarkAdjustIndex(end + (gapEnd - gapStart) + 1);
+        }
+
+        List<UndoPosition> positions = new ArrayList<>(Math.max(1, endIndex - startIndex));
+        for(int i = startIndex; i < endIndex; i++) {
+            Mark mark = marks.elementAt(i);
+            positions.add(new UndoPosition(mark, offsetOf(mark)));
+        }
+
+        return positions;
+    }
+
+
+    /**
+     * Puts marks back where they were before a removal, after the removed
+     * characters have been inserted again.
+     *
+     * @param positions The marks returned by getPositionsInRange.
+     * @param offset    The offset the characters were inserted at.
+     * @param length    The amount of characters inserted.
+     */
+    void updateUndoPositions(List<UndoPosition> positions, int offset, int length) {
+
+        int end     = offset + length;
+        long g1     = gapEnd;
+        int endIndex    = findMarkAdjustIndex(g1 + 1);
+        int startIndex  = (offset != 0) ? findMarkAdjustIndex(g1) : 0;
+
+        for(int i = positions.size() - 1; i >= 0; i--) {
+            UndoPosition ref = positions.get(i);
+            ref.mark.index = (ref.offset != end) ? ref.offset : g1;
+        }
+
+        /*
+            The marks in the range are still in increasing order, except for
+            the ones that were squeezed to the end of the gap (or to zero if
+            the offset is zero). Move those to the right place.
+        */
+        if(startIndex < endIndex) {
+
+            Mark[] sorted   = new Mark[endIndex - startIndex];
+            int add         = 0;
+            long squeezed   = (offset == 0) ? 0 : g1;
+
+            for(int i = startIndex; i < endIndex; i++) {
+                Mark mark = marks.elementAt(i);
+                if((offset == 0) == (mark.index == squeezed)) {
+                    sorted[add++] = mark;
+                }
+            }
+
+            for(int i = startIndex; i < endIndex; i++) {
+                Mark mark = marks.elementAt(i);
+                if((offset == 0) != (mark.index == squeezed)) {
+                    sorted[add++] = mark;
+                }
+            }
+
+            marks.replaceRange(startIndex, sorted);
+        }
+
+    }
+
+
+    /**
+     * Finds the first mark at or after a given index.
+     *
+     * @param searchIndex   The index to search for.
+     * @return              The index into the sorted marks.
+     */
+    private int findMarkAdjustIndex(long searchIndex) {
+
+        search.index = Math.max(searchIndex, 1);
+        int index = findSortIndex(search);
+
+        // Return the first of any duplicates.
+        for(int i = index - 1; i >= 0; i--) {
+            if(marks.elementAt(i).index != search.index) {
+                break;
+            }
+            index--;
+        }
+
+        return index;
+    }
+
+
+    /**
+     * Finds where a mark belongs in the sorted marks.
+     *
+     * @param m         The mark to find a place for.
+     * @return          The index into the sorted marks.
+     */
+    private int findSortIndex(Mark m) {
+
+        int lower = 0;
+        int upper = marks.size() - 1;
+        int mid   = 0;
+
+        if(upper == -1) {
+            return 0;
+        }
+
+        /*
+            Positions are mostly created in order, often at the same place as
+            the last one (where one paragraph ends the next one starts), so
+            check the end before searching.
+        */
+        long last = marks.elementAt(upper).index;
+        if(m.index > last) {
+            return upper + 1;
+        } else if(m.index == last) {
+            return upper;
+        }
+
+        /*
+            A replace moves the marks and builds paragraphs again from the
+            start of the text to the end, so most searches end up a few marks
+            from the one before. Look around there before searching.
+        */
+        int hint = Math.min(lastSortIndex, upper);
+        for(int step = 0; step < 8; step++) {
+            boolean after   = hint == 0 || marks.elementAt(hint - 1).index < m.index;
+            boolean before  = marks.elementAt(hint).index >= m.index;
+            if(after && before) {
+                lastSortIndex = hint;
+                return hint;
+            }
+            hint += after ? 1 : -1;
+            if(hint > upper) {
+                break;
+            }
+        }
+
+        long cmp = 0;
+        while(lower <= upper) {
+            mid = lower + ((upper - lower) / 2);
+            cmp = m.index - marks.elementAt(mid).index;
+
+            if(cmp == 0) {
+                lastSortIndex = mid;
+                return mid;
+            } else if(cmp < 0) {
+                upper = mid - 1;
+            } else {
+                lower = mid + 1;
+            }
+        }
+
+        lastSortIndex = (cmp < 0) ? mid : mid + 1;
+        return lastSortIndex;
+    }
+
+
+    /**
+     * Removes the marks whose Position has been garbage collected.
+     */
+    private void removeUnusedMarks() {
+
+        int n = marks.size();
+        MarkVector cleaned = new MarkVector(Math.max(16, n));
+        for(int i = 0; i < n; i++) {
+            Mark mark = marks.elementAt(i);
+            if(mark.get() != null) {
+                cleaned.insertElementAt(mark, cleaned.size());
+            }
+        }
+
+        marks       = cleaned;
+        unusedMarks = 0;
+    }
+
+
+    /**
+     * Holds the index of a Position separately from the Position itself, so
+     * the Position can be garbage collected once nothing refers to it.
+     */
+    static final class Mark extends WeakReference<StickyPosition> {
+
+
+        /** The index of the mark in the virtual gap buffer. */
+        long index;
+
+
+        /**
+         * Constructor for a Mark.
+         *
+         * @param index     The index in the virtual gap buffer.
+         * @param position  The Position the mark belongs to.
+         * @param queue     The queue to register the Position with.
+         */
+        Mark(long index, StickyPosition position,
+             ReferenceQueue<? super StickyPosition> queue) {
+            super(position, queue);
+            this.index = index;
+        }
+
+    }
+
+
+    /**
+     * The Position handed out to the document.
+     */
+    final class StickyPosition implements Position {
+
+
+        /** The mark holding the location of this Position. */
+        Mark mark;
+
+
+        @Override
+        public int getOffset() {
+            return offsetOf(mark);
+        }
+
+
+        @Override
+        public String toString() {
+            return Integer.toString(getOffset());
+        }
+
+    }
+
+
+    /**
+     * A mark along with the offset it had before a removal.
+     */
+    static final class UndoPosition {
+
+
+        /** The mark. */
+        final Mark mark;
+
+
+        /** The offset of the mark before the removal. */
+        final int offset;
+
+
+        /**
+         * Constructor for an UndoPosition.
+         *
+         * @param mark      The mark.
+         * @param offset    The offset of the mark before the removal.
+         */
+        UndoPosition(Mark mark, int offset) {
+            this.mark   = mark;
+            this.offset = offset;
+        }
+
+    }
+
+
+    /**
+     * A gap buffer of marks. Marks are created close to where the user is
+     * editing, so keeping a gap there makes inserting them cheap.
+     */
+    static final class MarkVector {
+
+
+        /** The array holding the marks and the gap. */
+        private Mark[] array;
+
+
+        /** The start and end of the gap in the array. */
+        private int g0, g1;
+
+
+        /**
+         * Constructor for a MarkVector.
+         *
+         * @param capacity  The initial capacity.
+         */
+        MarkVector(int capacity) {
+            array   = new Mark[capacity];
+            g0      = 0;
+            g1      = capacity;
+        }
+
+
+        /**
+         * Returns the amount of marks held.
+         *
+         * @return      The amount of marks.
+         */
+        int size() {
+            return array.length - (g1 - g0);
+        }
+
+
+        /**
+         * Returns the mark at an index.
+         *
+         * @param index The index.
+         * @return      The mark.
+         */
+        Mark elementAt(int index) {
+            return array[(index < g0) ? index : index + (g1 - g0)];
+        }
+
+
+        /**
+         * Inserts a mark at an index.
+         *
+         * @param mark  The mark to insert.
+         * @param index The index to insert it at.
+         */
+        void insertElementAt(Mark mark, int index) {
+
+            if(g0 == g1) {
+                Mark[] grown = new Mark[Math.max(16, array.length * 2)];
+                int tail = array.length - g1;
+                System.arraycopy(array, 0, grown, 0, g0);
+                System.arraycopy(array, g1, grown, grown.length - tail, tail);
+                g1      = grown.length - tail;
+                array   = grown;
+            }
+
+            if(index < g0) {
+                int n = g0 - index;
+                System.arraycopy(array, index, array, g1 - n, n);
+                g0 -= n;
+                g1 -= n;
+            } else if(index > g0) {
+                int n = index - g0;
+                System.arraycopy(array, g1, array, g0, n);
+                g0 += n;
+                g1 += n;
+            }
+
+            array[g0++] = mark;
+        }
+
+
+        /**
+         * Replaces the marks starting at an index.
+         *
+         * @param start     The index of the first mark to replace.
+         * @param replaced  The marks to put there.
+         */
+        void replaceRange(int start, Mark[] replaced) {
+            for(int i = 0; i < replaced.length; i++) {
+                int index = start + i;
+                array[(index < g0) ? index : index + (g1 - g0)] = replaced[i];
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,390 @@
+package text.editor.model;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * A node in the tree of pieces that make up the text of a PieceTableContent.
+ *
+ * Each piece refers to a range of either the original buffer or the add
+ * buffer. The pieces are kept in a treap ordered by their position in the
+ * document, and every node knows the amount of characters in its subtree, so
+ * finding the piece at an offset takes logarithmic time.
+ *
+ * Pieces are immutable. Splitting, joining, inserting and removing copy only
+ * the nodes on the path to the change and share the rest, so an old root
+ * still describes the text exactly as it was. The undo support of the content
+ * uses that to hold on to removed text without copying it.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+final class Piece {
+
+
+    /** The children of this node. */
+    final Piece left, right;
+
+
+    /** The heap priority of this node. */
+    final int priority;
+
+
+    /** True if this piece refers to the add buffer, false for the original. */
+    final boolean added;
+
+
+    /** The offset of the first character of this piece in its buffer. */
+    final int start;
+
+
+    /** The amount of characters in this piece. */
+    final int length;
+
+
+    /** The amount of characters in this subtree. */
+    final int size;
+
+
+    /** The amount of pieces in this subtree. */
+    final int count;
+
+
+    /**
+     * Constructor for a Piece.
+     *
+     * @param left      The left child.
+     * @param right     The right child.
+     * @param priority  The heap priority.
+     * @param added     Whether the piece refers to the add buffer.
+     * @param start     The offset in the buffer.
+     * @param length    The amount of characters.
+     */
+    private Piece(Piece left, Piece right, int priority,
+                  boolean added, int start, int length) {
+        this.left       = left;
+        this.right      = right;
+        this.priority   = priority;
+        this.added      = added;
+        this.start      = start;
+        this.length     = length;
+        this.size       = size(left) + length + size(right);
+        this.count      = count(left) + 1 + count(right);
+    }
+
+
+    /**
+     * Creates a tree that holds a single piece.
+     *
+     * @param added     Whether the piece refers to the add buffer.
+     * @param start     The offset in the buffer.
+     * @param length    The amount of characters.
+     * @return          The tree, or null if length is zero.
+     */
+    static Piece of(boolean added, int start, int length) {
+        if(length == 0) {
+            return null;
+        }
+        return new Piece(null, null, ThreadLocalRandom.current().nextInt(),
+                         added, start, length);
+    }
+
+
+    /**
+     * Returns a copy of this node with different children.
+     *
+     * @param l         The new left child.
+     * @param r         The new right child.
+     * @return          The copy.
+     */
+    private Piece with(Piece l, Piece r) {
+        return new Piece(l, r, priority, added, start, length);
+    }
+
+
+    /**
+     * Returns the amount of characters in a tree.
+     *
+     * @param t         The tree, may be null.
+     * @return          The amount of characters.
+     */
+    static int size(Piece t) {
+        return (t == null) ? 0 : t.size;
+    }
+
+
+    /**
+     * Returns the amount of pieces in a tree.
+     *
+     * @param t         The tree, may be null.
+     * @return          The amount of pieces.
+     */
+    static int count(Piece t) {
+        return (t == null) ? 0 : t.count;
+    }
+
+
+    /**
+     * Joins two trees. Every character of a comes before every character of b.
+     *
+     * @param a         The first tree, may be null.
+     * @param b         The second tree, may be null.
+     * @return          The joined tree.
+     */
+    static Piece merge(Piece a, Piece b) {
+
+        if(a == null) {
+            return b;
+        }
+        if(b == null) {
+            return a;
+        }
+
+        if(a.priority >= b.priority) {
+            return a.with(a.left, merge(a.right, b));
+        } else {
+            return b.with(merge(a, b.left), b.right);
+        }
+
+    }
+
+
+    /**
+     * Splits a tree in two at an offset. A piece that contains the offset is
+     * cut into two pieces.
+     *
+     * @param t         The tree.
+     * @param offset    The amount of characters that go into the left tree.
+     * @return          The left and the right tree.
+     */
+    static Piece[] split(Piece t, int offset) {
+
+        if(t == null) {
+            return new Piece[] {null, null};
+        }
+
+        int leftSize = size(t.left);
+
+        if(offset <= leftSize) {
+            Piece[] parts = split(t.left, offset);
+            parts[1] = t.with(parts[1], t.right);
+            return parts;
+        }
+
+        int pieceEnd = leftSize + t.length;
+
+        if(offset >= pieceEnd) {
+            Piece[] parts = split(t.right, offset - pieceEnd);
+            parts[0] = t.with(t.left, parts[0]);
+            return parts;
+        }
+
+        /*
+            The offset is inside of this piece, so cut it in two. Both halves
+            keep the priority of the original node, which is still higher
+            than the priority of either of its children.
+        */
+        int cut = offset - leftSize;
+        Piece head = new Piece(t.left, null, t.priority, t.added, t.start, cut);
+        Piece tail = new Piece(null, t.right, t.priority, t.added,
+                               t.start + cut, t.length - cut);
+
+        return new Piece[] {head, tail};
+    }
+
+
+    /**
+     * Returns the last piece of a tree.
+     *
+     * @param t         The tree, may be null.
+     * @return          The last piece, or null if the tree is empty.
+     */
+    static Piece last(Piece t) {
+        if(t == null) {
+            return null;
+        }
+        while(t.right != null) {
+            t = t.right;
+        }
+        return t;
+    }
+
+
+    /**
+     * Returns a copy of a tree with its last piece made longer.
+     *
+     * @param t         The tree, not null.
+     * @param n         The amount of characters to add to the last piece.
+     * @return          The new tree.
+     */
+    static Piece growLast(Piece t, int n) {
+        if(t.right == null) {
+            return new Piece(t.left, null, t.priority, t.added, t.start, t.length + n);
+        }
+        return t.with(t.left, growLast(t.right, n));
+    }
+
+
+    /**
+     * Calls a visitor for every piece of a tree, in the order they are in the
+     * text.
+     *
+     * @param t         The tree, may be null.
+     * @param visitor   The visitor.
+     */
+    static void forEach(Piece t, Visitor visitor) {
+
+        Deque<Piece> path = new ArrayDeque<>();
+
+        while(t != null || !path.isEmpty()) {
+            while(t != null) {
+                path.push(t);
+                t = t.left;
+            }
+            t = path.pop();
+            visitor.visit(t.added, t.start, t.length);
+            t = t.right;
+        }
+
+    }
+
+
+    /**
+     * Is told about the pieces of a tree one after the other.
+     */
+    interface Visitor {
+
+        /**
+         * Visits a piece.
+         *
+         * @param added     Whether the piece refers to the add buffer.
+         * @param start     The offset in the buffer.
+         * @param length    The amount of characters.
+         */
+        void visit(boolean added, int start, int length);
+
+    }
+
+
+    /**
+     * Builds a tree out of pieces that are given in the order they are in the
+     * text, in linear time, instead of merging them into a tree one at a
+     * time. A piece that goes on right where the one before it ends in the
+     * same buffer is joined to it.
+     *
+     * The pieces get random priorities and are put into a tree with a stack,
+     * the way a Cartesian tree is built, so the tree is a treap like the ones
+     * merge builds. Only then are the nodes created, from the bottom up, since
+     * they can not be changed afterwards.
+     */
+    static final class Builder implements Visitor {
+
+
+        /** Whether each piece refers to the add buffer. */
+        private boolean[] added = new boolean[16];
+
+
+        /** The offsets of the pieces in their buffers. */
+        private int[] starts = new int[16];
+
+
+        /** The lengths of the pieces. */
+        private int[] lengths = new int[16];
+
+
+        /** The amount of pieces. */
+        private int size;
+
+
+        @Override
+        public void visit(boolean isAdded, int start, int length) {
+
+            if(length == 0) {
+                return;
+            }
+
+            int last = size - 1;
+            if(last >= 0 && added[last] == isAdded && starts[last] + lengths[last] == start) {
+                lengths[last] += length;
+                return;
+            }
+
+            if(size == starts.length) {
+                added   = Arrays.copyOf(added, size * 2);
+                starts  = Arrays.copyOf(starts, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+
+            added[size]     = isAdded;
+            starts[size]    = start;
+            lengths[size]   = length;
+            size++;
+        }
+
+
+        /**
+         * Builds the tree of the pieces that were added.
+         *
+         * @return          The tree, or null if there are none.
+         */
+        Piece build() {
+
+            if(size == 0) {
+                return null;
+            }
+
+            ThreadLocalRandom random    = ThreadLocalRandom.current();
+            int[] priorities            = new int[size];
+            int[] lefts                 = new int[size];
+            int[] rights                = new int[size];
+            int[] stack                 = new int[size];
+            int top                     = -1;
+
+            for(int i = 0; i < size; i++) {
+
+                priorities[i]   = random.nextInt();
+                lefts[i]        = -1;
+                rights[i]       = -1;
+
+                int child = -1;
+                while(top >= 0 && priorities[stack[top]] < priorities[i]) {
+                    child = stack[top--];
+                }
+                lefts[i] = child;
+                if(top >= 0) {
+                    rights[stack[top]] = i;
+                }
+                stack[++top] = i;
+            }
+
+            return node(stack[0], priorities, lefts, rights);
+        }
+
+
+        /**
+         * Creates the node of a piece after the nodes of its children. The
+         * depth of a treap is logarithmic, so the recursion stays shallow.
+         *
+         * @param i             The index of the piece, or -1.
+         * @param priorities    The priorities of the pieces.
+         * @param lefts         The left children of the pieces.
+         * @param rights        The right children of the pieces.
+         * @return              The node, or null if i is -1.
+         */
+        private Piece node(int i, int[] priorities, int[] lefts, int[] rights) {
+            if(i == -1) {
+                return null;
+            }
+            return new Piece(node(lefts[i], priorities, lefts, rights),
+                             node(rights[i], priorities, lefts, rights),
+                             priorities[i], added[i], starts[i], lengths[i]);
+        }
+
+    }
+
+}
@@ -0,0 +1,670 @@
+package text.editor.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+
+
+/**
+ * Document content stored as a piece table.
+ *
+ * The text of the document is never stored in one big array. The original
+ * text (for example a file that was opened) is kept in a read-only buffer,
+ * and everything typed afterwards is appended to an add buffer. The document
+ * itself is a sequence of pieces that each refer to a range of one of the two
+ * buffers. Inserting or removing text only splits and joins pieces, so an
+ * edit costs about the same near the start of a 300 MB file as it does at the
+ * end, and the original text is never copied.
+ *
+ * Every change publishes an immutable TextSnapshot of the text in a volatile
+ * field. The pieces and the buffers are shared with the snapshot, so it is
+ * only a small object, and worker threads can read the latest text without
+ * taking the lock of the document while the Event Dispatch Thread keeps
+ * editing it.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class PieceTableContent implements AbstractDocument.Content {
+
+
+    /** The read-only buffer holding the original text. */
+    private final CharSequence original;
+
+
+    /** The append-only buffer holding all text inserted afterwards. */
+    private final AddBuffer added;
+
+
+    /** The root of the tree of pieces that make up the text. */
+    private Piece root;
+
+
+    /** Keeps track of the Positions created for this content. */
+    private final MarkTable marks;
+
+
+    /** The amount of changes made to the text. Only changed under the write lock. */
+    private long version;
+
+
+    /** The text after the last change, without the implied line break. */
+    private volatile TextSnapshot published;
+
+
+    /**
+     * Default constructor for the PieceTableContent. The content will only
+     * hold the implied line break at the end of every document.
+     */
+    public PieceTableContent() {
+        this("");
+    }
+
+
+    /**
+     * Creates content backed by the original text. The text is not copied, so
+     * it must not change afterwards. The implied line break at the end of
+     * every document is added after the original text.
+     *
+     * @param original      The original text.
+     */
+    public PieceTableContent(CharSequence original) {
+
+        this.original   = original;
+        this.added      = new AddBuffer();
+        this.marks      = new MarkTable();
+
+        int brk = added.append("\n");
+        root = Piece.merge(Piece.of(false, 0, original.length()),
+                           Piece.of(true, brk, 1));
+        publish();
+    }
+
+
+    @Override
+    public Position createPosition(int offset) throws BadLocationException {
+        return marks.createPosition(offset);
+    }
+
+
+    @Override
+    public int length() {
+        return Piece.size(root);
+    }
+
+
+    @Override
+    public UndoableEdit insertString(int where, String str) throws BadLocationException {
+
+        if(where < 0 || where > length()) {
+            throw new BadLocationException("Invalid insert", length());
+        }
+
+        int start = added.append(str);
+        Piece[] parts = Piece.split(root, where);
+
+        /*
+            Typing appends to the add buffer right after the text typed just
+            before it, so most of the time the piece in front of the caret can
+            simply be made longer instead of adding a new piece.
+        */
+        Piece last = Piece.last(parts[0]);
+        if(last != null && last.added && last.start + last.length == start) {
+            parts[0] = Piece.growLast(parts[0], str.length());
+        } else {
+            parts[0] = Piece.merge(parts[0], Piece.of(true, start, str.length()));
+        }
+
+        root = Piece.merge(parts[0], parts[1]);
+        marks.insert(where, str.length());
+        publish();
+
+        return new InsertUndo(where, str.length());
+    }
+
+
+    @Override
+    public UndoableEdit remove(int where, int nitems) throws BadLocationException {
+
+        if(where < 0 || nitems < 0 || where + nitems >= length()) {
+            throw new BadLocationException("Invalid remove", length() + 1);
+        }
+
+        List<MarkTable.UndoPosition> positions = marks.getPositionsInRange(where, nitems);
+        Piece removed = cut(where, nitems);
+
+        return new RemoveUndo(where, removed, positions);
+    }
+
+
+    /**
+     * Replaces ranges of the text in one pass, as a single edit. The text of
+     * all replacements is appended to the add buffer at once, the pieces are
+     * walked from the first to the last to build the new tree in linear time,
+     * and a single snapshot is published at the end. The marks move the way they
+     * would if every range was removed and its replacement inserted.
+     *
+     * @param replacements  The ranges and their replacements.
+     * @return              The edit that undoes all of the replacements.
+     * @throws BadLocationException if a range is not inside of the text, is
+     *                      empty, or the ranges are out of order.
+     */
+    public UndoableEdit replace(Replacements replacements) throws BadLocationException {
+
+        int previous = 0;
+        for(int i = 0; i < replacements.size(); i++) {
+            int start   = replacements.getStart(i);
+            int end     = replacements.getEnd(i);
+            if(start < previous || end <= start || end >= length()) {
+                throw new BadLocationException("Invalid replace", start);
+            }
+            previous = end;
+        }
+
+        int textStart       = added.append(replacements.getText());
+        Piece before        = root;
+        Piece.Builder after = new Piece.Builder();
+
+        /*
+            The pieces are visited in order, and the parts of them outside of
+            the ranges are kept, with the replacement of every range put in
+            where the range starts.
+        */
+        Piece.forEach(root, new Piece.Visitor() {
+
+            /** The offset of the piece that is visited. */
+            int offset;
+
+            /** The index of the next range. */
+            int next;
+
+            /** The end of the range that was replaced last. */
+            int skipTo;
+
+            @Override
+            public void visit(boolean isAdded, int start, int length) {
+
+                int from    = offset;
+                int end     = offset + length;
+
+                while(from < end) {
+                    if(from < skipTo) {
+                        from = Math.min(end, skipTo);
+                    } else if(next < replacements.size() && replacements.getStart(next) < end) {
+                        int rangeStart = replacements.getStart(next);
+                        after.visit(isAdded, start + from - offset, rangeStart - from);
+                        after.visit(true, textStart + replacements.getTextStart(next),
+                                    replacements.getTextLength(next));
+                        from    = rangeStart;
+                        skipTo  = replacements.getEnd(next);
+                        next++;
+                    } else {
+                        after.visit(isAdded, start + from - offset, end - from);
+                        from    = end;
+                    }
+                }
+
+                offset = end;
+            }
+
+        });
+
+        root = after.build();
+
+        ReplaceUndo edit = new ReplaceUndo(replacements, before, root);
+        edit.moveMarks();
+        publish();
+
+        return edit;
+    }
+
+
+    @Override
+    public String getString(int where, int len) throws BadLocationException {
+        checkRange(where, len);
+        char[] chars = new char[len];
+        snapshot(length()).getChars(where, where + len, chars, 0);
+        return new String(chars);
+    }
+
+
+    /**
+     * Retrieves a portion of the content. If the characters are stored
+     * next to each other in the add buffer the Segment points straight at
+     * them, otherwise they are copied. If the Segment allows a partial return
+     * only the characters of the first piece are returned.
+     */
+    @Override
+    public void getChars(int where, int len, Segment chars) throws BadLocationException {
+
+        checkRange(where, len);
+
+        // Find the piece that holds the first character.
+        Piece t     = root;
+        int base    = 0;
+        while(t != null) {
+            int leftSize = Piece.size(t.left);
+            if(where < base + leftSize) {
+                t = t.left;
+            } else if(where >= base + leftSize + t.length && t.right != null) {
+                base += leftSize + t.length;
+                t = t.right;
+            } else {
+                base += leftSize;
+                break;
+            }
+        }
+
+        if(t != null && len > 0) {
+
+            int inPiece = Math.min(len, base + t.length - where);
+            int start   = t.start + where - base;
+            int inChunk = Math.min(inPiece,
+                                   AddBuffer.CHUNK_SIZE - (start & AddBuffer.CHUNK_MASK));
+
+            if(t.added && (inChunk == len || chars.isPartialReturn())) {
+                chars.array     = added.chunks()[start >>> AddBuffer.CHUNK_BITS];
+                chars.offset    = start & AddBuffer.CHUNK_MASK;
+                chars.count     = inChunk;
+                return;
+            }
+
+            if(chars.isPartialReturn()) {
+                len = inPiece;
+            }
+        }
+
+        chars.array     = new char[len];
+        chars.offset    = 0;
+        chars.count     = len;
+        snapshot(length()).getChars(where, where + len, chars.array, 0);
+    }
+
+
+    /**
+     * Takes a snapshot of the first characters of the content. No text is
+     * copied, see TextSnapshot.
+     *
+     * @param length    The amount of characters to include.
+     * @return          The snapshot.
+     */
+    public TextSnapshot snapshot(int length) {
+        return new TextSnapshot(original, added.chunks(), root,
+                                Math.min(length, length()), version);
+    }
+
+
+    /**
+     * Returns the snapshot of the text that was published after the last
+     * change, without the implied line break at the end. Can be called from
+     * any thread without a lock.
+     *
+     * @return          The snapshot.
+     */
+    public TextSnapshot getPublishedSnapshot() {
+        return published;
+    }
+
+
+    /**
+     * Returns the version of the text, the amount of changes made to it.
+     * Should be called under a lock on the document, or on the thread that
+     * changes it.
+     *
+     * @return          The version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+
+    /**
+     * Publishes a snapshot of the text as it is after a change. The volatile
+     * write makes the pieces and the characters of the add buffer the
+     * snapshot refers to visible to the threads that read it.
+     */
+    private void publish() {
+        version++;
+        published = snapshot(length() - 1);
+    }
+
+
+    /**
+     * Returns the amount of pieces the text is made of.
+     *
+     * @return          The amount of pieces.
+     */
+    public int getPieceCount() {
+        return Piece.count(root);
+    }
+
+
+    /**
+     * Returns about how many bytes of the heap the original text takes. Text
+     * that is mapped from a file only counts the pages it keeps decoded.
+     *
+     * @return          The amount of bytes.
+     */
+    public long getOriginalHeapSize() {
+        return (original instanceof TextBuffer) ? ((TextBuffer)original).getHeapSize()
+                                                : 2L * original.length();
+    }
+
+
+    /**
+     * Returns how many bytes of the heap the text that was inserted after the
+     * original text takes. Text that was removed again stays in it, so the
+     * pieces that are undone or redone can refer to it.
+     *
+     * @return          The amount of bytes.
+     */
+    public long getAddedHeapSize() {
+        return added.getHeapSize();
+    }
+
+
+    /**
+     * Checks that a range lies inside of the content.
+     *
+     * @param where     The start of the range.
+     * @param len       The length of the range.
+     * @throws BadLocationException if the range is invalid.
+     */
+    private void checkRange(int where, int len) throws BadLocationException {
+        if(where < 0 || len < 0) {
+            throw new BadLocationException("Invalid location", -1);
+        }
+        if(where + len > length()) {
+            throw new BadLocationException("Invalid location", length() + 1);
+        }
+    }
+
+
+    /**
+     * Takes a range of characters out of the text.
+     *
+     * @param where     The offset of the range.
+     * @param nitems    The length of the range.
+     * @return          The pieces that were taken out.
+     */
+    private Piece cut(int where, int nitems) {
+        Piece[] head = Piece.split(root, where);
+        Piece[] tail = Piece.split(head[1], nitems);
+        root = Piece.merge(head[0], tail[1]);
+        marks.remove(where, nitems);
+        publish();
+        return tail[0];
+    }
+
+
+    /**
+     * Puts pieces that were taken out by cut back into the text.
+     *
+     * @param where     The offset to put the pieces at.
+     * @param pieces    The pieces.
+     */
+    private void paste(int where, Piece pieces) {
+        Piece[] parts = Piece.split(root, where);
+        root = Piece.merge(Piece.merge(parts[0], pieces), parts[1]);
+        marks.insert(where, Piece.size(pieces));
+        publish();
+    }
+
+
+    /**
+     * UndoableEdit for inserts. The inserted pieces are kept when the insert
+     * is undone, so redoing it does not need to copy any text.
+     */
+    class InsertUndo extends AbstractUndoableEdit {
+
+
+        /** Where the text was inserted. */
+        private final int offset;
+
+
+        /** The length of the inserted text. */
+        private final int length;
+
+
+        /** The inserted pieces, valid after an undo. */
+        private Piece pieces;
+
+
+        /** The Positions in the removed range, valid after an undo. */
+        private List<MarkTable.UndoPosition> positions;
+
+
+        /**
+         * Constructor for an InsertUndo.
+         *
+         * @param offset    Where the text was inserted.
+         * @param length    The length of the inserted text.
+         */
+        InsertUndo(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+
+        @Override
+        public void undo() throws CannotUndoException {
+            super.undo();
+            positions   = marks.getPositionsInRange(offset, length);
+            pieces      = cut(offset, length);
+        }
+
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            paste(offset, pieces);
+            marks.updateUndoPositions(positions, offset, length);
+            pieces      = null;
+            positions   = null;
+        }
+
+    }
+
+
+    /**
+     * UndoableEdit for removes. Holds on to the removed pieces instead of a
+     * copy of the removed text.
+     */
+    class RemoveUndo extends AbstractUndoableEdit {
+
+
+        /** Where the text was removed. */
+        private final int offset;
+
+
+        /** The length of the removed text. */
+        private final int length;
+
+
+        /** The removed pieces, valid before an undo. */
+        private Piece pieces;
+
+
+        /** The Positions in the removed range, valid before an undo. */
+        private List<MarkTable.UndoPosition> positions;
+
+
+        /**
+         * Constructor for a RemoveUndo.
+         *
+         * @param offset    Where the text was removed.
+         * @param pieces    The removed pieces.
+         * @param positions The Positions that were in the removed range.
+         */
+        RemoveUndo(int offset, Piece pieces, List<MarkTable.UndoPosition> positions) {
+            this.offset     = offset;
+            this.length     = Piece.size(pieces);
+            this.pieces     = pieces;
+            this.positions  = positions;
+        }
+
+
+        @Override
+        public void undo() throws CannotUndoException {
+            super.undo();
+            paste(offset, pieces);
+            marks.updateUndoPositions(positions, offset, length);
+            positions = null;
+        }
+
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            positions   = marks.getPositionsInRange(offset, length);
+            pieces      = cut(offset, length);
+        }
+
+    }
+
+
+
+    /**
+     * UndoableEdit for a replace of many ranges. The pieces are immutable, so
+     * the trees from before and after the replace are kept as they are and
+     * undoing or redoing swaps one for the other. Only the marks have to be
+     * moved range by range.
+     */
+    class ReplaceUndo extends AbstractUndoableEdit {
+
+
+        /** The ranges and their replacements. */
+        private final Replacements replacements;
+
+
+        /** The pieces of the text before the replace. */
+        private final Piece before;
+
+
+        /** The pieces of the text after the replace. */
+        private final Piece after;
+
+
+        /**
+         * The Positions in each replaced range, valid while the replace is
+         * done. The ranges without any share one empty list.
+         */
+        private List<List<MarkTable.UndoPosition>> removed;
+
+
+        /** The Positions in each replacement, valid after an undo. */
+        private List<List<MarkTable.UndoPosition>> inserted;
+
+
+        /**
+         * Constructor for a ReplaceUndo.
+         *
+         * @param replacements  The ranges and their replacements.
+         * @param before        The pieces of the text before the replace.
+         * @param after         The pieces of the text after the replace.
+         */
+        ReplaceUndo(Replacements replacements, Piece before, Piece after) {
+            this.replacements   = replacements;
+            this.before         = before;
+            this.after          = after;
+        }
+
+
+        @Override
+        public void undo() throws CannotUndoException {
+
+            super.undo();
+
+            List<List<MarkTable.UndoPosition>> positions =
+                    new ArrayList<>(Collections.nCopies(replacements.size(),
+                                                        Collections.<MarkTable.UndoPosition>emptyList()));
+
+            // Going from the last range back keeps the offsets of the ranges before it.
+            long shift = replacements.getLengthChange();
+            for(int i = replacements.size() - 1; i >= 0; i--) {
+
+                int start   = replacements.getStart(i);
+                int length  = replacements.getEnd(i) - start;
+                int text    = replacements.getTextLength(i);
+                shift      -= text - length;
+                int where   = (int)(start + shift);
+
+                positions.set(i, positionsInRange(where, text));
+                marks.remove(where, text);
+                marks.insert(where, length);
+                marks.updateUndoPositions(removed.get(i), where, length);
+            }
+
+            root        = before;
+            removed     = null;
+            inserted    = positions;
+            publish();
+        }
+
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            root = after;
+            moveMarks();
+            publish();
+        }
+
+
+        /**
+         * Moves the marks from the first range to the last, as if each range
+         * was removed and its replacement inserted, and keeps the Positions
+         * that were in the ranges.
+         */
+        void moveMarks() {
+
+            List<List<MarkTable.UndoPosition>> positions = new ArrayList<>(replacements.size());
+
+            int shift = 0;
+            for(int i = 0; i < replacements.size(); i++) {
+
+                int where   = replacements.getStart(i) + shift;
+                int length  = replacements.getEnd(i) - replacements.getStart(i);
+                int text    = replacements.getTextLength(i);
+
+                positions.add(positionsInRange(where, length));
+                marks.remove(where, length);
+                marks.insert(where, text);
+                if(inserted != null) {
+                    marks.updateUndoPositions(inserted.get(i), where, text);
+                }
+
+                shift += text - length;
+            }
+
+            removed     = positions;
+            inserted    = null;
+        }
+
+
+        /**
+         * Returns the Positions in a range, sharing one empty list for all
+         * ranges without any.
+         *
+         * @param offset    The start of the range.
+         * @param length    The length of the range.
+         * @return          The Positions.
+         */
+        private List<MarkTable.UndoPosition> positionsInRange(int offset, int length) {
+            List<MarkTable.UndoPosition> positions = marks.getPositionsInRange(offset, length);
+            return positions.isEmpty() ? Collections.<MarkTable.UndoPosition>emptyList() : positions;
+        }
+
+    }
+
+}
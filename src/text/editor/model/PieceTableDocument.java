@@ -0,0 +1,1091 @@
+package text.editor.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.UndoableEditEvent;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.Element;
+import javax.swing.text.Segment;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleContext;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+
+
+/**
+ * A styled document whose text is stored in a PieceTableContent.
+ *
+ * Everything about styles, paragraphs and attributes is inherited from
+ * DefaultStyledDocument, so bold, italic, underline and font changes work
+ * exactly like they do with the stock document. Only the storage of the
+ * characters is different.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class PieceTableDocument extends DefaultStyledDocument {
+
+
+    /** The amount of characters scanned at a time when building paragraphs. */
+    private static final int SCAN_SIZE = 64 * 1024;
+
+
+    /** The amount of words, lines and paragraphs of the text. */
+    private final DocumentStatistics statistics;
+
+
+    /** Default constructor for an empty PieceTableDocument. */
+    public PieceTableDocument() {
+        super(new PieceTableContent(), new DocumentStyleContext());
+        statistics = new DocumentStatistics(this, true);
+    }
+
+
+    /**
+     * Creates a document that holds the original text without copying it.
+     * The text must not change afterwards. The document gets one paragraph
+     * for each line of the text, all with the default style.
+     *
+     * @param original      The original text.
+     */
+    public PieceTableDocument(CharSequence original) {
+
+        super(new PieceTableContent(original), new DocumentStyleContext());
+        statistics = new DocumentStatistics(this, original.length() == 0);
+
+        if(original.length() > 0) {
+            createParagraphs(null);
+        }
+
+    }
+
+
+    /**
+     * Creates a styled document that holds the original text without copying
+     * it. The text must not change afterwards. The document gets one
+     * paragraph for each line of the text, split into runs with the
+     * attributes of the style runs.
+     *
+     * @param original      The original text.
+     * @param runs          The style runs, in order and without gaps, with
+     *                      offsets into the original text.
+     */
+    public PieceTableDocument(CharSequence original, List<DocumentSnapshot.StyleRun> runs) {
+
+        super(new PieceTableContent(original), new DocumentStyleContext());
+        statistics = new DocumentStatistics(this, original.length() == 0);
+
+        if(original.length() > 0) {
+            createParagraphs(runs.isEmpty() ? null : runs);
+        }
+
+    }
+
+
+    /**
+     * Returns the content of this document.
+     *
+     * @return          The piece table holding the text.
+     */
+    public PieceTableContent getPieceTable() {
+        return (PieceTableContent)getContent();
+    }
+
+
+    /**
+     * Returns the text of this document as it was after the last change,
+     * without the implied line break at the end. Can be called from any
+     * thread without a lock; the snapshot does not change while it is read.
+     *
+     * @return          The snapshot.
+     */
+    public TextSnapshot getSnapshot() {
+        return getPieceTable().getPublishedSnapshot();
+    }
+
+
+    /**
+     * Returns the amount of words, lines and paragraphs of this document.
+     *
+     * @return          The statistics.
+     */
+    public DocumentStatistics getStatistics() {
+        return statistics;
+    }
+
+
+    /*
+        Every insert ends up here once the text is in the content, including
+        the ones of appendRuns and of undoing a removal, so the statistics
+        see them before any listener does.
+    */
+    @Override
+    protected void fireInsertUpdate(DocumentEvent e) {
+        statistics.inserted(e.getOffset(), e.getLength(), getPieceTable().getVersion());
+        super.fireInsertUpdate(e);
+    }
+
+
+    /*
+        Called while the text that is about to be removed is still there.
+    */
+    @Override
+    protected void removeUpdate(DefaultDocumentEvent chng) {
+        statistics.removing(chng.getOffset(), chng.getLength());
+        super.removeUpdate(chng);
+    }
+
+
+    @Override
+    protected void fireRemoveUpdate(DocumentEvent e) {
+        statistics.removed(e, getPieceTable().getVersion());
+        super.fireRemoveUpdate(e);
+    }
+
+
+    /*
+        A replace changes the text, a change of attributes does not.
+    */
+    @Override
+    protected void fireChangedUpdate(DocumentEvent e) {
+        if(e instanceof ReplaceEvent) {
+            statistics.replaced();
+        }
+        super.fireChangedUpdate(e);
+    }
+
+
+    /**
+     * Replaces ranges of the text as a single edit, with one ReplaceEvent and
+     * one UndoableEdit for all of them, instead of an event and an edit for
+     * every remove and insert.
+     *
+     * The ranges are meant to be found on a snapshot of the text, away from
+     * the Event Dispatch Thread. If the text changed after that snapshot was
+     * taken nothing is replaced, since the ranges may be in the wrong place.
+     *
+     * Most ranges of a log are inside of a run and on a single line, and the
+     * marks of their run move on their own. Only the paragraphs the other
+     * ranges are in are built again, along with the one before, whose end
+     * moves when a range starts a paragraph. Their runs keep their
+     * attributes, and a replacement gets the attributes of the first
+     * character it replaces. All other paragraphs are kept as they are.
+     *
+     * @param replacements  The ranges and their replacements, in order,
+     *                      without overlapping and none of them empty.
+     * @param version       The version of the text the ranges were found in.
+     * @return              False if the text is not of that version anymore.
+     * @throws BadLocationException if a range is not inside of the text.
+     */
+    public boolean replace(Replacements replacements, long version)
+            throws BadLocationException {
+
+        writeLock();
+
+        try {
+
+            PieceTableContent content = getPieceTable();
+            if(content.getVersion() != version) {
+                return false;
+            }
+            if(replacements.size() == 0) {
+                return true;
+            }
+            if(content.length() + replacements.getLengthChange() > Integer.MAX_VALUE) {
+                throw new BadLocationException("The text would get too long", 0);
+            }
+
+            BranchElement section   = (BranchElement)getDefaultRootElement();
+            LineScanner oldText     = new LineScanner(content.snapshot(content.length()));
+            List<Rebuild> rebuilds  = new ArrayList<>();
+            int count               = replacements.size();
+
+            /*
+                A range inside of a run that has no line break in it, and
+                that is not replaced with one, changes no paragraph: the
+                marks of the run move the way they should. Only the other
+                ranges have their paragraphs built again. Paragraphs that
+                ranges touch one after the other are built again together,
+                along with the ranges inside of runs that are in them.
+            */
+            int first   = 0;
+            int last    = -1;
+            int from    = -1;
+            int to      = 0;
+            int hint    = 0;
+
+            for(int i = 0; i < count; i++) {
+
+                int start   = replacements.getStart(i);
+                int end     = replacements.getEnd(i);
+                int touched = paragraphIndex(section, Math.max(0, start - 1), hint);
+                hint        = touched;
+
+                if(from != -1 && touched <= last) {
+                    last    = Math.max(last, paragraphIndex(section, end, touched));
+                    to      = i + 1;
+                    continue;
+                }
+
+                Element paragraph = section.getElement(paragraphIndex(section, start, touched));
+                Element run = paragraph.getElement(paragraph.getElementIndex(start));
+                if(start > run.getStartOffset() && end <= run.getEndOffset()
+                        && !hasLineBreak(replacements, i) && oldText.nextLineEnd(start, end) == -1) {
+                    continue;
+                }
+
+                if(from != -1) {
+                    rebuilds.add(new Rebuild(section, first, last, replacements, from, to));
+                }
+
+                first   = touched;
+                last    = paragraphIndex(section, end, touched);
+                from    = i;
+                to      = i + 1;
+
+                int firstStart = section.getElement(first).getStartOffset();
+                while(from > 0 && replacements.getStart(from - 1) >= firstStart) {
+                    from--;
+                }
+            }
+
+            if(from != -1) {
+                rebuilds.add(new Rebuild(section, first, last, replacements, from, to));
+            }
+
+            int offset      = section.getElement(paragraphIndex(section,
+                                  Math.max(0, replacements.getStart(0) - 1), 0)).getStartOffset();
+            int oldLength   = section.getElement(paragraphIndex(section,
+                                  replacements.getEnd(count - 1), hint)).getEndOffset() - offset;
+            int newLength   = (int)(oldLength + replacements.getLengthChange());
+
+            UndoableEdit contentEdit = content.replace(replacements);
+
+            /*
+                The paragraphs between the ones that are built again are in
+                the change as well, since it has to be a single range of them.
+            */
+            int index           = rebuilds.isEmpty() ? 0 : rebuilds.get(0).first;
+            int removedCount    = rebuilds.isEmpty() ? 0
+                                      : rebuilds.get(rebuilds.size() - 1).last + 1 - index;
+            Element[] removed   = new Element[removedCount];
+            List<Element> added = new ArrayList<>();
+            LineScanner newText = new LineScanner(content.snapshot(content.length()));
+            long shift          = 0;
+            int shifted         = 0;
+            int previous        = index;
+
+            for(int i = 0; i < removedCount; i++) {
+                removed[i] = section.getElement(index + i);
+            }
+
+            for(Rebuild rebuild : rebuilds) {
+                for(int i = previous; i < rebuild.first; i++) {
+                    added.add(section.getElement(i));
+                }
+                for(; shifted < rebuild.from; shifted++) {
+                    shift += replacements.getTextLength(shifted)
+                           - (replacements.getEnd(shifted) - replacements.getStart(shifted));
+                }
+                rebuild.build(this, section, newText, (int)shift, added);
+                previous = rebuild.last + 1;
+            }
+
+            Element[] paragraphs = added.toArray(new Element[added.size()]);
+            if(removedCount > 0) {
+                section.replace(index, removedCount, paragraphs);
+            }
+
+            ReplaceEdit edit = new ReplaceEdit(contentEdit, index, removed, paragraphs,
+                                               offset, oldLength, newLength);
+
+            fireReplace(offset, newLength, index, removed, paragraphs);
+            fireUndoableEditUpdate(new UndoableEditEvent(this, edit));
+
+        } finally {
+            writeUnlock();
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Returns the index of the paragraph an offset is in. The paragraph of a
+     * hint and the one after it are looked at first, since the ranges of a
+     * replace are looked up in order and are often close together.
+     *
+     * @param section   The section the paragraphs are in.
+     * @param offset    The offset.
+     * @param hint      The index of a paragraph at or before the offset.
+     * @return          The index of the paragraph.
+     */
+    private static int paragraphIndex(Element section, int offset, int hint) {
+        int end = Math.min(hint + 2, section.getElementCount());
+        for(int i = hint; i < end; i++) {
+            if(offset < section.getElement(i).getEndOffset()) {
+                return i;
+            }
+        }
+        return section.getElementIndex(offset);
+    }
+
+
+    /**
+     * Returns whether the replacement of a range has a line break in it.
+     *
+     * @param replacements  The ranges and their replacements.
+     * @param index         The index of the range.
+     * @return              True if it has one.
+     */
+    private static boolean hasLineBreak(Replacements replacements, int index) {
+        CharSequence text   = replacements.getText();
+        int start           = replacements.getTextStart(index);
+        int end             = start + replacements.getTextLength(index);
+        for(int i = start; i < end; i++) {
+            if(text.charAt(i) == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Tells the listeners about a replace, or about undoing or redoing one.
+     * Called under the write lock.
+     *
+     * @param offset        The start of the paragraphs that changed.
+     * @param length        The length of the paragraphs that replaced them.
+     * @param index         The index of the first paragraph that changed.
+     * @param removed       The paragraphs that were taken out.
+     * @param added         The paragraphs that were put in.
+     */
+    private void fireReplace(int offset, int length, int index,
+                             Element[] removed, Element[] added) {
+        ReplaceEvent e = new ReplaceEvent(offset, length);
+        if(removed.length > 0 || added.length > 0) {
+            e.addEdit(new ElementEdit(getDefaultRootElement(), index, removed, added));
+        }
+        e.end();
+        fireChangedUpdate(e);
+    }
+
+
+    /**
+     * Appends runs of styled text to the end of the document as a single edit,
+     * with one DocumentEvent for all of them. This is how readers add a file
+     * to a document a batch at a time, instead of calling insertString for
+     * every run.
+     *
+     * The element specs are the ones insertString would build for the same
+     * text. They depend on whether the document ends with a new line and on
+     * the run the text is appended to, worked out the way insertUpdate does
+     * it after the content has moved.
+     *
+     * @param text      The characters of the runs, one run after the other.
+     * @param runs      The runs, with offsets into text, in order and without
+     *                  gaps.
+     * @throws BadLocationException if the text can not be inserted.
+     */
+    public void appendRuns(char[] text, List<DocumentSnapshot.StyleRun> runs)
+            throws BadLocationException {
+
+        if(runs.isEmpty()) {
+            return;
+        }
+
+        writeLock();
+
+        try {
+
+            int offset              = getLength();
+            Element section         = getDefaultRootElement();
+            int paragraphIndex      = section.getElementIndex(offset);
+            Element paragraph       = section.getElement(paragraphIndex);
+            int runIndex            = paragraph.getElementIndex(offset);
+            Element run             = paragraph.getElement(runIndex);
+
+            boolean afterNewline    = offset > 0 && getText(offset - 1, 1).charAt(0) == '\n';
+            AttributeSet pattr      = paragraph.getAttributes();
+
+            /*
+                Marks at the offset move along with the text, so a run that
+                ends at the offset grows over the appended text and becomes
+                the run the text is inserted into.
+            */
+            boolean atBoundary      = offset > 0 && run.getStartOffset() == offset;
+            AttributeSet cattr;
+            if(afterNewline) {
+                Element previous = section.getElement(paragraphIndex - 1);
+                cattr = previous.getElement(previous.getElementCount() - 1).getAttributes();
+            } else if(atBoundary) {
+                cattr = paragraph.getElement(runIndex - 1).getAttributes();
+            } else {
+                cattr = run.getAttributes();
+            }
+
+            List<ElementSpec> specs = new ArrayList<>();
+            ElementSpec lastStart   = null;
+
+            if(afterNewline) {
+                specs.add(new ElementSpec(pattr, ElementSpec.EndTagType));
+                lastStart = new ElementSpec(pattr, ElementSpec.StartTagType);
+                specs.add(lastStart);
+            }
+
+            for(DocumentSnapshot.StyleRun styleRun : runs) {
+
+                AttributeSet attr = (styleRun.getAttributes() == null)
+                                        ? SimpleAttributeSet.EMPTY
+                                        : styleRun.getAttributes();
+                int lastOffset = styleRun.getStart();
+
+                for(int i = styleRun.getStart(); i < styleRun.getEnd(); i++) {
+                    if(text[i] == '\n') {
+                        specs.add(contentSpec(attr, text, lastOffset, i + 1));
+                        specs.add(new ElementSpec(null, ElementSpec.EndTagType));
+                        lastStart = new ElementSpec(pattr, ElementSpec.StartTagType);
+                        specs.add(lastStart);
+                        lastOffset = i + 1;
+                    }
+                }
+
+                if(lastOffset < styleRun.getEnd()) {
+                    specs.add(contentSpec(attr, text, lastOffset, styleRun.getEnd()));
+                }
+
+            }
+
+            ElementSpec first   = specs.get(0);
+            ElementSpec last    = specs.get(specs.size() - 1);
+
+            if(first.getType() == ElementSpec.ContentType
+                    && cattr.isEqual(first.getAttributes())) {
+                first.setDirection(ElementSpec.JoinPreviousDirection);
+            }
+
+            if(afterNewline) {
+                /*
+                    The paragraph before the new line now ends where the text
+                    ends, so the last paragraph joins the one after it.
+                */
+                lastStart.setDirection(ElementSpec.JoinNextDirection);
+            } else if(lastStart != null) {
+                lastStart.setDirection(ElementSpec.JoinFractureDirection);
+                if(!atBoundary
+                        && last.getType() == ElementSpec.ContentType
+                        && last.getDirection() != ElementSpec.JoinPreviousDirection
+                        && cattr.isEqual(last.getAttributes())) {
+                    last.setDirection(ElementSpec.JoinNextDirection);
+                }
+            }
+
+            insert(offset, specs.toArray(new ElementSpec[specs.size()]));
+
+        } finally {
+            writeUnlock();
+        }
+
+    }
+
+
+    /**
+     * Returns a content spec for a range of characters. The spec gets its own
+     * array with only those characters, because ElementSpec copies the whole
+     * array it is given.
+     *
+     * @param attr      The attributes of the content.
+     * @param text      The characters.
+     * @param start     The first character of the content.
+     * @param end       The character after the last one.
+     * @return          The spec.
+     */
+    private static ElementSpec contentSpec(AttributeSet attr, char[] text, int start, int end) {
+        char[] chars = Arrays.copyOfRange(text, start, end);
+        return new ElementSpec(attr, ElementSpec.ContentType, chars, 0, chars.length);
+    }
+
+
+    /**
+     * Replaces the single default paragraph with one paragraph for each line
+     * of the content. This is only done once, right after construction, when
+     * nobody is listening to the document yet.
+     *
+     * @param runs      The style runs of the content, or null for a single
+     *                  run without attributes.
+     */
+    private void createParagraphs(List<DocumentSnapshot.StyleRun> runs) {
+
+        writeLock();
+
+        try {
+
+            /*
+                An element is its own attribute set, so take the shared set
+                behind it, which every new paragraph can reuse as it is.
+            */
+            BranchElement section   = (BranchElement)getDefaultRootElement();
+            AttributeSet attributes = section.getElement(0).getAttributes().copyAttributes();
+
+            /*
+                Every distinct set of attributes is added to the StyleContext
+                once, so the leaves share it instead of each looking it up.
+            */
+            List<AttributeSet> runAttributes = null;
+            if(runs != null) {
+                Map<AttributeSet, AttributeSet> interned = new HashMap<>();
+                runAttributes = new ArrayList<>(runs.size());
+                for(DocumentSnapshot.StyleRun run : runs) {
+                    AttributeSet attr = run.getAttributes();
+                    if(attr == null || attr.getAttributeCount() == 0) {
+                        runAttributes.add(null);
+                        continue;
+                    }
+                    AttributeSet shared = interned.get(attr);
+                    if(shared == null) {
+                        AttributeContext context = getAttributeContext();
+                        shared = context.addAttributes(context.getEmptySet(), attr);
+                        interned.put(attr, shared);
+                    }
+                    runAttributes.add(shared);
+                }
+            }
+
+            List<Element> paragraphs = new ArrayList<>();
+            Segment segment = new Segment();
+            int length      = getContent().length();
+            int lineStart   = 0;
+            int runIndex    = 0;
+
+            for(int offset = 0; offset < length; offset += segment.count) {
+
+                segment.setPartialReturn(true);
+                getContent().getChars(offset,
+                                      Math.min(SCAN_SIZE, length - offset),
+                                      segment);
+
+                for(int i = 0; i < segment.count; i++) {
+                    if(segment.array[segment.offset + i] == '\n') {
+                        int lineEnd = offset + i + 1;
+                        if(runs == null) {
+                            paragraphs.add(createParagraph(section, attributes,
+                                                           lineStart, lineEnd));
+                        } else {
+                            runIndex = createStyledParagraph(section, attributes,
+                                                             lineStart, lineEnd,
+                                                             runs, runAttributes,
+                                                             runIndex, paragraphs);
+                        }
+                        lineStart = lineEnd;
+                    }
+                }
+
+            }
+
+            section.replace(0, section.getElementCount(),
+                            paragraphs.toArray(new Element[paragraphs.size()]));
+
+        } catch (BadLocationException err) {
+            throw new IllegalStateException(err);
+        } finally {
+            writeUnlock();
+        }
+
+    }
+
+
+    /**
+     * Creates a paragraph holding a single run of text without attributes.
+     *
+     * @param section       The section the paragraph belongs to.
+     * @param attributes    The attributes of the paragraph.
+     * @param start         The start of the paragraph.
+     * @param end           The end of the paragraph.
+     * @return              The paragraph.
+     */
+    private Element createParagraph(Element section, AttributeSet attributes,
+                                    int start, int end) {
+        BranchElement paragraph = (BranchElement)createBranchElement(section, attributes);
+        paragraph.replace(0, 0, new Element[] {
+            createLeafElement(paragraph, null, start, end)
+        });
+        return paragraph;
+    }
+
+
+    /**
+     * Creates a paragraph with a leaf for each style run it overlaps. The
+     * last run also covers the implied new line at the end of the content.
+     *
+     * @param section       The section the paragraph belongs to.
+     * @param attributes    The attributes of the paragraph.
+     * @param start         The start of the paragraph.
+     * @param end           The end of the paragraph.
+     * @param runs          The style runs.
+     * @param runAttributes The shared attributes of the style runs.
+     * @param runIndex      The run that holds start.
+     * @param paragraphs    Receives the paragraph.
+     * @return              The run that holds end.
+     */
+    private int createStyledParagraph(Element section, AttributeSet attributes,
+                                      int start, int end,
+                                      List<DocumentSnapshot.StyleRun> runs,
+                                      List<AttributeSet> runAttributes,
+                                      int runIndex, List<Element> paragraphs) {
+
+        BranchElement paragraph = (BranchElement)createBranchElement(section, attributes);
+        List<Element> leaves    = new ArrayList<>();
+        int last                = runs.size() - 1;
+
+        for(int leafStart = start; leafStart < end; ) {
+
+            while(runIndex < last && runs.get(runIndex).getEnd() <= leafStart) {
+                runIndex++;
+            }
+
+            int leafEnd = (runIndex == last) ? end : Math.min(end, runs.get(runIndex).getEnd());
+            leaves.add(createLeafElement(paragraph, runAttributes.get(runIndex),
+                                         leafStart, leafEnd));
+            leafStart = leafEnd;
+        }
+
+        paragraph.replace(0, 0, leaves.toArray(new Element[leaves.size()]));
+        paragraphs.add(paragraph);
+        return runIndex;
+    }
+
+
+
+    /**
+     * The DocumentEvent of a replace, and of undoing or redoing one. It is a
+     * change, because most of the text stays where it is, but unlike a change
+     * of attributes it changes the text from getOffset() to the end of the
+     * change, and replaces the paragraphs there with other ones. Listeners
+     * that keep track of the text should start over for that range.
+     */
+    public class ReplaceEvent extends DefaultDocumentEvent {
+
+        /**
+         * Constructor for a ReplaceEvent.
+         *
+         * @param offset    The start of the paragraphs that changed.
+         * @param length    The length of the paragraphs that replaced them.
+         */
+        ReplaceEvent(int offset, int length) {
+            super(offset, length, DocumentEvent.EventType.CHANGE);
+        }
+
+    }
+
+
+    /**
+     * UndoableEdit for a replace. Undoing it swaps the text and the
+     * paragraphs back and tells the listeners with a ReplaceEvent of its own,
+     * since the event an AbstractDocument fires for undoing an edit is not a
+     * ReplaceEvent.
+     */
+    private class ReplaceEdit extends AbstractUndoableEdit {
+
+
+        /** The edit of the content. */
+        private final UndoableEdit contentEdit;
+
+
+        /** The index of the first paragraph that changed. */
+        private final int index;
+
+
+        /** The paragraphs from before the replace. */
+        private final Element[] before;
+
+
+        /** The paragraphs from after the replace. */
+        private final Element[] after;
+
+
+        /** The start of the paragraphs that changed. */
+        private final int offset;
+
+
+        /** The length of the paragraphs from before the replace. */
+        private final int lengthBefore;
+
+
+        /** The length of the paragraphs from after the replace. */
+        private final int lengthAfter;
+
+
+        /**
+         * Constructor for a ReplaceEdit.
+         *
+         * @param contentEdit   The edit of the content.
+         * @param index         The index of the first paragraph that changed.
+         * @param before        The paragraphs from before the replace.
+         * @param after         The paragraphs from after the replace.
+         * @param offset        The start of the paragraphs that changed.
+         * @param lengthBefore  The length of the paragraphs from before.
+         * @param lengthAfter   The length of the paragraphs from after.
+         */
+        ReplaceEdit(UndoableEdit contentEdit, int index, Element[] before, Element[] after,
+                    int offset, int lengthBefore, int lengthAfter) {
+            this.contentEdit    = contentEdit;
+            this.index          = index;
+            this.before         = before;
+            this.after          = after;
+            this.offset         = offset;
+            this.lengthBefore   = lengthBefore;
+            this.lengthAfter    = lengthAfter;
+        }
+
+
+        @Override
+        public void undo() throws CannotUndoException {
+            super.undo();
+            writeLock();
+            try {
+                contentEdit.undo();
+                ((BranchElement)getDefaultRootElement()).replace(index, after.length, before);
+                fireReplace(offset, lengthBefore, index, after, before);
+            } finally {
+                writeUnlock();
+            }
+        }
+
+
+        @Override
+        public void redo() throws CannotRedoException {
+            super.redo();
+            writeLock();
+            try {
+                contentEdit.redo();
+                ((BranchElement)getDefaultRootElement()).replace(index, before.length, after);
+                fireReplace(offset, lengthAfter, index, before, after);
+            } finally {
+                writeUnlock();
+            }
+        }
+
+
+        @Override
+        public String getPresentationName() {
+            return "Replace All";
+        }
+
+    }
+
+
+    /**
+     * The paragraphs a replace builds again, the ones from the first to the
+     * last, which the ranges of a replace are in. Before the text changes,
+     * they are taken apart into spans with the attributes of their runs, in
+     * which the ranges are replaced with the length and the attributes of
+     * their replacements. After the text changed, the spans are cut into new
+     * paragraphs at the line breaks of the new text.
+     */
+    private static class Rebuild {
+
+
+        /** The index of the first paragraph. */
+        final int first;
+
+
+        /** The index of the last paragraph. */
+        final int last;
+
+
+        /** The end of the last paragraph, before the replace. */
+        final int end;
+
+
+        /** The index of the first range in these paragraphs. */
+        final int from;
+
+
+        /** The start of the first paragraph, before the replace. */
+        private final int start;
+
+
+        /** The lengths of the spans. */
+        private int[] lengths = new int[16];
+
+
+        /** The attributes of the runs of the spans. */
+        private AttributeSet[] runs = new AttributeSet[16];
+
+
+        /** The attributes of the paragraphs the spans came from. */
+        private AttributeSet[] paragraphs = new AttributeSet[16];
+
+
+        /** The amount of spans. */
+        private int spans;
+
+
+        /** The index of the paragraph the next span comes from. */
+        private int paragraph;
+
+
+        /** The index of the run the next span comes from. */
+        private int run;
+
+
+        /**
+         * Takes paragraphs apart into spans, before the text changes.
+         *
+         * @param section       The section the paragraphs are in.
+         * @param first         The index of the first paragraph.
+         * @param last          The index of the last paragraph.
+         * @param replacements  The ranges and their replacements.
+         * @param from          The index of the first range in the paragraphs.
+         * @param to            The index after the last range in them.
+         */
+        Rebuild(Element section, int first, int last,
+                Replacements replacements, int from, int to) {
+
+            this.first      = first;
+            this.last       = last;
+            this.start      = section.getElement(first).getStartOffset();
+            this.end        = section.getElement(last).getEndOffset();
+            this.from       = from;
+            this.paragraph  = first;
+
+            int offset = start;
+
+            for(int i = from; i < to; i++) {
+                int rangeStart  = replacements.getStart(i);
+                keep(section, offset, rangeStart);
+                Element leaf    = leafAt(section, rangeStart);
+                add(replacements.getTextLength(i), leaf.getAttributes().copyAttributes(),
+                    leaf.getParentElement().getAttributes().copyAttributes());
+                offset          = replacements.getEnd(i);
+            }
+
+            keep(section, offset, end);
+        }
+
+
+        /**
+         * Adds the spans of the runs between two offsets that stay as they are.
+         *
+         * @param section   The section the paragraphs are in.
+         * @param from      The first offset.
+         * @param to        The offset after the last one.
+         */
+        private void keep(Element section, int from, int to) {
+            while(from < to) {
+                Element leaf    = leafAt(section, from);
+                int next        = Math.min(to, leaf.getEndOffset());
+                add(next - from, leaf.getAttributes().copyAttributes(),
+                    leaf.getParentElement().getAttributes().copyAttributes());
+                from            = next;
+            }
+        }
+
+
+        /**
+         * Returns the run an offset is in. The offsets asked for never go back.
+         *
+         * @param section   The section the paragraphs are in.
+         * @param offset    The offset.
+         * @return          The run.
+         */
+        private Element leafAt(Element section, int offset) {
+            while(true) {
+                Element p = section.getElement(paragraph);
+                if(run < p.getElementCount()) {
+                    Element leaf = p.getElement(run);
+                    if(offset < leaf.getEndOffset()) {
+                        return leaf;
+                    }
+                    run++;
+                } else {
+                    paragraph++;
+                    run = 0;
+                }
+            }
+        }
+
+
+        /**
+         * Adds a span, unless it is empty.
+         *
+         * @param length    The length of the span.
+         * @param attr      The attributes of its run.
+         * @param pattr     The attributes of its paragraph.
+         */
+        private void add(int length, AttributeSet attr, AttributeSet pattr) {
+
+            if(length == 0) {
+                return;
+            }
+
+            if(spans == lengths.length) {
+                lengths     = Arrays.copyOf(lengths, spans * 2);
+                runs        = Arrays.copyOf(runs, spans * 2);
+                paragraphs  = Arrays.copyOf(paragraphs, spans * 2);
+            }
+
+            lengths[spans]      = length;
+            runs[spans]         = attr;
+            paragraphs[spans]   = pattr;
+            spans++;
+        }
+
+
+        /**
+         * Builds the new paragraphs from the spans, after the text changed.
+         * Runs next to each other with the same attributes become one.
+         *
+         * @param doc       The document.
+         * @param section   The section the paragraphs go in.
+         * @param scanner   Finds the line breaks of the new text.
+         * @param shift     How far the paragraphs moved by the ranges before
+         *                  them.
+         * @param out       Receives the new paragraphs.
+         */
+        void build(PieceTableDocument doc, Element section, LineScanner scanner,
+                  int shift, List<Element> out) {
+
+            List<Element> leaves    = new ArrayList<>();
+            BranchElement current   = null;
+            AttributeSet leafAttr   = null;
+            int leafStart           = 0;
+            int offset              = start + shift;
+
+            for(int i = 0; i < spans; i++) {
+
+                int spanEnd = offset + lengths[i];
+
+                while(offset < spanEnd) {
+
+                    if(current == null) {
+                        current     = (BranchElement)doc.createBranchElement(section, paragraphs[i]);
+                        leafStart   = offset;
+                        leafAttr    = runs[i];
+                    } else if(offset > leafStart && !sameAttributes(leafAttr, runs[i])) {
+                        leaves.add(doc.createLeafElement(current, leafAttr, leafStart, offset));
+                        leafStart   = offset;
+                        leafAttr    = runs[i];
+                    }
+
+                    int lineEnd = scanner.nextLineEnd(offset, spanEnd);
+                    if(lineEnd == -1) {
+                        offset = spanEnd;
+                    } else {
+                        offset = lineEnd;
+                        leaves.add(doc.createLeafElement(current, leafAttr, leafStart, offset));
+                        current.replace(0, 0, leaves.toArray(new Element[leaves.size()]));
+                        out.add(current);
+                        leaves.clear();
+                        current = null;
+                    }
+                }
+
+            }
+
+        }
+
+
+        /**
+         * Returns whether two sets of attributes are equal.
+         *
+         * @param a         The first set.
+         * @param b         The second set.
+         * @return          True if they are equal.
+         */
+        private static boolean sameAttributes(AttributeSet a, AttributeSet b) {
+            return a == b || (a != null && b != null && a.isEqual(b));
+        }
+
+    }
+
+
+    /**
+     * Finds line breaks in a text going forward, copying it into a buffer a
+     * block at a time, so every character is copied about once.
+     */
+    private static class LineScanner {
+
+
+        /** The text. */
+        private final TextBuffer text;
+
+
+        /** The block of the text that was copied last. */
+        private final char[] buffer = new char[SCAN_SIZE];
+
+
+        /** The offset of the first character in the buffer. */
+        private int bufferStart;
+
+
+        /** The offset after the last character in the buffer. */
+        private int bufferEnd;
+
+
+        /**
+         * Constructor for a LineScanner.
+         *
+         * @param text      The text.
+         */
+        LineScanner(TextBuffer text) {
+            this.text = text;
+        }
+
+
+        /**
+         * Returns the offset after the first line break in a range.
+         *
+         * @param from      The first offset of the range.
+         * @param to        The offset after the last one.
+         * @return          The offset after the line break, or -1 if there
+         *                  is none.
+         */
+        int nextLineEnd(int from, int to) {
+            for(int i = from; i < to; i++) {
+                if(i < bufferStart || i >= bufferEnd) {
+                    bufferStart = i;
+                    bufferEnd   = Math.min(text.length(), i + buffer.length);
+                    text.getChars(bufferStart, bufferEnd, buffer, 0);
+                }
+                if(buffer[i - bufferStart] == '\n') {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+
+    }
+
+
+    /**
+     * A StyleContext that hands out an immutable attribute set as it is when
+     * it is added to the empty set, instead of building an equal copy and
+     * looking that up in the shared pool of sets. Every element created with
+     * attributes goes through this, which adds up when a document is built
+     * with a paragraph for each of a million lines.
+     */
+    private static class DocumentStyleContext extends StyleContext {
+
+        @Override
+        public synchronized AttributeSet addAttributes(AttributeSet old, AttributeSet attr) {
+            if(old == getEmptySet() && attr instanceof StyleContext.SmallAttributeSet) {
+                return attr;
+            }
+            return super.addAttributes(old, attr);
+        }
+
+    }
+
+}
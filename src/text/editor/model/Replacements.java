@@ -0,0 +1,226 @@
+package text.editor.model;
+
+import java.util.Arrays;
+
+
+/**
+ * The ranges of a text to replace and what to replace each of them with, in
+ * the order they are in the text and without overlapping. A range is never
+ * empty; text is put in with an insert, not a replacement.
+ *
+ * The ranges are kept as ints in growing arrays instead of objects, and the
+ * text they are replaced with is kept in one buffer, one replacement after
+ * the other, so a replace-all of millions of matches stays small and the
+ * text can be appended to a piece table in one go. When every range is
+ * replaced with the same text, that text is only kept once.
+ *
+ * A Replacements is not thread safe. It is filled in on one thread and handed
+ * over once it is done.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public final class Replacements {
+
+
+    /** The offsets the ranges start at. */
+    private int[] starts = new int[16];
+
+
+    /** The offsets after the last character of the ranges. */
+    private int[] ends = new int[16];
+
+
+    /** Where the replacement of each range starts in text, null if shared. */
+    private int[] textStarts;
+
+
+    /** The text of the replacements, one after the other. */
+    private final StringBuilder text;
+
+
+    /** Whether every range is replaced with all of text. */
+    private final boolean shared;
+
+
+    /** The amount of ranges. */
+    private int size;
+
+
+    /**
+     * Creates a list whose ranges are all replaced with the same text.
+     *
+     * @param replacement   The text to replace every range with.
+     */
+    public Replacements(CharSequence replacement) {
+        this.text   = new StringBuilder(replacement);
+        this.shared = true;
+    }
+
+
+    /**
+     * Creates a list whose ranges each have a replacement of their own.
+     */
+    public Replacements() {
+        this.text       = new StringBuilder();
+        this.textStarts = new int[17];
+        this.shared     = false;
+    }
+
+
+    /**
+     * Adds a range after the ones that are in the list, to be replaced with
+     * the shared text.
+     *
+     * @param start     The offset the range starts at.
+     * @param end       The offset after the last character of the range.
+     * @throws IllegalArgumentException if the range is empty.
+     */
+    public void add(int start, int end) {
+
+        if(!shared) {
+            throw new IllegalStateException("Every range has a replacement of its own");
+        }
+        checkRange(start, end);
+
+        grow();
+        starts[size]    = start;
+        ends[size]      = end;
+        size++;
+    }
+
+
+    /**
+     * Adds a range after the ones that are in the list, along with its
+     * replacement.
+     *
+     * @param start         The offset the range starts at.
+     * @param end           The offset after the last character of the range.
+     * @param replacement   The text to replace the range with.
+     * @throws IllegalArgumentException if the range is empty.
+     */
+    public void add(int start, int end, CharSequence replacement) {
+
+        if(shared) {
+            throw new IllegalStateException("Every range has the same replacement");
+        }
+        checkRange(start, end);
+
+        grow();
+        text.append(replacement);
+        starts[size]            = start;
+        ends[size]              = end;
+        textStarts[size + 1]    = text.length();
+        size++;
+    }
+
+
+    /**
+     * Checks that a range holds at least one character.
+     *
+     * @param start     The offset the range starts at.
+     * @param end       The offset after the last character of the range.
+     * @throws IllegalArgumentException if the range is empty.
+     */
+    private static void checkRange(int start, int end) {
+        if(end <= start) {
+            throw new IllegalArgumentException("Empty or reversed range "+start+"-"+end);
+        }
+    }
+
+
+    /**
+     * Makes room for one more range.
+     */
+    private void grow() {
+        if(size == starts.length) {
+            starts  = Arrays.copyOf(starts, size * 2);
+            ends    = Arrays.copyOf(ends, size * 2);
+            if(!shared) {
+                textStarts = Arrays.copyOf(textStarts, size * 2 + 1);
+            }
+        }
+    }
+
+
+    /**
+     * Returns the amount of ranges.
+     *
+     * @return          The amount of ranges.
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Returns the offset a range starts at.
+     *
+     * @param index     The index of the range.
+     * @return          The offset.
+     */
+    public int getStart(int index) {
+        return starts[index];
+    }
+
+
+    /**
+     * Returns the offset after the last character of a range.
+     *
+     * @param index     The index of the range.
+     * @return          The offset.
+     */
+    public int getEnd(int index) {
+        return ends[index];
+    }
+
+
+    /**
+     * Returns where the replacement of a range starts in getText().
+     *
+     * @param index     The index of the range.
+     * @return          The offset in the text.
+     */
+    public int getTextStart(int index) {
+        return shared ? 0 : textStarts[index];
+    }
+
+
+    /**
+     * Returns the length of the replacement of a range.
+     *
+     * @param index     The index of the range.
+     * @return          The amount of characters.
+     */
+    public int getTextLength(int index) {
+        return shared ? text.length() : textStarts[index + 1] - textStarts[index];
+    }
+
+
+    /**
+     * Returns the text of all replacements, one after the other, or the one
+     * replacement of every range if they share it.
+     *
+     * @return          The text, which must not be changed.
+     */
+    public CharSequence getText() {
+        return text;
+    }
+
+
+    /**
+     * Returns how much longer the text gets when every range is replaced.
+     *
+     * @return          The amount of characters, negative if it gets shorter.
+     */
+    public long getLengthChange() {
+        long change = shared ? (long)size * text.length() : text.length();
+        for(int i = 0; i < size; i++) {
+            change -= ends[i] - starts[i];
+        }
+        return change;
+    }
+
+}
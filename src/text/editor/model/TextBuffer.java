@@ -0,0 +1,41 @@
+package text.editor.model;
+
+
+/**
+ * A read-only sequence of characters that can be used as the original buffer
+ * of a PieceTableContent, and that can copy a range of characters in bulk.
+ * Implementations that do not keep their text in a String or an array (for
+ * example text that is decoded from a file on demand) implement this so the
+ * piece table does not need to call charAt for every character.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public interface TextBuffer extends CharSequence {
+
+
+    /**
+     * Copies characters from this buffer into an array.
+     *
+     * @param srcBegin  The index of the first character to copy.
+     * @param srcEnd    The index after the last character to copy.
+     * @param dst       The array to copy the characters into.
+     * @param dstBegin  The index in dst to start copying to.
+     */
+    void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin);
+
+
+    /**
+     * Returns about how many bytes of the heap the buffer takes for its text.
+     * Buffers that keep their text somewhere else say how much they cache.
+     *
+     * @return          The amount of bytes, two for each character unless
+     *                  overridden.
+     */
+    default long getHeapSize() {
+        return 2L * length();
+    }
+
+}
@@ -0,0 +1,262 @@
+package text.editor.model;
+
+import java.io.IOException;
+import java.io.Writer;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+
+
+/**
+ * An immutable copy of the text of a document.
+ *
+ * Taking a snapshot of a piece table does not copy any text. The pieces are
+ * immutable and the buffers they refer to only ever grow, so the snapshot just
+ * holds on to the current tree of pieces. The document can be edited while
+ * the snapshot is read on another thread, and the snapshot keeps seeing the
+ * text as it was when it was taken.
+ *
+ * A PieceTableContent publishes a new snapshot after every change, numbered
+ * with the version of the text, so a thread that only needs the text can
+ * read it without taking a lock on the document. Two snapshots of the same
+ * content with the same version hold the same text.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public final class TextSnapshot implements TextBuffer {
+
+
+    /** The size of the buffer used when copying out of the original text. */
+    private static final int COPY_SIZE = 8 * 1024;
+
+
+    /** The original buffer of the piece table. */
+    private final CharSequence original;
+
+
+    /** The chunks of the add buffer at the time of the snapshot. */
+    private final char[][] chunks;
+
+
+    /** The pieces that make up the text. */
+    private final Piece root;
+
+
+    /** The amount of characters in the snapshot. */
+    private final int length;
+
+
+    /** The version of the text the snapshot was taken of. */
+    private final long version;
+
+
+    /**
+     * Constructor for a TextSnapshot.
+     *
+     * @param original  The original buffer.
+     * @param chunks    The chunks of the add buffer.
+     * @param root      The pieces that make up the text.
+     * @param length    The amount of characters to include, at most the size
+     *                  of root.
+     * @param version   The version of the text.
+     */
+    TextSnapshot(CharSequence original, char[][] chunks, Piece root, int length, long version) {
+        this.original   = original;
+        this.chunks     = chunks;
+        this.root       = root;
+        this.length     = length;
+        this.version    = version;
+    }
+
+
+    /**
+     * Takes a snapshot of the text of a document, without the implied line
+     * break at the end. The snapshot a PieceTableDocument published last is
+     * returned, which can be done on any thread without a lock. Other
+     * documents must not be changed while the snapshot is taken, so this
+     * should be called on the Event Dispatch Thread or while holding a read
+     * lock on them.
+     *
+     * @param doc       The document.
+     * @return          The snapshot.
+     * @throws BadLocationException if the text can not be read.
+     */
+    public static TextSnapshot of(Document doc) throws BadLocationException {
+
+        if(doc instanceof PieceTableDocument) {
+            return ((PieceTableDocument)doc).getSnapshot();
+        }
+
+        String text = doc.getText(0, doc.getLength());
+        return new TextSnapshot(text, new char[0][], Piece.of(false, 0, text.length()),
+                                text.length(), 0);
+    }
+
+
+    /**
+     * Returns the version of the text the snapshot was taken of. Every change
+     * to the content makes the version one higher.
+     *
+     * @return          The version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+
+    @Override
+    public char charAt(int index) {
+
+        if(index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index: "+index);
+        }
+
+        Piece t = root;
+        while(true) {
+            int leftSize = Piece.size(t.left);
+            if(index < leftSize) {
+                t = t.left;
+            } else if(index >= leftSize + t.length) {
+                index -= leftSize + t.length;
+                t = t.right;
+            } else {
+                int i = t.start + index - leftSize;
+                return t.added ? AddBuffer.charAt(chunks, i) : original.charAt(i);
+            }
+        }
+
+    }
+
+
+    @Override
+    public void getChars(int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+        if(srcBegin < 0 || srcEnd > length || srcBegin > srcEnd) {
+            throw new IndexOutOfBoundsException("begin "+srcBegin+", end "+srcEnd);
+        }
+        copy(root, 0, srcBegin, srcEnd, dst, srcBegin - dstBegin);
+    }
+
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        char[] chars = new char[end - start];
+        getChars(start, end, chars, 0);
+        return new String(chars);
+    }
+
+
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+
+
+    /**
+     * Writes the text to a Writer, one piece at a time.
+     *
+     * @param out       The Writer.
+     * @throws IOException if writing fails.
+     */
+    public void writeTo(Writer out) throws IOException {
+        write(root, 0, out, new char[COPY_SIZE]);
+    }
+
+
+    /**
+     * Copies the characters of a range of a subtree into an array.
+     *
+     * @param t         The subtree.
+     * @param base      The offset of the first character of the subtree.
+     * @param from      The offset of the first character to copy.
+     * @param to        The offset after the last character to copy.
+     * @param dst       The array to copy into.
+     * @param dstBase   The offset that maps to index zero of dst.
+     */
+    private void copy(Piece t, int base, int from, int to, char[] dst, int dstBase) {
+
+        while(t != null && from < to) {
+
+            int pieceStart  = base + Piece.size(t.left);
+            int pieceEnd    = pieceStart + t.length;
+
+            if(from < pieceStart) {
+                copy(t.left, base, from, Math.min(to, pieceStart), dst, dstBase);
+            }
+
+            if(from < pieceEnd && to > pieceStart) {
+                int s = Math.max(from, pieceStart);
+                int e = Math.min(to, pieceEnd);
+                int bufferStart = t.start + s - pieceStart;
+                if(t.added) {
+                    AddBuffer.copy(chunks, bufferStart, bufferStart + e - s, dst, s - dstBase);
+                } else {
+                    TextUtilities.getChars(original, bufferStart, bufferStart + e - s,
+                                           dst, s - dstBase);
+                }
+            }
+
+            // Continue with the right subtree without recursing.
+            base    = pieceEnd;
+            from    = Math.max(from, pieceEnd);
+            t       = t.right;
+        }
+
+    }
+
+
+    /**
+     * Writes the characters of a subtree that lie before the end of the
+     * snapshot to a Writer.
+     *
+     * @param t         The subtree.
+     * @param base      The offset of the first character of the subtree.
+     * @param out       The Writer.
+     * @param scratch   A buffer for copying out of the original text.
+     * @throws IOException if writing fails.
+     */
+    private void write(Piece t, int base, Writer out, char[] scratch) throws IOException {
+
+        while(t != null && base < length) {
+
+            write(t.left, base, out, scratch);
+
+            int pieceStart  = base + Piece.size(t.left);
+            int n           = Math.min(t.length, length - pieceStart);
+
+            if(n <= 0) {
+                return;
+            }
+
+            if(t.added) {
+                for(int i = t.start, end = t.start + n; i < end; ) {
+                    int offset  = i & AddBuffer.CHUNK_MASK;
+                    int count   = Math.min(end - i, AddBuffer.CHUNK_SIZE - offset);
+                    out.write(chunks[i >>> AddBuffer.CHUNK_BITS], offset, count);
+                    i           += count;
+                }
+            } else if(original instanceof String) {
+                out.write((String)original, t.start, n);
+            } else {
+                for(int i = t.start, end = t.start + n; i < end; ) {
+                    int count = Math.min(end - i, scratch.length);
+                    TextUtilities.getChars(original, i, i + count, scratch, 0);
+                    out.write(scratch, 0, count);
+                    i += count;
+                }
+            }
+
+            base    = pieceStart + t.length;
+            t       = t.right;
+        }
+
+    }
+
+}
@@ -0,0 +1,55 @@
+package text.editor.model;
+
+import java.nio.CharBuffer;
+
+
+/**
+ * Small helpers for copying characters out of the buffers of a piece table.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+final class TextUtilities {
+
+
+    /**
+     * Private constructor so the TextUtilities class cannot be instantiated.
+     */
+    private TextUtilities() {}
+
+
+    /**
+     * Copies characters from a CharSequence into an array. Uses the bulk copy
+     * of the common CharSequence implementations when possible instead of
+     * going through charAt for every character.
+     *
+     * @param s         The characters to copy from.
+     * @param srcBegin  The index of the first character to copy.
+     * @param srcEnd    The index after the last character to copy.
+     * @param dst       The array to copy the characters into.
+     * @param dstBegin  The index in dst to start copying to.
+     */
+    static void getChars(CharSequence s, int srcBegin, int srcEnd,
+                         char[] dst, int dstBegin) {
+
+        if(s instanceof String) {
+            ((String)s).getChars(srcBegin, srcEnd, dst, dstBegin);
+        } else if(s instanceof TextBuffer) {
+            ((TextBuffer)s).getChars(srcBegin, srcEnd, dst, dstBegin);
+        } else if(s instanceof StringBuilder) {
+            ((StringBuilder)s).getChars(srcBegin, srcEnd, dst, dstBegin);
+        } else if(s instanceof CharBuffer && ((CharBuffer)s).hasArray()) {
+            CharBuffer cb = (CharBuffer)s;
+            System.arraycopy(cb.array(), cb.arrayOffset() + cb.position() + srcBegin,
+                             dst, dstBegin, srcEnd - srcBegin);
+        } else {
+            for(int i = srcBegin; i < srcEnd; i++) {
+                dst[dstBegin++] = s.charAt(i);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,793 @@
+package text.editor.recovery;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import text.editor.errorreporting.ErrorReport;
+import text.editor.graphics.editor.StatusBar;
+import text.editor.io.TextEncoding;
+import text.editor.model.TextSnapshot;
+
+
+/**
+ * Records the edits made to one document in a journal file, so the document
+ * can be rebuilt if the editor dies before it is saved.
+ *
+ * A journal file starts with a checkpoint: the path of the document and its
+ * full text. After that come the edits made since the checkpoint, in frames
+ * that each hold the records of about a second of typing and a checksum. A
+ * frame that was only half written when the editor died fails its checksum
+ * and is ignored, along with everything after it.
+ *
+ * A plain text document that was unmodified before its first edit does not
+ * copy its text into the checkpoint. The checkpoint names the file the text
+ * is in instead, with its size, time of modification and encoding, and the
+ * journal is only replayed if the file is still the same. A big file that
+ * was opened memory mapped is never copied this way.
+ *
+ * Records are collected on the Event Dispatch Thread and written by a single
+ * background thread, at most once a second. Once enough edits have piled up
+ * a new checkpoint replaces the whole file, so replaying a journal never has
+ * to go through more than CHECKPOINT_BYTES of edits. A document of more than
+ * CHECKPOINT_LIMIT characters keeps adding to its journal instead. If such a
+ * document needs a checkpoint of its full text, after a replace-all for
+ * instance, it is not journaled until it is saved, and the user is told.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class EditJournal {
+
+
+    /** The first four bytes of a journal file, "TLRJ". */
+    static final int MAGIC              = 0x544C524A;
+
+
+    /** The version of the journal format. */
+    static final int VERSION            = 2;
+
+
+    /** A checkpoint that holds the full text of the document. */
+    static final int TEXT_BASE          = 0;
+
+
+    /** A checkpoint that names the file that holds the text of the document. */
+    static final int FILE_BASE          = 1;
+
+
+    /** A record of text inserted into the document. */
+    static final int INSERT             = 1;
+
+
+    /** A record of text removed from the document. */
+    static final int REMOVE             = 2;
+
+
+    /** A record of the document getting a new file path. */
+    static final int PATH               = 3;
+
+
+    /** How long records are collected before they are written. */
+    private static final long FLUSH_DELAY_MILLIS = 1000;
+
+
+    /** The amount of record bytes after which a new checkpoint is taken. */
+    private static final long CHECKPOINT_BYTES  = 1024 * 1024;
+
+
+    /** The amount of characters encoded at a time when writing a checkpoint. */
+    private static final int CHECKPOINT_BLOCK   = 64 * 1024;
+
+
+    /**
+     * The most characters of text a checkpoint copies. Can be changed with the
+     * text.editor.journalCheckpointLimit system property.
+     */
+    private static final int CHECKPOINT_LIMIT   =
+            Integer.getInteger("text.editor.journalCheckpointLimit", 64 * 1024 * 1024);
+
+
+    /** The thread that writes all journals, one task at a time. */
+    private static final ScheduledExecutorService WRITER =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "Journal Writer");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
+
+    /** The journal file. */
+    private final File file;
+
+
+    /** The file path of the document, "" if it has none. Only used on the EDT. */
+    private String path = "";
+
+
+    /** Whether the journal is still recording. Only used on the EDT. */
+    private boolean open = true;
+
+
+    /** Whether the journal file holds a checkpoint. Only used on the EDT. */
+    private boolean hasCheckpoint;
+
+
+    /** The amount of record bytes since the last checkpoint. Only used on the EDT. */
+    private long bytesSinceCheckpoint;
+
+
+    /** The file the unmodified document is in, or null. Only used on the EDT. */
+    private FileBase base;
+
+
+    /** Whether the document is too big to journal until it is saved. Only used on the EDT. */
+    private boolean skipped;
+
+
+    /** The records that have not been written yet. Guarded by this. */
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+
+    /** Writes records into pending. Guarded by this. */
+    private final DataOutputStream records = new DataOutputStream(pending);
+
+
+    /** A checkpoint that has not been written yet. Guarded by this. */
+    private TextSnapshot pendingCheckpoint;
+
+
+    /** A checkpoint of the file of the document that has not been written yet. Guarded by this. */
+    private FileBase pendingBase;
+
+
+    /** The path that goes with the pending checkpoint. Guarded by this. */
+    private String pendingCheckpointPath;
+
+
+    /** Whether the journal file should be deleted. Guarded by this. */
+    private boolean deleteRequested;
+
+
+    /** Whether a flush has been scheduled. Guarded by this. */
+    private boolean flushScheduled;
+
+
+    /** Whether the journal has been closed for good. Guarded by this. */
+    private boolean closed;
+
+
+    /**
+     * Constructor for an EditJournal. Nothing is written until the first edit.
+     *
+     * @param file      The journal file.
+     */
+    EditJournal(File file) {
+        this.file = file;
+    }
+
+
+    /**
+     * Records text inserted into the document. The first edit after the
+     * journal was created or discarded writes a checkpoint of the document
+     * instead, which already includes the edit, unless the checkpoint names
+     * the file of the document.
+     *
+     * @param doc       The document, after the insert.
+     * @param offset    Where the text was inserted.
+     * @param text      The inserted text.
+     */
+    public void insert(Document doc, int offset, String text) {
+
+        if(needsCheckpoint(doc)) {
+            return;
+        }
+
+        synchronized(this) {
+            try {
+                int start = records.size();
+                records.writeByte(INSERT);
+                writeVarInt(records, offset);
+                writeString(records, text);
+                bytesSinceCheckpoint += records.size() - start;
+            } catch (IOException err) {
+                // Can not happen when writing to memory.
+            }
+            scheduleFlush(FLUSH_DELAY_MILLIS);
+        }
+
+    }
+
+
+    /**
+     * Records text removed from the document.
+     *
+     * @param doc       The document, after the removal.
+     * @param offset    Where the text was removed.
+     * @param length    The amount of characters removed.
+     */
+    public void remove(Document doc, int offset, int length) {
+
+        if(needsCheckpoint(doc)) {
+            return;
+        }
+
+        synchronized(this) {
+            try {
+                int start = records.size();
+                records.writeByte(REMOVE);
+                writeVarInt(records, offset);
+                writeVarInt(records, length);
+                bytesSinceCheckpoint += records.size() - start;
+            } catch (IOException err) {
+                // Can not happen when writing to memory.
+            }
+            scheduleFlush(FLUSH_DELAY_MILLIS);
+        }
+
+    }
+
+
+    /**
+     * Records that the document now belongs to another file.
+     *
+     * @param filePath  The new file path, may be null.
+     */
+    public void pathChanged(String filePath) {
+
+        path = (filePath == null) ? "" : filePath;
+
+        if(!open || !hasCheckpoint) {
+            return;
+        }
+
+        synchronized(this) {
+            try {
+                records.writeByte(PATH);
+                writeString(records, path);
+            } catch (IOException err) {
+                // Can not happen when writing to memory.
+            }
+            scheduleFlush(FLUSH_DELAY_MILLIS);
+        }
+
+    }
+
+
+    /**
+     * Writes a checkpoint of a document now, whether or not it has been
+     * edited. A document of more than CHECKPOINT_LIMIT characters is not
+     * copied, its journal is deleted and it is not journaled until it is
+     * saved.
+     *
+     * @param doc       The document.
+     */
+    public void checkpoint(Document doc) {
+
+        if(!open) {
+            return;
+        }
+
+        TextSnapshot snapshot;
+        try {
+            snapshot = TextSnapshot.of(doc);
+        } catch (BadLocationException err) {
+            new ErrorReport().createErrorReport(err);
+            return;
+        }
+
+        if(snapshot.length() > CHECKPOINT_LIMIT) {
+            skip();
+            return;
+        }
+
+        hasCheckpoint           = true;
+        bytesSinceCheckpoint    = 0;
+
+        synchronized(this) {
+            // The records written so far are all part of the checkpoint.
+            pending.reset();
+            pendingCheckpoint       = snapshot;
+            pendingBase             = null;
+            pendingCheckpointPath   = path;
+            scheduleFlush(0);
+        }
+
+    }
+
+
+    /**
+     * Records the file that holds the text of the document as it is now,
+     * because the document was just read from it or saved to it. The next
+     * edit names the file in its checkpoint instead of copying the text.
+     * Only plain text files can be named, since their text is read back the
+     * same way every time.
+     *
+     * @param file      The plain text file, or null if the document is not
+     *                  in one.
+     * @param encoding  The encoding of the file.
+     */
+    public void setBase(File file, TextEncoding encoding) {
+        base = (file == null) ? null : FileBase.of(file, encoding);
+    }
+
+
+    /**
+     * Records that the document has been saved. If nothing is left unsaved
+     * the journal is thrown away and the next edit starts a new one on top of
+     * the saved file. If the document was edited while the save ran, the
+     * checkpoint may name the file that was just overwritten, so a checkpoint
+     * of the text as it is now replaces it.
+     *
+     * @param doc       The document.
+     * @param file      The plain text file the document was saved to, or
+     *                  null if it is not plain text.
+     * @param encoding  The encoding of the file.
+     * @param modified  Whether the document has edits that were not saved.
+     */
+    public void saved(Document doc, File file, TextEncoding encoding, boolean modified) {
+
+        if(!modified) {
+            setBase(file, encoding);
+            discard();
+            return;
+        }
+
+        base    = null;
+        skipped = false;
+        if(hasCheckpoint) {
+            checkpoint(doc);
+        }
+
+    }
+
+
+    /**
+     * Throws the journal away, because the document has been saved or has
+     * been replaced. The next edit starts a new journal.
+     */
+    public void discard() {
+
+        skipped = false;
+
+        if(!hasCheckpoint) {
+            return;
+        }
+
+        hasCheckpoint = false;
+
+        synchronized(this) {
+            pending.reset();
+            pendingCheckpoint   = null;
+            pendingBase         = null;
+            deleteRequested     = true;
+            scheduleFlush(0);
+        }
+
+    }
+
+
+    /**
+     * Deletes the journal and stops recording, because the tab of the
+     * document was closed.
+     */
+    public void close() {
+        open = false;
+        synchronized(this) {
+            pending.reset();
+            pendingCheckpoint   = null;
+            pendingBase         = null;
+            deleteRequested     = true;
+            closed              = true;
+            scheduleFlush(0);
+        }
+    }
+
+
+    /**
+     * Deletes a file on the journal writer thread, after everything that has
+     * been handed to the writer so far.
+     *
+     * @param file      The file to delete.
+     */
+    static void deleteLater(final File file) {
+        WRITER.execute(new Runnable() {
+            @Override
+            public void run() {
+                file.delete();
+            }
+        });
+    }
+
+
+    /**
+     * Stops the journal writer, waiting a moment for a write in progress.
+     * Used when the editor exits cleanly and the journals are not needed.
+     *
+     * @return          The writer, so the caller can wait for it.
+     */
+    static ExecutorService shutdownWriter() {
+        WRITER.shutdownNow();
+        return WRITER;
+    }
+
+
+    /**
+     * Takes a checkpoint of the document if the journal has none, or if the
+     * edits since the last one take too long to replay. A document that was
+     * unmodified names its file in the checkpoint if the file did not change,
+     * and the edit is recorded after it. The edits of a document that is too
+     * big to copy keep piling up instead.
+     *
+     * @param doc       The document.
+     * @return          True if the edit should not be recorded, because it is
+     *                  in a new checkpoint or the journal is closed.
+     */
+    private boolean needsCheckpoint(Document doc) {
+
+        if(!open || skipped) {
+            return true;
+        }
+
+        if(!hasCheckpoint && base != null && base.isUnchanged()) {
+            checkpoint(base);
+            return false;
+        }
+
+        if(hasCheckpoint && (bytesSinceCheckpoint < CHECKPOINT_BYTES
+                             || doc.getLength() > CHECKPOINT_LIMIT)) {
+            return false;
+        }
+
+        checkpoint(doc);
+        return true;
+    }
+
+
+    /**
+     * Writes a checkpoint that names the file of the document.
+     *
+     * @param file      The file of the document.
+     */
+    private void checkpoint(FileBase file) {
+
+        hasCheckpoint           = true;
+        bytesSinceCheckpoint    = 0;
+
+        synchronized(this) {
+            pending.reset();
+            pendingCheckpoint       = null;
+            pendingBase             = file;
+            pendingCheckpointPath   = path;
+            scheduleFlush(0);
+        }
+
+    }
+
+
+    /**
+     * Stops journaling the document until it is saved, because it is too big
+     * to copy into a checkpoint, and deletes the journal, which no longer
+     * matches the document.
+     */
+    private void skip() {
+
+        hasCheckpoint   = false;
+        skipped         = true;
+
+        synchronized(this) {
+            pending.reset();
+            pendingCheckpoint   = null;
+            pendingBase         = null;
+            deleteRequested     = true;
+            scheduleFlush(0);
+        }
+
+        StatusBar.updateStatusMessage("The document is too big to protect from a crash, "
+                                      + "save it to keep the edits...");
+    }
+
+
+    /**
+     * Makes sure a flush will run. Must hold the lock on this.
+     *
+     * @param delay     The amount of milliseconds to wait for more records.
+     */
+    private void scheduleFlush(long delay) {
+
+        if(flushScheduled) {
+            return;
+        }
+
+        flushScheduled = true;
+        WRITER.schedule(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+
+    }
+
+
+    /*
+        Runs on the writer thread. Takes everything that is pending at once, so
+        records made after a checkpoint can never end up in the file the
+        checkpoint replaces.
+    */
+    private void flush() {
+
+        boolean delete;
+        TextSnapshot checkpoint;
+        FileBase checkpointBase;
+        String checkpointPath;
+        byte[] bytes;
+
+        synchronized(this) {
+
+            if(closed && !deleteRequested) {
+                return;
+            }
+
+            delete                  = deleteRequested;
+            checkpoint              = pendingCheckpoint;
+            checkpointBase          = pendingBase;
+            checkpointPath          = pendingCheckpointPath;
+            bytes                   = pending.toByteArray();
+
+            deleteRequested         = false;
+            pendingCheckpoint       = null;
+            pendingBase             = null;
+            flushScheduled          = false;
+            pending.reset();
+        }
+
+        try {
+
+            if(delete) {
+                Files.deleteIfExists(file.toPath());
+            }
+
+            if(checkpoint != null || checkpointBase != null) {
+                writeCheckpoint(checkpoint, checkpointBase, checkpointPath);
+            }
+
+            if(bytes.length > 0 && file.exists()) {
+                appendFrame(bytes);
+            }
+
+        } catch (IOException | RuntimeException err) {
+            new ErrorReport().createErrorReport(err);
+        }
+
+    }
+
+
+    /**
+     * Replaces the journal file with a new one that holds a checkpoint.
+     *
+     * @param text      The text of the document, or null if base is not.
+     * @param base      The file that holds the text of the document, or null
+     *                  if text is not.
+     * @param filePath  The file path of the document.
+     * @throws IOException if the file can not be written.
+     */
+    private void writeCheckpoint(TextSnapshot text, FileBase base, String filePath)
+            throws IOException {
+
+        File temp = new File(file.getPath()+".tmp");
+
+        try (FileOutputStream fileOut = new FileOutputStream(temp)) {
+
+            DataOutputStream out = new DataOutputStream(
+                                   new BufferedOutputStream(fileOut, CHECKPOINT_BLOCK));
+
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            writeString(out, filePath);
+
+            if(base != null) {
+                out.writeByte(FILE_BASE);
+                writeString(out, base.file.getPath());
+                out.writeLong(base.length);
+                out.writeLong(base.lastModified);
+                writeString(out, base.encoding.getCharset().name());
+                out.writeBoolean(base.encoding.hasBom());
+            } else {
+                out.writeByte(TEXT_BASE);
+                out.writeInt(text.length());
+
+                char[] block = new char[CHECKPOINT_BLOCK];
+                for(int i = 0; i < text.length(); i += block.length) {
+                    int n = Math.min(block.length, text.length() - i);
+                    text.getChars(i, i + n, block, 0);
+                    writeChars(out, block, n);
+                }
+            }
+
+            out.flush();
+
+            // The checkpoint has to be complete before it replaces the journal.
+            fileOut.getChannel().force(true);
+        }
+
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                                                     StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException err) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+    }
+
+
+    /**
+     * Appends a frame of records to the journal file.
+     *
+     * @param bytes     The records.
+     * @throws IOException if the file can not be written.
+     */
+    private void appendFrame(byte[] bytes) throws IOException {
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                                    new FileOutputStream(file, true)))) {
+            out.writeInt(bytes.length);
+            out.writeInt((int)crc.getValue());
+            out.write(bytes);
+        }
+
+    }
+
+
+    /**
+     * Writes a non-negative int in as few bytes as it needs, seven bits at a
+     * time.
+     *
+     * @param out       The stream.
+     * @param value     The value.
+     * @throws IOException if writing fails.
+     */
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+
+    /**
+     * Writes the length of a String and its characters.
+     *
+     * @param out       The stream.
+     * @param s         The String.
+     * @throws IOException if writing fails.
+     */
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        char[] chars = s.toCharArray();
+        writeVarInt(out, chars.length);
+        writeChars(out, chars, chars.length);
+    }
+
+
+    /**
+     * Writes characters in one to three bytes each, like UTF-8 but one
+     * character at a time, so a lone surrogate survives the trip.
+     *
+     * @param out       The stream.
+     * @param chars     The characters.
+     * @param n         The amount of characters to write.
+     * @throws IOException if writing fails.
+     */
+    static void writeChars(OutputStream out, char[] chars, int n) throws IOException {
+
+        byte[] bytes    = new byte[n * 3];
+        int length      = 0;
+
+        for(int i = 0; i < n; i++) {
+            char c = chars[i];
+            if(c < 0x80) {
+                bytes[length++] = (byte)c;
+            } else if(c < 0x800) {
+                bytes[length++] = (byte)(0xC0 | (c >> 6));
+                bytes[length++] = (byte)(0x80 | (c & 0x3F));
+            } else {
+                bytes[length++] = (byte)(0xE0 | (c >> 12));
+                bytes[length++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                bytes[length++] = (byte)(0x80 | (c & 0x3F));
+            }
+        }
+
+        out.write(bytes, 0, length);
+    }
+
+
+    /**
+     * A plain text file as it was when the document was read from it or saved
+     * to it.
+     */
+    private static final class FileBase {
+
+
+        /** The file. */
+        final File file;
+
+
+        /** The size of the file in bytes. */
+        final long length;
+
+
+        /** When the file was last modified. */
+        final long lastModified;
+
+
+        /** The encoding of the file. */
+        final TextEncoding encoding;
+
+
+        /**
+         * Constructor for a FileBase.
+         *
+         * @param file          The file.
+         * @param length        The size of the file in bytes.
+         * @param lastModified  When the file was last modified.
+         * @param encoding      The encoding of the file.
+         */
+        private FileBase(File file, long length, long lastModified, TextEncoding encoding) {
+            this.file           = file;
+            this.length         = length;
+            this.lastModified   = lastModified;
+            this.encoding       = encoding;
+        }
+
+
+        /**
+         * Returns the file as it is now.
+         *
+         * @param file      The file.
+         * @param encoding  The encoding of the file.
+         * @return          The FileBase, or null if the file does not exist.
+         */
+        static FileBase of(File file, TextEncoding encoding) {
+            if(!file.isFile()) {
+                return null;
+            }
+            return new FileBase(file, file.length(), file.lastModified(), encoding);
+        }
+
+
+        /**
+         * Returns true if the file still has the same size and time of
+         * modification.
+         *
+         * @return          Whether the file seems unchanged.
+         */
+        boolean isUnchanged() {
+            return file.length() == length && file.lastModified() == lastModified;
+        }
+
+    }
+
+}
@@ -0,0 +1,326 @@
+package text.editor.recovery;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import javax.swing.text.BadLocationException;
+import text.editor.io.DocumentIO;
+import text.editor.io.MappedTextBuffer;
+import text.editor.io.ReadWriteUtilities;
+import text.editor.io.TextEncoding;
+import text.editor.model.PieceTableContent;
+import text.editor.model.PieceTableDocument;
+
+
+/**
+ * Rebuilds a document from a journal file written by an EditJournal.
+ *
+ * The file is read in one go and the checkpoint is decoded into one array,
+ * which becomes the original buffer of a piece table. The edits after
+ * it are applied to that piece table, which does not copy any text, so the
+ * replay takes about as long as reading the checkpoint.
+ *
+ * A checkpoint that names a file is only replayed if the file has the same
+ * size and time of modification as when the checkpoint was written. The file
+ * is read the way ReadWriteUtilities opens it, memory mapped if it is big.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+class JournalReplay {
+
+
+    /** The file path of the recovered document, "" if it had none. */
+    private String filePath;
+
+
+    /** The recovered document. */
+    private PieceTableDocument document;
+
+
+    /** The amount of edits that were replayed after the checkpoint. */
+    private int editCount;
+
+
+    /**
+     * Private constructor, use replay(File).
+     */
+    private JournalReplay() {}
+
+
+    /**
+     * Replays a journal file. Frames that were not completely written are
+     * ignored.
+     *
+     * @param file      The journal file.
+     * @return          The replay.
+     * @throws IOException if the file is not a journal or can not be read.
+     */
+    static JournalReplay replay(File file) throws IOException {
+
+        JournalReplay replay = new JournalReplay();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+
+            if(channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Journal too big: "+file);
+            }
+
+            /*
+                Read rather than map the file, a mapped file can not be deleted
+                on Windows until the mapping is garbage collected.
+            */
+            ByteBuffer in = ByteBuffer.allocate((int)channel.size());
+            while(in.hasRemaining() && channel.read(in) != -1) {
+                // Keep reading.
+            }
+            in.flip();
+
+            try {
+
+                if(in.getInt() != EditJournal.MAGIC) {
+                    throw new IOException("Not a journal: "+file);
+                }
+
+                int version = in.get();
+                if(version != EditJournal.VERSION) {
+                    throw new IOException("Unknown journal version "+version+": "+file);
+                }
+
+                replay.filePath = readString(in);
+
+                CharSequence base;
+                if(in.get() == EditJournal.TEXT_BASE) {
+                    char[] text = new char[in.getInt()];
+                    readChars(in, text, text.length);
+                    base = CharBuffer.wrap(text);
+                } else {
+                    base = readBase(in);
+                }
+
+                PieceTableContent content = new PieceTableContent(base);
+                replay.replayFrames(in, content);
+
+                replay.document = new PieceTableDocument(
+                                        content.snapshot(content.length() - 1));
+
+            } catch (BufferUnderflowException | IllegalArgumentException err) {
+                throw new IOException("Damaged journal: "+file, err);
+            }
+
+        }
+
+        return replay;
+    }
+
+
+    /**
+     * Returns the file path of the recovered document.
+     *
+     * @return          The file path, or null if the document had none.
+     */
+    String getFilePath() {
+        return filePath.isEmpty() ? null : filePath;
+    }
+
+
+    /**
+     * Returns the recovered document.
+     *
+     * @return          The document.
+     */
+    PieceTableDocument getDocument() {
+        return document;
+    }
+
+
+    /**
+     * Returns the amount of edits that were replayed after the checkpoint.
+     *
+     * @return          The amount of edits.
+     */
+    int getEditCount() {
+        return editCount;
+    }
+
+
+    /**
+     * Reads the text of the file a checkpoint names.
+     *
+     * @param in        The journal, positioned after the kind of checkpoint.
+     * @return          The text of the file.
+     * @throws IOException if the file changed since the checkpoint was
+     *                      written, or can not be read.
+     */
+    private static CharSequence readBase(ByteBuffer in) throws IOException {
+
+        File file           = new File(readString(in));
+        long length         = in.getLong();
+        long lastModified   = in.getLong();
+        Charset charset     = Charset.forName(readString(in));
+        boolean bom         = in.get() != 0;
+
+        if(!file.isFile() || file.length() != length || file.lastModified() != lastModified) {
+            throw new IOException(file+" changed since its edits were journaled");
+        }
+
+        if(length >= ReadWriteUtilities.MAPPED_FILE_THRESHOLD && MappedTextBuffer.supports(charset)) {
+            return MappedTextBuffer.open(file, charset, null);
+        }
+
+        final StringBuilder text = new StringBuilder();
+        DocumentIO.readText(file, new TextEncoding(charset, bom, TextEncoding.LineEnding.LF),
+                            new DocumentIO.TextSink() {
+            @Override
+            public boolean append(char[] chars, int count, long position) {
+                text.append(chars, 0, count);
+                return true;
+            }
+        });
+        return text;
+    }
+
+
+    /**
+     * Applies the frames of edits to the text of the checkpoint, stopping at
+     * the first frame that is cut short or fails its checksum.
+     *
+     * @param in        The journal, positioned after the checkpoint.
+     * @param content   The text of the checkpoint.
+     */
+    private void replayFrames(ByteBuffer in, PieceTableContent content) {
+
+        CRC32 crc = new CRC32();
+
+        while(in.remaining() >= 8) {
+
+            int length      = in.getInt();
+            int checksum    = in.getInt();
+
+            if(length < 0 || length > in.remaining()) {
+                return;
+            }
+
+            crc.reset();
+            crc.update(in.array(), in.arrayOffset() + in.position(), length);
+            if((int)crc.getValue() != checksum) {
+                return;
+            }
+
+            ByteBuffer frame = in.slice();
+            frame.limit(length);
+
+            try {
+                while(frame.hasRemaining()) {
+                    replayRecord(frame, content);
+                    editCount++;
+                }
+            } catch (BadLocationException | BufferUnderflowException err) {
+                // The records no longer fit the text, keep what made sense.
+                return;
+            }
+
+            in.position(in.position() + length);
+        }
+
+    }
+
+
+    /**
+     * Applies one record.
+     *
+     * @param frame     The frame, positioned at the record.
+     * @param content   The text to apply the record to.
+     * @throws BadLocationException if the record does not fit the text.
+     */
+    private void replayRecord(ByteBuffer frame, PieceTableContent content)
+            throws BadLocationException {
+
+        int type = frame.get();
+
+        switch(type) {
+
+            case EditJournal.INSERT:
+                int offset = readVarInt(frame);
+                content.insertString(offset, readString(frame));
+                break;
+
+            case EditJournal.REMOVE:
+                int where = readVarInt(frame);
+                content.remove(where, readVarInt(frame));
+                break;
+
+            case EditJournal.PATH:
+                filePath = readString(frame);
+                break;
+
+            default:
+                throw new BadLocationException("Unknown record "+type, frame.position());
+        }
+
+    }
+
+
+    /**
+     * Reads an int written by EditJournal.writeVarInt.
+     *
+     * @param in        The buffer.
+     * @return          The int.
+     */
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for(int shift = 0; ; shift += 7) {
+            int b = in.get();
+            value |= (b & 0x7F) << shift;
+            if((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+
+    /**
+     * Reads a String written by EditJournal.writeString.
+     *
+     * @param in        The buffer.
+     * @return          The String.
+     */
+    private static String readString(ByteBuffer in) {
+        char[] chars = new char[readVarInt(in)];
+        readChars(in, chars, chars.length);
+        return new String(chars);
+    }
+
+
+    /**
+     * Reads characters written by EditJournal.writeChars.
+     *
+     * @param in        The buffer.
+     * @param chars     The array to read into.
+     * @param n         The amount of characters to read.
+     */
+    private static void readChars(ByteBuffer in, char[] chars, int n) {
+
+        for(int i = 0; i < n; i++) {
+            int b = in.get() & 0xFF;
+            if(b < 0x80) {
+                chars[i] = (char)b;
+            } else if(b < 0xE0) {
+                chars[i] = (char)(((b & 0x1F) << 6) | (in.get() & 0x3F));
+            } else {
+                int b2 = in.get() & 0x3F;
+                chars[i] = (char)(((b & 0x0F) << 12) | (b2 << 6) | (in.get() & 0x3F));
+            }
+        }
+
+    }
+
+}
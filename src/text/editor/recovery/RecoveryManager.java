@@ -0,0 +1,307 @@
+package text.editor.recovery;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JOptionPane;
+import text.editor.errorreporting.ErrorReport;
+import text.editor.graphics.MainWindow;
+import text.editor.graphics.editor.MainTabHolder;
+import text.editor.graphics.editor.MainTextPane;
+import text.editor.io.TextEncoding;
+
+
+/**
+ * Keeps the edit journals of the documents in the recovery directory and
+ * restores documents from the journals of an editor that died.
+ *
+ * Every running editor is a session. Its journals are named after the session
+ * and it holds a lock on a lock file of the same name for as long as it runs.
+ * The operating system drops the lock when the editor dies, which is how the
+ * next editor tells the journals of a crashed session from those of an editor
+ * that is still running.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public class RecoveryManager {
+
+
+    /** The directory that holds the journals. */
+    private static final File RECOVERY_DIRECTORY = new File("RecoveryDirectory");
+
+
+    /** The extension of journal files. */
+    private static final String JOURNAL_EXTENSION = ".journal";
+
+
+    /** The extension of session lock files. */
+    private static final String LOCK_EXTENSION = ".lock";
+
+
+    /** The name of this session. */
+    private static final String SESSION =
+            Long.toString(System.currentTimeMillis(), 36)+"_"
+          + Long.toString(System.nanoTime() & 0xFFFFFF, 36);
+
+
+    /** The amount of journals created in this session. */
+    private static int journalCount;
+
+
+    /** The lock file of this session, held until the editor exits. */
+    private static RandomAccessFile lockFile;
+
+
+    /** The lock on the lock file of this session. */
+    private static FileLock lock;
+
+
+    /**
+     * Private constructor so the RecoveryManager class cannot be instantiated.
+     */
+    private RecoveryManager() {}
+
+
+    /**
+     * Creates the recovery directory if it does not exist and locks the lock
+     * file of this session.
+     */
+    public static synchronized void start() {
+
+        if(lock != null) {
+            return;
+        }
+
+        if(!RECOVERY_DIRECTORY.exists()) {
+            RECOVERY_DIRECTORY.mkdir();
+        }
+
+        try {
+            lockFile    = new RandomAccessFile(new File(RECOVERY_DIRECTORY,
+                                                        SESSION+LOCK_EXTENSION), "rw");
+            lock        = lockFile.getChannel().lock();
+        } catch (IOException err) {
+            new ErrorReport().createErrorReport(err);
+        }
+
+    }
+
+
+    /**
+     * Creates a journal for a new document.
+     *
+     * @return          The journal.
+     */
+    public static synchronized EditJournal createJournal() {
+        start();
+        journalCount++;
+        return new EditJournal(new File(RECOVERY_DIRECTORY,
+                                        SESSION+"-"+journalCount+JOURNAL_EXTENSION));
+    }
+
+
+    /**
+     * Looks for journals left behind by editors that died and asks the user
+     * whether to restore them. Every restored document is opened in a new tab
+     * and gets a new journal, the old journals are deleted either way. Must
+     * be called on the Event Dispatch Thread.
+     */
+    public static void offerRecovery() {
+
+        List<File> journals = new ArrayList<>();
+        List<File> leftovers = new ArrayList<>();
+        findOrphanedJournals(journals, leftovers);
+
+        if(journals.isEmpty()) {
+            return;
+        }
+
+        int answer = JOptionPane.showConfirmDialog(null,
+                                                    "The editor did not shut down properly. "
+                                                  + "Restore "+journals.size()+" unsaved "
+                                                  + (journals.size() == 1 ? "document?" : "documents?"),
+                                                    "Restore Documents",
+                                                    JOptionPane.YES_NO_OPTION,
+                                                    JOptionPane.QUESTION_MESSAGE);
+
+        if(answer == JOptionPane.YES_OPTION) {
+
+            MainTabHolder tabHolder = MainWindow.getTabbedPane();
+
+            for(File journal : journals) {
+
+                try {
+
+                    JournalReplay replay = JournalReplay.replay(journal);
+
+                    tabHolder.createNewDocument();
+                    MainTextPane textPane = MainWindow.getTextPane();
+                    textPane.restoreDocument(replay.getDocument(), replay.getFilePath());
+
+                    if(replay.getFilePath() != null) {
+                        String path = replay.getFilePath();
+                        tabHolder.setTitleAt(tabHolder.getSelectedIndex(),
+                                             path.substring(path.lastIndexOf(File.separator)+1));
+                        // Save it back the way the file on the disk is encoded.
+                        if(new File(path).isFile()) {
+                            textPane.setEncoding(TextEncoding.detect(new File(path)));
+                        }
+                    }
+
+                } catch (IOException | RuntimeException err) {
+                    new ErrorReport().createErrorReport(err);
+                    JOptionPane.showMessageDialog(null,
+                                                    "Could not restore "+journal.getName()+".",
+                                                    "Error",
+                                                    JOptionPane.ERROR_MESSAGE);
+                }
+
+            }
+
+        }
+
+        /*
+            The restored documents have written new checkpoints by the time
+            the writer gets to these.
+        */
+        for(File journal : journals) {
+            EditJournal.deleteLater(journal);
+        }
+        for(File file : leftovers) {
+            EditJournal.deleteLater(file);
+        }
+
+    }
+
+
+    /**
+     * Deletes the journals of this session, because the editor is exiting
+     * the way the user asked it to.
+     */
+    public static synchronized void cleanExit() {
+
+        try {
+            EditJournal.shutdownWriter().awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException err) {
+            Thread.currentThread().interrupt();
+        }
+
+        File[] files = RECOVERY_DIRECTORY.listFiles();
+        if(files != null) {
+            for(File file : files) {
+                if(file.getName().startsWith(SESSION+"-")) {
+                    file.delete();
+                }
+            }
+        }
+
+        try {
+            if(lock != null) {
+                lock.release();
+                lockFile.close();
+                new File(RECOVERY_DIRECTORY, SESSION+LOCK_EXTENSION).delete();
+            }
+        } catch (IOException err) {
+            new ErrorReport().createErrorReport(err);
+        }
+
+    }
+
+
+    /**
+     * Finds the journals of sessions whose lock is not held by anyone.
+     *
+     * @param journals  Receives the journals.
+     * @param leftovers Receives the other files of the dead sessions.
+     */
+    private static void findOrphanedJournals(List<File> journals, List<File> leftovers) {
+
+        File[] files = RECOVERY_DIRECTORY.listFiles();
+        if(files == null) {
+            return;
+        }
+
+        List<String> deadSessions = new ArrayList<>();
+
+        for(File file : files) {
+
+            String name = file.getName();
+            if(!name.endsWith(LOCK_EXTENSION)) {
+                continue;
+            }
+
+            String session = name.substring(0, name.length() - LOCK_EXTENSION.length());
+            if(!session.equals(SESSION) && !isLocked(file)) {
+                deadSessions.add(session);
+                leftovers.add(file);
+            }
+
+        }
+
+        for(File file : files) {
+
+            String name     = file.getName();
+            int dash        = name.indexOf('-');
+
+            if(dash == -1) {
+                continue;
+            }
+
+            String session = name.substring(0, dash);
+            if(session.equals(SESSION)) {
+                continue;
+            }
+
+            /*
+                A journal without a lock file is left over too, its lock file
+                was lost along the way.
+            */
+            boolean orphan = deadSessions.contains(session)
+                          || !new File(RECOVERY_DIRECTORY, session+LOCK_EXTENSION).exists();
+
+            if(orphan && name.endsWith(JOURNAL_EXTENSION)) {
+                journals.add(file);
+            } else if(orphan) {
+                // A checkpoint that was never finished.
+                leftovers.add(file);
+            }
+
+        }
+
+    }
+
+
+    /**
+     * Returns true if another running editor holds the lock on a lock file.
+     *
+     * @param file      The lock file.
+     * @return          Whether the session of the lock file is alive.
+     */
+    private static boolean isLocked(File file) {
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            FileChannel channel = raf.getChannel();
+            FileLock probe      = channel.tryLock();
+            if(probe == null) {
+                return true;
+            }
+            probe.release();
+            return false;
+        } catch (OverlappingFileLockException err) {
+            return true;
+        } catch (IOException err) {
+            return true;
+        }
+
+    }
+
+}
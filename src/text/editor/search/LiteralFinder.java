@@ -0,0 +1,137 @@
+package text.editor.search;
+
+import java.util.Arrays;
+import text.editor.model.TextBuffer;
+
+
+/**
+ * Finds text with the Boyer-Moore-Horspool algorithm.
+ *
+ * The pattern is compared from its last character backwards, and on a
+ * mismatch the pattern is moved ahead by how far the character under its
+ * last position is from the end of the pattern, so most characters of the
+ * text are never looked at when the pattern is longer than a few characters.
+ * The table of shifts has 256 entries, indexed by the low byte of a
+ * character; characters that share a low byte share the smallest shift of
+ * them, which is never too far.
+ *
+ * Without matching case, the pattern and every block of the text are folded
+ * to lower case before they are compared, so the loop that compares them is
+ * the same either way.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+final class LiteralFinder extends TextFinder {
+
+
+    /** The amount of characters a match may start in per block. */
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+
+    /** The pattern, folded to lower case unless case matters. */
+    private final char[] pattern;
+
+
+    /** Whether upper and lower case letters are different. */
+    private final boolean matchCase;
+
+
+    /** How far to move the pattern ahead, by the low byte of the last character under it. */
+    private final int[] shift = new int[256];
+
+
+    /**
+     * Constructor for a LiteralFinder.
+     *
+     * @param pattern   The text to find, not empty.
+     * @param matchCase Whether upper and lower case letters are different.
+     */
+    LiteralFinder(String pattern, boolean matchCase) {
+
+        this.pattern    = pattern.toCharArray();
+        this.matchCase  = matchCase;
+
+        if(!matchCase) {
+            fold(this.pattern, this.pattern.length);
+        }
+
+        int m = this.pattern.length;
+        Arrays.fill(shift, m);
+        for(int i = 0; i < m - 1; i++) {
+            shift[this.pattern[i] & 0xFF] = m - 1 - i;
+        }
+
+    }
+
+
+    /*
+        Every block holds the characters a match may start at and the
+        characters a match that starts at the last of them needs, so no match
+        is missed between two blocks.
+    */
+    @Override
+    public void find(TextBuffer text, int from, int to, MatchList out)
+            throws InterruptedException {
+
+        int m       = pattern.length;
+        int last    = Math.min(to, text.length() - m + 1);
+        char[] window = new char[Math.min(BLOCK_SIZE, Math.max(0, last - from)) + m - 1];
+
+        // The offset the next match may start at, after the end of the last one.
+        int next    = from;
+
+        for(int block = from; block < last; block += BLOCK_SIZE) {
+
+            checkInterrupted();
+
+            int limit   = Math.min(last, block + BLOCK_SIZE) - block;
+            int n       = limit + m - 1;
+            text.getChars(block, block + n, window, 0);
+            if(!matchCase) {
+                fold(window, n);
+            }
+
+            int i = Math.max(next, block) - block;
+            while(i < limit) {
+                int j = m - 1;
+                while(j >= 0 && window[i + j] == pattern[j]) {
+                    j--;
+                }
+                if(j < 0) {
+                    out.add(block + i, block + i + m);
+                    i += m;
+                } else {
+                    i += shift[window[i + m - 1] & 0xFF];
+                }
+            }
+
+            next = block + i;
+        }
+
+    }
+
+
+    /**
+     * Folds characters to lower case in place, so they can be compared without
+     * minding case.
+     *
+     * @param chars     The characters.
+     * @param count     The amount of characters from the start to fold.
+     */
+    private static void fold(char[] chars, int count) {
+        for(int i = 0; i < count; i++) {
+            char c = chars[i];
+            if(c < 128) {
+                if(c >= 'A' && c <= 'Z') {
+                    chars[i] = (char)(c + ('a' - 'A'));
+                }
+            } else {
+                chars[i] = Character.toLowerCase(Character.toUpperCase(c));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package text.editor.search;
+
+import java.util.Arrays;
+
+
+/**
+ * The matches of a search, in the order they are in the text. Every match is
+ * kept as two ints in growing arrays instead of an object, so a search of a
+ * big log that finds millions of matches stays small.
+ *
+ * A MatchList is not thread safe. A search fills in a list of its own and
+ * hands it over once it is done with it.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public final class MatchList {
+
+
+    /** The offsets the matches start at. */
+    private int[] starts = new int[16];
+
+
+    /** The offsets after the last character of the matches. */
+    private int[] ends = new int[16];
+
+
+    /** The amount of matches. */
+    private int size;
+
+
+    /**
+     * Adds a match after the ones that are in the list.
+     *
+     * @param start     The offset the match starts at.
+     * @param end       The offset after the last character of the match.
+     */
+    public void add(int start, int end) {
+
+        if(size == starts.length) {
+            starts  = Arrays.copyOf(starts, size * 2);
+            ends    = Arrays.copyOf(ends, size * 2);
+        }
+
+        starts[size]    = start;
+        ends[size]      = end;
+        size++;
+    }
+
+
+    /**
+     * Adds the matches of another list after the ones that are in this list.
+     *
+     * @param other     The list, with matches that come after the ones in
+     *                  this list.
+     */
+    public void addAll(MatchList other) {
+
+        if(size + other.size > starts.length) {
+            int capacity = Math.max(size + other.size, starts.length * 2);
+            starts  = Arrays.copyOf(starts, capacity);
+            ends    = Arrays.copyOf(ends, capacity);
+        }
+
+        System.arraycopy(other.starts, 0, starts, size, other.size);
+        System.arraycopy(other.ends, 0, ends, size, other.size);
+        size += other.size;
+    }
+
+
+    /**
+     * Returns the amount of matches.
+     *
+     * @return          The amount of matches.
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Returns the offset a match starts at.
+     *
+     * @param index     The index of the match.
+     * @return          The offset.
+     */
+    public int getStart(int index) {
+        return starts[index];
+    }
+
+
+    /**
+     * Returns the offset after the last character of a match.
+     *
+     * @param index     The index of the match.
+     * @return          The offset.
+     */
+    public int getEnd(int index) {
+        return ends[index];
+    }
+
+
+    /**
+     * Returns the index of the first match that starts at or after an offset.
+     *
+     * @param offset    The offset.
+     * @return          The index, or size() if every match starts before it.
+     */
+    public int indexAtOrAfter(int offset) {
+
+        int low     = 0;
+        int high    = size;
+        while(low < high) {
+            int mid = (low + high) >>> 1;
+            if(starts[mid] < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+}
@@ -0,0 +1,318 @@
+package text.editor.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BooleanSupplier;
+import text.editor.model.TextBuffer;
+
+
+/**
+ * Finds the matches of a text on a ForkJoinPool, along with the line every
+ * match is on, for a list of search results.
+ *
+ * The text is cut into chunks of a few million characters that are searched
+ * in parallel, so a single big document keeps every core busy as well as
+ * many small ones do. Every chunk also counts its line breaks on the way, and
+ * the chunks are put back together in order, which gives the matches their
+ * line numbers without going over the text a second time. A match at the end
+ * of a chunk that overlaps the first one of the next chunk wins over it, the
+ * way it does when a document is searched in batches.
+ *
+ * Every match is counted, but only the first few are kept as a SearchHit,
+ * with a piece of their line, so a text with millions of matches does not
+ * fill the heap with them.
+ *
+ * A search stops between chunks once it is cancelled, and returns what it
+ * found so far, which should then be thrown away.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public final class ParallelSearch extends RecursiveTask<ParallelSearch.Result> {
+
+
+    /** The amount of characters a match may start in per chunk. */
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+
+    /** The amount of characters read at a time to count line breaks. */
+    private static final int SCAN_SIZE = 64 * 1024;
+
+
+    /** The most characters of a line shown before and after a match. */
+    private static final int PREVIEW_CONTEXT = 80;
+
+
+    /** What is searched for. */
+    private final TextFinder finder;
+
+
+    /** The text, which must not change while it is searched. */
+    private final TextBuffer text;
+
+
+    /** The most matches kept as a SearchHit. */
+    private final int maxHits;
+
+
+    /** Whether the search was cancelled. */
+    private final BooleanSupplier cancelled;
+
+
+    /**
+     * Constructor for a ParallelSearch.
+     *
+     * @param finder    What to search for.
+     * @param text      The text, which must not change while it is searched.
+     * @param maxHits   The most matches to keep as a SearchHit.
+     * @param cancelled Says whether the search was cancelled. Called from
+     *                  the threads of the pool.
+     */
+    public ParallelSearch(TextFinder finder, TextBuffer text, int maxHits, BooleanSupplier cancelled) {
+        this.finder     = finder;
+        this.text       = text;
+        this.maxHits    = maxHits;
+        this.cancelled  = cancelled;
+    }
+
+
+    /*
+        The chunks are searched in parallel, and put together in order on the
+        thread that runs this task.
+    */
+    @Override
+    protected Result compute() {
+
+        int length          = text.length();
+        List<Chunk> chunks  = new ArrayList<>();
+        int from            = 0;
+        do {
+            int to = (int)Math.min(length, (long)from + CHUNK_SIZE);
+            chunks.add(new Chunk(from, to, to < length));
+            from = to;
+        } while(from < length);
+
+        invokeAll(chunks);
+
+        List<SearchHit> hits    = new ArrayList<>();
+        int count               = 0;
+        int lineBase            = 0;
+        int lastEnd             = 0;
+
+        for(Chunk chunk : chunks) {
+
+            MatchList matches = chunk.matches;
+            for(int i = 0; i < matches.size(); i++) {
+
+                int start = matches.getStart(i);
+                if(start < lastEnd) {
+                    continue;
+                }
+
+                lastEnd = matches.getEnd(i);
+                count++;
+                if(hits.size() < maxHits) {
+                    hits.add(createHit(lineBase + chunk.lines[i], start, lastEnd));
+                }
+            }
+
+            lineBase += chunk.breaks;
+        }
+
+        return new Result(count, hits);
+    }
+
+
+    /**
+     * Creates a SearchHit for a match, with the part of its line around it.
+     *
+     * @param line      The line the match starts on.
+     * @param start     The offset the match starts at.
+     * @param end       The offset after the last character of the match.
+     * @return          The hit.
+     */
+    private SearchHit createHit(int line, int start, int end) {
+
+        int from        = Math.max(0, start - PREVIEW_CONTEXT);
+        int to          = (int)Math.min(text.length(),
+                                        (long)Math.min(end, start + PREVIEW_CONTEXT) + PREVIEW_CONTEXT);
+        char[] chars    = new char[to - from];
+        text.getChars(from, to, chars, 0);
+
+        int lineStart = start - from;
+        while(lineStart > 0 && chars[lineStart - 1] != '\n') {
+            lineStart--;
+        }
+
+        int lineEnd = start - from;
+        while(lineEnd < chars.length && chars[lineEnd] != '\n' && chars[lineEnd] != '\r') {
+            lineEnd++;
+        }
+
+        int matchEnd = Math.min(end - from, lineEnd);
+        return new SearchHit(line, start, end, new String(chars, lineStart, lineEnd - lineStart),
+                             start - from - lineStart, matchEnd - lineStart);
+    }
+
+
+    /**
+     * The matches of a text, and the first few of them with their lines.
+     */
+    public static final class Result {
+
+
+        /** The amount of matches. */
+        private final int count;
+
+
+        /** The first matches, in the order they are in the text. */
+        private final List<SearchHit> hits;
+
+
+        /**
+         * Constructor for a Result.
+         *
+         * @param count     The amount of matches.
+         * @param hits      The first matches.
+         */
+        Result(int count, List<SearchHit> hits) {
+            this.count  = count;
+            this.hits   = hits;
+        }
+
+
+        /**
+         * Returns the amount of matches, including the ones that were not
+         * kept.
+         *
+         * @return          The amount of matches.
+         */
+        public int getCount() {
+            return count;
+        }
+
+
+        /**
+         * Returns the first matches, at most as many as the search was told
+         * to keep.
+         *
+         * @return          The matches, in the order they are in the text.
+         */
+        public List<SearchHit> getHits() {
+            return hits;
+        }
+
+    }
+
+
+    /**
+     * Searches a range of the text and counts the line breaks in it.
+     */
+    private final class Chunk extends RecursiveAction {
+
+
+        /** The offset of the first character a match may start at. */
+        private final int from;
+
+
+        /** The offset after the last character a match may start at. */
+        private final int to;
+
+
+        /** The matches that start in the range. */
+        private MatchList matches = new MatchList();
+
+
+        /** The line of every match, counting from the start of the range. */
+        private int[] lines;
+
+
+        /** Whether the line breaks are counted even without matches. */
+        private final boolean countBreaks;
+
+
+        /** The amount of line breaks in the range. */
+        private int breaks;
+
+
+        /**
+         * Constructor for a Chunk.
+         *
+         * @param from          The start of the range.
+         * @param to            The end of the range.
+         * @param countBreaks   Whether to count the line breaks even if
+         *                      there are no matches, for the chunks after
+         *                      this one.
+         */
+        Chunk(int from, int to, boolean countBreaks) {
+            this.from           = from;
+            this.to             = to;
+            this.countBreaks    = countBreaks;
+        }
+
+
+        /*
+            A chunk of a search that was cancelled, or whose thread was
+            interrupted, has no matches. The last chunk is only gone over
+            again for its lines if it has matches, so a small text without
+            any is only read once.
+        */
+        @Override
+        protected void compute() {
+
+            lines = new int[0];
+            if(cancelled.getAsBoolean()) {
+                return;
+            }
+
+            try {
+                finder.find(text, from, to, matches);
+            } catch (InterruptedException err) {
+                Thread.currentThread().interrupt();
+                matches = new MatchList();
+                return;
+            }
+
+            if(countBreaks || matches.size() > 0) {
+                countLines();
+            }
+        }
+
+
+        /**
+         * Counts the line breaks in the range, and gives every match the
+         * amount of them before it.
+         */
+        private void countLines() {
+
+            lines           = new int[matches.size()];
+            char[] buffer   = new char[Math.min(SCAN_SIZE, to - from)];
+            int size        = matches.size();
+            int next        = 0;
+            int line        = 0;
+
+            for(int pos = from; pos < to; pos += buffer.length) {
+
+                int n = Math.min(buffer.length, to - pos);
+                text.getChars(pos, pos + n, buffer, 0);
+
+                for(int i = 0; i < n; i++) {
+                    while(next < size && matches.getStart(next) == pos + i) {
+                        lines[next++] = line;
+                    }
+                    if(buffer[i] == '\n') {
+                        line++;
+                    }
+                }
+            }
+
+            breaks = line;
+        }
+
+    }
+
+}
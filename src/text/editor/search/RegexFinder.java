@@ -0,0 +1,160 @@
+package text.editor.search;
+
+import java.nio.CharBuffer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import text.editor.model.Replacements;
+import text.editor.model.TextBuffer;
+
+
+/**
+ * Finds the matches of a regular expression.
+ *
+ * The text is matched one block of whole lines at a time, so a match can not
+ * be longer than a block, and ^ and $ match at the start and end of every
+ * line. The character before a block is kept in front of it, so ^ and look
+ * behinds see what comes before the block. Matches that are empty are
+ * skipped, there is nothing to show of them, and nothing to replace.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+final class RegexFinder extends TextFinder {
+
+
+    /** The most characters in a block. */
+    private static final int BLOCK_SIZE = 1024 * 1024;
+
+
+    /** The regular expression. */
+    private final Pattern pattern;
+
+
+    /**
+     * Constructor for a RegexFinder.
+     *
+     * @param regex     The regular expression.
+     * @param matchCase Whether upper and lower case letters are different.
+     */
+    RegexFinder(String regex, boolean matchCase) {
+        int flags = Pattern.MULTILINE;
+        if(!matchCase) {
+            flags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+        }
+        this.pattern = Pattern.compile(regex, flags);
+    }
+
+
+    /*
+        A block ends after the last line break in it, unless it holds a line
+        that is longer than a block or is the end of the text.
+    */
+    @Override
+    public void find(TextBuffer text, int from, int to, MatchList out)
+            throws InterruptedException {
+        scan(text, from, to, out, null, null);
+    }
+
+
+    /*
+        A replacement without $ or \ is the same for every match, so it is
+        only kept once.
+    */
+    @Override
+    public Replacements replaceAll(TextBuffer text, String replacement)
+            throws InterruptedException {
+
+        if(replacement.indexOf('$') == -1 && replacement.indexOf('\\') == -1) {
+            return super.replaceAll(text, replacement);
+        }
+
+        Replacements replacements = new Replacements();
+        scan(text, 0, text.length(), null, replacement, replacements);
+        return replacements;
+    }
+
+
+    /**
+     * Finds the matches that start in a range of a text, and adds them to a
+     * list, or adds them along with what they are replaced with.
+     *
+     * @param text          The text.
+     * @param from          The offset of the first character a match may
+     *                      start at.
+     * @param to            The offset after the last character a match may
+     *                      start at.
+     * @param out           The list to add the matches to, or null.
+     * @param replacement   What to replace a match with, or null.
+     * @param replacements  The list to add the matches and their
+     *                      replacements to, or null.
+     * @throws InterruptedException if the thread was interrupted.
+     */
+    private void scan(TextBuffer text, int from, int to, MatchList out,
+                      String replacement, Replacements replacements)
+            throws InterruptedException {
+
+        int length      = text.length();
+        to              = Math.min(to, length);
+        char[] window   = new char[Math.min(BLOCK_SIZE, Math.max(0, length - from)) + 1];
+        StringBuffer replaced = (replacements != null) ? new StringBuffer() : null;
+        int next        = from;
+        int pos         = from;
+
+        while(pos < to) {
+
+            checkInterrupted();
+
+            int lead    = (pos > 0) ? 1 : 0;
+            int end     = Math.min(length, pos + window.length - lead);
+            text.getChars(pos - lead, end, window, 0);
+
+            int n = lead + end - pos;
+            if(end < length) {
+                int cut = n;
+                while(cut > lead && window[cut - 1] != '\n') {
+                    cut--;
+                }
+                if(cut > lead) {
+                    n = cut;
+                }
+            }
+
+            Matcher matcher = pattern.matcher(CharBuffer.wrap(window, 0, n));
+            matcher.useTransparentBounds(true);
+            matcher.useAnchoringBounds(false);
+            matcher.region(lead, n);
+
+            /*
+                appendReplacement adds the text since the last match before the
+                replacement, which is cut off again.
+            */
+            int base        = pos - lead;
+            int appended    = 0;
+            while(matcher.find()) {
+                int start = base + matcher.start();
+                if(start >= to) {
+                    break;
+                }
+                if(matcher.end() > matcher.start() && start >= next) {
+                    if(replacements == null) {
+                        out.add(start, base + matcher.end());
+                    } else {
+                        replaced.setLength(0);
+                        matcher.appendReplacement(replaced, replacement);
+                        replacements.add(start, base + matcher.end(),
+                                         replaced.subSequence(matcher.start() - appended,
+                                                              replaced.length()));
+                        appended = matcher.end();
+                    }
+                    next = base + matcher.end();
+                }
+            }
+
+            pos = base + n;
+        }
+
+    }
+
+}
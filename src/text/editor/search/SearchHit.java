@@ -0,0 +1,118 @@
+package text.editor.search;
+
+
+/**
+ * A match that is shown in a list of search results, with the line it is on
+ * and a piece of that line to show it in.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public final class SearchHit {
+
+
+    /** The line the match starts on, counting from 0. */
+    private final int line;
+
+
+    /** The offset the match starts at. */
+    private final int start;
+
+
+    /** The offset after the last character of the match. */
+    private final int end;
+
+
+    /** The line the match starts on, or the part of it around the match. */
+    private final String preview;
+
+
+    /** Where the match starts and ends in the preview. */
+    private final int previewStart, previewEnd;
+
+
+    /**
+     * Constructor for a SearchHit.
+     *
+     * @param line          The line the match starts on, counting from 0.
+     * @param start         The offset the match starts at.
+     * @param end           The offset after the last character of the match.
+     * @param preview       The line, or the part of it around the match.
+     * @param previewStart  Where the match starts in the preview.
+     * @param previewEnd    Where the match ends in the preview, at most its
+     *                      length.
+     */
+    public SearchHit(int line, int start, int end, String preview, int previewStart, int previewEnd) {
+        this.line           = line;
+        this.start          = start;
+        this.end            = end;
+        this.preview        = preview;
+        this.previewStart   = previewStart;
+        this.previewEnd     = previewEnd;
+    }
+
+
+    /**
+     * Returns the line the match starts on.
+     *
+     * @return          The line, counting from 0.
+     */
+    public int getLine() {
+        return line;
+    }
+
+
+    /**
+     * Returns the offset the match starts at.
+     *
+     * @return          The offset.
+     */
+    public int getStart() {
+        return start;
+    }
+
+
+    /**
+     * Returns the offset after the last character of the match.
+     *
+     * @return          The offset.
+     */
+    public int getEnd() {
+        return end;
+    }
+
+
+    /**
+     * Returns the line the match starts on, or the part of it around the
+     * match if the line is long.
+     *
+     * @return          The text, without the line break.
+     */
+    public String getPreview() {
+        return preview;
+    }
+
+
+    /**
+     * Returns where the match starts in the preview.
+     *
+     * @return          The index in the preview.
+     */
+    public int getPreviewStart() {
+        return previewStart;
+    }
+
+
+    /**
+     * Returns where the match ends in the preview, which is at the end of the
+     * preview if the match goes on past the line.
+     *
+     * @return          The index in the preview.
+     */
+    public int getPreviewEnd() {
+        return previewEnd;
+    }
+
+}
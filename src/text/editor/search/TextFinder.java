@@ -0,0 +1,105 @@
+package text.editor.search;
+
+import java.util.regex.PatternSyntaxException;
+import text.editor.model.Replacements;
+import text.editor.model.TextBuffer;
+
+
+/**
+ * Finds the matches of what the user searches for in a text.
+ *
+ * The text is never turned into one String. It is copied out of the
+ * TextBuffer, usually a TextSnapshot of a document, one block at a time into
+ * an array that is reused, and the block is searched in place. Matches do not
+ * overlap: the next match is looked for after the end of the last one.
+ *
+ * A search checks between blocks whether its thread was interrupted, and
+ * stops with an InterruptedException if it was, so a search that is no
+ * longer wanted can be cancelled by cancelling its Future. The same goes
+ * for finding what to replace.
+ *
+ * Created on:  October 17, 2026
+ * Edited on:   October 17, 2026
+ *
+ * @author Jackie Chan
+ */
+public abstract class TextFinder {
+
+
+    /**
+     * Creates a finder for text or for a regular expression.
+     *
+     * @param pattern   What to look for, not empty.
+     * @param matchCase Whether upper and lower case letters are different.
+     * @param regex     Whether the pattern is a regular expression.
+     * @return          The finder.
+     * @throws PatternSyntaxException if the regular expression is invalid.
+     * @throws IllegalArgumentException if the pattern is empty.
+     */
+    public static TextFinder of(String pattern, boolean matchCase, boolean regex) {
+
+        if(pattern.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to find");
+        }
+
+        return regex ? new RegexFinder(pattern, matchCase)
+                     : new LiteralFinder(pattern, matchCase);
+    }
+
+
+    /**
+     * Finds the matches that start in a range of a text, and adds them to a
+     * list in the order they are in the text. A match may end after the end
+     * of the range.
+     *
+     * @param text      The text, which must not change while it is searched.
+     * @param from      The offset of the first character a match may start at.
+     * @param to        The offset after the last character a match may start
+     *                  at.
+     * @param out       The list to add the matches to.
+     * @throws InterruptedException if the thread was interrupted.
+     */
+    public abstract void find(TextBuffer text, int from, int to, MatchList out)
+            throws InterruptedException;
+
+
+    /**
+     * Finds every match of a text and what to replace it with.
+     *
+     * @param text          The text, which must not change while it is
+     *                      searched.
+     * @param replacement   What to replace a match with. For a regular
+     *                      expression, $ and \ work the way they do in
+     *                      Matcher.appendReplacement.
+     * @return              The matches and their replacements.
+     * @throws InterruptedException if the thread was interrupted.
+     * @throws IllegalArgumentException if the replacement refers to a group
+     *                      that does not exist or ends with a \.
+     */
+    public Replacements replaceAll(TextBuffer text, String replacement)
+            throws InterruptedException {
+
+        MatchList matches = new MatchList();
+        find(text, 0, text.length(), matches);
+
+        Replacements replacements = new Replacements(replacement);
+        for(int i = 0; i < matches.size(); i++) {
+            replacements.add(matches.getStart(i), matches.getEnd(i));
+        }
+
+        return replacements;
+    }
+
+
+    /**
+     * Stops a search if its thread was interrupted.
+     *
+     * @throws InterruptedException if the thread was interrupted.
+     */
+    static void checkInterrupted() throws InterruptedException {
+        if(Thread.interrupted()) {
+            throw new InterruptedException("Search cancelled");
+        }
+    }
+
+}
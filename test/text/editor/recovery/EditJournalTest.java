@@ -0,0 +1,130 @@
+package text.editor.recovery;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import text.editor.io.TextEncoding;
+import text.editor.model.PieceTableDocument;
+
+import static org.junit.Assert.assertEquals;
+
+
+/**
+ * Crashes in the middle of editing a plain text file and checks that the
+ * edit journal brings the text back.
+ *
+ * Created on:  October 18, 2026
+ * Edited on:   October 18, 2026
+ *
+ * @author Jackie Chan
+ */
+public class EditJournalTest {
+
+
+    /** How long to wait for the journal writer to write everything. */
+    private static final long WRITE_DELAY_MILLIS = 2500;
+
+
+    /** The file that is edited. */
+    private File file;
+
+
+    /** The journal of the document. */
+    private File journalFile;
+
+
+    /**
+     * Creates the file and finds a place for the journal.
+     *
+     * @throws IOException if the files can not be created.
+     */
+    @Before
+    public void createFiles() throws IOException {
+        file        = File.createTempFile("journal-test-", ".txt");
+        journalFile = File.createTempFile("journal-test-", ".journal");
+        journalFile.delete();
+    }
+
+
+    /**
+     * Deletes the files.
+     */
+    @After
+    public void deleteFiles() {
+        file.delete();
+        journalFile.delete();
+    }
+
+
+    /**
+     * Edits a file, saves it while the user is still typing and crashes. The
+     * first edit names the file in the checkpoint of the journal, and the save
+     * overwrites that file while the document is still modified.
+     *
+     * @throws Exception if the test fails.
+     */
+    @Test
+    public void replaysEditsMadeWhileSaving() throws Exception {
+
+        TextEncoding encoding = TextEncoding.DEFAULT;
+        write("one\ntwo\n", encoding);
+
+        PieceTableDocument doc  = new PieceTableDocument("one\ntwo\n");
+        EditJournal journal     = new EditJournal(journalFile);
+        journal.pathChanged(file.getPath());
+        journal.saved(doc, file, encoding, false);
+
+        insert(journal, doc, 4, "2 ");
+        Thread.sleep(WRITE_DELAY_MILLIS);
+
+        // The save takes its snapshot, and the user types on while it runs.
+        String saved = doc.getText(0, doc.getLength());
+        insert(journal, doc, doc.getLength(), "three");
+        write(saved, encoding);
+        journal.saved(doc, file, encoding, true);
+
+        insert(journal, doc, doc.getLength(), "\n");
+        Thread.sleep(WRITE_DELAY_MILLIS);
+
+        // Crash: the journal is replayed as it is on the disk.
+        JournalReplay replay    = JournalReplay.replay(journalFile);
+        Document recovered      = replay.getDocument();
+
+        assertEquals("one\n2 two\nthree\n", recovered.getText(0, recovered.getLength()));
+        assertEquals(file.getPath(), replay.getFilePath());
+    }
+
+
+    /**
+     * Inserts text into the document and records it, like the text pane does.
+     *
+     * @param journal   The journal.
+     * @param doc       The document.
+     * @param offset    Where to insert the text.
+     * @param text      The text.
+     * @throws BadLocationException if the offset is not in the document.
+     */
+    private static void insert(EditJournal journal, Document doc, int offset, String text)
+            throws BadLocationException {
+        doc.insertString(offset, text, null);
+        journal.insert(doc, offset, text);
+    }
+
+
+    /**
+     * Writes text to the file, like a save does.
+     *
+     * @param text      The text.
+     * @param encoding  The encoding of the file.
+     * @throws IOException if the file can not be written.
+     */
+    private void write(String text, TextEncoding encoding) throws IOException {
+        Files.write(file.toPath(), text.getBytes(encoding.getCharset()));
+    }
+
+}